@@ -0,0 +1,146 @@
+package org.lite.product.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.lite.product.jfr.JsonSerializationEvent;
+import org.lite.product.model.ProductAvailabilityResponse;
+import org.lite.product.model.ProductInfo;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-product cache of serialized JSON, so unchanged products are not re-serialized on every read.
+ * <p>
+ * An entry is only served for the product value it was produced from (same instance, or an equal one for
+ * engines that build fresh views), so a reader can never get JSON for a different version than the one it
+ * read from the repository. The write endpoints also invalidate entries to release stale bytes early.
+ * Stored products must not be mutated in place.
+ */
+@Component
+public class ProductJsonCache {
+
+    // Field order matches Jackson's serialization of ProductAvailabilityResponse
+    private static final byte[] ENVELOPE_START = "{\"products\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ENVELOPE_TIMESTAMP = "],\"timestamp\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ENVELOPE_END =
+            ",\"serviceSource\":\"product-service\",\"productStatus\":null}".getBytes(StandardCharsets.UTF_8);
+    private static final String ENVELOPE_TYPE = ProductAvailabilityResponse.class.getSimpleName();
+    // At about 256 bytes per product, presizing stops at a 16 MB buffer
+    private static final int MAX_PRESIZED_PRODUCTS = 1 << 16;
+
+    private record Entry(ProductInfo source, byte[] json) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final ProductJsonCacheProperties properties;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ProductJsonCache(ObjectMapper objectMapper, ProductJsonCacheProperties properties) {
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    /**
+     * Returns the JSON bytes of one product. The returned array is shared and must not be modified.
+     */
+    public byte[] json(ProductInfo product) {
+        if (!properties.isEnabled() || product.getId() == null) {
+            return serialize(product);
+        }
+        Entry entry = entries.get(product.getId());
+        if (entry != null && (entry.source() == product || entry.source().equals(product))) {
+            hits.increment();
+            return entry.json();
+        }
+        misses.increment();
+        byte[] json = serialize(product);
+        if (entry != null || entries.size() < properties.getMaxEntries()) {
+            entries.put(product.getId(), new Entry(product, json));
+        }
+        return json;
+    }
+
+    public void invalidate(String productId) {
+        entries.remove(productId);
+    }
+
+    /**
+     * Builds a complete ProductAvailabilityResponse document around the cached product fragments.
+     */
+    public byte[] envelope(Collection<ProductInfo> products) {
+        return envelope(products, products.size(), true);
+    }
+
+    /**
+     * Same as {@link #envelope(Collection)} for products that are iterated rather than collected first, such as a
+     * catalog snapshot. The buffer is not presized, because counting some engines' products walks the catalog.
+     */
+    public byte[] envelope(Iterable<ProductInfo> products) {
+        return envelope(products, 0, true);
+    }
+
+    /**
+     * Same as {@link #envelope(Collection)} for product values that only live for one request, such as products
+     * enriched with inventory data, which are serialized without displacing the cached stored products.
+     */
+    public byte[] transientEnvelope(Collection<ProductInfo> products) {
+        return envelope(products, products.size(), false);
+    }
+
+    private byte[] envelope(Iterable<ProductInfo> products, int expectedSize, boolean cached) {
+        JsonSerializationEvent event = new JsonSerializationEvent();
+        event.start();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + Math.min(expectedSize, MAX_PRESIZED_PRODUCTS) * 256);
+        int count = 0;
+        String productId = null;
+        try {
+            out.write(ENVELOPE_START);
+            for (ProductInfo product : products) {
+                if (count > 0) {
+                    out.write(',');
+                }
+                out.write(cached ? json(product) : serialize(product));
+                productId = count == 0 ? product.getId() : null;
+                count++;
+            }
+            out.write(ENVELOPE_TIMESTAMP);
+            out.write(objectMapper.writeValueAsBytes(LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME)));
+            out.write(ENVELOPE_END);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] json = out.toByteArray();
+        event.finish(ENVELOPE_TYPE, productId, count, json.length);
+        return json;
+    }
+
+    public Map<String, Double> metrics() {
+        Map<String, Double> metrics = new LinkedHashMap<>();
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        metrics.put("jsonCache.entries", (double) entries.size());
+        metrics.put("jsonCache.hitRatio", total == 0 ? 0.0 : Math.round(hitCount * 10_000.0 / total) / 10_000.0);
+        return metrics;
+    }
+
+    private byte[] serialize(ProductInfo product) {
+        try {
+            return objectMapper.writeValueAsBytes(product);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
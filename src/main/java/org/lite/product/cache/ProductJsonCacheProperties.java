@@ -0,0 +1,12 @@
+package org.lite.product.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "catalog.json-cache")
+public class ProductJsonCacheProperties {
+    private boolean enabled = true;
+    // Products beyond this many are serialized on every read instead of being cached
+    private int maxEntries = 100_000;
+}
@@ -0,0 +1,16 @@
+package org.lite.product.change;
+
+import org.lite.product.model.ProductInfo;
+
+import java.time.Instant;
+
+/**
+ * One committed catalog write. {@code seq} is the catalog version the write was assigned, so it doubles as the
+ * product's ETag value unless replication is enabled, and increases by exactly one from each event to the next.
+ */
+public record ChangeEvent(long seq, Type type, String productId, ProductInfo product, Instant timestamp) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+}
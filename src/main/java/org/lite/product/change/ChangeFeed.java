@@ -0,0 +1,165 @@
+package org.lite.product.change;
+
+import org.lite.product.model.ProductInfo;
+import org.lite.product.version.CatalogVersions;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded in-memory log of the most recent catalog writes, in commit order.
+ * <p>
+ * Publishing assigns the write its catalog version and appends the event under one short lock, so events are
+ * stored with consecutive sequence numbers and any sequence number can be located by arithmetic. Once the ring is
+ * full the oldest event is overwritten: writers never wait for readers, and a reader whose position has been
+ * overwritten is told to resync instead.
+ */
+@Component
+public class ChangeFeed {
+
+    /**
+     * Events after a requested sequence number. {@code resyncRequired} means some of them are no longer held, so the
+     * reader has to reload the catalog; {@code lastSeq} is the newest sequence number published so far.
+     */
+    public record Page(List<ChangeEvent> events, boolean resyncRequired, long lastSeq) {
+    }
+
+    private final CatalogVersions catalogVersions;
+    private final ChangeEvent[] ring;
+    private final LongAdder published = new LongAdder();
+
+    // ReentrantLock rather than synchronized so waiting virtual threads are not pinned
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    // Guarded by lock: ring index of the oldest event and number of events held
+    private int head;
+    private int count;
+
+    public ChangeFeed(CatalogVersions catalogVersions, ChangeFeedProperties properties) {
+        this.catalogVersions = catalogVersions;
+        this.ring = new ChangeEvent[Math.max(1, properties.getCapacity())];
+    }
+
+    /**
+     * Records a created or updated product and returns the event, whose sequence number is the product's new version.
+     */
+    public ChangeEvent publishWrite(ProductInfo product, boolean created) {
+        lock.lock();
+        try {
+            long seq = catalogVersions.recordWrite(product.getId());
+            return append(new ChangeEvent(seq, created ? ChangeEvent.Type.CREATED : ChangeEvent.Type.UPDATED,
+                    product.getId(), product, Instant.now()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a deleted product as a tombstone event and returns it.
+     */
+    public ChangeEvent publishDelete(String productId) {
+        lock.lock();
+        try {
+            long seq = catalogVersions.recordDelete(productId);
+            return append(new ChangeEvent(seq, ChangeEvent.Type.DELETED, productId, null, Instant.now()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} events with a sequence number above {@code afterSeq}, without waiting.
+     */
+    public Page readAfter(long afterSeq, int limit) {
+        lock.lock();
+        try {
+            return page(afterSeq, limit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Like {@link #readAfter}, but waits up to {@code timeout} for an event to arrive if there is none yet.
+     */
+    public Page awaitAfter(long afterSeq, int limit, Duration timeout) throws InterruptedException {
+        long remaining = timeout.toNanos();
+        lock.lockInterruptibly();
+        try {
+            Page page = page(afterSeq, limit);
+            while (page.events().isEmpty() && !page.resyncRequired() && remaining > 0) {
+                remaining = appended.awaitNanos(remaining);
+                page = page(afterSeq, limit);
+            }
+            return page;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sequence number of the newest change; reading from it returns only changes made after this call.
+     */
+    public long lastSeq() {
+        lock.lock();
+        try {
+            return catalogVersions.catalogVersion();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long publishedCount() {
+        return published.sum();
+    }
+
+    public int bufferedCount() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ChangeEvent append(ChangeEvent event) {
+        if (count < ring.length) {
+            ring[(head + count++) % ring.length] = event;
+        } else {
+            ring[head] = event;
+            head = (head + 1) % ring.length;
+        }
+        published.increment();
+        appended.signalAll();
+        return event;
+    }
+
+    private Page page(long afterSeq, int limit) {
+        long lastSeq = catalogVersions.catalogVersion();
+        if (afterSeq == lastSeq) {
+            return new Page(List.of(), false, lastSeq);
+        }
+        // Not issued here: a cursor from another replica or an earlier run, see CatalogVersions
+        if (afterSeq > lastSeq) {
+            return new Page(List.of(), true, lastSeq);
+        }
+        // Versions assigned outside the feed (products loaded at startup) are never in the ring either
+        long oldestSeq = count == 0 ? lastSeq + 1 : ring[head].seq();
+        if (afterSeq < oldestSeq - 1) {
+            return new Page(List.of(), true, lastSeq);
+        }
+        int offset = (int) (afterSeq + 1 - oldestSeq);
+        int size = Math.max(0, Math.min(limit, count - offset));
+        List<ChangeEvent> events = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            events.add(ring[(head + offset + i) % ring.length]);
+        }
+        return new Page(events, false, lastSeq);
+    }
+}
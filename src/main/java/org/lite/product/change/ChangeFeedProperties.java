@@ -0,0 +1,18 @@
+package org.lite.product.change;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "catalog.change-feed")
+public class ChangeFeedProperties {
+    // Number of recent changes kept in memory; a subscriber that falls further behind is dropped
+    private int capacity = 10_000;
+    private int maxSubscribers = 256;
+    // Comment line sent to idle subscribers, so dead connections are noticed
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+    // Streams are closed after this long; clients reconnect with Last-Event-ID
+    private Duration sessionTimeout = Duration.ofMinutes(30);
+}
@@ -0,0 +1,123 @@
+package org.lite.product.change;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serves the {@link ChangeFeed} to Server-Sent Events subscribers.
+ * <p>
+ * Every subscriber gets its own virtual thread that follows the feed from its own position, so a slow connection
+ * only ever blocks itself. Writers never wait for subscribers: a subscriber that falls so far behind that its
+ * position has left the ring is sent a {@code resync} event and disconnected.
+ */
+@Component
+@Slf4j
+public class ChangeFeedStreamer {
+
+    private static final int SEND_BATCH = 256;
+
+    private final ChangeFeed changeFeed;
+    private final ChangeFeedProperties properties;
+    private final Set<Thread> subscribers = ConcurrentHashMap.newKeySet();
+    // One permit per subscriber slot, taken before a stream is opened so concurrent connects cannot pass the limit
+    private final Semaphore slots;
+    private final AtomicInteger subscriberIds = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+
+    public ChangeFeedStreamer(ChangeFeed changeFeed, ChangeFeedProperties properties) {
+        this.changeFeed = changeFeed;
+        this.properties = properties;
+        this.slots = new Semaphore(properties.getMaxSubscribers());
+    }
+
+    /**
+     * Opens a stream of the changes after {@code lastEventId}, or of changes from now on when it is null.
+     * Returns null when the subscriber limit is reached.
+     */
+    public SseEmitter subscribe(Long lastEventId) {
+        if (!slots.tryAcquire()) {
+            return null;
+        }
+        try {
+            long start = lastEventId != null ? lastEventId : changeFeed.lastSeq();
+            SseEmitter emitter = new SseEmitter(properties.getSessionTimeout().toMillis());
+            Thread subscriber = Thread.ofVirtual()
+                    .name("change-feed-subscriber-" + subscriberIds.incrementAndGet())
+                    .unstarted(() -> follow(emitter, start));
+            subscribers.add(subscriber);
+            emitter.onCompletion(subscriber::interrupt);
+            emitter.onTimeout(subscriber::interrupt);
+            emitter.onError(error -> subscriber.interrupt());
+            subscriber.start();
+            return emitter;
+        } catch (RuntimeException e) {
+            // The subscriber thread never ran, so it will not give the slot back
+            slots.release();
+            throw e;
+        }
+    }
+
+    public Map<String, Double> metrics() {
+        Map<String, Double> metrics = new LinkedHashMap<>();
+        metrics.put("changeFeed.subscribers", (double) subscribers.size());
+        metrics.put("changeFeed.droppedSubscribers", (double) dropped.sum());
+        metrics.put("changeFeed.publishedEvents", (double) changeFeed.publishedCount());
+        metrics.put("changeFeed.bufferedEvents", (double) changeFeed.bufferedCount());
+        return metrics;
+    }
+
+    @PreDestroy
+    public void close() {
+        subscribers.forEach(Thread::interrupt);
+    }
+
+    private void follow(SseEmitter emitter, long start) {
+        long cursor = start;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                ChangeFeed.Page page = changeFeed.awaitAfter(cursor, SEND_BATCH, properties.getHeartbeatInterval());
+                if (page.resyncRequired()) {
+                    log.warn("Dropping change feed subscriber {} at seq {}, {} behind the newest change",
+                            Thread.currentThread().getName(), cursor, page.lastSeq() - cursor);
+                    dropped.increment();
+                    emitter.send(SseEmitter.event().name("resync").data(Map.of("lastSeq", page.lastSeq()),
+                            MediaType.APPLICATION_JSON));
+                    emitter.complete();
+                    return;
+                }
+                if (page.events().isEmpty()) {
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                    continue;
+                }
+                for (ChangeEvent event : page.events()) {
+                    emitter.send(SseEmitter.event()
+                            .id(Long.toString(event.seq()))
+                            .name(event.type().name().toLowerCase(Locale.ROOT))
+                            .data(event, MediaType.APPLICATION_JSON));
+                    cursor = event.seq();
+                }
+            }
+        } catch (InterruptedException e) {
+            // Stream completed, timed out or the service is shutting down
+        } catch (IOException | IllegalStateException e) {
+            // The client went away; the emitter is already unusable
+            log.debug("Change feed subscriber {} disconnected: {}", Thread.currentThread().getName(), e.getMessage());
+        } finally {
+            subscribers.remove(Thread.currentThread());
+            slots.release();
+        }
+    }
+}
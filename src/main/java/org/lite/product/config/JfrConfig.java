@@ -0,0 +1,17 @@
+package org.lite.product.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.lite.product.jfr.RecordedJsonHttpMessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+@Configuration
+public class JfrConfig {
+
+    // Takes the place of Spring Boot's JSON converter for request and response bodies
+    @Bean
+    MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new RecordedJsonHttpMessageConverter(objectMapper);
+    }
+}
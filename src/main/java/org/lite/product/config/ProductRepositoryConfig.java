@@ -0,0 +1,20 @@
+package org.lite.product.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.lite.product.repository.CatalogStorageProperties;
+import org.lite.product.repository.ProductRepository;
+import org.lite.product.repository.ProductStorageEngine;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+public class ProductRepositoryConfig {
+
+    @Bean
+    public ProductRepository productRepository(CatalogStorageProperties properties) {
+        ProductStorageEngine engine = properties.getEngine();
+        log.info("Using catalog storage engine {}", engine);
+        return engine.create();
+    }
+}
@@ -1,9 +1,11 @@
 package org.lite.product.config;
 
 import lombok.extern.slf4j.Slf4j;
+import org.lite.product.interceptor.OutboundCallRecordingInterceptor;
 import org.lite.product.interceptor.ServiceNameInterceptor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.http.converter.StringHttpMessageConverter;
@@ -30,8 +32,9 @@ public class RestTemplateConfig {
     @Bean
     public RestTemplate restTemplate() {
         // Create connection manager with default SSL settings
+        // Nearly every call goes to one route (the gateway, or a peer shard), so a route may use the whole pool
         HttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
-                .setMaxConnPerRoute(20)
+                .setMaxConnPerRoute(100)
                 .setMaxConnTotal(100)
                 .build();
 
@@ -74,6 +77,9 @@ public class RestTemplateConfig {
         // Configure interceptors
         List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
 
+        // Add the flight recorder interceptor first, so it times the call through the others
+        interceptors.add(new OutboundCallRecordingInterceptor());
+
         // Add ServiceNameInterceptor
         interceptors.add(new ServiceNameInterceptor());
 
@@ -84,7 +90,10 @@ public class RestTemplateConfig {
                 Jwt jwt = (Jwt) authentication.getCredentials();
                 String token = jwt.getTokenValue();
 
-                request.getHeaders().setBearerAuth(token);
+                // Calls made on the service's own behalf, such as to peer shards, keep their own token
+                if (!request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION)) {
+                    request.getHeaders().setBearerAuth(token);
+                }
                 request.getHeaders().set("X-User-Token", token);
                 request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
                 request.getHeaders().setAccept(List.of(
@@ -97,7 +106,8 @@ public class RestTemplateConfig {
                 log.info("Forwarding token to API Gateway. Token type: {}, Issuer: {}",
                         jwt.getHeaders().get("typ"),
                         jwt.getClaim("iss"));
-            } else {
+            } else if (!request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION)) {
+                // Calls made on the service's own behalf bring their own token
                 log.warn("No JWT token found in SecurityContext");
             }
 
@@ -1,17 +1,29 @@
 package org.lite.product.config;
 
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.lite.product.filter.JwtRoleValidationFilter;
+import org.lite.product.security.AuthorizationPolicy;
+import org.lite.product.security.CachingJwtDecoder;
+import org.lite.product.security.JwtCacheProperties;
+import org.lite.product.security.PrefetchingJwkSource;
+import org.lite.product.security.X509PrincipalCache;
 import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
 import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
-import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.web.SecurityFilterChain;
@@ -25,31 +37,45 @@ public class SecurityConfig {
 
     //It will be called even though you don't use it here, so don't remove it
     private final JwtRoleValidationFilter jwtRoleValidationFilter;
+    private final X509PrincipalCache x509PrincipalCache;
 
     @Bean
-    JwtDecoder jwtDecoder(OAuth2ResourceServerProperties properties) {
-        NimbusJwtDecoder decoder = NimbusJwtDecoder.withJwkSetUri(properties.getJwt().getJwkSetUri()).build();
-        decoder.setJwtValidator(new DelegatingOAuth2TokenValidator<>(
+    PrefetchingJwkSource jwkSource(OAuth2ResourceServerProperties properties, JwtCacheProperties cacheProperties) {
+        return new PrefetchingJwkSource(properties.getJwt().getJwkSetUri(), cacheProperties);
+    }
+
+    @Bean
+    CachingJwtDecoder jwtDecoder(PrefetchingJwkSource jwkSource, AuthorizationPolicy authorizationPolicy,
+                                 JwtCacheProperties cacheProperties) {
+        // Keys come from the prefetched set, so verifying a token never waits for the authorization server
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkSource));
+        // Claims are checked by the validator below instead
+        processor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+        NimbusJwtDecoder decoder = new NimbusJwtDecoder(processor);
+        OAuth2TokenValidator<Jwt> validator = new DelegatingOAuth2TokenValidator<>(
                 // Skip issuer validation or validate against multiple issuers
                 token -> OAuth2TokenValidatorResult.success(),
                 new JwtTimestampValidator()
-        ));
-        return decoder;
+        );
+        decoder.setJwtValidator(validator);
+        CachingJwtDecoder cachingDecoder = new CachingJwtDecoder(decoder, validator, authorizationPolicy,
+                cacheProperties);
+        // Tokens signed by a withdrawn key must not outlive it in the cache
+        jwkSource.onKeysRemoved(cachingDecoder::invalidateAll);
+        return cachingDecoder;
     }
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
                 .x509(x509 -> x509
-                        .subjectPrincipalRegex("CN=(.*?)(?:,|$)")  // Extract CN from the certificate
-                        .x509PrincipalExtractor((principal -> {
-                                    String dn = principal.getSubjectX500Principal().getName();
-                                    log.info("Certificate DN: {}", dn);
-                                    String cn = dn.split(",")[0].replace("CN=", "");
-                                    log.info("Extracted CN: {}", cn);
-                                    return cn;
-                                })
-                        ))
+                        .x509PrincipalExtractor(x509PrincipalCache)  // CN of the certificate, once per certificate
+                        // A certificate only identifies the caller; roles still come from the JWT
+                        .authenticationUserDetailsService(token ->
+                                new User(token.getName(), "", AuthorityUtils.NO_AUTHORITIES))
+                )
                 .authorizeHttpRequests(authorize -> authorize
                         .requestMatchers("/r/product-service/**")  // Update the path to match your actual endpoint
                         .permitAll()
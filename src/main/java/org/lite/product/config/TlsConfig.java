@@ -0,0 +1,42 @@
+package org.lite.product.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.http11.AbstractHttp11JsseProtocol;
+import org.apache.tomcat.util.net.SSLHostConfig;
+import org.lite.product.tls.HandshakeMetrics;
+import org.lite.product.tls.MeteredJsseImplementation;
+import org.lite.product.tls.TlsProperties;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+public class TlsConfig {
+
+    @Bean
+    HandshakeMetrics handshakeMetrics() {
+        return HandshakeMetrics.shared();
+    }
+
+    @Bean
+    WebServerFactoryCustomizer<TomcatServletWebServerFactory> tlsSessionCustomizer(TlsProperties properties) {
+        // Connector customizers run after Spring Boot has applied server.ssl, so the host configs exist
+        return factory -> factory.addConnectorCustomizers(connector -> {
+            if (!(connector.getProtocolHandler() instanceof AbstractHttp11JsseProtocol<?> protocol)
+                    || !protocol.isSSLEnabled()) {
+                return;
+            }
+            for (SSLHostConfig host : protocol.findSslHostConfigs()) {
+                host.setSessionCacheSize(properties.getSessionCacheSize());
+                host.setSessionTimeout((int) properties.getSessionTimeout().toSeconds());
+            }
+            if (properties.isHandshakeMetrics()) {
+                protocol.setSslImplementationName(MeteredJsseImplementation.class.getName());
+            }
+            log.info("TLS sessions: cache of {} for {}, handshake metrics {}", properties.getSessionCacheSize(),
+                    properties.getSessionTimeout(), properties.isHandshakeMetrics() ? "on" : "off");
+        });
+    }
+}
@@ -0,0 +1,20 @@
+package org.lite.product.config;
+
+import lombok.AllArgsConstructor;
+import org.lite.product.interceptor.RequestMetricsInterceptor;
+import org.lite.product.metrics.RequestMetrics;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@AllArgsConstructor
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final RequestMetrics requestMetrics;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RequestMetricsInterceptor(requestMetrics));
+    }
+}
@@ -1,13 +1,27 @@
 package org.lite.product.controller;
 
 import lombok.extern.slf4j.Slf4j;
+import org.lite.product.cache.ProductJsonCache;
+import org.lite.product.change.ChangeFeedStreamer;
+import org.lite.product.inventory.InventoryEnricher;
+import org.lite.product.metrics.RequestMetrics;
+import org.lite.product.model.EndpointMetrics;
 import org.lite.product.model.HealthStatus;
+import org.lite.product.persistence.CatalogPersistence;
+import org.lite.product.replication.CatalogReplicator;
+import org.lite.product.security.CachingJwtDecoder;
+import org.lite.product.security.PrefetchingJwkSource;
+import org.lite.product.security.X509PrincipalCache;
+import org.lite.product.sharding.ShardForwarder;
+import org.lite.product.threading.VirtualThreadMonitor;
+import org.lite.product.tls.HandshakeMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -22,6 +36,7 @@ import java.lang.management.OperatingSystemMXBean;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Tag(name = "Health", description = "Health check APIs")
@@ -34,6 +49,39 @@ public class HealthController {
 
     private final Instant startTime = Instant.now();
 
+    private final CatalogPersistence catalogPersistence;
+    private final ProductJsonCache productJsonCache;
+    private final ChangeFeedStreamer changeFeedStreamer;
+    private final CatalogReplicator catalogReplicator;
+    private final ShardForwarder shardForwarder;
+    private final InventoryEnricher inventoryEnricher;
+    private final VirtualThreadMonitor virtualThreadMonitor;
+    private final CachingJwtDecoder jwtDecoder;
+    private final PrefetchingJwkSource jwkSource;
+    private final X509PrincipalCache x509PrincipalCache;
+    private final HandshakeMetrics handshakeMetrics;
+    private final RequestMetrics requestMetrics;
+
+    public HealthController(CatalogPersistence catalogPersistence, ProductJsonCache productJsonCache,
+                            ChangeFeedStreamer changeFeedStreamer, CatalogReplicator catalogReplicator,
+                            ShardForwarder shardForwarder, InventoryEnricher inventoryEnricher,
+                            VirtualThreadMonitor virtualThreadMonitor, CachingJwtDecoder jwtDecoder,
+                            PrefetchingJwkSource jwkSource, X509PrincipalCache x509PrincipalCache,
+                            HandshakeMetrics handshakeMetrics, RequestMetrics requestMetrics) {
+        this.catalogPersistence = catalogPersistence;
+        this.productJsonCache = productJsonCache;
+        this.changeFeedStreamer = changeFeedStreamer;
+        this.catalogReplicator = catalogReplicator;
+        this.shardForwarder = shardForwarder;
+        this.inventoryEnricher = inventoryEnricher;
+        this.virtualThreadMonitor = virtualThreadMonitor;
+        this.jwtDecoder = jwtDecoder;
+        this.jwkSource = jwkSource;
+        this.x509PrincipalCache = x509PrincipalCache;
+        this.handshakeMetrics = handshakeMetrics;
+        this.requestMetrics = requestMetrics;
+    }
+
     @Operation(
             summary = "Get service health status",
             description = "Retrieves detailed health information including memory usage, CPU load, and uptime"
@@ -54,7 +102,7 @@ public class HealthController {
                         "metrics": {
                             "cpu": 0.75,
                             "memory": 65.5,
-                            "responseTime": 0.0
+                            "responseTime": 4.2
                         }
                     }
                     """)
@@ -100,7 +148,21 @@ public class HealthController {
             Map<String, Double> metrics = new HashMap<>();
             metrics.put("cpu", osBean.getSystemLoadAverage());
             metrics.put("memory", Math.round(memoryUsage * 100.0) / 100.0); // Round to 2 decimal places
-            metrics.put("responseTime", measureResponseTime());
+            Map<String, Double> requests = requestMetrics.metrics();
+            // Mean latency of the requests served over the last metrics window
+            metrics.put("responseTime", requests.get("http.meanMs"));
+            metrics.putAll(requests);
+            metrics.putAll(catalogPersistence.metrics());
+            metrics.putAll(productJsonCache.metrics());
+            metrics.putAll(changeFeedStreamer.metrics());
+            metrics.putAll(catalogReplicator.metrics());
+            metrics.putAll(shardForwarder.metrics());
+            metrics.putAll(inventoryEnricher.metrics());
+            metrics.putAll(virtualThreadMonitor.metrics());
+            metrics.putAll(jwtDecoder.metrics());
+            metrics.putAll(jwkSource.metrics());
+            metrics.putAll(x509PrincipalCache.metrics());
+            metrics.putAll(handshakeMetrics.metrics());
             status.setMetrics(metrics);
 
             return ResponseEntity
@@ -123,6 +185,28 @@ public class HealthController {
         }
     }
 
+    @Operation(
+            summary = "Get request metrics per endpoint",
+            description = "Request rates, error rates, requests in flight and latency percentiles (p50, p90, p99, "
+                    + "p99.9) of every endpoint that has served a request, over the last metrics window and since "
+                    + "startup"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Request metrics retrieved successfully",
+            content = @Content(
+                    mediaType = "application/json",
+                    array = @ArraySchema(schema = @Schema(implementation = EndpointMetrics.class))
+            )
+    )
+    @GetMapping(
+            path = "/metrics",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<List<EndpointMetrics>> getMetrics() {
+        return ResponseEntity.ok(requestMetrics.endpoints());
+    }
+
     private boolean isHealthy() {
         try {
             OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
@@ -152,12 +236,4 @@ public class HealthController {
 
         return String.format("%dd %dh %dm %ds", days, hours, minutes, seconds);
     }
-
-    private double measureResponseTime() {
-        long start = System.nanoTime();
-        // Perform a simple operation to measure baseline response time
-        Runtime.getRuntime().freeMemory();
-        long end = System.nanoTime();
-        return (end - start) / 1_000_000.0; // Convert to milliseconds
-    }
-}
\ No newline at end of file
+}
@@ -1,12 +1,40 @@
 package org.lite.product.controller;
 
 import lombok.extern.slf4j.Slf4j;
+import org.lite.product.cache.ProductJsonCache;
+import org.lite.product.change.ChangeEvent;
+import org.lite.product.change.ChangeFeed;
+import org.lite.product.change.ChangeFeedStreamer;
+import org.lite.product.index.ProductQuery;
+import org.lite.product.index.ProductQueryIndex;
+import org.lite.product.index.ProductSearchIndex;
+import org.lite.product.inventory.InventoryEnricher;
+import org.lite.product.jfr.CatalogOperationEvent;
+import org.lite.product.model.BatchItemResult;
+import org.lite.product.model.BatchOperation;
+import org.lite.product.model.BatchWriteRequest;
+import org.lite.product.model.BatchWriteResponse;
 import org.lite.product.model.ProductAvailabilityResponse;
 import org.lite.product.model.ProductInfo;
 import org.lite.product.model.ErrorResponse;
+import org.lite.product.model.MultiGetRequest;
+import org.lite.product.model.MultiGetResponse;
+import org.lite.product.model.ProductChangesResponse;
+import org.lite.product.model.ProductPageResponse;
+import org.lite.product.persistence.CatalogPersistence;
+import org.lite.product.repository.ProductRepository;
+import org.lite.product.repository.ProductView;
+import org.lite.product.service.CatalogWriter;
+import org.lite.product.sharding.ShardForwarder;
+import org.lite.product.sharding.ShardRouter;
+import org.lite.product.version.CatalogVersions;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
@@ -17,25 +45,75 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.Parameter;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 
 @RestController
 @Slf4j
 @RequestMapping("/api/product")
 @Tag(name = "Product", description = "APIs for managing product information in the catalog")
 public class ProductController {
-    
-    // Simulated product database
-    private final Map<String, ProductInfo> productDatabase = new ConcurrentHashMap<>();
-    
-    public ProductController() {
-        // Initialize with some sample products
-        initializeProducts();
+
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 500;
+    static final int MAX_BATCH_SIZE = 1000;
+    static final int MAX_MULTI_GET_SIZE = 200;
+    static final int DEFAULT_CHANGES_LIMIT = 1000;
+    static final int MAX_CHANGES_LIMIT = 10_000;
+    private static final String CURSOR_PREFIX = "v1:";
+    // Number of products in an enriched response that came back without inventory data
+    static final String INVENTORY_MISSING_HEADER = "X-Inventory-Missing";
+
+    // Product storage engine, selected through catalog.storage.engine
+    private final ProductRepository productRepository;
+
+    private final ProductQueryIndex queryIndex;
+    private final ProductSearchIndex searchIndex;
+    private final ProductJsonCache productJsonCache;
+    private final CatalogVersions catalogVersions;
+    // All creates, updates and deletes go through the writer
+    private final CatalogWriter catalogWriter;
+    private final ChangeFeed changeFeed;
+    private final ChangeFeedStreamer changeFeedStreamer;
+    // Sends requests for keys owned by another shard there when the catalog is sharded
+    private final ShardRouter shardRouter;
+    private final ShardForwarder shardForwarder;
+    private final InventoryEnricher inventoryEnricher;
+
+    public ProductController(ProductRepository productRepository, ProductQueryIndex queryIndex,
+                             ProductSearchIndex searchIndex, CatalogPersistence catalogPersistence,
+                             ProductJsonCache productJsonCache, CatalogVersions catalogVersions,
+                             CatalogWriter catalogWriter, ChangeFeed changeFeed,
+                             ChangeFeedStreamer changeFeedStreamer, ShardRouter shardRouter,
+                             ShardForwarder shardForwarder, InventoryEnricher inventoryEnricher) {
+        this.productRepository = productRepository;
+        this.inventoryEnricher = inventoryEnricher;
+        this.shardRouter = shardRouter;
+        this.shardForwarder = shardForwarder;
+        this.changeFeed = changeFeed;
+        this.changeFeedStreamer = changeFeedStreamer;
+        this.productJsonCache = productJsonCache;
+        this.catalogVersions = catalogVersions;
+        this.catalogWriter = catalogWriter;
+        this.queryIndex = queryIndex;
+        this.searchIndex = searchIndex;
+        // Restore the durable catalog, or initialize with some sample products on first start
+        if (catalogPersistence.open(productRepository)) {
+            productRepository.all().forEach(catalogWriter::register);
+        } else {
+            initializeProducts();
+        }
     }
     
     private void initializeProducts() {
@@ -46,9 +124,9 @@ public class ProductController {
         ProductInfo product3 = new ProductInfo("P003", "Coffee Maker", "Automatic coffee machine", 
                 new BigDecimal("129.99"), "Home Appliances", false, null, null, null);
         
-        productDatabase.put(product1.getId(), product1);
-        productDatabase.put(product2.getId(), product2);
-        productDatabase.put(product3.getId(), product3);
+        catalogWriter.seed(product1);
+        catalogWriter.seed(product2);
+        catalogWriter.seed(product3);
     }
     
     @Operation(
@@ -104,19 +182,613 @@ public class ProductController {
                     """
                 )
             )
+        ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "Catalog unchanged since the ETag in If-None-Match"
         )
     })
     @GetMapping(value = "/products", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<ProductAvailabilityResponse> getAllProducts() {
+    public ResponseEntity<byte[]> getAllProducts(
+        @Parameter(description = "ETag of a cached copy; answered with 304 while the catalog is unchanged")
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("Retrieving all products");
-        List<ProductInfo> products = new ArrayList<>(productDatabase.values());
-        ProductAvailabilityResponse response = createResponse(products);
+        if (shardForwarder.scatters()) {
+            return getAllProductsFromShards();
+        }
+        // Read the version before the products, see CatalogVersions
+        long version = catalogVersions.catalogVersion();
+        String etag = CatalogVersions.etag(version);
+        if (ifNoneMatch != null && CatalogVersions.matches(ifNoneMatch, version, true)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        // A point-in-time view, so the list is consistent even while writers keep going
+        ProductView snapshot = productRepository.snapshot();
         
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .body(productJsonCache.envelope(snapshot.all()));
+    }
+
+    // Shards have no common catalog version, so the merged list carries no ETag
+    private ResponseEntity<byte[]> getAllProductsFromShards() {
+        List<ResponseEntity<ProductAvailabilityResponse>> shards =
+                shardForwarder.scatter(ProductAvailabilityResponse.class, ProductAvailabilityResponse::getProducts);
+        if (shards == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        List<ProductInfo> products = new ArrayList<>();
+        productRepository.snapshot().all().forEach(products::add);
+        for (ResponseEntity<ProductAvailabilityResponse> shard : shards) {
+            products.addAll(shard.getBody().getProducts());
+        }
+        products.sort(Comparator.comparing(ProductInfo::getId));
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(productJsonCache.envelope(products));
+    }
+    
+    @Operation(
+        summary = "Get a page of products",
+        description = "Retrieves products in ascending ID order. Pass the returned nextCursor to fetch the following page.",
+        tags = {"Product"}
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Successfully retrieved a page of products",
+            content = @Content(
+                mediaType = MediaType.APPLICATION_JSON_VALUE,
+                schema = @Schema(implementation = ProductPageResponse.class),
+                examples = @ExampleObject(
+                    value = """
+                    {
+                      "products": [
+                        {
+                          "id": "P001",
+                          "name": "Laptop",
+                          "description": "High-performance laptop",
+                          "price": 1299.99,
+                          "category": "Electronics",
+                          "inStock": false,
+                          "availableQuantity": null,
+                          "estimatedDelivery": null,
+                          "warehouseLocation": null
+                        }
+                      ],
+                      "nextCursor": "djE6UDAwMQ",
+                      "timestamp": "2024-03-19T10:30:22.123Z",
+                      "serviceSource": "product-service"
+                    }
+                    """
+                )
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Malformed cursor"
+        )
+    })
+    @GetMapping(value = "/products/page", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ProductPageResponse> getProductPage(
+        @Parameter(description = "Continuation token returned by the previous page")
+        @RequestParam(required = false) String cursor,
+        @Parameter(description = "Maximum number of products to return, capped at " + MAX_PAGE_SIZE)
+        @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+        @Parameter(description = "Fill in inventory fields from the inventory service")
+        @RequestParam(defaultValue = "false") boolean enrich) {
+        log.info("Retrieving product page, cursor: {}, limit: {}", cursor, limit);
+
+        String afterId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            afterId = decodeCursor(cursor);
+            if (afterId == null) {
+                log.warn("Malformed product page cursor: {}", cursor);
+                return ResponseEntity.badRequest().build();
+            }
+        }
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Fetch one extra product to learn whether another page follows
+        CatalogOperationEvent scan = new CatalogOperationEvent();
+        scan.start();
+        List<ProductInfo> products = productRepository.scan(afterId, pageSize + 1);
+        scan.finish("scan", afterId, products.size());
+        boolean hasMore = products.size() > pageSize;
+        if (shardForwarder.scatters()) {
+            // Every shard returns its own first page after the cursor; the page is the start of their union
+            List<ResponseEntity<ProductPageResponse>> shards = shardForwarder.scatter(ProductPageResponse.class,
+                    ProductPageResponse::getProducts);
+            if (shards == null) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
+            products = new ArrayList<>(products);
+            for (ResponseEntity<ProductPageResponse> shard : shards) {
+                products.addAll(shard.getBody().getProducts());
+                hasMore |= shard.getBody().getNextCursor() != null;
+            }
+            products.sort(Comparator.comparing(ProductInfo::getId));
+            hasMore |= products.size() > pageSize;
+        }
+        if (hasMore) {
+            products = products.subList(0, pageSize);
+        }
+        String lastId = products.isEmpty() ? null : products.get(products.size() - 1).getId();
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        ProductPageResponse response = new ProductPageResponse();
+        response.setProducts(enrich(enrich, products, builder));
+        response.setNextCursor(hasMore ? encodeCursor(lastId) : null);
+        response.setTimestamp(LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME));
+        response.setServiceSource("product-service");
+
+        return builder.body(response);
+    }
+
+    @Operation(
+        summary = "Stream all products",
+        description = "Streams every product as newline-delimited JSON while walking the catalog, without buffering the full list",
+        tags = {"Product"}
+    )
+    @ApiResponse(
+        responseCode = "200",
+        description = "Products streamed one JSON document per line",
+        content = @Content(
+            mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+            schema = @Schema(implementation = ProductInfo.class)
+        )
+    )
+    @GetMapping(value = "/products/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProducts() {
+        log.info("Streaming all products");
+        ProductView snapshot = productRepository.snapshot();
+        StreamingResponseBody body = outputStream -> {
+            for (ProductInfo product : snapshot.all()) {
+                outputStream.write(productJsonCache.json(product));
+                outputStream.write('\n');
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+    
+    @Operation(
+        summary = "Subscribe to product changes",
+        description = "Server-Sent Events stream of every create, update and delete as it is committed. Each event id is "
+                + "the catalog sequence number; reconnecting with Last-Event-ID resumes after it. A subscriber that falls "
+                + "too far behind receives a resync event and is disconnected",
+        tags = {"Product"}
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Event stream: created, updated and deleted events carrying seq, type, productId, product and "
+                    + "timestamp, keep-alive comments, and a final resync event for dropped subscribers",
+            content = @Content(
+                mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                examples = @ExampleObject(
+                    value = """
+                    id: 1742380222123005
+                    event: updated
+                    data: {"seq":1742380222123005,"type":"UPDATED","productId":"P001","product":{"id":"P001","name":"Laptop","description":"High-performance laptop","price":1199.99,"category":"Electronics","inStock":false,"availableQuantity":null,"estimatedDelivery":null,"warehouseLocation":null},"timestamp":"2024-03-19T10:30:22.123Z"}
+                    """
+                )
+            )
+        ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Too many subscribers"
+        )
+    })
+    @GetMapping(value = "/products/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeToChanges(
+        @Parameter(description = "Sequence number of the last event received, to resume after it")
+        @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        log.info("Opening product change stream after seq {}", lastEventId);
+
+        SseEmitter emitter = changeFeedStreamer.subscribe(lastEventId);
+        if (emitter == null) {
+            log.warn("Refusing product change stream, subscriber limit reached");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(emitter);
+    }
+    
+    @Operation(
+        summary = "Get product changes since a sequence number",
+        description = "Incremental sync: returns the latest state of every product created, updated or deleted after the "
+                + "given catalog sequence number, with tombstones for deletes. Start from the ETag of GET /products and "
+                + "pass nextSince on the following call. resyncRequired means the changes are no longer held and the "
+                + "catalog has to be reloaded",
+        tags = {"Product"}
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Changes after since, or a resync signal",
+            content = @Content(
+                mediaType = MediaType.APPLICATION_JSON_VALUE,
+                schema = @Schema(implementation = ProductChangesResponse.class),
+                examples = @ExampleObject(
+                    value = """
+                    {
+                      "changes": [
+                        {
+                          "seq": 1742380222123005,
+                          "type": "UPDATED",
+                          "productId": "P001",
+                          "product": {
+                            "id": "P001",
+                            "name": "Laptop",
+                            "description": "High-performance laptop",
+                            "price": 1199.99,
+                            "category": "Electronics",
+                            "inStock": false,
+                            "availableQuantity": null,
+                            "estimatedDelivery": null,
+                            "warehouseLocation": null
+                          },
+                          "timestamp": "2024-03-19T10:30:22.123Z"
+                        },
+                        {
+                          "seq": 1742380222123006,
+                          "type": "DELETED",
+                          "productId": "P002",
+                          "product": null,
+                          "timestamp": "2024-03-19T10:30:23.456Z"
+                        }
+                      ],
+                      "nextSince": 1742380222123006,
+                      "hasMore": false,
+                      "resyncRequired": false,
+                      "timestamp": "2024-03-19T10:30:24.123Z",
+                      "serviceSource": "product-service"
+                    }
+                    """
+                )
+            )
+        )
+    })
+    @GetMapping(value = "/products/changes", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ProductChangesResponse> getProductChanges(
+        @Parameter(description = "Catalog sequence number already applied by the caller", required = true)
+        @RequestParam long since,
+        @Parameter(description = "Maximum number of changes to scan, capped at " + MAX_CHANGES_LIMIT)
+        @RequestParam(defaultValue = "" + DEFAULT_CHANGES_LIMIT) int limit) {
+        log.info("Retrieving product changes since {}, limit: {}", since, limit);
+
+        ChangeFeed.Page page = changeFeed.readAfter(since, Math.max(1, Math.min(limit, MAX_CHANGES_LIMIT)));
+        ProductChangesResponse response = new ProductChangesResponse();
+        if (page.resyncRequired()) {
+            log.warn("Product changes since {} are no longer held, resync required", since);
+            response.setChanges(List.of());
+            response.setNextSince(page.lastSeq());
+            response.setResyncRequired(true);
+        } else {
+            // Several changes to one product in this page collapse into its latest one
+            Map<String, ChangeEvent> latest = new LinkedHashMap<>();
+            for (ChangeEvent event : page.events()) {
+                latest.remove(event.productId());
+                latest.put(event.productId(), event);
+            }
+            long nextSince = page.events().isEmpty() ? since : page.events().get(page.events().size() - 1).seq();
+            response.setChanges(new ArrayList<>(latest.values()));
+            response.setNextSince(nextSince);
+            response.setHasMore(nextSince < page.lastSeq());
+        }
+        response.setTimestamp(LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME));
+        response.setServiceSource("product-service");
+
         return ResponseEntity.ok()
                 .contentType(MediaType.APPLICATION_JSON)
                 .body(response);
     }
+
+    @Operation(
+        summary = "Query products",
+        description = "Filters products by category and price range using the secondary indexes, "
+                + "ordered by id, price or -price and cut at the limit",
+        tags = {"Product"}
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Successfully retrieved matching products",
+            content = @Content(
+                mediaType = MediaType.APPLICATION_JSON_VALUE,
+                schema = @Schema(implementation = ProductAvailabilityResponse.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Unknown sort order or minPrice greater than maxPrice"
+        )
+    })
+    @GetMapping(value = "/products/query", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ProductAvailabilityResponse> queryProducts(
+        @Parameter(description = "Category to match, case-insensitive")
+        @RequestParam(required = false) String category,
+        @Parameter(description = "Inclusive lower price bound")
+        @RequestParam(required = false) BigDecimal minPrice,
+        @Parameter(description = "Inclusive upper price bound")
+        @RequestParam(required = false) BigDecimal maxPrice,
+        @Parameter(description = "Result order: id, price or -price")
+        @RequestParam(required = false) String sort,
+        @Parameter(description = "Maximum number of products to return, capped at " + MAX_PAGE_SIZE)
+        @RequestParam(defaultValue = "20") int limit,
+        @Parameter(description = "Fill in inventory fields from the inventory service")
+        @RequestParam(defaultValue = "false") boolean enrich) {
+        log.info("Querying products, category: {}, minPrice: {}, maxPrice: {}, sort: {}, limit: {}",
+                category, minPrice, maxPrice, sort, limit);
+
+        ProductQuery.Sort order = ProductQuery.Sort.fromParam(sort);
+        if (order == null || (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0)) {
+            log.warn("Invalid product query, sort: {}, minPrice: {}, maxPrice: {}", sort, minPrice, maxPrice);
+            return ResponseEntity.badRequest().build();
+        }
+
+        ProductQuery query = new ProductQuery(category, minPrice, maxPrice, order,
+                Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        CatalogOperationEvent queried = new CatalogOperationEvent();
+        queried.start();
+        List<ProductInfo> products = queryIndex.query(query, productRepository.snapshot());
+        queried.finish("query", null, products.size());
+        if (shardForwarder.scatters()) {
+            // Every shard returns its own best matches; the answer is the best of their union
+            List<ResponseEntity<ProductAvailabilityResponse>> shards =
+                    shardForwarder.scatter(ProductAvailabilityResponse.class,
+                            ProductAvailabilityResponse::getProducts);
+            if (shards == null) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
+            products = new ArrayList<>(products);
+            for (ResponseEntity<ProductAvailabilityResponse> shard : shards) {
+                products.addAll(shard.getBody().getProducts());
+            }
+            products.sort(order.comparator());
+            products = products.subList(0, Math.min(products.size(), query.limit()));
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        ProductAvailabilityResponse response = createResponse(enrich(enrich, products, builder));
+
+        return builder.body(response);
+    }
     
+    @Operation(
+        summary = "Search products",
+        description = "Full-text search over product name and description. Every term must match, the last term "
+                + "also matches as a prefix, and results are ranked with name hits weighted above description hits",
+        tags = {"Product"}
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Successfully retrieved matching products, best match first",
+            content = @Content(
+                mediaType = MediaType.APPLICATION_JSON_VALUE,
+                schema = @Schema(implementation = ProductAvailabilityResponse.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Empty search query"
+        )
+    })
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ProductAvailabilityResponse> searchProducts(
+        @Parameter(description = "Search text", required = true)
+        @RequestParam String q,
+        @Parameter(description = "Maximum number of products to return, capped at " + MAX_PAGE_SIZE)
+        @RequestParam(defaultValue = "20") int limit,
+        @Parameter(description = "Fill in inventory fields from the inventory service")
+        @RequestParam(defaultValue = "false") boolean enrich) {
+        log.info("Searching products, q: {}, limit: {}", q, limit);
+
+        if (q.isBlank()) {
+            log.warn("Rejecting empty search query");
+            return ResponseEntity.badRequest().build();
+        }
+
+        int maxResults = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        CatalogOperationEvent searched = new CatalogOperationEvent();
+        searched.start();
+        ProductView snapshot = productRepository.snapshot();
+        List<ProductInfo> products = new ArrayList<>();
+        List<Double> scores = new ArrayList<>();
+        for (ProductSearchIndex.SearchHit hit : searchIndex.search(q, maxResults)) {
+            ProductInfo product = snapshot.get(hit.productId());
+            if (product != null) {
+                products.add(product);
+                scores.add(hit.score());
+            }
+        }
+        searched.finish("search", null, products.size());
+        if (shardForwarder.scatters()) {
+            List<ResponseEntity<ProductAvailabilityResponse>> shards =
+                    shardForwarder.scatter(ProductAvailabilityResponse.class,
+                            ProductAvailabilityResponse::getProducts);
+            if (shards == null) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
+            products = mergeSearchResults(products, scores, shards, maxResults);
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        ProductAvailabilityResponse response = createResponse(enrich(enrich, products, builder));
+
+        if (shardForwarder.isShardRequest()) {
+            builder.header(ShardForwarder.SCORES_HEADER,
+                    String.join(",", scores.stream().map(String::valueOf).toList()));
+        }
+        return builder.body(response);
+    }
+
+    // Scores are computed from each shard's own term statistics, so the merged ranking is close to, but not
+    // exactly, the ranking a single catalog would give
+    private static List<ProductInfo> mergeSearchResults(List<ProductInfo> products, List<Double> scores,
+                                                        List<ResponseEntity<ProductAvailabilityResponse>> shards,
+                                                        int maxResults) {
+        record ScoredProduct(ProductInfo product, double score) {
+        }
+        List<ScoredProduct> hits = new ArrayList<>();
+        for (int i = 0; i < products.size(); i++) {
+            hits.add(new ScoredProduct(products.get(i), scores.get(i)));
+        }
+        for (ResponseEntity<ProductAvailabilityResponse> shard : shards) {
+            String header = shard.getHeaders().getFirst(ShardForwarder.SCORES_HEADER);
+            String[] shardScores = header == null || header.isEmpty() ? new String[0] : header.split(",");
+            List<ProductInfo> shardProducts = shard.getBody().getProducts();
+            for (int i = 0; i < shardProducts.size(); i++) {
+                hits.add(new ScoredProduct(shardProducts.get(i),
+                        i < shardScores.length ? Double.parseDouble(shardScores[i]) : 0));
+            }
+        }
+        hits.sort(Comparator.comparingDouble(ScoredProduct::score).reversed()
+                .thenComparing(hit -> hit.product().getId()));
+        return hits.stream().limit(maxResults).map(ScoredProduct::product).toList();
+    }
+    
+    @Operation(
+        summary = "Get products by IDs",
+        description = "Resolves a comma-separated list of product IDs in one round trip, reporting missing IDs separately",
+        tags = {"Product"}
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Successfully resolved the requested IDs",
+            content = @Content(
+                mediaType = MediaType.APPLICATION_JSON_VALUE,
+                schema = @Schema(implementation = MultiGetResponse.class),
+                examples = @ExampleObject(
+                    value = """
+                    {
+                      "products": [
+                        {
+                          "id": "P001",
+                          "name": "Laptop",
+                          "description": "High-performance laptop",
+                          "price": 1299.99,
+                          "category": "Electronics",
+                          "inStock": false,
+                          "availableQuantity": null,
+                          "estimatedDelivery": null,
+                          "warehouseLocation": null
+                        }
+                      ],
+                      "missingIds": ["P999"],
+                      "timestamp": "2024-03-19T10:30:22.123Z",
+                      "serviceSource": "product-service"
+                    }
+                    """
+                )
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "No IDs or more than " + MAX_MULTI_GET_SIZE + " IDs"
+        )
+    })
+    @GetMapping(value = "/products", params = "ids", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<MultiGetResponse> getProductsByIds(
+        @Parameter(description = "Comma-separated product IDs, at most " + MAX_MULTI_GET_SIZE, required = true)
+        @RequestParam List<String> ids,
+        @Parameter(description = "Fill in inventory fields from the inventory service")
+        @RequestParam(defaultValue = "false") boolean enrich) {
+        return multiGet(ids, enrich);
+    }
+
+    @Operation(
+        summary = "Get products by IDs (request body)",
+        description = "Same as GET /products?ids= for ID lists too long for a query string",
+        tags = {"Product"}
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Successfully resolved the requested IDs",
+            content = @Content(
+                mediaType = MediaType.APPLICATION_JSON_VALUE,
+                schema = @Schema(implementation = MultiGetResponse.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "No IDs or more than " + MAX_MULTI_GET_SIZE + " IDs"
+        )
+    })
+    @PostMapping(value = "/products/lookup", produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<MultiGetResponse> lookupProducts(
+        @Parameter(description = "Product IDs to resolve", required = true)
+        @RequestBody MultiGetRequest request,
+        @Parameter(description = "Fill in inventory fields from the inventory service")
+        @RequestParam(defaultValue = "false") boolean enrich) {
+        return multiGet(request.getIds(), enrich);
+    }
+
+    private ResponseEntity<MultiGetResponse> multiGet(List<String> ids, boolean enrich) {
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_MULTI_GET_SIZE) {
+            log.warn("Rejecting multi-get with {} IDs", ids == null ? 0 : ids.size());
+            return ResponseEntity.badRequest().build();
+        }
+        log.info("Retrieving {} products by ID", ids.size());
+
+        Set<String> requested = new LinkedHashSet<>(ids);
+        List<String> localIds = new ArrayList<>();
+        Map<String, List<String>> idsByShard = new LinkedHashMap<>();
+        for (String id : requested) {
+            String owner = shardForwarder.remoteOwner(id);
+            if (owner == null) {
+                localIds.add(id);
+            } else {
+                idsByShard.computeIfAbsent(owner, shard -> new ArrayList<>()).add(id);
+            }
+        }
+        CatalogOperationEvent multiGet = new CatalogOperationEvent();
+        multiGet.start();
+        Map<String, ProductInfo> found = new HashMap<>(productRepository.snapshot().getAll(localIds));
+        multiGet.finish("getAll", localIds.size() == 1 ? localIds.get(0) : null, found.size());
+        if (!idsByShard.isEmpty()) {
+            // One request per owning shard, sent in parallel
+            Map<String, Map<String, String>> queries = new LinkedHashMap<>();
+            idsByShard.forEach((shard, shardIds) -> queries.put(shard, Map.of("ids", String.join(",", shardIds))));
+            Map<String, ResponseEntity<MultiGetResponse>> shards =
+                    shardForwarder.scatter(queries, "/api/product/products", MultiGetResponse.class,
+                            MultiGetResponse::getProducts);
+            if (shards == null) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
+            for (ResponseEntity<MultiGetResponse> shard : shards.values()) {
+                shard.getBody().getProducts().forEach(product -> found.put(product.getId(), product));
+            }
+        }
+        List<ProductInfo> products = new ArrayList<>(found.size());
+        List<String> missingIds = new ArrayList<>();
+        for (String id : requested) {
+            ProductInfo product = found.get(id);
+            if (product != null) {
+                products.add(product);
+            } else {
+                missingIds.add(id);
+            }
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        MultiGetResponse response = new MultiGetResponse();
+        response.setProducts(enrich(enrich, products, builder));
+        response.setMissingIds(missingIds);
+        response.setTimestamp(LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME));
+        response.setServiceSource("product-service");
+
+        return builder.body(response);
+    }
+
     @Operation(summary = "Get product by ID")
     @ApiResponses(value = {
         @ApiResponse(
@@ -184,14 +856,35 @@ public class ProductController {
                     """
                 )
             )
+        ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "Product unchanged since the ETag in If-None-Match"
         )
     })
     @GetMapping(value = "/products/{productId}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<ProductAvailabilityResponse> getProductById(
+    public ResponseEntity<byte[]> getProductById(
         @Parameter(description = "ID of the product to retrieve", required = true)
-        @PathVariable String productId) {
+        @PathVariable String productId,
+        @Parameter(description = "ETag of a cached copy; answered with 304 while the product is unchanged")
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+        @Parameter(description = "Fill in inventory fields from the inventory service; the response then has no ETag")
+        @RequestParam(defaultValue = "false") boolean enrich) {
         log.info("Retrieving product with ID: {}", productId);
-        ProductInfo product = productDatabase.get(productId);
+        String owner = shardForwarder.remoteOwner(productId);
+        if (owner != null) {
+            return shardForwarder.forwardBytes(owner);
+        }
+        // Read the ETag before the product, see CatalogVersions
+        String etag = catalogWriter.etagOf(productId);
+        // The ETag does not cover inventory data, so an enriched product is never answered with 304
+        if (!enrich && ifNoneMatch != null && CatalogVersions.matches(ifNoneMatch, etag, true)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        CatalogOperationEvent read = new CatalogOperationEvent();
+        read.start();
+        ProductInfo product = productRepository.get(productId);
+        read.finish("get", productId, product != null ? 1 : 0);
         List<ProductInfo> products = new ArrayList<>();
         
         if (product != null) {
@@ -200,11 +893,16 @@ public class ProductController {
             log.warn("Product with ID {} not found", productId);
         }
         
-        ProductAvailabilityResponse response = createResponse(products);
-        
-        return ResponseEntity.ok()
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(response);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (enrich) {
+            InventoryEnricher.Result enriched = inventoryEnricher.enrich(products);
+            response.header(INVENTORY_MISSING_HEADER, Integer.toString(enriched.missing()));
+            return response.body(productJsonCache.transientEnvelope(enriched.products()));
+        }
+        if (product != null && etag != null) {
+            response.eTag(etag);
+        }
+        return response.body(productJsonCache.envelope(products));
     }
     
     @Operation(summary = "Create a new product")
@@ -281,26 +979,29 @@ public class ProductController {
         @Parameter(description = "Product information", required = true)
         @RequestBody ProductInfo product) {
         log.info("Creating new product: {}", product);
-        
-        if (product.getId() == null || product.getId().trim().isEmpty()) {
-            // Generate a simple ID if not provided
-            product.setId("P" + (productDatabase.size() + 1));
+        String owner = product.getId() == null || product.getId().trim().isEmpty()
+                ? null : shardForwarder.remoteOwner(product.getId());
+        if (owner != null) {
+            return shardForwarder.forward(owner, product, ProductAvailabilityResponse.class);
         }
         
-        // Check if product with same ID already exists
-        if (productDatabase.containsKey(product.getId())) {
+        // A generated ID is drawn from the part of the key space this shard owns
+        CatalogOperationEvent write = new CatalogOperationEvent();
+        write.start();
+        CatalogWriter.WriteResult result = catalogWriter.create(product, shardRouter::isLocal);
+        write.finish("create", product.getId(), result.status() == 201 ? 1 : 0);
+        if (result.status() != 201) {
             log.warn("Product with ID {} already exists", product.getId());
             return ResponseEntity.badRequest().build();
         }
         
-        productDatabase.put(product.getId(), product);
-        
         List<ProductInfo> products = new ArrayList<>();
         products.add(product);
         ProductAvailabilityResponse response = createResponse(products);
         
         return ResponseEntity.status(201)
                 .contentType(MediaType.APPLICATION_JSON)
+                .eTag(result.etag())
                 .body(response);
     }
     
@@ -354,6 +1055,10 @@ public class ProductController {
                 )
             )
         ),
+        @ApiResponse(
+            responseCode = "412",
+            description = "If-Match does not match the product's current ETag"
+        ),
         @ApiResponse(
             responseCode = "500",
             description = "Internal server error",
@@ -378,17 +1083,27 @@ public class ProductController {
         @Parameter(description = "ID of the product to update", required = true)
         @PathVariable String productId,
         @Parameter(description = "Updated product information", required = true)
-        @RequestBody ProductInfo updatedProduct) {
+        @RequestBody ProductInfo updatedProduct,
+        @Parameter(description = "ETag the update is based on; the update is refused with 412 if the product changed since")
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.info("Updating product with ID {}: {}", productId, updatedProduct);
+        String owner = shardForwarder.remoteOwner(productId);
+        if (owner != null) {
+            return shardForwarder.forward(owner, updatedProduct, ProductAvailabilityResponse.class);
+        }
         
-        if (!productDatabase.containsKey(productId)) {
+        CatalogOperationEvent write = new CatalogOperationEvent();
+        write.start();
+        CatalogWriter.WriteResult result = catalogWriter.replace(productId, updatedProduct, ifMatch);
+        write.finish("replace", productId, result.status() == 200 ? 1 : 0);
+        if (result.status() == 404) {
             log.warn("Product with ID {} not found for update", productId);
             return ResponseEntity.notFound().build();
         }
-        
-        // Ensure the ID in the path matches the product
-        updatedProduct.setId(productId);
-        productDatabase.put(productId, updatedProduct);
+        if (result.status() == 412) {
+            log.warn("Product with ID {} changed since {}, update refused", productId, ifMatch);
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
         
         List<ProductInfo> products = new ArrayList<>();
         products.add(updatedProduct);
@@ -396,6 +1111,7 @@ public class ProductController {
         
         return ResponseEntity.ok()
                 .contentType(MediaType.APPLICATION_JSON)
+                .eTag(result.etag())
                 .body(response);
     }
     
@@ -423,6 +1139,10 @@ public class ProductController {
                 )
             )
         ),
+        @ApiResponse(
+            responseCode = "412",
+            description = "If-Match does not match the product's current ETag"
+        ),
         @ApiResponse(
             responseCode = "500",
             description = "Internal server error",
@@ -445,19 +1165,201 @@ public class ProductController {
     @DeleteMapping(value = "/products/{productId}")
     public ResponseEntity<Void> deleteProduct(
         @Parameter(description = "ID of the product to delete", required = true)
-        @PathVariable String productId) {
+        @PathVariable String productId,
+        @Parameter(description = "ETag the delete is based on; the delete is refused with 412 if the product changed since")
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.info("Deleting product with ID: {}", productId);
+        String owner = shardForwarder.remoteOwner(productId);
+        if (owner != null) {
+            return shardForwarder.forward(owner, null, Void.class);
+        }
         
-        if (!productDatabase.containsKey(productId)) {
+        CatalogOperationEvent write = new CatalogOperationEvent();
+        write.start();
+        CatalogWriter.WriteResult result = catalogWriter.remove(productId, ifMatch);
+        write.finish("remove", productId, result.status() == 204 ? 1 : 0);
+        if (result.status() == 404) {
             log.warn("Product with ID {} not found for deletion", productId);
             return ResponseEntity.notFound().build();
         }
-        
-        productDatabase.remove(productId);
+        if (result.status() == 412) {
+            log.warn("Product with ID {} changed since {}, delete refused", productId, ifMatch);
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
         
         return ResponseEntity.noContent().build();
     }
-    
+
+    @Operation(
+        summary = "Apply a batch of writes",
+        description = "Applies a list of CREATE, UPDATE and DELETE operations in order within one request. "
+                + "Each operation succeeds or fails on its own and reports the status the single-item call would return",
+        tags = {"Product"}
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Batch applied, see per-item results",
+            content = @Content(
+                mediaType = MediaType.APPLICATION_JSON_VALUE,
+                schema = @Schema(implementation = BatchWriteResponse.class),
+                examples = @ExampleObject(
+                    value = """
+                    {
+                      "results": [
+                        { "productId": "P004", "status": 201 },
+                        { "productId": "P001", "status": 200 },
+                        { "productId": "P999", "status": 404 }
+                      ],
+                      "succeeded": 2,
+                      "failed": 1,
+                      "timestamp": "2024-03-19T10:30:22.123Z",
+                      "serviceSource": "product-service"
+                    }
+                    """
+                )
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Missing operations or more than " + MAX_BATCH_SIZE + " operations"
+        )
+    })
+    @PostMapping(value = "/products/batch", produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BatchWriteResponse> batchWrite(
+        @Parameter(description = "Operations to apply, in order", required = true)
+        @RequestBody BatchWriteRequest request) {
+        List<BatchOperation> operations = request.getOperations();
+        if (operations == null || operations.isEmpty() || operations.size() > MAX_BATCH_SIZE) {
+            log.warn("Rejecting product batch with {} operations", operations == null ? 0 : operations.size());
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<BatchItemResult> results = new ArrayList<>(Collections.nCopies(operations.size(), null));
+        List<Integer> localOperations = new ArrayList<>();
+        List<CatalogWriter.Write> localWrites = new ArrayList<>();
+        Map<String, List<Integer>> remoteOperations = new LinkedHashMap<>();
+        for (int i = 0; i < operations.size(); i++) {
+            String owner = remoteOwner(operations.get(i));
+            if (owner == null) {
+                CatalogWriter.Write write = toWrite(operations.get(i));
+                if (write == null) {
+                    BatchOperation operation = operations.get(i);
+                    results.set(i, new BatchItemResult(
+                            operation == null || operation.getOp() == null ? null : operation.getProductId(), 400));
+                } else {
+                    localOperations.add(i);
+                    localWrites.add(write);
+                }
+            } else {
+                remoteOperations.computeIfAbsent(owner, shard -> new ArrayList<>()).add(i);
+            }
+        }
+        // This shard's operations are logged together, so they share one fsync
+        if (!localWrites.isEmpty()) {
+            applyLocalBatch(operations, localOperations, localWrites, results);
+        }
+        // Operations on other shards' keys go to their owner as one sub-batch per shard
+        remoteOperations.forEach((shard, indexes) -> applyRemoteBatch(shard, operations, indexes, results));
+        int succeeded = 0;
+        for (BatchItemResult result : results) {
+            if (result.getStatus() < 300) {
+                succeeded++;
+            }
+        }
+        log.info("Applied product batch of {} operations, {} succeeded", operations.size(), succeeded);
+
+        BatchWriteResponse response = new BatchWriteResponse();
+        response.setResults(results);
+        response.setSucceeded(succeeded);
+        response.setFailed(operations.size() - succeeded);
+        response.setTimestamp(LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME));
+        response.setServiceSource("product-service");
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(response);
+    }
+
+    // Null if the operation is incomplete, which fails it with 400
+    private CatalogWriter.Write toWrite(BatchOperation operation) {
+        if (operation == null || operation.getOp() == null) {
+            return null;
+        }
+        ProductInfo product = operation.getProduct();
+        String productId = operation.getProductId();
+        return switch (operation.getOp()) {
+            case CREATE -> {
+                if (product == null) {
+                    yield null;
+                }
+                if (product.getId() == null && productId != null) {
+                    product.setId(productId);
+                }
+                yield CatalogWriter.Write.create(product);
+            }
+            case UPDATE -> product == null || productId == null ? null
+                    : CatalogWriter.Write.replace(productId, product, null);
+            case DELETE -> productId == null ? null : CatalogWriter.Write.remove(productId, null);
+        };
+    }
+
+    private void applyLocalBatch(List<BatchOperation> operations, List<Integer> indexes,
+                                 List<CatalogWriter.Write> writes, List<BatchItemResult> results) {
+        CatalogOperationEvent write = new CatalogOperationEvent();
+        write.start();
+        List<CatalogWriter.WriteResult> written = catalogWriter.writeAll(writes, shardRouter::isLocal);
+        int stored = 0;
+        for (int i = 0; i < indexes.size(); i++) {
+            BatchOperation operation = operations.get(indexes.get(i));
+            // A create's product carries the ID it was stored under, which may have been generated
+            String productId = operation.getOp() == BatchOperation.Type.CREATE
+                    ? operation.getProduct().getId() : operation.getProductId();
+            int status = written.get(i).status();
+            results.set(indexes.get(i), new BatchItemResult(productId, status));
+            if (status < 300) {
+                stored++;
+            }
+        }
+        write.finish("batch", null, stored);
+    }
+
+    // Lists are enriched where they are assembled, so shards answering a scatter-gather leave it to the caller
+    private List<ProductInfo> enrich(boolean enrich, List<ProductInfo> products, ResponseEntity.BodyBuilder response) {
+        if (!enrich || shardForwarder.isShardRequest()) {
+            return products;
+        }
+        InventoryEnricher.Result enriched = inventoryEnricher.enrich(products);
+        response.header(INVENTORY_MISSING_HEADER, Integer.toString(enriched.missing()));
+        return enriched.products();
+    }
+
+    private String remoteOwner(BatchOperation operation) {
+        if (operation == null || operation.getOp() == null) {
+            return null;
+        }
+        String productId = operation.getOp() == BatchOperation.Type.CREATE && operation.getProduct() != null
+                && operation.getProduct().getId() != null ? operation.getProduct().getId() : operation.getProductId();
+        return productId == null || productId.trim().isEmpty() ? null : shardForwarder.remoteOwner(productId);
+    }
+
+    private void applyRemoteBatch(String shard, List<BatchOperation> operations, List<Integer> indexes,
+                                  List<BatchItemResult> results) {
+        List<BatchOperation> shardOperations = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            shardOperations.add(operations.get(index));
+        }
+        BatchWriteResponse response = shardForwarder.post(shard, "/api/product/products/batch",
+                new BatchWriteRequest(shardOperations), BatchWriteResponse.class);
+        boolean answered = response != null && response.getResults() != null
+                && response.getResults().size() == indexes.size();
+        for (int i = 0; i < indexes.size(); i++) {
+            BatchOperation operation = operations.get(indexes.get(i));
+            results.set(indexes.get(i), answered ? response.getResults().get(i)
+                    : new BatchItemResult(operation.getProductId(), HttpStatus.SERVICE_UNAVAILABLE.value()));
+        }
+    }
+
     private ProductAvailabilityResponse createResponse(List<ProductInfo> products) {
         ProductAvailabilityResponse response = new ProductAvailabilityResponse();
         response.setProducts(products);
@@ -466,4 +1368,18 @@ public class ProductController {
         
         return response;
     }
+
+    private static String encodeCursor(String lastId) {
+        byte[] raw = (CURSOR_PREFIX + lastId).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    private static String decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return raw.startsWith(CURSOR_PREFIX) ? raw.substring(CURSOR_PREFIX.length()) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 }
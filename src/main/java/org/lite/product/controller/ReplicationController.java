@@ -0,0 +1,99 @@
+package org.lite.product.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.lite.product.replication.ReplicationBatch;
+import org.lite.product.replication.ReplicationProperties;
+import org.lite.product.replication.ReplicationSource;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@Slf4j
+@RequestMapping("/api/product/replication")
+@Tag(name = "Replication", description = "Catalog replication between instances of this service")
+public class ReplicationController {
+
+    static final int DEFAULT_BATCH_SIZE = 1000;
+    static final int MAX_BATCH_SIZE = 10_000;
+
+    private final ReplicationProperties properties;
+    private final ReplicationSource replicationSource;
+
+    public ReplicationController(ReplicationProperties properties, ReplicationSource replicationSource) {
+        this.properties = properties;
+        this.replicationSource = replicationSource;
+    }
+
+    @Operation(
+        summary = "Get replicated changes",
+        description = "Current state and replication stamp of every product changed after a catalog sequence number, "
+                + "with tombstones for deletes. Called by peer replicas"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Changes after since, or resyncRequired if a snapshot is needed",
+            content = @Content(
+                mediaType = MediaType.APPLICATION_JSON_VALUE,
+                schema = @Schema(implementation = ReplicationBatch.class)
+            )
+        ),
+        @ApiResponse(responseCode = "404", description = "Replication is not enabled")
+    })
+    @GetMapping(value = "/changes", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ReplicationBatch> getChanges(
+        @Parameter(description = "Catalog sequence number already replicated", required = true)
+        @RequestParam long since,
+        @Parameter(description = "Maximum number of changes to read, capped at " + MAX_BATCH_SIZE)
+        @RequestParam(defaultValue = "" + DEFAULT_BATCH_SIZE) int limit) {
+        if (!properties.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        log.debug("Serving replicated changes since {}, limit: {}", since, limit);
+        return ResponseEntity.ok(replicationSource.changesAfter(since, clamp(limit)));
+    }
+
+    @Operation(
+        summary = "Get a replication snapshot page",
+        description = "Products with an ID above after, with their replication stamps and the tombstones in the same "
+                + "range. Called by peer replicas on first contact and after a resync"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "One snapshot page",
+            content = @Content(
+                mediaType = MediaType.APPLICATION_JSON_VALUE,
+                schema = @Schema(implementation = ReplicationBatch.class)
+            )
+        ),
+        @ApiResponse(responseCode = "404", description = "Replication is not enabled")
+    })
+    @GetMapping(value = "/snapshot", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ReplicationBatch> getSnapshot(
+        @Parameter(description = "nextAfter of the previous page; omit for the first page")
+        @RequestParam(required = false) String after,
+        @Parameter(description = "Maximum number of products per page, capped at " + MAX_BATCH_SIZE)
+        @RequestParam(defaultValue = "" + DEFAULT_BATCH_SIZE) int limit) {
+        if (!properties.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        log.info("Serving replication snapshot after {}, limit: {}", after, limit);
+        return ResponseEntity.ok(replicationSource.snapshot(after, clamp(limit)));
+    }
+
+    private static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_BATCH_SIZE));
+    }
+}
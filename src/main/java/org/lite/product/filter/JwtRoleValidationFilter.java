@@ -5,20 +5,43 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.lite.product.jfr.RoleCheckEvent;
+import org.lite.product.security.AuthorizationPolicy;
+import org.lite.product.security.RoleMaskedJwt;
 import org.springframework.lang.NonNull;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
 
 import java.io.IOException;
-import java.util.List;
-import java.util.Map;
 
+/**
+ * Checks every request against the {@link AuthorizationPolicy}. The token's roles were resolved when it was decoded,
+ * so a request costs one pass over the compiled rules.
+ * <p>
+ * Rules are matched against the decoded path, the one request mappings see, so {@code /products/%62atch} is held to
+ * the rules for {@code /products/batch}. A request URI without percent-encoding or path parameters is already that
+ * path and is matched in place.
+ */
 @Component
 @Slf4j
 public class JwtRoleValidationFilter extends OncePerRequestFilter {
 
+    private static final UrlPathHelper PATH_HELPER = new UrlPathHelper();
+
+    static {
+        // Tomcat decodes request URIs as UTF-8, whatever the body's encoding
+        PATH_HELPER.setDefaultEncoding("UTF-8");
+    }
+
+    private final AuthorizationPolicy authorizationPolicy;
+
+    public JwtRoleValidationFilter(AuthorizationPolicy authorizationPolicy) {
+        this.authorizationPolicy = authorizationPolicy;
+    }
+
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
                                     @NonNull HttpServletResponse response,
@@ -28,18 +51,19 @@ public class JwtRoleValidationFilter extends OncePerRequestFilter {
         var authentication = SecurityContextHolder.getContext().getAuthentication();
 
         if (authentication != null && authentication.getPrincipal() instanceof Jwt jwt) {
-            // Log the JWT token for debugging purposes
-            log.info("JWT Token: {}", jwt.getTokenValue());
-            // Log roles for debugging
-            List<String> realmRoles = (List<String>) jwt.getClaimAsMap("realm_access").get("roles");
-            log.info("Realm Roles: {}", realmRoles);
-
-            Map<String, Object> resourceAccess = jwt.getClaimAsMap("resource_access");
-            log.info("Client Roles: {}", resourceAccess);
-
-            if (hasRequiredRole(jwt)) {
+            RoleCheckEvent event = new RoleCheckEvent();
+            event.start();
+            long roles = jwt instanceof RoleMaskedJwt masked ? masked.roleMask() : authorizationPolicy.roleMask(jwt);
+            String uri = request.getRequestURI();
+            boolean granted = uri.indexOf('%') < 0 && uri.indexOf(';') < 0
+                    ? authorizationPolicy.allows(request.getMethod(), uri, request.getContextPath().length(), roles)
+                    : authorizationPolicy.allows(request.getMethod(), PATH_HELPER.getPathWithinApplication(request),
+                            0, roles);
+            event.finish(request.getMethod(), uri, granted);
+            if (granted) {
                 filterChain.doFilter(request, response); // Continue the request processing
             } else {
+                log.debug("Refused {} {}: missing required roles", request.getMethod(), request.getRequestURI());
                 response.setStatus(HttpServletResponse.SC_FORBIDDEN); // Return 403 Forbidden if role check fails
             }
         } else {
@@ -48,31 +72,4 @@ public class JwtRoleValidationFilter extends OncePerRequestFilter {
             response.setStatus(HttpServletResponse.SC_FORBIDDEN); // Return 403 Forbidden if role check fails, you are forcing to use the token
         }
     }
-
-    //We force both realm and resource roles to exist in the token
-    private boolean hasRequiredRole(Jwt jwt) {
-        // Check realm roles
-        Map<String, Object> realmAccess = jwt.getClaimAsMap("realm_access");
-        boolean hasRealmRole = false;
-        if (realmAccess != null) {
-            List<String> realmRoles = (List<String>) realmAccess.get("roles");
-            if (realmRoles != null && realmRoles.contains("gateway_admin_realm")) {
-                hasRealmRole = true;
-            }
-        }
-
-        // Check client roles for linqra-gateway-client
-        boolean hasClientRole = false;
-        Map<String, Object> resourceAccess = jwt.getClaimAsMap("resource_access");
-        if (resourceAccess != null && resourceAccess.containsKey("linqra-gateway-client")) {
-            Map<String, List<String>> clientRoles = (Map<String, List<String>>) resourceAccess.get("linqra-gateway-client");
-            if (clientRoles.get("roles").contains("gateway_admin")) {
-                hasClientRole = true;
-            }
-        }
-
-        // Both roles must be present
-        return hasRealmRole && hasClientRole;
-    }
 }
-
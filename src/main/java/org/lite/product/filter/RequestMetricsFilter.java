@@ -0,0 +1,93 @@
+package org.lite.product.filter;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.lite.product.metrics.RequestMetrics;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Times every request from before the security filters until its response is complete, and hands it to
+ * {@link RequestMetrics}. Requests that go asynchronous, like streams and server-sent events, are recorded when the
+ * async processing completes.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private final RequestMetrics requestMetrics;
+
+    public RequestMetricsFilter(RequestMetrics requestMetrics) {
+        this.requestMetrics = requestMetrics;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        if (!requestMetrics.isEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        long start = System.nanoTime();
+        requestMetrics.started();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            if (!failed && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncCompletion(request, response, start));
+            } else {
+                // An exception escaping the chain becomes a 500 once the container handles it
+                requestMetrics.finished(request, failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR
+                        : response.getStatus(), start);
+            }
+        }
+    }
+
+    private final class AsyncCompletion implements AsyncListener {
+
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private final long start;
+        private volatile boolean failed;
+
+        AsyncCompletion(HttpServletRequest request, HttpServletResponse response, long start) {
+            this.request = request;
+            this.response = response;
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            requestMetrics.finished(request, failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR
+                    : response.getStatus(), start);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            failed = true;
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // Completes afterwards, with the status the timeout handling set
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Async processing restarted; the listener has to be registered again to stay attached
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
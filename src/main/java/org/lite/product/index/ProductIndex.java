@@ -0,0 +1,17 @@
+package org.lite.product.index;
+
+import org.lite.product.model.ProductInfo;
+
+import java.util.function.Function;
+
+/**
+ * A secondary access path over the product catalog that is kept in sync by the write endpoints.
+ */
+public interface ProductIndex {
+
+    /**
+     * Re-indexes a product from its current value in the catalog, or drops it when the catalog no longer holds it.
+     * Reading the value inside the index lets concurrent refreshes of the same ID converge on the latest write.
+     */
+    void refresh(String productId, Function<String, ProductInfo> catalog);
+}
@@ -0,0 +1,50 @@
+package org.lite.product.index;
+
+import org.lite.product.model.ProductInfo;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * Filter and ordering for a catalog query. Null bounds and a null category mean "unrestricted".
+ */
+public record ProductQuery(String category, BigDecimal minPrice, BigDecimal maxPrice, Sort sort, int limit) {
+
+    public enum Sort {
+        ID, PRICE, PRICE_DESC;
+
+        /**
+         * Parses the public sort parameter: {@code id}, {@code price} or {@code -price}. Returns null if unknown.
+         */
+        public static Sort fromParam(String value) {
+            if (value == null || value.isEmpty()) {
+                return ID;
+            }
+            return switch (value.toLowerCase(Locale.ROOT)) {
+                case "id" -> ID;
+                case "price" -> PRICE;
+                case "-price", "price_desc" -> PRICE_DESC;
+                default -> null;
+            };
+        }
+
+        /**
+         * The result order as a comparator, for merging results that were ordered separately.
+         */
+        public Comparator<ProductInfo> comparator() {
+            Comparator<ProductInfo> byId = Comparator.comparing(ProductInfo::getId);
+            Comparator<ProductInfo> byPrice = Comparator.comparing(ProductInfo::getPrice,
+                    Comparator.nullsLast(Comparator.naturalOrder())).thenComparing(byId);
+            return switch (this) {
+                case ID -> byId;
+                case PRICE -> byPrice;
+                case PRICE_DESC -> byPrice.reversed();
+            };
+        }
+    }
+
+    public boolean hasPriceRange() {
+        return minPrice != null || maxPrice != null;
+    }
+}
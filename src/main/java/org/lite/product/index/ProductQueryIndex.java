@@ -0,0 +1,194 @@
+package org.lite.product.index;
+
+import org.lite.product.model.ProductInfo;
+import org.lite.product.repository.ProductView;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Concurrent secondary indexes for category and price queries.
+ * <p>
+ * Price-ordered queries walk a sorted (price, id) index, optionally scoped to one category, so they cost
+ * O(log n + k). Index entries may briefly trail the catalog under concurrent writes, so every hit is
+ * re-read from the catalog and re-checked against the query before it is returned.
+ */
+@Component
+public class ProductQueryIndex implements ProductIndex {
+
+    private static final Comparator<PriceKey> PRICE_ORDER = Comparator
+            .comparing(PriceKey::price)
+            .thenComparing(PriceKey::id, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final StripedLocks locks = new StripedLocks(64);
+
+    // Key fields each product was last indexed under, used to remove stale entries on update
+    private final ConcurrentHashMap<String, PriceKey> indexed = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> indexedCategory = new ConcurrentHashMap<>();
+
+    private final NavigableSet<PriceKey> byPrice = new ConcurrentSkipListSet<>(PRICE_ORDER);
+    private final ConcurrentHashMap<String, NavigableSet<PriceKey>> byCategoryPrice = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, NavigableSet<String>> byCategoryId = new ConcurrentHashMap<>();
+
+    /**
+     * Sort key in the price index; a null id sorts after every real id and is only used as an upper bound.
+     */
+    private record PriceKey(BigDecimal price, String id) {
+    }
+
+    @Override
+    public void refresh(String productId, Function<String, ProductInfo> catalog) {
+        ReentrantLock lock = locks.forKey(productId);
+        lock.lock();
+        try {
+            ProductInfo current = catalog.apply(productId);
+            PriceKey newPrice = current != null && current.getPrice() != null
+                    ? new PriceKey(current.getPrice(), productId) : null;
+            String newCategory = current != null ? categoryKey(current.getCategory()) : null;
+            if (Objects.equals(indexed.get(productId), newPrice)
+                    && Objects.equals(indexedCategory.get(productId), newCategory)) {
+                return;
+            }
+
+            PriceKey oldPrice = newPrice != null ? indexed.put(productId, newPrice) : indexed.remove(productId);
+            String oldCategory = newCategory != null
+                    ? indexedCategory.put(productId, newCategory) : indexedCategory.remove(productId);
+
+            if (oldPrice != null && !oldPrice.equals(newPrice)) {
+                byPrice.remove(oldPrice);
+            }
+            if (oldCategory != null) {
+                removeFromCategory(oldCategory, productId, oldPrice);
+            }
+
+            if (newPrice != null) {
+                byPrice.add(newPrice);
+            }
+            if (newCategory != null) {
+                addToCategory(newCategory, productId, newPrice);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs a query against the index and resolves hits through the catalog, returning at most {@code query.limit()}
+     * products in the requested order.
+     */
+    public List<ProductInfo> query(ProductQuery query, ProductView catalog) {
+        if (query.sort() != ProductQuery.Sort.ID || query.hasPriceRange()) {
+            NavigableSet<PriceKey> source = query.category() != null
+                    ? byCategoryPrice.get(categoryKey(query.category()))
+                    : byPrice;
+            if (source == null) {
+                return Collections.emptyList();
+            }
+            NavigableSet<PriceKey> range = priceRange(source, query.minPrice(), query.maxPrice());
+            if (query.sort() == ProductQuery.Sort.PRICE_DESC) {
+                range = range.descendingSet();
+            }
+            // ID order over a price range has to see the whole range before it can cut at the limit
+            int collectLimit = query.sort() == ProductQuery.Sort.ID ? Integer.MAX_VALUE : query.limit();
+            List<ProductInfo> results = collect(range.stream().map(PriceKey::id).iterator(), query, catalog,
+                    collectLimit);
+            if (query.sort() == ProductQuery.Sort.ID) {
+                results.sort(Comparator.comparing(ProductInfo::getId));
+                return results.size() > query.limit() ? new ArrayList<>(results.subList(0, query.limit())) : results;
+            }
+            return results;
+        }
+
+        if (query.category() != null) {
+            Set<String> ids = byCategoryId.get(categoryKey(query.category()));
+            if (ids == null) {
+                return Collections.emptyList();
+            }
+            return collect(ids.iterator(), query, catalog, query.limit());
+        }
+        // Unfiltered, ID-ordered: this is just the first page of the catalog
+        return catalog.scan(null, query.limit());
+    }
+
+    private List<ProductInfo> collect(Iterator<String> ids, ProductQuery query,
+                                      ProductView catalog, int limit) {
+        List<ProductInfo> results = new ArrayList<>(Math.min(limit, 64));
+        while (ids.hasNext() && results.size() < limit) {
+            ProductInfo product = catalog.get(ids.next());
+            if (product != null && matches(product, query)) {
+                results.add(product);
+            }
+        }
+        return results;
+    }
+
+    private static NavigableSet<PriceKey> priceRange(NavigableSet<PriceKey> source, BigDecimal min, BigDecimal max) {
+        if (min != null && max != null) {
+            return source.subSet(new PriceKey(min, ""), true, new PriceKey(max, null), false);
+        }
+        if (min != null) {
+            return source.tailSet(new PriceKey(min, ""), true);
+        }
+        if (max != null) {
+            return source.headSet(new PriceKey(max, null), false);
+        }
+        return source;
+    }
+
+    private static boolean matches(ProductInfo product, ProductQuery query) {
+        if (query.category() != null
+                && !Objects.equals(categoryKey(product.getCategory()), categoryKey(query.category()))) {
+            return false;
+        }
+        BigDecimal price = product.getPrice();
+        if (query.minPrice() != null && (price == null || price.compareTo(query.minPrice()) < 0)) {
+            return false;
+        }
+        return query.maxPrice() == null || (price != null && price.compareTo(query.maxPrice()) <= 0);
+    }
+
+    private void addToCategory(String category, String productId, PriceKey priceKey) {
+        byCategoryId.compute(category, (key, ids) -> {
+            NavigableSet<String> set = ids != null ? ids : new ConcurrentSkipListSet<>();
+            set.add(productId);
+            return set;
+        });
+        if (priceKey != null) {
+            byCategoryPrice.compute(category, (key, keys) -> {
+                NavigableSet<PriceKey> set = keys != null ? keys : new ConcurrentSkipListSet<>(PRICE_ORDER);
+                set.add(priceKey);
+                return set;
+            });
+        }
+    }
+
+    private void removeFromCategory(String category, String productId, PriceKey priceKey) {
+        byCategoryId.computeIfPresent(category, (key, ids) -> {
+            ids.remove(productId);
+            return ids.isEmpty() ? null : ids;
+        });
+        if (priceKey != null) {
+            byCategoryPrice.computeIfPresent(category, (key, keys) -> {
+                keys.remove(priceKey);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    private static String categoryKey(String category) {
+        return category == null ? null : category.trim().toLowerCase(Locale.ROOT);
+    }
+}
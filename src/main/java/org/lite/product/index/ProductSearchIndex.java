@@ -0,0 +1,196 @@
+package org.lite.product.index;
+
+import org.lite.product.model.ProductInfo;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Incrementally maintained inverted index over product name and description.
+ * <p>
+ * Terms are lowercased alphanumeric runs. Every term with postings is also kept in a sorted set so the last
+ * query term can be matched as a prefix. All query terms must match; results are ranked by a weighted tf-idf score where
+ * a hit in the name counts {@value #NAME_WEIGHT} times a hit in the description.
+ */
+@Component
+public class ProductSearchIndex implements ProductIndex {
+
+    static final int NAME_WEIGHT = 3;
+    static final int DESCRIPTION_WEIGHT = 1;
+    // Bounds the work a very short prefix such as "a" can cause on a large catalog
+    static final int MAX_PREFIX_EXPANSION = 128;
+
+    private final StripedLocks locks = new StripedLocks(64);
+
+    // term -> (product ID -> term weight in that product)
+    private final ConcurrentHashMap<String, Map<String, Integer>> postings = new ConcurrentHashMap<>();
+    // Terms that have postings, in order; only changed inside a compute on the term's postings entry
+    private final ConcurrentSkipListSet<String> sortedTerms = new ConcurrentSkipListSet<>();
+    // product ID -> terms it is currently indexed under, used to retract postings on update and delete
+    private final ConcurrentHashMap<String, Map<String, Integer>> indexedTerms = new ConcurrentHashMap<>();
+
+    public record SearchHit(String productId, double score) {
+    }
+
+    @Override
+    public void refresh(String productId, Function<String, ProductInfo> catalog) {
+        ReentrantLock lock = locks.forKey(productId);
+        lock.lock();
+        try {
+            ProductInfo current = catalog.apply(productId);
+            Map<String, Integer> newTerms = current != null ? termWeights(current) : Collections.emptyMap();
+            Map<String, Integer> oldTerms = indexedTerms.getOrDefault(productId, Collections.emptyMap());
+            if (newTerms.equals(oldTerms)) {
+                return;
+            }
+
+            for (String term : oldTerms.keySet()) {
+                if (!newTerms.containsKey(term)) {
+                    // The product's stripe lock does not cover the term, which other products share. The hash map
+                    // runs compute under the term's own bin lock, so emptying and dropping a postings map cannot
+                    // race with another product adding itself to it.
+                    postings.computeIfPresent(term, (key, ids) -> {
+                        ids.remove(productId);
+                        if (!ids.isEmpty()) {
+                            return ids;
+                        }
+                        sortedTerms.remove(key);
+                        return null;
+                    });
+                }
+            }
+            for (Map.Entry<String, Integer> term : newTerms.entrySet()) {
+                if (!term.getValue().equals(oldTerms.get(term.getKey()))) {
+                    postings.compute(term.getKey(), (key, ids) -> {
+                        Map<String, Integer> set = ids;
+                        if (set == null) {
+                            set = new ConcurrentHashMap<>();
+                            sortedTerms.add(key);
+                        }
+                        set.put(productId, term.getValue());
+                        return set;
+                    });
+                }
+            }
+
+            if (newTerms.isEmpty()) {
+                indexedTerms.remove(productId);
+            } else {
+                indexedTerms.put(productId, newTerms);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} product IDs matching every term of the query, best match first.
+     * The last term also matches as a prefix unless the query ends with whitespace.
+     */
+    public List<SearchHit> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        boolean prefixLast = !Character.isWhitespace(query.charAt(query.length() - 1));
+
+        List<Map<String, Integer>> termPostings = new ArrayList<>(terms.size());
+        for (int i = 0; i < terms.size(); i++) {
+            Map<String, Integer> ids = prefixLast && i == terms.size() - 1
+                    ? prefixPostings(terms.get(i))
+                    : postings.get(terms.get(i));
+            if (ids == null || ids.isEmpty()) {
+                return Collections.emptyList();
+            }
+            termPostings.add(ids);
+        }
+
+        // Drive the intersection from the rarest term so the candidate set is as small as possible
+        termPostings.sort(Comparator.comparingInt(Map::size));
+        double documents = Math.max(1, indexedTerms.size());
+        double[] idf = new double[termPostings.size()];
+        for (int i = 0; i < idf.length; i++) {
+            idf[i] = Math.log(1 + documents / termPostings.get(i).size());
+        }
+
+        Comparator<SearchHit> worstFirst = Comparator.comparingDouble(SearchHit::score)
+                .thenComparing(SearchHit::productId, Comparator.reverseOrder());
+        PriorityQueue<SearchHit> top = new PriorityQueue<>(Math.min(limit, 1024) + 1, worstFirst);
+        candidates:
+        for (Map.Entry<String, Integer> candidate : termPostings.get(0).entrySet()) {
+            double score = candidate.getValue() * idf[0];
+            for (int i = 1; i < termPostings.size(); i++) {
+                Integer weight = termPostings.get(i).get(candidate.getKey());
+                if (weight == null) {
+                    continue candidates;
+                }
+                score += weight * idf[i];
+            }
+            top.offer(new SearchHit(candidate.getKey(), score));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<SearchHit> hits = new ArrayList<>(top);
+        hits.sort(worstFirst.reversed());
+        return hits;
+    }
+
+    private Map<String, Integer> prefixPostings(String prefix) {
+        Map<String, Integer> merged = new HashMap<>();
+        int expanded = 0;
+        for (String term : sortedTerms.subSet(prefix, true, prefix + Character.MAX_VALUE, true)) {
+            Map<String, Integer> ids = postings.get(term);
+            if (ids == null) {
+                // Dropped since the term set was read
+                continue;
+            }
+            ids.forEach((id, weight) -> merged.merge(id, weight, Math::max));
+            if (++expanded == MAX_PREFIX_EXPANSION) {
+                break;
+            }
+        }
+        return merged;
+    }
+
+    private static Map<String, Integer> termWeights(ProductInfo product) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String term : tokenize(product.getName())) {
+            weights.merge(term, NAME_WEIGHT, Integer::sum);
+        }
+        for (String term : tokenize(product.getDescription())) {
+            weights.merge(term, DESCRIPTION_WEIGHT, Integer::sum);
+        }
+        return weights;
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> terms = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+}
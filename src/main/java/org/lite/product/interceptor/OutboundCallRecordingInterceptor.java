@@ -0,0 +1,58 @@
+package org.lite.product.interceptor;
+
+import org.lite.product.jfr.OutboundCallEvent;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Records an {@link OutboundCallEvent} for every call while the event is enabled. It goes first among the
+ * interceptors, so the time covers the whole call as the caller sees it. The response body is not read here, so its
+ * size is the Content-Length the other service sent.
+ */
+public class OutboundCallRecordingInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final String PRODUCT_ID = "productId";
+
+    @Override
+    public @NonNull ClientHttpResponse intercept(@NonNull HttpRequest request, @NonNull byte[] body,
+                                                 @NonNull ClientHttpRequestExecution execution) throws IOException {
+        OutboundCallEvent event = new OutboundCallEvent();
+        if (!event.isEnabled()) {
+            return execution.execute(request, body);
+        }
+        event.start();
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            event.answered(response.getStatusCode().value(), response.getHeaders().getContentLength());
+            return response;
+        } catch (IOException | RuntimeException e) {
+            event.failed(e);
+            throw e;
+        } finally {
+            event.finish(request.getMethod().name(), request.getURI().toString(), servedProductId(), body.length);
+        }
+    }
+
+    /**
+     * The product ID in the path of the request this thread is serving, if it is serving one.
+     */
+    @SuppressWarnings("unchecked")
+    private static String servedProductId() {
+        RequestAttributes served = RequestContextHolder.getRequestAttributes();
+        if (served == null) {
+            return null;
+        }
+        Object variables = served.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST);
+        return variables instanceof Map<?, ?> map ? ((Map<String, String>) map).get(PRODUCT_ID) : null;
+    }
+}
@@ -0,0 +1,32 @@
+package org.lite.product.interceptor;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.lite.product.metrics.RequestMetrics;
+import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Tells {@link RequestMetrics} which endpoint a request was mapped to, once Spring MVC has chosen its handler.
+ */
+public class RequestMetricsInterceptor implements HandlerInterceptor {
+
+    private final RequestMetrics requestMetrics;
+
+    public RequestMetricsInterceptor(RequestMetrics requestMetrics) {
+        this.requestMetrics = requestMetrics;
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                             @NonNull Object handler) {
+        // Async and error dispatches belong to a request already counted, or to none the filter saw
+        if (request.getDispatcherType() == DispatcherType.REQUEST && requestMetrics.isEnabled()
+                && request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) instanceof String pattern) {
+            requestMetrics.handlerFound(request, pattern);
+        }
+        return true;
+    }
+}
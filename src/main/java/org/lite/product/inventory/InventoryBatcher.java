@@ -0,0 +1,190 @@
+package org.lite.product.inventory;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.lite.product.model.InventoryInfo;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Collects inventory lookups into bulk requests.
+ * <p>
+ * A lookup waits at most {@code window} for others to join it, and a batch leaves early once it holds
+ * {@code max-size} products. One dispatcher thread cuts the batches; each is sent on its own virtual thread, and
+ * its answers are handed back to the waiting lookups. Inventory is the same for every caller, so a batch may serve
+ * lookups from different callers, and is sent with the service's own token rather than any one caller's. Products
+ * missing from the answer fail like a single call for an unknown product would.
+ */
+@Component
+@Slf4j
+public class InventoryBatcher {
+
+    private record Lookup(String productId, CompletableFuture<InventoryInfo> result) {
+    }
+
+    private final InventoryClient inventoryClient;
+    private final InventoryProperties.Batch properties;
+    private final long windowNanos;
+    private final int maxSize;
+    private final int maxConcurrentRequests;
+    private final Semaphore requestPermits;
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final Thread dispatcher;
+
+    // ReentrantLock rather than synchronized so waiting virtual threads are not pinned
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    // Guarded by lock: lookups not sent yet, and when the oldest of them arrived
+    private final List<Lookup> pending = new ArrayList<>();
+    private long oldestArrival;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder products = new LongAdder();
+    private final LongAdder failedRequests = new LongAdder();
+
+    public InventoryBatcher(InventoryClient inventoryClient, InventoryProperties properties) {
+        this.inventoryClient = inventoryClient;
+        this.properties = properties.getBatch();
+        this.windowNanos = this.properties.getWindow().toNanos();
+        this.maxSize = Math.max(1, this.properties.getMaxSize());
+        this.maxConcurrentRequests = Math.max(1, properties.getMaxConcurrentCalls());
+        this.requestPermits = new Semaphore(maxConcurrentRequests);
+        this.dispatcher = Thread.ofVirtual().name("inventory-batcher").unstarted(this::dispatch);
+        if (this.properties.isEnabled()) {
+            dispatcher.start();
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Queues a lookup for the next batch. The future fails with the bulk request's exception, or a
+     * RestClientException if the answer left the product out.
+     */
+    public CompletableFuture<InventoryInfo> submit(String productId) {
+        Lookup lookup = new Lookup(productId, new CompletableFuture<>());
+        lock.lock();
+        try {
+            if (pending.isEmpty()) {
+                oldestArrival = System.nanoTime();
+                changed.signal();
+            }
+            pending.add(lookup);
+            if (pending.size() == maxSize) {
+                changed.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return lookup.result();
+    }
+
+    public Map<String, Double> metrics() {
+        Map<String, Double> metrics = new LinkedHashMap<>();
+        double sent = requests.sum();
+        metrics.put("inventory.batch.requests", sent);
+        metrics.put("inventory.batch.failedRequests", (double) failedRequests.sum());
+        metrics.put("inventory.batch.products", (double) products.sum());
+        metrics.put("inventory.batch.averageSize", sent > 0 ? products.sum() / sent : 0.0);
+        metrics.put("inventory.batch.requestsInFlight",
+                (double) (maxConcurrentRequests - requestPermits.availablePermits()));
+        lock.lock();
+        try {
+            metrics.put("inventory.batch.pending", (double) pending.size());
+        } finally {
+            lock.unlock();
+        }
+        return metrics;
+    }
+
+    @PreDestroy
+    public void close() {
+        dispatcher.interrupt();
+        senders.shutdownNow();
+    }
+
+    private void dispatch() {
+        try {
+            while (true) {
+                List<Lookup> batch = nextBatch();
+                senders.execute(() -> send(batch));
+            }
+        } catch (InterruptedException e) {
+            // The service is shutting down
+        }
+    }
+
+    /**
+     * Waits until the oldest pending lookup has waited out the window or a full batch is pending, and takes the batch.
+     */
+    private List<Lookup> nextBatch() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (pending.isEmpty()) {
+                changed.await();
+            }
+            long remaining = oldestArrival + windowNanos - System.nanoTime();
+            while (pending.size() < maxSize && remaining > 0) {
+                remaining = changed.awaitNanos(remaining);
+            }
+            List<Lookup> taken = pending.subList(0, Math.min(maxSize, pending.size()));
+            List<Lookup> batch = new ArrayList<>(taken);
+            // Lookups left over from a full batch go out with the next one, without a window of their own
+            taken.clear();
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void send(List<Lookup> batch) {
+        Set<String> productIds = new LinkedHashSet<>();
+        for (Lookup lookup : batch) {
+            productIds.add(lookup.productId());
+        }
+        Map<String, InventoryInfo> inventory = new HashMap<>();
+        try {
+            requestPermits.acquire();
+            try {
+                requests.increment();
+                products.add(productIds.size());
+                for (InventoryInfo info : inventoryClient.fetchAll(productIds)) {
+                    inventory.put(info.getProductId(), info);
+                }
+            } finally {
+                requestPermits.release();
+            }
+        } catch (Exception e) {
+            failedRequests.increment();
+            log.debug("Bulk inventory request for {} products failed: {}", productIds.size(), e.getMessage());
+            batch.forEach(lookup -> lookup.result().completeExceptionally(e));
+            return;
+        }
+        for (Lookup lookup : batch) {
+            InventoryInfo info = inventory.get(lookup.productId());
+            if (info != null) {
+                lookup.result().complete(info);
+            } else {
+                lookup.result().completeExceptionally(
+                        new RestClientException("No inventory returned for product " + lookup.productId()));
+            }
+        }
+    }
+}
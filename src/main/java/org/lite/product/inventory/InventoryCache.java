@@ -0,0 +1,211 @@
+package org.lite.product.inventory;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.lite.product.model.InventoryInfo;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded cache of inventory answers in front of the {@link InventoryClient}.
+ * <p>
+ * An answer is served for {@code ttl}. A read of an entry older than {@code refresh-after} returns it at once and
+ * reloads it in the background, so a product that keeps being read never expires. Concurrent misses for one
+ * product share a single in-flight call. Calls run on their own virtual threads, with the service's own token
+ * rather than the security context of the read that started them, since their answers are shared by every caller;
+ * a caller giving up at its deadline does not cancel a call others are waiting for, and a slow answer still lands
+ * in the cache for the next read. At most {@code max-concurrent-calls} calls run at
+ * once; the rest queue for a permit. With batching enabled, misses go to the {@link InventoryBatcher} instead and
+ * share bulk requests. Failed calls are not cached. Once the cache is full, expired entries are
+ * dropped first, then the ones loaded longest ago.
+ */
+@Component
+@Slf4j
+public class InventoryCache {
+
+    private record Entry(InventoryInfo value, long loadedAt) {
+    }
+
+    private final InventoryClient inventoryClient;
+    private final InventoryBatcher inventoryBatcher;
+    private final InventoryProperties.Cache properties;
+    private final long ttlNanos;
+    private final long refreshAfterNanos;
+    private final int maxConcurrentCalls;
+    private final Semaphore callPermits;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<InventoryInfo>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService loaders = Executors.newVirtualThreadPerTaskExecutor();
+    // Only one thread evicts at a time; the others go on without waiting
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failedCalls = new LongAdder();
+
+    public InventoryCache(InventoryClient inventoryClient, InventoryBatcher inventoryBatcher,
+                          InventoryProperties properties) {
+        this.inventoryClient = inventoryClient;
+        this.inventoryBatcher = inventoryBatcher;
+        this.properties = properties.getCache();
+        this.ttlNanos = this.properties.getTtl().toNanos();
+        this.refreshAfterNanos = Math.min(ttlNanos, this.properties.getRefreshAfter().toNanos());
+        this.maxConcurrentCalls = Math.max(1, properties.getMaxConcurrentCalls());
+        this.callPermits = new Semaphore(maxConcurrentCalls);
+    }
+
+    /**
+     * Inventory of one product: already completed when it is cached, otherwise the call in flight for it, started
+     * here if there is none. The future fails with the call's exception. Callers that stop waiting must not cancel
+     * it, since other reads may be waiting for the same call.
+     */
+    public CompletableFuture<InventoryInfo> lookup(String productId) {
+        if (!properties.isEnabled()) {
+            misses.increment();
+            return load(productId, false, false);
+        }
+        Entry entry = entries.get(productId);
+        long now = System.nanoTime();
+        if (entry != null && now - entry.loadedAt() < ttlNanos) {
+            hits.increment();
+            if (now - entry.loadedAt() >= refreshAfterNanos && !inFlight.containsKey(productId)) {
+                load(productId, true, true);
+            }
+            return CompletableFuture.completedFuture(entry.value());
+        }
+        misses.increment();
+        return load(productId, false, true);
+    }
+
+    public Map<String, Double> metrics() {
+        Map<String, Double> metrics = new LinkedHashMap<>();
+        metrics.put("inventory.calls", (double) calls.sum());
+        metrics.put("inventory.failedCalls", (double) failedCalls.sum());
+        metrics.put("inventory.callsInFlight", (double) (maxConcurrentCalls - callPermits.availablePermits()));
+        metrics.put("inventory.cache.entries", (double) entries.size());
+        metrics.put("inventory.cache.hits", (double) hits.sum());
+        metrics.put("inventory.cache.misses", (double) misses.sum());
+        metrics.put("inventory.cache.coalesced", (double) coalesced.sum());
+        metrics.put("inventory.cache.refreshes", (double) refreshes.sum());
+        metrics.put("inventory.cache.evictions", (double) evictions.sum());
+        return metrics;
+    }
+
+    @PreDestroy
+    public void close() {
+        loaders.shutdownNow();
+    }
+
+    private CompletableFuture<InventoryInfo> load(String productId, boolean refresh, boolean store) {
+        CompletableFuture<InventoryInfo> mine = new CompletableFuture<>();
+        CompletableFuture<InventoryInfo> existing = inFlight.putIfAbsent(productId, mine);
+        if (existing != null) {
+            if (!refresh) {
+                coalesced.increment();
+            }
+            return existing;
+        }
+        if (refresh) {
+            refreshes.increment();
+        }
+        if (inventoryBatcher.isEnabled()) {
+            inventoryBatcher.submit(productId)
+                    .whenComplete((value, error) -> finish(productId, mine, value, error, store));
+            return mine;
+        }
+        loaders.execute(() -> {
+            InventoryInfo value = null;
+            Exception error = null;
+            try {
+                value = call(productId);
+            } catch (Exception e) {
+                error = e;
+            }
+            finish(productId, mine, value, error, store);
+        });
+        return mine;
+    }
+
+    private void finish(String productId, CompletableFuture<InventoryInfo> call, InventoryInfo value,
+                        Throwable error, boolean store) {
+        if (error == null && store) {
+            entries.put(productId, new Entry(value, System.nanoTime()));
+            if (entries.size() > properties.getMaxEntries()) {
+                evict();
+            }
+        }
+        // Leave the in-flight map before waking the waiters, so their next read does not join a finished call
+        inFlight.remove(productId, call);
+        if (error == null) {
+            call.complete(value);
+        } else {
+            call.completeExceptionally(error);
+        }
+    }
+
+    private InventoryInfo call(String productId) throws InterruptedException {
+        callPermits.acquire();
+        try {
+            calls.increment();
+            return inventoryClient.fetch(productId);
+        } catch (RuntimeException e) {
+            failedCalls.increment();
+            throw e;
+        } finally {
+            callPermits.release();
+        }
+    }
+
+    /**
+     * Brings the cache back to 90% of its capacity, so eviction runs once per many inserts rather than on each.
+     */
+    private void evict() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            int target = properties.getMaxEntries() * 9 / 10;
+            List<Map.Entry<String, Entry>> live = new ArrayList<>(entries.size());
+            for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+                if (now - candidate.getValue().loadedAt() >= ttlNanos) {
+                    if (entries.remove(candidate.getKey(), candidate.getValue())) {
+                        evictions.increment();
+                    }
+                } else {
+                    live.add(candidate);
+                }
+            }
+            if (entries.size() <= target) {
+                return;
+            }
+            // Hot entries are refreshed ahead of expiry, so the ones loaded longest ago are the least read
+            live.sort(Comparator.comparingLong(candidate -> candidate.getValue().loadedAt()));
+            for (Map.Entry<String, Entry> candidate : live) {
+                if (entries.size() <= target) {
+                    break;
+                }
+                if (entries.remove(candidate.getKey(), candidate.getValue())) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+}
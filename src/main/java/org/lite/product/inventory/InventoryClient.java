@@ -0,0 +1,74 @@
+package org.lite.product.inventory;
+
+import lombok.extern.slf4j.Slf4j;
+import org.lite.product.model.InventoryInfo;
+import org.lite.product.security.ServiceTokenProvider;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Calls the inventory service through the gateway, over the pooled {@link RestTemplate} from
+ * {@code RestTemplateConfig}.
+ * <p>
+ * Calls carry the service's own client-credentials token from {@code client-registration-id}, not the caller's:
+ * their answers are cached and batched for every caller, so a call must not be made with the rights of whichever
+ * request happened to miss first, nor fail for everyone because that request's token ran out.
+ */
+@Component
+@Slf4j
+public class InventoryClient {
+
+    private final RestTemplate restTemplate;
+    private final InventoryProperties properties;
+    private final ServiceTokenProvider serviceTokens;
+
+    public InventoryClient(RestTemplate restTemplate, InventoryProperties properties,
+                           ServiceTokenProvider serviceTokens) {
+        this.restTemplate = restTemplate;
+        this.properties = properties;
+        this.serviceTokens = serviceTokens;
+        serviceTokens.verify("catalog.inventory.client-registration-id", properties.getClientRegistrationId());
+        if (!StringUtils.hasText(properties.getClientRegistrationId())) {
+            log.warn("catalog.inventory.client-registration-id is not set: inventory calls carry no token");
+        }
+    }
+
+    /**
+     * Inventory of one product. Throws a RestClientException if the call fails.
+     */
+    public InventoryInfo fetch(String productId) {
+        return restTemplate.exchange(properties.getBaseUrl() + properties.getPath(), HttpMethod.GET,
+                new HttpEntity<>(headers()), InventoryInfo.class, productId).getBody();
+    }
+
+    /**
+     * Inventory of several products in one bulk request; products the inventory service does not know are left out.
+     * Throws a RestClientException if the call fails.
+     */
+    public List<InventoryInfo> fetchAll(Collection<String> productIds) {
+        HttpHeaders headers = headers();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        InventoryInfo[] inventory = restTemplate.exchange(properties.getBaseUrl() + properties.getBatchPath(),
+                HttpMethod.POST, new HttpEntity<>(productIds, headers), InventoryInfo[].class).getBody();
+        return inventory != null ? Arrays.asList(inventory) : List.of();
+    }
+
+    private HttpHeaders headers() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        String token = serviceTokens.accessToken(properties.getClientRegistrationId());
+        if (token != null) {
+            headers.setBearerAuth(token);
+        }
+        return headers;
+    }
+}
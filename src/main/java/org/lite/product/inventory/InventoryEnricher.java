@@ -0,0 +1,116 @@
+package org.lite.product.inventory;
+
+import lombok.extern.slf4j.Slf4j;
+import org.lite.product.model.InventoryInfo;
+import org.lite.product.model.ProductInfo;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fills in the inventory fields of {@link ProductInfo} from the inventory service.
+ * <p>
+ * Inventory comes from the {@link InventoryCache}, which answers cached products at once and calls the inventory
+ * service for the others in parallel, so a request waits for its slowest call rather than the sum of them. The
+ * whole request shares one deadline: products whose call has not answered by then, or failed, come back without
+ * inventory data, and the request returns without waiting for the stragglers. Stored products are never modified;
+ * enriched products are copies.
+ */
+@Component
+@Slf4j
+public class InventoryEnricher {
+
+    /**
+     * Enriched copies of the products, in the same order, and how many of them got no inventory data.
+     */
+    public record Result(List<ProductInfo> products, int missing) {
+    }
+
+    private final InventoryCache inventoryCache;
+    private final InventoryBatcher inventoryBatcher;
+    private final InventoryProperties properties;
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public InventoryEnricher(InventoryCache inventoryCache, InventoryBatcher inventoryBatcher,
+                             InventoryProperties properties) {
+        this.inventoryCache = inventoryCache;
+        this.inventoryBatcher = inventoryBatcher;
+        this.properties = properties;
+    }
+
+    public Result enrich(List<ProductInfo> products) {
+        if (products.isEmpty()) {
+            return new Result(products, 0);
+        }
+        long deadline = System.nanoTime() + properties.getDeadline().toNanos();
+        Map<String, CompletableFuture<InventoryInfo>> pending = new HashMap<>();
+        for (ProductInfo product : products) {
+            pending.computeIfAbsent(product.getId(), inventoryCache::lookup);
+        }
+        // Calls still running past the deadline are not waited for; they finish in the background and fill the cache
+        Map<String, InventoryInfo> inventory = new HashMap<>();
+        for (Map.Entry<String, CompletableFuture<InventoryInfo>> entry : pending.entrySet()) {
+            InventoryInfo info = await(entry.getKey(), entry.getValue(), deadline);
+            if (info != null) {
+                inventory.put(entry.getKey(), info);
+            }
+        }
+
+        List<ProductInfo> enriched = new ArrayList<>(products.size());
+        int missing = 0;
+        for (ProductInfo product : products) {
+            InventoryInfo info = inventory.get(product.getId());
+            if (info == null) {
+                missing++;
+            }
+            enriched.add(withInventory(product, info));
+        }
+        if (missing > 0) {
+            log.warn("{} of {} products returned without inventory data", missing, products.size());
+        }
+        return new Result(enriched, missing);
+    }
+
+    public Map<String, Double> metrics() {
+        Map<String, Double> metrics = new LinkedHashMap<>(inventoryCache.metrics());
+        metrics.putAll(inventoryBatcher.metrics());
+        metrics.put("inventory.timeouts", (double) timeouts.sum());
+        metrics.put("inventory.failures", (double) failures.sum());
+        return metrics;
+    }
+
+    private InventoryInfo await(String productId, CompletableFuture<InventoryInfo> call, long deadline) {
+        try {
+            return call.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            return null;
+        } catch (ExecutionException e) {
+            failures.increment();
+            log.debug("Inventory call for product {} failed: {}", productId, e.getCause().getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static ProductInfo withInventory(ProductInfo product, InventoryInfo info) {
+        return new ProductInfo(product.getId(), product.getName(), product.getDescription(), product.getPrice(),
+                product.getCategory(),
+                info != null && info.isInStock(),
+                info != null ? info.getAvailableQuantity() : null,
+                info != null ? info.getEstimatedDelivery() : null,
+                info != null ? info.getWarehouseLocation() : null);
+    }
+}
@@ -0,0 +1,46 @@
+package org.lite.product.inventory;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "catalog.inventory")
+public class InventoryProperties {
+    // Where inventory calls go: the API gateway when deployed, the stub server when testing offline
+    private String baseUrl = "https://localhost:7777";
+    // Path of one product's inventory below the base URL
+    private String path = "/r/inventory-service/api/inventory/{productId}";
+    // Path of the bulk lookup below the base URL: a POSTed JSON array of product IDs is answered with their inventory
+    private String batchPath = "/r/inventory-service/api/inventory/batch";
+    // OAuth2 client registration whose client-credentials token inventory calls carry; answers are shared by callers
+    private String clientRegistrationId;
+    // Time budget for all inventory calls of one request; products still waiting then come back without inventory
+    private Duration deadline = Duration.ofMillis(300);
+    // Inventory calls in flight at once across all requests; keeps part of the shared connection pool for other calls
+    private int maxConcurrentCalls = 64;
+    private final Cache cache = new Cache();
+    private final Batch batch = new Batch();
+
+    @Data
+    public static class Cache {
+        // When disabled every read calls the inventory service
+        private boolean enabled = true;
+        // How long an answer is served before it has to be fetched again
+        private Duration ttl = Duration.ofSeconds(30);
+        // A read of an entry older than this refreshes it in the background, so hot products never expire
+        private Duration refreshAfter = Duration.ofSeconds(20);
+        private int maxEntries = 100_000;
+    }
+
+    @Data
+    public static class Batch {
+        // When enabled, lookups are collected into bulk requests instead of one request each
+        private boolean enabled = false;
+        // How long the first lookup of a batch waits for others to join it
+        private Duration window = Duration.ofMillis(5);
+        // A batch is sent as soon as it holds this many products
+        private int maxSize = 50;
+    }
+}
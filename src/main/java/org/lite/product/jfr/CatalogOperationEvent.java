@@ -0,0 +1,46 @@
+package org.lite.product.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * One read or write of the product catalog on behalf of a request: the storage engine, and for writes the
+ * write-ahead log, the indexes and the change feed.
+ */
+@Name("org.lite.product.CatalogOperation")
+@Label("Catalog Operation")
+@Description("A read or write of the product catalog made for a request")
+@Category({"Product Service", "Catalog"})
+@Enabled(false)
+@Threshold("1 ms")
+@StackTrace(false)
+public final class CatalogOperationEvent extends StageEvent {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Product ID")
+    @Description("The product read or written, if the operation is about one product")
+    String productId;
+
+    @Label("Products")
+    @Description("Products read or written")
+    int products;
+
+    /**
+     * Ends the stage and records it if it was timed and took at least its threshold.
+     */
+    public void finish(String operation, String productId, int products) {
+        if (stop()) {
+            this.operation = operation;
+            this.productId = productId;
+            this.products = products;
+            commit();
+        }
+    }
+}
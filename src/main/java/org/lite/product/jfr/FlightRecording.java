@@ -0,0 +1,97 @@
+package org.lite.product.jfr;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The continuous flight recording started with the service when {@code catalog.jfr.recording} is set, named
+ * {@value #NAME} so it can be dumped with {@code jcmd <pid> JFR.dump name=product-service}. Its event settings can be
+ * changed while it runs through the {@code FlightRecorderMXBean}, for example from JDK Mission Control.
+ * <p>
+ * The request-stage events are disabled unless a recording enables them, so without one they cost a check of a
+ * flag per stage.
+ */
+@Component
+@Slf4j
+public class FlightRecording {
+
+    public static final String NAME = "product-service";
+    public static final String SETTINGS = "jfr/product-service.jfc";
+
+    private final Recording recording;
+
+    public FlightRecording(JfrProperties properties) {
+        if (!properties.isRecording()) {
+            this.recording = null;
+            return;
+        }
+        Map<String, String> settings = new HashMap<>(defaultSettings());
+        settings.putAll(settings().getSettings());
+        settings.putAll(properties.getSettings());
+        this.recording = new Recording(settings);
+        recording.setName(NAME);
+        recording.setToDisk(true);
+        recording.setMaxAge(properties.getMaxAge());
+        recording.setMaxSize(properties.getMaxSize().toBytes());
+        if (!properties.getDestination().isBlank()) {
+            try {
+                recording.setDestination(Path.of(properties.getDestination()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write the flight recording to " + properties.getDestination(), e);
+            }
+            recording.setDumpOnExit(true);
+        }
+        recording.start();
+        log.info("Flight recording '{}' started: last {} or {} kept{}", NAME, properties.getMaxAge(),
+                properties.getMaxSize(), properties.getDestination().isBlank() ? ""
+                        : ", written to " + properties.getDestination() + " on shutdown");
+    }
+
+    /**
+     * The settings of the request-stage events from {@value #SETTINGS}.
+     */
+    public static Configuration settings() {
+        InputStream in = FlightRecording.class.getClassLoader().getResourceAsStream(SETTINGS);
+        if (in == null) {
+            throw new IllegalStateException(SETTINGS + " is missing from the classpath");
+        }
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return Configuration.create(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ParseException e) {
+            throw new IllegalStateException(SETTINGS + " is not a valid JFR configuration", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (recording != null) {
+            // Stopping writes the recording to its destination, if it has one
+            recording.stop();
+            recording.close();
+        }
+    }
+
+    private static Map<String, String> defaultSettings() {
+        try {
+            return Configuration.getConfiguration("default").getSettings();
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("The JDK's default JFR configuration cannot be read", e);
+        }
+    }
+}
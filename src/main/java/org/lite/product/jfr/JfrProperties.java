@@ -0,0 +1,23 @@
+package org.lite.product.jfr;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "catalog.jfr")
+public class JfrProperties {
+    // Starts a continuous flight recording at startup with the JDK's default settings and jfr/product-service.jfc
+    private boolean recording = false;
+    // Recorded history kept by that recording
+    private Duration maxAge = Duration.ofMinutes(30);
+    private DataSize maxSize = DataSize.ofMegabytes(250);
+    // File the recording is written to when the service stops; empty to keep it only while the service runs
+    private String destination = "";
+    // Event settings that replace those of the settings files, such as org.lite.product.OutboundCall#threshold
+    private Map<String, String> settings = new LinkedHashMap<>();
+}
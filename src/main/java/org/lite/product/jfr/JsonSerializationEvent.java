@@ -0,0 +1,51 @@
+package org.lite.product.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Writing a response body as JSON, either by Jackson or by assembling cached product fragments.
+ */
+@Name("org.lite.product.JsonSerialization")
+@Label("JSON Serialization")
+@Description("Writing a response body as JSON")
+@Category({"Product Service", "Serialization"})
+@Enabled(false)
+@Threshold("1 ms")
+@StackTrace(false)
+public final class JsonSerializationEvent extends StageEvent {
+
+    @Label("Type")
+    String type;
+
+    @Label("Product ID")
+    @Description("The product in the body, if it holds exactly one")
+    String productId;
+
+    @Label("Products")
+    @Description("Products in the body, if it is a ProductAvailabilityResponse")
+    int products;
+
+    @Label("Size")
+    @DataAmount
+    long size;
+
+    /**
+     * Ends the stage and records it if it was timed and took at least its threshold.
+     */
+    public void finish(String type, String productId, int products, long size) {
+        if (stop()) {
+            this.type = type;
+            this.productId = productId;
+            this.products = products;
+            this.size = size;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.lite.product.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Turning a bearer token into a verified JWT: a signature check on first use, a cache lookup afterwards.
+ */
+@Name("org.lite.product.JwtDecode")
+@Label("JWT Decode")
+@Description("Verifying a bearer token, or finding it among the tokens already verified")
+@Category({"Product Service", "Security"})
+@Enabled(false)
+@Threshold("1 ms")
+@StackTrace(false)
+public final class JwtDecodeEvent extends StageEvent {
+
+    @Label("Cache Hit")
+    @Description("The token had been verified before")
+    boolean cacheHit;
+
+    @Label("Token Size")
+    @DataAmount
+    int tokenSize;
+
+    @Label("Failure")
+    @Description("Why the token was refused, if it was")
+    String failure;
+
+    public void cacheHit() {
+        cacheHit = true;
+    }
+
+    public void failed(Exception e) {
+        failure = e.getMessage();
+    }
+
+    /**
+     * Ends the stage and records it if it was timed and took at least its threshold.
+     */
+    public void finish(String token) {
+        if (stop()) {
+            tokenSize = token.length();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.lite.product.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A call to another service through the shared RestTemplate: the inventory service, peer shards or replicas.
+ */
+@Name("org.lite.product.OutboundCall")
+@Label("Outbound Call")
+@Description("A call to another service through the shared RestTemplate")
+@Category({"Product Service", "Outbound"})
+@Enabled(false)
+@Threshold("10 ms")
+@StackTrace(false)
+public final class OutboundCallEvent extends StageEvent {
+
+    @Label("Method")
+    String method;
+
+    @Label("URI")
+    String uri;
+
+    @Label("Product ID")
+    @Description("The product of the request being served when the call was made, if any")
+    String productId;
+
+    @Label("Status")
+    @Description("HTTP status of the answer, or 0 if there was none")
+    int status;
+
+    @Label("Request Size")
+    @DataAmount
+    long requestSize;
+
+    @Label("Response Size")
+    @Description("Content-Length of the answer, or -1 if it was not given")
+    @DataAmount
+    long responseSize = -1;
+
+    @Label("Failure")
+    String failure;
+
+    public void answered(int status, long responseSize) {
+        this.status = status;
+        this.responseSize = responseSize;
+    }
+
+    public void failed(Exception e) {
+        failure = e.toString();
+    }
+
+    /**
+     * Ends the stage and records it if it was timed and took at least its threshold.
+     */
+    public void finish(String method, String uri, String productId, long requestSize) {
+        if (stop()) {
+            this.method = method;
+            this.uri = uri;
+            this.productId = productId;
+            this.requestSize = requestSize;
+            commit();
+        }
+    }
+}
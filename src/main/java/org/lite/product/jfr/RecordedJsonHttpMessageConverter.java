@@ -0,0 +1,83 @@
+package org.lite.product.jfr;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.lite.product.model.ProductAvailabilityResponse;
+import org.lite.product.model.ProductInfo;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * The JSON converter for response bodies, recording a {@link JsonSerializationEvent} for each body it writes while
+ * the event is enabled. When it is not, bodies are written exactly as by {@link MappingJackson2HttpMessageConverter}.
+ * The time includes handing the bytes to the connection, which for a large body can wait on a slow client.
+ */
+public class RecordedJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    public RecordedJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(@NonNull Object object, @Nullable Type type, @NonNull HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        JsonSerializationEvent event = new JsonSerializationEvent();
+        if (!event.isEnabled()) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+        CountingOutputMessage counted = new CountingOutputMessage(outputMessage);
+        event.start();
+        super.writeInternal(object, type, counted);
+        List<ProductInfo> products = object instanceof ProductAvailabilityResponse response
+                ? response.getProducts() : null;
+        event.finish(object.getClass().getSimpleName(),
+                products != null && products.size() == 1 ? products.get(0).getId() : null,
+                products != null ? products.size() : 0, counted.bytes);
+    }
+
+    private static final class CountingOutputMessage implements HttpOutputMessage {
+
+        private final HttpOutputMessage delegate;
+        private OutputStream body;
+        private long bytes;
+
+        CountingOutputMessage(HttpOutputMessage delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public @NonNull OutputStream getBody() throws IOException {
+            if (body == null) {
+                body = new FilterOutputStream(delegate.getBody()) {
+                    @Override
+                    public void write(int b) throws IOException {
+                        out.write(b);
+                        bytes++;
+                    }
+
+                    @Override
+                    public void write(@NonNull byte[] b, int off, int len) throws IOException {
+                        out.write(b, off, len);
+                        bytes += len;
+                    }
+                };
+            }
+            return body;
+        }
+
+        @Override
+        public @NonNull HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.lite.product.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Checking a request's token roles against the authorization rules.
+ */
+@Name("org.lite.product.RoleCheck")
+@Label("Role Check")
+@Description("Checking the roles of a request's token against the authorization rules")
+@Category({"Product Service", "Security"})
+@Enabled(false)
+@Threshold("1 ms")
+@StackTrace(false)
+public final class RoleCheckEvent extends StageEvent {
+
+    @Label("Method")
+    String method;
+
+    @Label("Path")
+    String path;
+
+    @Label("Granted")
+    boolean granted;
+
+    /**
+     * Ends the stage and records it if it was timed and took at least its threshold.
+     */
+    public void finish(String method, String path, boolean granted) {
+        if (stop()) {
+            this.method = method;
+            this.path = path;
+            this.granted = granted;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.lite.product.jfr;
+
+import jdk.jfr.Event;
+
+/**
+ * A request stage timed only while a recording has its event enabled. Once JFR is running, {@link #begin} and
+ * {@link #end} read the clock whether or not the event is enabled; {@link #start} checks first, so a stage nobody
+ * records costs a flag check.
+ */
+abstract class StageEvent extends Event {
+
+    // Set when timing started, so an event enabled mid-stage is not recorded without a start time
+    private transient boolean started;
+
+    /**
+     * Starts timing the stage if a recording has this event enabled.
+     */
+    public final void start() {
+        if (isEnabled()) {
+            started = true;
+            begin();
+        }
+    }
+
+    /**
+     * Ends timing the stage, and tells whether the event should be recorded: it was timed, is still enabled and took
+     * at least its threshold.
+     */
+    final boolean stop() {
+        if (!started) {
+            return false;
+        }
+        end();
+        return shouldCommit();
+    }
+}
@@ -0,0 +1,122 @@
+package org.lite.product.metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency, outcome and concurrency of the requests to one endpoint: since startup, and over fixed windows so that
+ * recent rates and percentiles can be reported. The current window is replaced by compare-and-set when it is over,
+ * so recording never waits for another thread.
+ */
+final class EndpointStats {
+
+    /**
+     * The requests of one window, or of the whole run.
+     */
+    static final class Window {
+
+        final long startNanos;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder serverErrors = new LongAdder();
+        final LongAdder clientErrors = new LongAdder();
+
+        Window(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        void record(long nanos, int status) {
+            latency.record(nanos);
+            if (status >= 500) {
+                serverErrors.increment();
+            } else if (status >= 400) {
+                clientErrors.increment();
+            }
+        }
+    }
+
+    private final String method;
+    private final String pattern;
+    private final long windowNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Window total;
+    private final AtomicReference<Window> current;
+    private volatile Window previous;
+
+    EndpointStats(String method, String pattern, long windowNanos) {
+        this.method = method;
+        this.pattern = pattern;
+        this.windowNanos = windowNanos;
+        long now = System.nanoTime();
+        this.total = new Window(now);
+        this.current = new AtomicReference<>(new Window(now));
+    }
+
+    String method() {
+        return method;
+    }
+
+    String pattern() {
+        return pattern;
+    }
+
+    void started() {
+        inFlight.incrementAndGet();
+    }
+
+    void finished() {
+        inFlight.decrementAndGet();
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    void record(long nanos, int status, long now) {
+        total.record(nanos, status);
+        window(now).record(nanos, status);
+    }
+
+    Window total() {
+        return total;
+    }
+
+    /**
+     * The last complete window or, until there is one, the current window so far; null if there were no requests in
+     * the last window's length.
+     */
+    Window recent(long now) {
+        Window window = current.get();
+        long age = now - window.startNanos;
+        if (age >= 2 * windowNanos) {
+            return null;
+        }
+        if (age >= windowNanos) {
+            return window;
+        }
+        Window last = previous;
+        return last != null ? last : window;
+    }
+
+    /**
+     * How long the given window from {@link #recent} has covered: a whole window length, or, for the current one,
+     * the time since it started, so rates over a partial window are not diluted.
+     */
+    long spanNanos(Window window, long now) {
+        return Math.min(windowNanos, now - window.startNanos);
+    }
+
+    private Window window(long now) {
+        Window window = current.get();
+        if (now - window.startNanos < windowNanos) {
+            return window;
+        }
+        Window next = new Window(now);
+        if (current.compareAndSet(window, next)) {
+            // A window that ended long ago says nothing about the last one
+            previous = now - window.startNanos < 2 * windowNanos ? window : null;
+            return next;
+        }
+        return current.get();
+    }
+}
@@ -0,0 +1,127 @@
+package org.lite.product.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram in the style of HdrHistogram: microsecond values below 64 get a bucket each, and
+ * every power of two above that is split into 32 linear sub-buckets, so any recorded value is known to within about
+ * 3% over the whole range of one microsecond to one hour (longer values count as one hour). Recording is a few atomic
+ * increments into fixed arrays and never allocates; readers take a {@link #snapshot} while recording goes on.
+ */
+public final class LatencyHistogram {
+
+    // Values below this have a bucket of their own
+    private static final int EXACT = 64;
+    private static final int SUB_BUCKETS = EXACT / 2;
+    private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+    private static final long MAX_MICROS = TimeUnit.HOURS.toMicros(1);
+    private static final int BUCKETS = index(MAX_MICROS) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void record(long nanos) {
+        long micros = Math.min(MAX_MICROS, Math.max(0, nanos / 1_000));
+        counts.incrementAndGet(index(micros));
+        totalMicros.add(micros);
+        if (micros > maxMicros.get()) {
+            maxMicros.accumulateAndGet(micros, Math::max);
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(copy, totalMicros.sum(), maxMicros.get());
+    }
+
+    static int index(long micros) {
+        if (micros < EXACT) {
+            return (int) micros;
+        }
+        // Shift that brings the value into [SUB_BUCKETS, EXACT)
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        return EXACT + (shift - 1) * SUB_BUCKETS + (int) ((micros >>> shift) - SUB_BUCKETS);
+    }
+
+    /**
+     * The middle of the values bucket {@code index} holds, in microseconds.
+     */
+    static double midpoint(int index) {
+        if (index < EXACT) {
+            return index;
+        }
+        int shift = (index - EXACT) / SUB_BUCKETS + 1;
+        long lowest = (long) ((index - EXACT) % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + ((1L << shift) - 1) / 2.0;
+    }
+
+    /**
+     * The histogram's counts at one moment, which can be merged with others and queried for percentiles.
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private long count;
+        private long totalMicros;
+        private long maxMicros;
+
+        private Snapshot(long[] counts, long totalMicros, long maxMicros) {
+            this.counts = counts;
+            for (long bucket : counts) {
+                count += bucket;
+            }
+            this.totalMicros = totalMicros;
+            this.maxMicros = maxMicros;
+        }
+
+        public static Snapshot empty() {
+            return new Snapshot(new long[BUCKETS], 0, 0);
+        }
+
+        public void add(Snapshot other) {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += other.counts[i];
+            }
+            count += other.count;
+            totalMicros += other.totalMicros;
+            maxMicros = Math.max(maxMicros, other.maxMicros);
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public double meanMillis() {
+            return count > 0 ? totalMicros / 1_000.0 / count : 0.0;
+        }
+
+        public double maxMillis() {
+            return maxMicros / 1_000.0;
+        }
+
+        /**
+         * The value at or below which {@code percentile} percent of the recorded values lie, in milliseconds.
+         */
+        public double percentileMillis(double percentile) {
+            if (count == 0) {
+                return 0.0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(midpoint(i), maxMicros) / 1_000.0;
+                }
+            }
+            return maxMillis();
+        }
+    }
+}
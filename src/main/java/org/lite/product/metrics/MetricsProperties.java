@@ -0,0 +1,15 @@
+package org.lite.product.metrics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "catalog.metrics")
+public class MetricsProperties {
+    // Records the latency, status and concurrency of every request per endpoint
+    private boolean enabled = true;
+    // Length of the interval that recent rates and percentiles are reported over
+    private Duration window = Duration.ofMinutes(1);
+}
@@ -0,0 +1,207 @@
+package org.lite.product.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.lite.product.model.EndpointMetrics;
+import org.lite.product.model.LatencySummary;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Per-endpoint request metrics, keyed by HTTP method and the handler's mapping pattern, such as
+ * {@code GET /api/product/products/{productId}}, so all requests to one route share their numbers. Requests that
+ * never reached a handler, like those refused by the security filters, are kept under {@value #UNMATCHED}.
+ * <p>
+ * Looking up an endpoint is a map lookup by pattern and an array index by method, without building a key, and every
+ * counter is an atomic or a LongAdder: recording takes no lock and allocates nothing once an endpoint has been seen.
+ */
+@Component
+public class RequestMetrics {
+
+    public static final String UNMATCHED = "(unmatched)";
+    // Request attribute holding the EndpointStats of a request that reached a handler
+    static final String ENDPOINT_ATTRIBUTE = RequestMetrics.class.getName() + ".endpoint";
+
+    private static final String[] METHODS = {"GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "TRACE"};
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final MetricsProperties properties;
+    private final long windowNanos;
+    private final ConcurrentHashMap<String, AtomicReferenceArray<EndpointStats>> endpoints = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public RequestMetrics(MetricsProperties properties) {
+        this.properties = properties;
+        this.windowNanos = properties.getWindow().toNanos();
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Called when a request enters the service.
+     */
+    public void started() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * Called once the handler for a request is known; counts the request as in flight on that endpoint.
+     */
+    public void handlerFound(HttpServletRequest request, String pattern) {
+        if (request.getAttribute(ENDPOINT_ATTRIBUTE) == null) {
+            EndpointStats endpoint = endpoint(request.getMethod(), pattern);
+            endpoint.started();
+            request.setAttribute(ENDPOINT_ATTRIBUTE, endpoint);
+        }
+    }
+
+    /**
+     * Called when a request has been answered, with the nanoTime it entered the service.
+     */
+    public void finished(HttpServletRequest request, int status, long startNanos) {
+        long now = System.nanoTime();
+        inFlight.decrementAndGet();
+        EndpointStats endpoint = (EndpointStats) request.getAttribute(ENDPOINT_ATTRIBUTE);
+        if (endpoint != null) {
+            endpoint.finished();
+        } else {
+            endpoint = endpoint(request.getMethod(), UNMATCHED);
+        }
+        endpoint.record(now - startNanos, status, now);
+    }
+
+    /**
+     * Every endpoint that has served a request, ordered by pattern and method.
+     */
+    public List<EndpointMetrics> endpoints() {
+        long now = System.nanoTime();
+        List<EndpointMetrics> metrics = new ArrayList<>();
+        for (EndpointStats endpoint : allEndpoints()) {
+            EndpointStats.Window recent = endpoint.recent(now);
+            EndpointMetrics entry = new EndpointMetrics();
+            entry.setMethod(endpoint.method());
+            entry.setPattern(endpoint.pattern());
+            entry.setInFlight(endpoint.inFlight());
+            entry.setRecent(recent != null ? summary(recent) : emptySummary());
+            entry.setTotal(summary(endpoint.total()));
+            entry.setRequestRate(recent != null ? rate(entry.getRecent().getRequests(), endpoint.spanNanos(recent, now))
+                    : 0.0);
+            entry.setErrorRate(errorRate(entry.getRecent()));
+            metrics.add(entry);
+        }
+        metrics.sort(Comparator.comparing(EndpointMetrics::getPattern).thenComparing(EndpointMetrics::getMethod));
+        return metrics;
+    }
+
+    /**
+     * All endpoints together over the last window, for {@code /health}.
+     */
+    public Map<String, Double> metrics() {
+        long now = System.nanoTime();
+        LatencyHistogram.Snapshot latency = LatencyHistogram.Snapshot.empty();
+        long requests = 0;
+        double requestRate = 0;
+        long serverErrors = 0;
+        long clientErrors = 0;
+        long totalRequests = 0;
+        for (EndpointStats endpoint : allEndpoints()) {
+            totalRequests += endpoint.total().latency.snapshot().count();
+            EndpointStats.Window recent = endpoint.recent(now);
+            if (recent != null) {
+                LatencyHistogram.Snapshot snapshot = recent.latency.snapshot();
+                latency.add(snapshot);
+                requests += snapshot.count();
+                requestRate += rate(snapshot.count(), endpoint.spanNanos(recent, now));
+                serverErrors += recent.serverErrors.sum();
+                clientErrors += recent.clientErrors.sum();
+            }
+        }
+        Map<String, Double> metrics = new LinkedHashMap<>();
+        metrics.put("http.requests", (double) totalRequests);
+        metrics.put("http.inFlight", (double) inFlight.get());
+        metrics.put("http.requestRate", requestRate);
+        metrics.put("http.serverErrorRate", requests > 0 ? (double) serverErrors / requests : 0.0);
+        metrics.put("http.clientErrorRate", requests > 0 ? (double) clientErrors / requests : 0.0);
+        metrics.put("http.meanMs", latency.meanMillis());
+        metrics.put("http.p50Ms", latency.percentileMillis(50));
+        metrics.put("http.p99Ms", latency.percentileMillis(99));
+        metrics.put("http.p999Ms", latency.percentileMillis(99.9));
+        return metrics;
+    }
+
+    private EndpointStats endpoint(String method, String pattern) {
+        int index = methodIndex(method);
+        AtomicReferenceArray<EndpointStats> byMethod = endpoints.get(pattern);
+        if (byMethod == null) {
+            byMethod = endpoints.computeIfAbsent(pattern, key -> new AtomicReferenceArray<>(METHODS.length + 1));
+        }
+        EndpointStats endpoint = byMethod.get(index);
+        if (endpoint == null) {
+            String name = index < METHODS.length ? METHODS[index] : "OTHER";
+            byMethod.compareAndSet(index, null, new EndpointStats(name, pattern, windowNanos));
+            endpoint = byMethod.get(index);
+        }
+        return endpoint;
+    }
+
+    private List<EndpointStats> allEndpoints() {
+        List<EndpointStats> all = new ArrayList<>();
+        for (AtomicReferenceArray<EndpointStats> byMethod : endpoints.values()) {
+            for (int i = 0; i < byMethod.length(); i++) {
+                if (byMethod.get(i) != null) {
+                    all.add(byMethod.get(i));
+                }
+            }
+        }
+        return all;
+    }
+
+    private static LatencySummary summary(EndpointStats.Window window) {
+        LatencyHistogram.Snapshot latency = window.latency.snapshot();
+        LatencySummary summary = new LatencySummary();
+        summary.setRequests(latency.count());
+        summary.setServerErrors(window.serverErrors.sum());
+        summary.setClientErrors(window.clientErrors.sum());
+        summary.setMeanMs(latency.meanMillis());
+        summary.setP50Ms(latency.percentileMillis(PERCENTILES[0]));
+        summary.setP90Ms(latency.percentileMillis(PERCENTILES[1]));
+        summary.setP99Ms(latency.percentileMillis(PERCENTILES[2]));
+        summary.setP999Ms(latency.percentileMillis(PERCENTILES[3]));
+        summary.setMaxMs(latency.maxMillis());
+        return summary;
+    }
+
+    private static LatencySummary emptySummary() {
+        return summary(new EndpointStats.Window(0));
+    }
+
+    /**
+     * Requests per second over a span of at least a second, so the first requests after a quiet spell do not read
+     * as a burst.
+     */
+    private static double rate(long requests, long spanNanos) {
+        return requests / (Math.max(spanNanos, 1_000_000_000L) / 1_000_000_000.0);
+    }
+
+    private static double errorRate(LatencySummary summary) {
+        return summary.getRequests() > 0 ? (double) summary.getServerErrors() / summary.getRequests() : 0.0;
+    }
+
+    private static int methodIndex(String method) {
+        for (int i = 0; i < METHODS.length; i++) {
+            if (METHODS[i].equals(method)) {
+                return i;
+            }
+        }
+        return METHODS.length;
+    }
+}
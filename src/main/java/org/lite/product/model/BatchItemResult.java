@@ -0,0 +1,14 @@
+package org.lite.product.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResult {
+    private String productId;
+    // HTTP status the equivalent single-item call would have returned
+    private int status;
+}
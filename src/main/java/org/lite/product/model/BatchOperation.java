@@ -0,0 +1,18 @@
+package org.lite.product.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchOperation {
+    public enum Type { CREATE, UPDATE, DELETE }
+
+    private Type op;
+    // Target product for UPDATE and DELETE; CREATE takes the ID from the product, generating one if absent
+    private String productId;
+    // Product body for CREATE and UPDATE, ignored for DELETE
+    private ProductInfo product;
+}
@@ -0,0 +1,13 @@
+package org.lite.product.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchWriteRequest {
+    private List<BatchOperation> operations;
+}
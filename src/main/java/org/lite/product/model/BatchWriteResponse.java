@@ -0,0 +1,18 @@
+package org.lite.product.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchWriteResponse {
+    // One entry per operation, in request order
+    private List<BatchItemResult> results;
+    private int succeeded;
+    private int failed;
+    private String timestamp;
+    private String serviceSource = "product-service";
+}
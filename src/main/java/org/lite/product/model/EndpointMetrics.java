@@ -0,0 +1,17 @@
+package org.lite.product.model;
+
+import lombok.Data;
+
+@Data
+public class EndpointMetrics {
+    private String method;
+    // Mapping pattern, like /api/product/products/{productId}, or (unmatched) for requests that reached no handler
+    private String pattern;
+    private int inFlight;
+    // Requests per second, and the share of them that were server errors, over the last complete window
+    private double requestRate;
+    private double errorRate;
+    private LatencySummary recent;
+    // Since the service started
+    private LatencySummary total;
+}
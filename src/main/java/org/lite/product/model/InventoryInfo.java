@@ -0,0 +1,16 @@
+package org.lite.product.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryInfo {
+    private String productId;
+    private boolean inStock;
+    private Integer availableQuantity;
+    private String estimatedDelivery;
+    private String warehouseLocation;
+}
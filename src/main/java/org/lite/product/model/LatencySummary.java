@@ -0,0 +1,18 @@
+package org.lite.product.model;
+
+import lombok.Data;
+
+@Data
+public class LatencySummary {
+    private long requests;
+    // Answered with a 5xx status, or failed with an exception
+    private long serverErrors;
+    private long clientErrors;
+    // Latencies in milliseconds, from the service receiving the request to the response being complete
+    private double meanMs;
+    private double p50Ms;
+    private double p90Ms;
+    private double p99Ms;
+    private double p999Ms;
+    private double maxMs;
+}
@@ -0,0 +1,17 @@
+package org.lite.product.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MultiGetResponse {
+    // Found products, in the order their IDs were requested
+    private List<ProductInfo> products;
+    private List<String> missingIds;
+    private String timestamp;
+    private String serviceSource = "product-service";
+}
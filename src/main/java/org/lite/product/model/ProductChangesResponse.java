@@ -0,0 +1,23 @@
+package org.lite.product.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.lite.product.change.ChangeEvent;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangesResponse {
+    // Latest change per product in this page, oldest first; deletes are tombstones with a null product
+    private List<ChangeEvent> changes;
+    // Pass as since on the next call
+    private long nextSince;
+    private boolean hasMore;
+    // The changes after since are no longer held: reload the catalog, then continue from its ETag
+    private boolean resyncRequired;
+    private String timestamp;
+    private String serviceSource = "product-service";
+}
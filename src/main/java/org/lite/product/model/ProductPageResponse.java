@@ -0,0 +1,17 @@
+package org.lite.product.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPageResponse {
+    private List<ProductInfo> products;
+    // Opaque continuation token, null when there are no more pages
+    private String nextCursor;
+    private String timestamp;
+    private String serviceSource = "product-service";
+}
@@ -0,0 +1,241 @@
+package org.lite.product.persistence;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.lite.product.model.ProductInfo;
+import org.lite.product.repository.ProductRepository;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Local durability for the in-memory catalog: every write is appended to a group-committed write-ahead log,
+ * a compacted snapshot is taken periodically, and startup restores the latest snapshot and replays the log tail.
+ * <p>
+ * Snapshots are fuzzy unless the engine keeps versions: the catalog keeps changing while it is written out. That
+ * is safe because the log is rotated before the snapshot starts and every log record is a full product image or a
+ * delete, so replaying everything after the rotation point converges on the same state. Writes are logged before
+ * they are applied, so a failed append leaves the catalog untouched; the rotation waits for writes between the two,
+ * so every record before the rotation point is already in the catalog the snapshot reads.
+ */
+@Component
+@Slf4j
+public class CatalogPersistence {
+
+    /**
+     * A write to log: the new value of a product, or its deletion when {@code product} is null.
+     */
+    public record LoggedWrite(String productId, ProductInfo product) {
+
+        public static LoggedWrite put(ProductInfo product) {
+            return new LoggedWrite(product.getId(), product);
+        }
+
+        public static LoggedWrite delete(String productId) {
+            return new LoggedWrite(productId, null);
+        }
+    }
+
+    private final CatalogPersistenceProperties properties;
+    // Shared by writes from their log append until they are applied, exclusive while the log is rotated
+    private final ReadWriteLock rotationGate = new ReentrantReadWriteLock();
+
+    private WriteAheadLog wal;
+    private ScheduledExecutorService snapshotter;
+    private ProductRepository catalog;
+
+    private long appendsAtLastSnapshot;
+    private volatile long snapshots;
+    private volatile double lastSnapshotMillis;
+    private volatile double recoveryMillis;
+    private volatile long recoveredProducts;
+
+    public CatalogPersistence(CatalogPersistenceProperties properties) {
+        this.properties = properties;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Restores the durable catalog into {@code target}, then starts logging and periodic snapshots of it.
+     * Returns false when persistence is disabled or there was nothing on disk yet.
+     */
+    public boolean open(ProductRepository target) {
+        if (!isEnabled()) {
+            return false;
+        }
+        Path directory = Paths.get(properties.getDirectory());
+        try {
+            Files.createDirectories(directory);
+
+            long start = System.nanoTime();
+            Optional<Long> snapshotSeq = SnapshotFile.loadLatest(directory, target::put);
+            long snapshotLoaded = System.nanoTime();
+            int[] replayed = new int[1];
+            long lastSeq = WriteAheadLog.replay(directory, snapshotSeq.orElse(0L), entry -> {
+                if (entry.type() == WriteAheadLog.PUT) {
+                    ProductInfo product = ProductRecordCodec.readProduct(entry.payload());
+                    target.put(product);
+                } else if (entry.type() == WriteAheadLog.DELETE) {
+                    target.delete(ProductRecordCodec.readString(entry.payload()));
+                }
+                replayed[0]++;
+            });
+            long end = System.nanoTime();
+
+            recoveryMillis = (end - start) / 1_000_000.0;
+            recoveredProducts = target.size();
+            log.info("Recovered {} products in {} ms: snapshot at seq {} loaded in {} ms, {} log records replayed in {} ms",
+                    target.size(), recoveryMillis, snapshotSeq.orElse(0L), (snapshotLoaded - start) / 1_000_000.0,
+                    replayed[0], (end - snapshotLoaded) / 1_000_000.0);
+
+            catalog = target;
+            wal = new WriteAheadLog(directory, lastSeq, properties.getGroupCommitMaxBatch(), properties.isFsync());
+            long interval = properties.getSnapshotInterval().toMillis();
+            snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "catalog-snapshotter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            snapshotter.scheduleWithFixedDelay(this::snapshot, interval, interval, TimeUnit.MILLISECONDS);
+
+            return snapshotSeq.isPresent() || lastSeq > 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open catalog storage in " + directory, e);
+        }
+    }
+
+    /**
+     * Durably records a group of writes, then runs {@code apply} to store them. The group is appended at once and
+     * waited for once, so a batch costs one fsync rather than one per write; it reaches the log all or nothing.
+     * Throws without running {@code apply} if the writes could not be made durable.
+     */
+    public void logThenApply(List<LoggedWrite> writes, Runnable apply) {
+        if (wal == null) {
+            apply.run();
+            return;
+        }
+        List<WriteAheadLog.Record> records = new ArrayList<>(writes.size());
+        try {
+            for (LoggedWrite write : writes) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(write.product() != null ? 256 : 32);
+                DataOutputStream out = new DataOutputStream(bytes);
+                if (write.product() != null) {
+                    ProductRecordCodec.writeProduct(out, write.product());
+                    records.add(new WriteAheadLog.Record(WriteAheadLog.PUT, bytes.toByteArray()));
+                } else {
+                    ProductRecordCodec.writeString(out, write.productId());
+                    records.add(new WriteAheadLog.Record(WriteAheadLog.DELETE, bytes.toByteArray()));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Lock gate = rotationGate.readLock();
+        gate.lock();
+        try {
+            await(wal.append(records));
+            apply.run();
+        } finally {
+            gate.unlock();
+        }
+    }
+
+    /**
+     * Write throughput and restart cost, for the health endpoint.
+     */
+    public Map<String, Double> metrics() {
+        Map<String, Double> metrics = new LinkedHashMap<>();
+        if (wal == null) {
+            return metrics;
+        }
+        long appends = wal.appendCount();
+        long syncs = wal.syncCount();
+        metrics.put("persistence.appends", (double) appends);
+        metrics.put("persistence.fsyncs", (double) syncs);
+        metrics.put("persistence.appendsPerFsync", syncs == 0 ? 0.0 : Math.round(appends * 100.0 / syncs) / 100.0);
+        metrics.put("persistence.logBytes", (double) wal.bytesWritten());
+        metrics.put("persistence.snapshots", (double) snapshots);
+        metrics.put("persistence.lastSnapshotMs", lastSnapshotMillis);
+        metrics.put("persistence.recoveredProducts", (double) recoveredProducts);
+        metrics.put("persistence.recoveryMs", recoveryMillis);
+        return metrics;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (snapshotter != null) {
+            snapshotter.shutdown();
+        }
+        if (wal != null) {
+            try {
+                wal.close();
+            } catch (IOException e) {
+                log.error("Failed to close write-ahead log: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void snapshot() {
+        long appends = wal.appendCount();
+        if (appends == appendsAtLastSnapshot) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            long seq;
+            Lock gate = rotationGate.writeLock();
+            gate.lock();
+            try {
+                seq = wal.rotate().join();
+            } finally {
+                gate.unlock();
+            }
+            Path directory = Paths.get(properties.getDirectory());
+            Path snapshot = SnapshotFile.write(directory, seq, catalog.snapshot().all());
+            wal.deleteSegmentsBefore(seq + 1);
+            SnapshotFile.deleteOlderThan(directory, snapshot);
+
+            appendsAtLastSnapshot = appends;
+            snapshots++;
+            lastSnapshotMillis = (System.nanoTime() - start) / 1_000_000.0;
+            log.info("Wrote catalog snapshot at seq {} in {} ms", seq, lastSnapshotMillis);
+        } catch (IOException | RuntimeException e) {
+            log.error("Catalog snapshot failed: {}", e.getMessage());
+        }
+    }
+
+    private static void await(CompletableFuture<Long> append) {
+        try {
+            append.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw new UncheckedIOException("Failed to persist catalog write", io);
+            }
+            throw new IllegalStateException("Failed to persist catalog write", cause);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.lite.product.persistence;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "catalog.persistence")
+public class CatalogPersistenceProperties {
+    // When disabled the catalog lives only in memory, as before
+    private boolean enabled = false;
+    private String directory = "data/catalog";
+    // How often a compacted snapshot is taken, if anything was written since the last one
+    private Duration snapshotInterval = Duration.ofMinutes(5);
+    // Upper bound on the number of log records covered by one fsync
+    private int groupCommitMaxBatch = 1024;
+    // Turning this off trades durability of the last few writes for throughput
+    private boolean fsync = true;
+}
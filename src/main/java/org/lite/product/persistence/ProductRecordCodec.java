@@ -0,0 +1,92 @@
+package org.lite.product.persistence;
+
+import org.lite.product.model.ProductInfo;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of {@link ProductInfo} used by the write-ahead log and snapshots.
+ * Decoding reads straight from a (possibly memory-mapped) buffer, which is far cheaper than re-parsing JSON.
+ */
+final class ProductRecordCodec {
+
+    private static final int NULL_LENGTH = -1;
+
+    private ProductRecordCodec() {
+    }
+
+    static void writeProduct(DataOutput out, ProductInfo product) throws IOException {
+        writeString(out, product.getId());
+        writeString(out, product.getName());
+        writeString(out, product.getDescription());
+        writePrice(out, product.getPrice());
+        writeString(out, product.getCategory());
+        out.writeBoolean(product.isInStock());
+        out.writeBoolean(product.getAvailableQuantity() != null);
+        if (product.getAvailableQuantity() != null) {
+            out.writeInt(product.getAvailableQuantity());
+        }
+        writeString(out, product.getEstimatedDelivery());
+        writeString(out, product.getWarehouseLocation());
+    }
+
+    static ProductInfo readProduct(ByteBuffer in) {
+        ProductInfo product = new ProductInfo();
+        product.setId(readString(in));
+        product.setName(readString(in));
+        product.setDescription(readString(in));
+        product.setPrice(readPrice(in));
+        product.setCategory(readString(in));
+        product.setInStock(in.get() != 0);
+        product.setAvailableQuantity(in.get() != 0 ? in.getInt() : null);
+        product.setEstimatedDelivery(readString(in));
+        product.setWarehouseLocation(readString(in));
+        return product;
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writePrice(DataOutput out, BigDecimal price) throws IOException {
+        if (price == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] unscaled = price.unscaledValue().toByteArray();
+        out.writeInt(unscaled.length);
+        out.write(unscaled);
+        out.writeInt(price.scale());
+    }
+
+    private static BigDecimal readPrice(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] unscaled = new byte[length];
+        in.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), in.getInt());
+    }
+}
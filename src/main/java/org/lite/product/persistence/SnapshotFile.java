@@ -0,0 +1,131 @@
+package org.lite.product.persistence;
+
+import org.lite.product.model.ProductInfo;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Compacted point-in-time image of the catalog: {@code [int magic][int version][long seq][int count]} followed by
+ * {@code count} length-prefixed product records. Files are written to a temporary name and atomically renamed,
+ * so a reader never observes a partial snapshot. Loading memory-maps the file and decodes records in place;
+ * a single mapping limits a snapshot to 2 GB.
+ */
+final class SnapshotFile {
+
+    private static final int MAGIC = 0x50534E50;
+    private static final int VERSION = 1;
+    private static final int HEADER = Integer.BYTES * 2 + Long.BYTES + Integer.BYTES;
+    private static final int COUNT_OFFSET = HEADER - Integer.BYTES;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Writes a snapshot that covers every log record up to and including {@code seq} and returns its path.
+     */
+    static Path write(Path directory, long seq, Iterable<ProductInfo> products) throws IOException {
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, seq, SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        int count = 0;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(seq);
+            out.writeInt(0);
+
+            ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+            DataOutputStream recordOut = new DataOutputStream(record);
+            for (ProductInfo product : products) {
+                record.reset();
+                ProductRecordCodec.writeProduct(recordOut, product);
+                out.writeInt(record.size());
+                record.writeTo(out);
+                count++;
+            }
+            out.flush();
+
+            // The catalog is iterated live, so the count is only known once every record is written
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, count), COUNT_OFFSET);
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return target;
+    }
+
+    /**
+     * Loads the newest snapshot, feeding each product to {@code consumer}, and returns the sequence number it covers.
+     */
+    static Optional<Long> loadLatest(Path directory, Consumer<ProductInfo> consumer) throws IOException {
+        List<Path> snapshots = list(directory);
+        if (snapshots.isEmpty()) {
+            return Optional.empty();
+        }
+        Path latest = snapshots.get(snapshots.size() - 1);
+        try (FileChannel channel = FileChannel.open(latest, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a catalog snapshot: " + latest);
+            }
+            long seq = buffer.getLong();
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                int length = buffer.getInt();
+                consumer.accept(ProductRecordCodec.readProduct(buffer.slice(buffer.position(), length)));
+                buffer.position(buffer.position() + length);
+            }
+            return Optional.of(seq);
+        }
+    }
+
+    /**
+     * Deletes every snapshot older than {@code keep}, along with temporary files left by an interrupted write.
+     */
+    static void deleteOlderThan(Path directory, Path keep) throws IOException {
+        for (Path snapshot : list(directory)) {
+            if (snapshot.compareTo(keep) < 0) {
+                Files.deleteIfExists(snapshot);
+            }
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path temp : files.filter(path -> path.getFileName().toString().endsWith(SUFFIX + ".tmp")).toList()) {
+                Files.deleteIfExists(temp);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static List<Path> list(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package org.lite.product.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of catalog mutations, split into segments named after their first sequence number.
+ * <p>
+ * Appends are queued and written by a single writer thread that drains everything queued so far,
+ * writes it with one channel write and covers the whole group with one fsync (group commit). The records of one
+ * {@link #append} call always share a group. A group whose write or fsync fails is cut off the segment again, so
+ * later groups never land behind torn bytes; if even that fails, the log refuses every later append.
+ * Each record is {@code [int bodyLength][int crc32c][long seq][byte type][payload]}.
+ */
+@Slf4j
+class WriteAheadLog implements Closeable {
+
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+
+    private static final int RECORD_HEADER = Integer.BYTES * 2;
+    private static final int BODY_HEADER = Long.BYTES + 1;
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    record Entry(long seq, byte type, ByteBuffer payload) {
+    }
+
+    record Record(byte type, byte[] payload) {
+    }
+
+    // A rotation has no records
+    private record Pending(List<Record> records, CompletableFuture<Long> done) {
+    }
+
+    private final Path directory;
+    private final int maxBatch;
+    private final boolean fsync;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+
+    private final AtomicLong appends = new AtomicLong();
+    private final AtomicLong syncs = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    // Only touched by the writer thread once it is started
+    private FileChannel channel;
+    private long lastSeq;
+    // Records written since the last fsync
+    private int unsyncedRecords;
+    private volatile boolean closed;
+    // Set when a failed group could not be cut off the segment; appended records would sit behind torn bytes
+    private volatile IOException poisoned;
+
+    WriteAheadLog(Path directory, long lastSeq, int maxBatch, boolean fsync) throws IOException {
+        this.directory = directory;
+        this.lastSeq = lastSeq;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.fsync = fsync;
+        openSegment();
+        this.writer = new Thread(this::runWriter, "catalog-wal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues records and returns a future completed with the sequence number of the last one once all of them are
+     * durable. They are written and synced together, so either all of them reach the log or none does.
+     */
+    CompletableFuture<Long> append(List<Record> records) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Write-ahead log is closed"));
+        }
+        if (poisoned != null) {
+            return CompletableFuture.failedFuture(poisoned);
+        }
+        CompletableFuture<Long> done = new CompletableFuture<>();
+        queue.add(new Pending(records, done));
+        return done;
+    }
+
+    /**
+     * Closes the current segment and starts a new one. The returned sequence number is the last one in the
+     * closed segments, so a snapshot taken afterwards can discard every segment before the new one.
+     */
+    CompletableFuture<Long> rotate() {
+        CompletableFuture<Long> done = new CompletableFuture<>();
+        queue.add(new Pending(null, done));
+        return done;
+    }
+
+    /**
+     * Deletes segments whose records all have a sequence number below {@code seq}.
+     */
+    void deleteSegmentsBefore(long seq) throws IOException {
+        List<Path> segments = listSegments(directory);
+        for (int i = 0; i < segments.size() - 1; i++) {
+            if (firstSeq(segments.get(i + 1)) <= seq) {
+                Files.deleteIfExists(segments.get(i));
+            }
+        }
+    }
+
+    long appendCount() {
+        return appends.get();
+    }
+
+    long syncCount() {
+        return syncs.get();
+    }
+
+    long bytesWritten() {
+        return bytesWritten.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private void runWriter() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        List<Pending> unsynced = new ArrayList<>(maxBatch);
+        long[] seqs = new long[maxBatch];
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                if (poisoned != null) {
+                    throw poisoned;
+                }
+
+                ByteBuffer buffer = ByteBuffer.allocate(encodedSize(batch));
+                for (Pending pending : batch) {
+                    if (pending.records() == null) {
+                        flush(buffer, unsynced, seqs);
+                        channel.close();
+                        openSegment();
+                        pending.done().complete(lastSeq);
+                        continue;
+                    }
+                    for (Record record : pending.records()) {
+                        encode(buffer, ++lastSeq, record);
+                    }
+                    seqs[unsynced.size()] = lastSeq;
+                    unsyncedRecords += pending.records().size();
+                    unsynced.add(pending);
+                }
+                flush(buffer, unsynced, seqs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.error("Write-ahead log append failed: {}", e.getMessage());
+                batch.forEach(pending -> pending.done().completeExceptionally(e));
+                unsynced.clear();
+                unsyncedRecords = 0;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(ByteBuffer buffer, List<Pending> unsynced, long[] seqs) throws IOException {
+        if (unsynced.isEmpty()) {
+            return;
+        }
+        buffer.flip();
+        int bytes = buffer.remaining();
+        long start = channel.position();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException | RuntimeException e) {
+            discardFrom(start, e);
+            // The failed records never reached the log, so their sequence numbers are handed out again
+            lastSeq -= unsyncedRecords;
+            throw e;
+        } finally {
+            buffer.clear();
+        }
+        syncs.incrementAndGet();
+        appends.addAndGet(unsyncedRecords);
+        bytesWritten.addAndGet(bytes);
+        for (int i = 0; i < unsynced.size(); i++) {
+            unsynced.get(i).done().complete(seqs[i]);
+        }
+        unsynced.clear();
+        unsyncedRecords = 0;
+    }
+
+    /**
+     * Cuts a failed group, which may have been written in part, off the segment so the next group follows the last
+     * durable record. If that fails too, the log is poisoned.
+     */
+    private void discardFrom(long position, Exception cause) {
+        try {
+            channel.truncate(position);
+            channel.position(position);
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException | RuntimeException e) {
+            cause.addSuppressed(e);
+            poisoned = new IOException("Write-ahead log could not discard a failed write at offset " + position, cause);
+            log.error("Write-ahead log refuses further appends: {}", e.getMessage());
+        }
+    }
+
+    private static int encodedSize(List<Pending> batch) {
+        int size = 0;
+        for (Pending pending : batch) {
+            if (pending.records() != null) {
+                for (Record record : pending.records()) {
+                    size += RECORD_HEADER + BODY_HEADER + record.payload().length;
+                }
+            }
+        }
+        return size;
+    }
+
+    private static void encode(ByteBuffer buffer, long seq, Record record) {
+        int start = buffer.position();
+        buffer.putInt(BODY_HEADER + record.payload().length);
+        buffer.putInt(0);
+        int bodyStart = buffer.position();
+        buffer.putLong(seq);
+        buffer.put(record.type());
+        buffer.put(record.payload());
+
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), bodyStart, buffer.position() - bodyStart);
+        buffer.putInt(start + Integer.BYTES, (int) crc.getValue());
+    }
+
+    private void openSegment() throws IOException {
+        Path segment = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, lastSeq + 1, SEGMENT_SUFFIX));
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Replays every intact record with a sequence number above {@code afterSeq}, oldest first, and returns the
+     * highest sequence number seen. A torn or corrupt record can only be the tail of a write interrupted by a
+     * crash, so the segment is truncated there; otherwise records appended after a restart would be unreachable.
+     */
+    static long replay(Path directory, long afterSeq, Consumer<Entry> consumer) throws IOException {
+        long maxSeq = afterSeq;
+        for (Path segment : listSegments(directory)) {
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                long validEnd = 0;
+                while (buffer.remaining() >= RECORD_HEADER) {
+                    int bodyLength = buffer.getInt();
+                    int expectedCrc = buffer.getInt();
+                    if (bodyLength < BODY_HEADER || bodyLength > buffer.remaining()) {
+                        break;
+                    }
+                    ByteBuffer body = buffer.slice(buffer.position(), bodyLength);
+                    CRC32C crc = new CRC32C();
+                    crc.update(body.duplicate());
+                    if ((int) crc.getValue() != expectedCrc) {
+                        break;
+                    }
+                    buffer.position(buffer.position() + bodyLength);
+                    validEnd = buffer.position();
+
+                    long seq = body.getLong();
+                    byte type = body.get();
+                    if (seq > afterSeq) {
+                        consumer.accept(new Entry(seq, type, body.slice()));
+                    }
+                    maxSeq = Math.max(maxSeq, seq);
+                }
+                if (validEnd < channel.size()) {
+                    log.warn("Truncating torn write-ahead log tail at offset {} of {}", validEnd, segment);
+                    channel.truncate(validEnd);
+                }
+            }
+        }
+        return maxSeq;
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static long firstSeq(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
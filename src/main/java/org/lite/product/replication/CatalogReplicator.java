@@ -0,0 +1,174 @@
+package org.lite.product.replication;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.lite.product.security.ServiceTokenProvider;
+import org.lite.product.service.CatalogWriter;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps this replica's catalog in step with the other instances of the service.
+ * <p>
+ * Every {@code pull-interval} the peers are looked up through the {@link DiscoveryClient} (Eureka, or the simple
+ * discovery client's static instance list when testing on one host) and each is asked, in parallel, for the
+ * products that changed since the last pull. Changes are applied through {@link CatalogWriter#applyReplicated},
+ * last-writer-wins by {@link ReplicationStamp}, so replicas converge whatever the order changes arrive in, and
+ * reads on any replica lag a write made elsewhere by about one pull interval.
+ */
+@Component
+@Slf4j
+public class CatalogReplicator {
+
+    private static final long PRUNE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final ReplicationProperties properties;
+    private final ReplicationStamps replicationStamps;
+    private final CatalogWriter catalogWriter;
+    private final DiscoveryClient discoveryClient;
+    private final RestTemplate restTemplate;
+    private final ServiceTokenProvider serviceTokens;
+    private final Map<String, PeerReplication> peers = new ConcurrentHashMap<>();
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder ignored = new LongAdder();
+    private final LongAdder fullSyncs = new LongAdder();
+    private final LongAdder failedPulls = new LongAdder();
+    private volatile Thread puller;
+    private long nextPruneAt;
+
+    public CatalogReplicator(ReplicationProperties properties, ReplicationStamps replicationStamps,
+                             CatalogWriter catalogWriter, DiscoveryClient discoveryClient,
+                             RestTemplateBuilder restTemplateBuilder, ServiceTokenProvider serviceTokens) {
+        this.properties = properties;
+        this.replicationStamps = replicationStamps;
+        this.catalogWriter = catalogWriter;
+        this.discoveryClient = discoveryClient;
+        this.restTemplate = restTemplateBuilder
+                .connectTimeout(properties.getRequestTimeout())
+                .readTimeout(properties.getRequestTimeout())
+                .build();
+        this.serviceTokens = serviceTokens;
+        // Peers check the caller's roles like for any client, so replication cannot work without a token
+        if (properties.isEnabled()) {
+            serviceTokens.require("catalog.replication.client-registration-id", properties.getClientRegistrationId());
+        } else {
+            serviceTokens.verify("catalog.replication.client-registration-id", properties.getClientRegistrationId());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        puller = Thread.ofVirtual().name("catalog-replicator").start(this::run);
+    }
+
+    @PreDestroy
+    public void close() {
+        Thread thread = puller;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    public Map<String, Double> metrics() {
+        Map<String, Double> metrics = new LinkedHashMap<>();
+        if (!properties.isEnabled()) {
+            return metrics;
+        }
+        long maxLag = 0;
+        int count = 0;
+        for (PeerReplication peer : peers.values()) {
+            if (!peer.isSelf()) {
+                count++;
+                maxLag = Math.max(maxLag, peer.lagMillis());
+            }
+        }
+        metrics.put("replication.peers", (double) count);
+        metrics.put("replication.maxLagMs", (double) maxLag);
+        metrics.put("replication.appliedChanges", (double) applied.sum());
+        metrics.put("replication.ignoredChanges", (double) ignored.sum());
+        metrics.put("replication.fullSyncs", (double) fullSyncs.sum());
+        metrics.put("replication.failedPulls", (double) failedPulls.sum());
+        metrics.put("replication.tombstones", (double) replicationStamps.tombstoneCount());
+        return metrics;
+    }
+
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    replicateOnce();
+                } catch (RuntimeException e) {
+                    log.warn("Replication round failed: {}", e.getMessage());
+                }
+                Thread.sleep(properties.getPullInterval());
+            }
+        } catch (InterruptedException e) {
+            // The service is shutting down
+        }
+    }
+
+    private void replicateOnce() throws InterruptedException {
+        Set<String> discovered = new HashSet<>();
+        List<PeerReplication> due = new ArrayList<>();
+        for (ServiceInstance instance : discoveryClient.getInstances(properties.getServiceId())) {
+            String baseUri = instance.getUri() + properties.getPath();
+            discovered.add(baseUri);
+            due.add(peers.computeIfAbsent(baseUri, uri -> {
+                log.info("Replicating from {}", uri);
+                return new PeerReplication(new HttpReplicationPeer(uri, restTemplate,
+                        () -> serviceTokens.accessToken(properties.getClientRegistrationId())),
+                        catalogWriter, replicationStamps.nodeId(), properties.getBatchSize());
+            }));
+        }
+        peers.keySet().retainAll(discovered);
+
+        // One virtual thread per peer, so a slow or unreachable peer does not hold up the others
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (PeerReplication peer : due) {
+                executor.submit(() -> pull(peer));
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        if (now >= nextPruneAt) {
+            replicationStamps.pruneTombstones();
+            nextPruneAt = now + PRUNE_INTERVAL_MILLIS;
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    private void pull(PeerReplication peer) {
+        try {
+            PeerReplication.PullResult result = peer.pull();
+            applied.add(result.applied());
+            ignored.add(result.ignored());
+            if (result.fullSync()) {
+                fullSyncs.increment();
+            }
+        } catch (RuntimeException e) {
+            failedPulls.increment();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.lite.product.replication;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A peer reached over its replication endpoints, with a bearer token when one is configured.
+ */
+class HttpReplicationPeer implements ReplicationPeer {
+
+    private final String baseUri;
+    private final RestTemplate restTemplate;
+    private final Supplier<String> accessToken;
+
+    HttpReplicationPeer(String baseUri, RestTemplate restTemplate, Supplier<String> accessToken) {
+        this.baseUri = baseUri;
+        this.restTemplate = restTemplate;
+        this.accessToken = accessToken;
+    }
+
+    @Override
+    public String id() {
+        return baseUri;
+    }
+
+    @Override
+    public ReplicationBatch changesAfter(long since, int limit) {
+        return get(UriComponentsBuilder.fromUriString(baseUri).path("/changes")
+                .queryParam("since", since)
+                .queryParam("limit", limit)
+                .build(true).toUri());
+    }
+
+    @Override
+    public ReplicationBatch snapshot(String afterId, int limit) {
+        UriComponentsBuilder uri = UriComponentsBuilder.fromUriString(baseUri).path("/snapshot")
+                .queryParam("limit", limit);
+        if (afterId != null) {
+            // Encoded in full, since a '+' in an ID would otherwise be read back as a space
+            uri.queryParam("after", UriUtils.encode(afterId, StandardCharsets.UTF_8));
+        }
+        return get(uri.build(true).toUri());
+    }
+
+    private ReplicationBatch get(URI uri) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        String token = accessToken.get();
+        if (token != null) {
+            headers.setBearerAuth(token);
+        }
+        ReplicationBatch batch = restTemplate.exchange(uri, HttpMethod.GET, new HttpEntity<>(headers),
+                ReplicationBatch.class).getBody();
+        if (batch == null || batch.nodeId() == null) {
+            throw new IllegalStateException("Empty replication response from " + uri);
+        }
+        return batch;
+    }
+}
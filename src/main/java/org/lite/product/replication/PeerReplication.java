@@ -0,0 +1,150 @@
+package org.lite.product.replication;
+
+import lombok.extern.slf4j.Slf4j;
+import org.lite.product.service.CatalogWriter;
+
+/**
+ * Replication from one peer: a full snapshot on first contact, then the peer's change log from where the snapshot
+ * left off. A snapshot is taken again whenever the peer restarted (it answers with another node ID) or reports
+ * that the changes after the cursor are gone. Not thread-safe; the replicator pulls from a peer on one thread at a
+ * time.
+ */
+@Slf4j
+final class PeerReplication {
+
+    /**
+     * Changes applied and ignored as older than the local state by one {@link #pull()}.
+     */
+    record PullResult(int applied, int ignored, boolean fullSync) {
+    }
+
+    private final ReplicationPeer peer;
+    private final CatalogWriter catalogWriter;
+    private final String ownNodeId;
+    private final int batchSize;
+    private final long discoveredAt = System.currentTimeMillis();
+
+    // Node ID of the peer as of the last snapshot, and its change log position; -1 until the first snapshot
+    private String peerNodeId;
+    private long cursor = -1;
+    // Discovery lists this replica too; it is recognised by its own node ID in the first answer
+    private volatile boolean self;
+    private volatile long lastSyncedAt = -1;
+    private boolean failing;
+
+    PeerReplication(ReplicationPeer peer, CatalogWriter catalogWriter, String ownNodeId, int batchSize) {
+        this.peer = peer;
+        this.catalogWriter = catalogWriter;
+        this.ownNodeId = ownNodeId;
+        this.batchSize = batchSize;
+    }
+
+    String id() {
+        return peer.id();
+    }
+
+    boolean isSelf() {
+        return self;
+    }
+
+    /**
+     * Milliseconds since this replica was last fully caught up with the peer.
+     */
+    long lagMillis() {
+        long since = lastSyncedAt < 0 ? discoveredAt : lastSyncedAt;
+        return System.currentTimeMillis() - since;
+    }
+
+    /**
+     * Brings this replica up to date with the peer as of now.
+     */
+    PullResult pull() {
+        if (self) {
+            return new PullResult(0, 0, false);
+        }
+        try {
+            PullResult result = cursor < 0 ? snapshot(0, 0) : follow();
+            if (failing) {
+                log.info("Replication from {} recovered", peer.id());
+                failing = false;
+            }
+            return result;
+        } catch (RuntimeException e) {
+            if (!failing) {
+                log.warn("Replication from {} failed: {}", peer.id(), e.getMessage());
+                failing = true;
+            }
+            throw e;
+        }
+    }
+
+    private PullResult follow() {
+        int applied = 0;
+        int ignored = 0;
+        long syncStart = System.currentTimeMillis();
+        ReplicationBatch batch;
+        do {
+            batch = peer.changesAfter(cursor, batchSize);
+            if (isOwn(batch)) {
+                return new PullResult(applied, ignored, false);
+            }
+            if (batch.resyncRequired() || !batch.nodeId().equals(peerNodeId)) {
+                log.info("Replication from {} needs a snapshot: {}", peer.id(),
+                        batch.resyncRequired() ? "changes after " + cursor + " are gone" : "the peer restarted");
+                return snapshot(applied, ignored);
+            }
+            for (ReplicatedChange change : batch.changes()) {
+                if (catalogWriter.applyReplicated(change)) {
+                    applied++;
+                } else {
+                    ignored++;
+                }
+            }
+            cursor = batch.nextSince();
+        } while (batch.hasMore());
+        lastSyncedAt = syncStart;
+        return new PullResult(applied, ignored, false);
+    }
+
+    private PullResult snapshot(int applied, int ignored) {
+        long syncStart = System.currentTimeMillis();
+        String nodeId = null;
+        long start = -1;
+        String afterId = null;
+        ReplicationBatch batch;
+        do {
+            batch = peer.snapshot(afterId, batchSize);
+            if (isOwn(batch)) {
+                return new PullResult(applied, ignored, false);
+            }
+            if (nodeId == null) {
+                nodeId = batch.nodeId();
+                start = batch.nextSince();
+            } else if (!nodeId.equals(batch.nodeId())) {
+                throw new IllegalStateException("Peer " + peer.id() + " restarted during a snapshot");
+            }
+            for (ReplicatedChange change : batch.changes()) {
+                if (catalogWriter.applyReplicated(change)) {
+                    applied++;
+                } else {
+                    ignored++;
+                }
+            }
+            afterId = batch.nextAfter();
+        } while (batch.hasMore());
+        log.info("Replicated snapshot of {} (node {}): {} changes applied, {} already known", peer.id(), nodeId,
+                applied, ignored);
+        peerNodeId = nodeId;
+        cursor = start;
+        lastSyncedAt = syncStart;
+        return new PullResult(applied, ignored, true);
+    }
+
+    private boolean isOwn(ReplicationBatch batch) {
+        if (ownNodeId.equals(batch.nodeId())) {
+            log.debug("{} is this replica, not replicating from it", peer.id());
+            self = true;
+        }
+        return self;
+    }
+}
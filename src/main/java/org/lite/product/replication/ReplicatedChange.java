@@ -0,0 +1,9 @@
+package org.lite.product.replication;
+
+import org.lite.product.model.ProductInfo;
+
+/**
+ * Current state of one product as shipped between replicas; a null {@code product} is a tombstone.
+ */
+public record ReplicatedChange(String productId, ProductInfo product, ReplicationStamp stamp) {
+}
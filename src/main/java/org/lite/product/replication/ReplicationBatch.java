@@ -0,0 +1,15 @@
+package org.lite.product.replication;
+
+import java.util.List;
+
+/**
+ * One page of a replica's change log or snapshot.
+ * <p>
+ * {@code nodeId} identifies the replica that answered, so a replica can recognise itself among the discovered
+ * instances and notice a peer that restarted. For change pages {@code nextSince} is the position to continue
+ * from; for snapshot pages it is the peer's catalog sequence number when the page was read, and
+ * {@code nextAfter} is the last product ID covered.
+ */
+public record ReplicationBatch(String nodeId, List<ReplicatedChange> changes, long nextSince, String nextAfter,
+                               boolean hasMore, boolean resyncRequired) {
+}
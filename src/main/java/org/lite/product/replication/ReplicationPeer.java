@@ -0,0 +1,22 @@
+package org.lite.product.replication;
+
+/**
+ * Another replica, as seen by the {@link CatalogReplicator}.
+ */
+public interface ReplicationPeer {
+
+    /**
+     * Stable key of the peer, such as its base URI.
+     */
+    String id();
+
+    /**
+     * Products changed after {@code since} on the peer, in the form of {@link ReplicationSource#changesAfter}.
+     */
+    ReplicationBatch changesAfter(long since, int limit);
+
+    /**
+     * One page of the peer's whole catalog, in the form of {@link ReplicationSource#snapshot}.
+     */
+    ReplicationBatch snapshot(String afterId, int limit);
+}
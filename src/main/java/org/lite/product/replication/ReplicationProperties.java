@@ -0,0 +1,27 @@
+package org.lite.product.replication;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "catalog.replication")
+public class ReplicationProperties {
+    // When disabled every instance keeps its own catalog, as before
+    private boolean enabled = false;
+    // Short, unique name of this replica; also the suffix of generated product IDs. Random when not set
+    private String nodeId;
+    // Discovery service ID the peers are registered under
+    private String serviceId = "product-service";
+    // Path of the replication endpoints on a peer, appended to the instance URI
+    private String path = "/r/product-service/api/product/replication";
+    // How often every peer is asked for its changes; the normal upper bound on staleness
+    private Duration pullInterval = Duration.ofSeconds(1);
+    private int batchSize = 1000;
+    private Duration requestTimeout = Duration.ofSeconds(5);
+    // How long deletes are remembered, so a replica that was away for less than this cannot bring a product back
+    private Duration tombstoneRetention = Duration.ofDays(7);
+    // OAuth2 client registration used to get a client-credentials token for calls to peers
+    private String clientRegistrationId;
+}
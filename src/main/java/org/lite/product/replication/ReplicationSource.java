@@ -0,0 +1,103 @@
+package org.lite.product.replication;
+
+import org.lite.product.change.ChangeEvent;
+import org.lite.product.change.ChangeFeed;
+import org.lite.product.model.ProductInfo;
+import org.lite.product.repository.ProductRepository;
+import org.lite.product.version.CatalogVersions;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serves this replica's catalog to its peers, built on the {@link ChangeFeed}.
+ * <p>
+ * Pages carry the current state and stamp of each product that changed rather than every intermediate write, read
+ * together under the product's lock. Replicated writes are published to the feed like local ones, so a peer also
+ * receives the changes this replica pulled from others; the stamps make applying them twice harmless.
+ */
+@Component
+public class ReplicationSource {
+
+    private final ProductRepository productRepository;
+    private final ChangeFeed changeFeed;
+    private final CatalogVersions catalogVersions;
+    private final ReplicationStamps replicationStamps;
+
+    public ReplicationSource(ProductRepository productRepository, ChangeFeed changeFeed,
+                             CatalogVersions catalogVersions, ReplicationStamps replicationStamps) {
+        this.productRepository = productRepository;
+        this.changeFeed = changeFeed;
+        this.catalogVersions = catalogVersions;
+        this.replicationStamps = replicationStamps;
+    }
+
+    /**
+     * Products created, updated or deleted after catalog sequence number {@code since}, reading at most
+     * {@code limit} changes. {@code resyncRequired} means they are no longer held and a snapshot is needed.
+     */
+    public ReplicationBatch changesAfter(long since, int limit) {
+        ChangeFeed.Page page = changeFeed.readAfter(since, limit);
+        if (page.resyncRequired()) {
+            return new ReplicationBatch(replicationStamps.nodeId(), List.of(), page.lastSeq(), null, false, true);
+        }
+        Set<String> productIds = new LinkedHashSet<>();
+        for (ChangeEvent event : page.events()) {
+            productIds.add(event.productId());
+        }
+        List<ReplicatedChange> changes = new ArrayList<>(productIds.size());
+        for (String productId : productIds) {
+            changes.add(current(productId));
+        }
+        long nextSince = page.events().isEmpty() ? since : page.events().get(page.events().size() - 1).seq();
+        return new ReplicationBatch(replicationStamps.nodeId(), changes, nextSince, null,
+                nextSince < page.lastSeq(), false);
+    }
+
+    /**
+     * Up to {@code limit} products with an ID above {@code afterId}, together with the tombstones in the same ID
+     * range. Following {@code nextAfter} until {@code hasMore} is false covers the whole catalog; changes made
+     * meanwhile are picked up by continuing with {@link #changesAfter} from the first page's {@code nextSince}.
+     */
+    public ReplicationBatch snapshot(String afterId, int limit) {
+        long seq = changeFeed.lastSeq();
+        List<ProductInfo> products = productRepository.scan(afterId, limit);
+        boolean hasMore = products.size() == limit;
+        String toId = hasMore ? products.get(products.size() - 1).getId() : null;
+
+        List<ReplicatedChange> changes = new ArrayList<>(products.size());
+        Iterator<Map.Entry<String, ReplicationStamp>> tombstones =
+                replicationStamps.tombstones(afterId, toId).entrySet().iterator();
+        Map.Entry<String, ReplicationStamp> tombstone = tombstones.hasNext() ? tombstones.next() : null;
+        for (ProductInfo product : products) {
+            while (tombstone != null && tombstone.getKey().compareTo(product.getId()) < 0) {
+                changes.add(current(tombstone.getKey()));
+                tombstone = tombstones.hasNext() ? tombstones.next() : null;
+            }
+            changes.add(current(product.getId()));
+        }
+        while (tombstone != null) {
+            changes.add(current(tombstone.getKey()));
+            tombstone = tombstones.hasNext() ? tombstones.next() : null;
+        }
+        return new ReplicationBatch(replicationStamps.nodeId(), changes, seq, toId, hasMore, false);
+    }
+
+    private ReplicatedChange current(String productId) {
+        ReentrantLock lock = catalogVersions.lockFor(productId);
+        lock.lock();
+        try {
+            ReplicationStamp stamp = replicationStamps.stampOf(productId);
+            return new ReplicatedChange(productId, productRepository.get(productId),
+                    stamp != null ? stamp : ReplicationStamp.INITIAL);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.lite.product.replication;
+
+import java.util.Comparator;
+
+/**
+ * Hybrid logical timestamp of the last write to a product, and the replica that made it. Conflicting writes are
+ * resolved last-writer-wins: the higher stamp wins, with the origin as tie-breaker so every replica picks the
+ * same winner.
+ */
+public record ReplicationStamp(long time, String origin) implements Comparable<ReplicationStamp> {
+
+    /**
+     * Stamp of products every replica starts with (the built-in samples and products restored from disk): any
+     * replicated write to them wins.
+     */
+    public static final ReplicationStamp INITIAL = new ReplicationStamp(0, "");
+
+    private static final Comparator<ReplicationStamp> ORDER =
+            Comparator.comparingLong(ReplicationStamp::time).thenComparing(ReplicationStamp::origin);
+
+    /**
+     * Quoted strong entity tag for the write this stamp belongs to. Every replica holds the same stamp for the same
+     * write, so the tag is valid on any of them; the origin is hashed to keep the tag to safe characters.
+     */
+    public String etag() {
+        return "\"" + time + "-" + Integer.toHexString(origin.hashCode()) + "\"";
+    }
+
+    @Override
+    public int compareTo(ReplicationStamp other) {
+        return ORDER.compare(this, other);
+    }
+}
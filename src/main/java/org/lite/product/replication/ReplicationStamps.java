@@ -0,0 +1,122 @@
+package org.lite.product.replication;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replication stamps of this replica's products and tombstones, and the hybrid logical clock that issues them.
+ * <p>
+ * The clock runs in wall-clock microseconds but never goes backwards and never falls behind a stamp it has seen
+ * from a peer, so a write made after a replicated one always wins over it, whatever the clock skew between the
+ * replicas. Like the product versions in {@code CatalogVersions}, stamps are read and written under the
+ * product's lock. They are kept in memory only, and only while replication is enabled.
+ */
+@Component
+@Slf4j
+public class ReplicationStamps {
+
+    private final boolean enabled;
+    private final String nodeId;
+    private final long tombstoneRetentionMicros;
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<String, ReplicationStamp> live = new ConcurrentHashMap<>();
+    // Ordered by ID so snapshots can page through tombstones alongside the products
+    private final NavigableMap<String, ReplicationStamp> tombstones = new ConcurrentSkipListMap<>();
+
+    public ReplicationStamps(ReplicationProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.nodeId = properties.getNodeId() == null || properties.getNodeId().isBlank()
+                ? UUID.randomUUID().toString().substring(0, 8) : properties.getNodeId().trim();
+        this.tombstoneRetentionMicros = properties.getTombstoneRetention().toNanos() / 1_000;
+        if (enabled) {
+            log.info("Catalog replication enabled, node ID {}", nodeId);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Stamp for a write made on this replica now.
+     */
+    public ReplicationStamp next() {
+        long now = System.currentTimeMillis() * 1_000;
+        return new ReplicationStamp(clock.updateAndGet(last -> Math.max(now, last + 1)), nodeId);
+    }
+
+    /**
+     * Moves the clock past a stamp received from a peer.
+     */
+    public void observe(ReplicationStamp stamp) {
+        clock.accumulateAndGet(stamp.time(), Math::max);
+    }
+
+    /**
+     * Stamp of the last write to a product, including a remembered delete, or null if none is known.
+     */
+    public ReplicationStamp stampOf(String productId) {
+        ReplicationStamp stamp = live.get(productId);
+        return stamp != null ? stamp : tombstones.get(productId);
+    }
+
+    /**
+     * Entity tag of an existing product, or null if it does not exist.
+     */
+    public String etagOf(String productId) {
+        ReplicationStamp stamp = live.get(productId);
+        return stamp != null ? stamp.etag() : null;
+    }
+
+    public void recordWrite(String productId, ReplicationStamp stamp) {
+        if (!enabled) {
+            return;
+        }
+        live.put(productId, stamp);
+        tombstones.remove(productId);
+    }
+
+    public void recordDelete(String productId, ReplicationStamp stamp) {
+        if (!enabled) {
+            return;
+        }
+        live.remove(productId);
+        tombstones.put(productId, stamp);
+    }
+
+    /**
+     * Tombstones with an ID above {@code afterId} (all when null) up to and including {@code toId} (no bound when
+     * null).
+     */
+    NavigableMap<String, ReplicationStamp> tombstones(String afterId, String toId) {
+        NavigableMap<String, ReplicationStamp> range = afterId == null ? tombstones : tombstones.tailMap(afterId, false);
+        return toId == null ? range : range.headMap(toId, true);
+    }
+
+    int tombstoneCount() {
+        return tombstones.size();
+    }
+
+    /**
+     * Forgets deletes older than the tombstone retention.
+     */
+    void pruneTombstones() {
+        long cutoff = System.currentTimeMillis() * 1_000 - tombstoneRetentionMicros;
+        tombstones.forEach((productId, stamp) -> {
+            if (stamp.time() < cutoff) {
+                tombstones.remove(productId, stamp);
+            }
+        });
+    }
+}
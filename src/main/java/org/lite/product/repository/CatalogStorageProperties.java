@@ -0,0 +1,10 @@
+package org.lite.product.repository;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "catalog.storage")
+public class CatalogStorageProperties {
+    private ProductStorageEngine engine = ProductStorageEngine.CONCURRENT_MAP;
+}
@@ -0,0 +1,268 @@
+package org.lite.product.repository;
+
+import org.lite.product.model.ProductInfo;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Memory-compact engine for multi-million product catalogs. Each product is packed into a single byte array:
+ * categories and warehouse locations are dictionary-encoded ints, prices are fixed-point longs with a scale,
+ * and free text is length-prefixed UTF-8. {@link ProductInfo} objects are built only when a product is read.
+ * <p>
+ * Record layout: {@code [flags][unscaled price long + scale byte][category int][warehouse int][quantity int]}
+ * followed by name, description and estimated delivery as {@code [varint length + 1][UTF-8 bytes]}, where a
+ * zero length marks null. Optional fields are present only when their flag is set.
+ */
+public class CompactProductRepository implements ProductRepository {
+
+    private static final int IN_STOCK = 1;
+    private static final int HAS_PRICE = 1 << 1;
+    private static final int HAS_QUANTITY = 1 << 2;
+    // Prices whose unscaled value does not fit a long, or whose scale does not fit a byte, fall back to
+    // two's-complement bytes and an int scale
+    private static final int WIDE_PRICE = 1 << 3;
+
+    private final ConcurrentNavigableMap<String, byte[]> records = new ConcurrentSkipListMap<>();
+    private final StringDictionary categories = new StringDictionary();
+    private final StringDictionary warehouses = new StringDictionary();
+
+    @Override
+    public ProductInfo get(String productId) {
+        return decode(productId, records.get(productId));
+    }
+
+    @Override
+    public boolean contains(String productId) {
+        return records.containsKey(productId);
+    }
+
+    @Override
+    public Map<String, ProductInfo> getAll(Collection<String> productIds) {
+        Map<String, ProductInfo> found = new LinkedHashMap<>();
+        for (String productId : productIds) {
+            byte[] record = records.get(productId);
+            if (record != null) {
+                found.put(productId, decode(productId, record));
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<ProductInfo> scan(String afterId, int limit) {
+        NavigableMap<String, byte[]> remaining = afterId == null ? records : records.tailMap(afterId, false);
+        List<ProductInfo> page = new ArrayList<>(Math.min(limit, 1024));
+        for (Map.Entry<String, byte[]> entry : remaining.entrySet()) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(decode(entry.getKey(), entry.getValue()));
+        }
+        return page;
+    }
+
+    @Override
+    public Iterable<ProductInfo> all() {
+        return () -> new Iterator<>() {
+            private final Iterator<Map.Entry<String, byte[]>> entries = records.entrySet().iterator();
+
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public ProductInfo next() {
+                Map.Entry<String, byte[]> entry = entries.next();
+                return decode(entry.getKey(), entry.getValue());
+            }
+        };
+    }
+
+    @Override
+    public boolean put(ProductInfo product) {
+        return records.put(product.getId(), encode(product)) != null;
+    }
+
+    @Override
+    public boolean delete(String productId) {
+        return records.remove(productId) != null;
+    }
+
+    @Override
+    public int size() {
+        return records.size();
+    }
+
+    private byte[] encode(ProductInfo product) {
+        BigDecimal price = product.getPrice();
+        boolean widePrice = price != null
+                && (price.unscaledValue().bitLength() > 63 || price.scale() != (byte) price.scale());
+        byte[] wideUnscaled = widePrice ? price.unscaledValue().toByteArray() : null;
+        byte[] name = utf8(product.getName());
+        byte[] description = utf8(product.getDescription());
+        byte[] delivery = utf8(product.getEstimatedDelivery());
+
+        int flags = (product.isInStock() ? IN_STOCK : 0)
+                | (price != null ? HAS_PRICE : 0)
+                | (widePrice ? WIDE_PRICE : 0)
+                | (product.getAvailableQuantity() != null ? HAS_QUANTITY : 0);
+        int size = 1 + Integer.BYTES * 2
+                + (price == null ? 0 : widePrice
+                        ? varintSize(wideUnscaled.length) + wideUnscaled.length + Integer.BYTES
+                        : Long.BYTES + 1)
+                + (product.getAvailableQuantity() != null ? Integer.BYTES : 0)
+                + textSize(name) + textSize(description) + textSize(delivery);
+
+        byte[] record = new byte[size];
+        int pos = 0;
+        record[pos++] = (byte) flags;
+        if (price != null) {
+            if (widePrice) {
+                pos = putVarint(record, pos, wideUnscaled.length);
+                System.arraycopy(wideUnscaled, 0, record, pos, wideUnscaled.length);
+                pos += wideUnscaled.length;
+                pos = putInt(record, pos, price.scale());
+            } else {
+                pos = putLong(record, pos, price.unscaledValue().longValue());
+                record[pos++] = (byte) price.scale();
+            }
+        }
+        pos = putInt(record, pos, categories.encode(product.getCategory()));
+        pos = putInt(record, pos, warehouses.encode(product.getWarehouseLocation()));
+        if (product.getAvailableQuantity() != null) {
+            pos = putInt(record, pos, product.getAvailableQuantity());
+        }
+        pos = putText(record, pos, name);
+        pos = putText(record, pos, description);
+        putText(record, pos, delivery);
+        return record;
+    }
+
+    private ProductInfo decode(String productId, byte[] record) {
+        if (record == null) {
+            return null;
+        }
+        ProductInfo product = new ProductInfo();
+        product.setId(productId);
+        int pos = 0;
+        int flags = record[pos++];
+        product.setInStock((flags & IN_STOCK) != 0);
+        if ((flags & HAS_PRICE) != 0) {
+            if ((flags & WIDE_PRICE) != 0) {
+                int length = getVarint(record, pos);
+                pos += varintSize(length);
+                BigInteger unscaled = new BigInteger(record, pos, length);
+                pos += length;
+                product.setPrice(new BigDecimal(unscaled, getInt(record, pos)));
+                pos += Integer.BYTES;
+            } else {
+                product.setPrice(BigDecimal.valueOf(getLong(record, pos), record[pos + Long.BYTES]));
+                pos += Long.BYTES + 1;
+            }
+        }
+        product.setCategory(categories.decode(getInt(record, pos)));
+        pos += Integer.BYTES;
+        product.setWarehouseLocation(warehouses.decode(getInt(record, pos)));
+        pos += Integer.BYTES;
+        if ((flags & HAS_QUANTITY) != 0) {
+            product.setAvailableQuantity(getInt(record, pos));
+            pos += Integer.BYTES;
+        }
+        int[] cursor = {pos};
+        product.setName(getText(record, cursor));
+        product.setDescription(getText(record, cursor));
+        product.setEstimatedDelivery(getText(record, cursor));
+        return product;
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int textSize(byte[] text) {
+        return text == null ? 1 : varintSize(text.length + 1) + text.length;
+    }
+
+    private static int putText(byte[] record, int pos, byte[] text) {
+        if (text == null) {
+            record[pos] = 0;
+            return pos + 1;
+        }
+        pos = putVarint(record, pos, text.length + 1);
+        System.arraycopy(text, 0, record, pos, text.length);
+        return pos + text.length;
+    }
+
+    private static String getText(byte[] record, int[] cursor) {
+        int lengthPlusOne = getVarint(record, cursor[0]);
+        cursor[0] += varintSize(lengthPlusOne);
+        if (lengthPlusOne == 0) {
+            return null;
+        }
+        String text = new String(record, cursor[0], lengthPlusOne - 1, StandardCharsets.UTF_8);
+        cursor[0] += lengthPlusOne - 1;
+        return text;
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+    private static int putVarint(byte[] record, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            record[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        record[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static int getVarint(byte[] record, int pos) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = record[pos++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static int putInt(byte[] record, int pos, int value) {
+        record[pos] = (byte) (value >>> 24);
+        record[pos + 1] = (byte) (value >>> 16);
+        record[pos + 2] = (byte) (value >>> 8);
+        record[pos + 3] = (byte) value;
+        return pos + Integer.BYTES;
+    }
+
+    private static int getInt(byte[] record, int pos) {
+        return (record[pos] & 0xFF) << 24 | (record[pos + 1] & 0xFF) << 16
+                | (record[pos + 2] & 0xFF) << 8 | (record[pos + 3] & 0xFF);
+    }
+
+    private static int putLong(byte[] record, int pos, long value) {
+        putInt(record, pos, (int) (value >>> 32));
+        return putInt(record, pos + Integer.BYTES, (int) value);
+    }
+
+    private static long getLong(byte[] record, int pos) {
+        return ((long) getInt(record, pos) << 32) | (getInt(record, pos + Integer.BYTES) & 0xFFFFFFFFL);
+    }
+}
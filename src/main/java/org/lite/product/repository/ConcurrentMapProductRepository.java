@@ -0,0 +1,70 @@
+package org.lite.product.repository;
+
+import org.lite.product.model.ProductInfo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Default engine: products held as plain objects in a concurrent skip list keyed by ID.
+ */
+public class ConcurrentMapProductRepository implements ProductRepository {
+
+    private final ConcurrentNavigableMap<String, ProductInfo> products = new ConcurrentSkipListMap<>();
+
+    @Override
+    public ProductInfo get(String productId) {
+        return products.get(productId);
+    }
+
+    @Override
+    public Map<String, ProductInfo> getAll(Collection<String> productIds) {
+        Map<String, ProductInfo> found = new LinkedHashMap<>();
+        for (String productId : productIds) {
+            ProductInfo product = products.get(productId);
+            if (product != null) {
+                found.put(productId, product);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<ProductInfo> scan(String afterId, int limit) {
+        NavigableMap<String, ProductInfo> remaining = afterId == null ? products : products.tailMap(afterId, false);
+        List<ProductInfo> page = new ArrayList<>(Math.min(limit, 1024));
+        for (ProductInfo product : remaining.values()) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(product);
+        }
+        return page;
+    }
+
+    @Override
+    public Iterable<ProductInfo> all() {
+        return products.values();
+    }
+
+    @Override
+    public boolean put(ProductInfo product) {
+        return products.put(product.getId(), product) != null;
+    }
+
+    @Override
+    public boolean delete(String productId) {
+        return products.remove(productId) != null;
+    }
+
+    @Override
+    public int size() {
+        return products.size();
+    }
+}
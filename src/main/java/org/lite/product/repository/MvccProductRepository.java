@@ -0,0 +1,72 @@
+package org.lite.product.repository;
+
+import org.lite.product.model.ProductInfo;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Multi-version engine: the catalog is an immutable {@link PersistentProductTree} behind one atomic reference.
+ * Writers build the next version by path copying and publish it with a compare-and-set, retrying if another
+ * write got in first, so they never lock. Readers never wait either: {@link #snapshot()} hands out the current
+ * tree, a consistent point-in-time view that stays valid however long it is iterated.
+ */
+public class MvccProductRepository implements ProductRepository {
+
+    private final AtomicReference<PersistentProductTree> current = new AtomicReference<>(PersistentProductTree.EMPTY);
+
+    @Override
+    public ProductView snapshot() {
+        return current.get();
+    }
+
+    @Override
+    public ProductInfo get(String productId) {
+        return current.get().get(productId);
+    }
+
+    @Override
+    public Map<String, ProductInfo> getAll(Collection<String> productIds) {
+        return current.get().getAll(productIds);
+    }
+
+    @Override
+    public List<ProductInfo> scan(String afterId, int limit) {
+        return current.get().scan(afterId, limit);
+    }
+
+    @Override
+    public Iterable<ProductInfo> all() {
+        return current.get().all();
+    }
+
+    @Override
+    public int size() {
+        return current.get().size();
+    }
+
+    @Override
+    public boolean put(ProductInfo product) {
+        while (true) {
+            PersistentProductTree tree = current.get();
+            if (current.compareAndSet(tree, tree.with(product))) {
+                return tree.get(product.getId()) != null;
+            }
+        }
+    }
+
+    @Override
+    public boolean delete(String productId) {
+        while (true) {
+            PersistentProductTree tree = current.get();
+            if (tree.get(productId) == null) {
+                return false;
+            }
+            if (current.compareAndSet(tree, tree.without(productId))) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package org.lite.product.repository;
+
+import org.lite.product.model.ProductInfo;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable AVL tree of products keyed by ID. An update copies only the O(log n) nodes on the path to the changed
+ * key and shares every other node with the previous tree, so keeping an old tree around as a snapshot is free.
+ */
+final class PersistentProductTree implements ProductView {
+
+    static final PersistentProductTree EMPTY = new PersistentProductTree(null, 0);
+
+    private record Node(String key, ProductInfo value, Node left, Node right, int height) {
+    }
+
+    private final Node root;
+    private final int size;
+
+    private PersistentProductTree(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns a tree with the product stored under its ID, replacing any previous value.
+     */
+    PersistentProductTree with(ProductInfo product) {
+        boolean[] added = new boolean[1];
+        Node updated = insert(root, product.getId(), product, added);
+        return new PersistentProductTree(updated, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Returns a tree without the given ID, or this tree if the ID is absent.
+     */
+    PersistentProductTree without(String productId) {
+        if (get(productId) == null) {
+            return this;
+        }
+        return new PersistentProductTree(remove(root, productId), size - 1);
+    }
+
+    @Override
+    public ProductInfo get(String productId) {
+        Node node = root;
+        while (node != null) {
+            int c = productId.compareTo(node.key());
+            if (c == 0) {
+                return node.value();
+            }
+            node = c < 0 ? node.left() : node.right();
+        }
+        return null;
+    }
+
+    @Override
+    public Map<String, ProductInfo> getAll(Collection<String> productIds) {
+        Map<String, ProductInfo> found = new LinkedHashMap<>();
+        for (String productId : productIds) {
+            ProductInfo product = get(productId);
+            if (product != null) {
+                found.put(productId, product);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<ProductInfo> scan(String afterId, int limit) {
+        List<ProductInfo> page = new ArrayList<>(Math.min(limit, 1024));
+        Iterator<ProductInfo> products = iterator(afterId);
+        while (products.hasNext() && page.size() < limit) {
+            page.add(products.next());
+        }
+        return page;
+    }
+
+    @Override
+    public Iterable<ProductInfo> all() {
+        return () -> iterator(null);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * In-order iteration over the keys strictly greater than {@code afterId}, holding one root-to-leaf path.
+     */
+    private Iterator<ProductInfo> iterator(String afterId) {
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        while (node != null) {
+            if (afterId == null || node.key().compareTo(afterId) > 0) {
+                path.push(node);
+                node = node.left();
+            } else {
+                node = node.right();
+            }
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !path.isEmpty();
+            }
+
+            @Override
+            public ProductInfo next() {
+                if (path.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                Node next = path.pop();
+                for (Node child = next.right(); child != null; child = child.left()) {
+                    path.push(child);
+                }
+                return next.value();
+            }
+        };
+    }
+
+    private static Node insert(Node node, String key, ProductInfo value, boolean[] added) {
+        if (node == null) {
+            added[0] = true;
+            return new Node(key, value, null, null, 1);
+        }
+        int c = key.compareTo(node.key());
+        if (c == 0) {
+            return new Node(key, value, node.left(), node.right(), node.height());
+        }
+        return c < 0
+                ? balance(node.key(), node.value(), insert(node.left(), key, value, added), node.right())
+                : balance(node.key(), node.value(), node.left(), insert(node.right(), key, value, added));
+    }
+
+    private static Node remove(Node node, String key) {
+        int c = key.compareTo(node.key());
+        if (c < 0) {
+            return balance(node.key(), node.value(), remove(node.left(), key), node.right());
+        }
+        if (c > 0) {
+            return balance(node.key(), node.value(), node.left(), remove(node.right(), key));
+        }
+        if (node.left() == null) {
+            return node.right();
+        }
+        if (node.right() == null) {
+            return node.left();
+        }
+        Node successor = node.right();
+        while (successor.left() != null) {
+            successor = successor.left();
+        }
+        return balance(successor.key(), successor.value(), node.left(), removeFirst(node.right()));
+    }
+
+    private static Node removeFirst(Node node) {
+        if (node.left() == null) {
+            return node.right();
+        }
+        return balance(node.key(), node.value(), removeFirst(node.left()), node.right());
+    }
+
+    private static Node balance(String key, ProductInfo value, Node left, Node right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left()) >= height(left.right())) {
+                return node(left.key(), left.value(), left.left(), node(key, value, left.right(), right));
+            }
+            Node pivot = left.right();
+            return node(pivot.key(), pivot.value(),
+                    node(left.key(), left.value(), left.left(), pivot.left()),
+                    node(key, value, pivot.right(), right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            if (height(right.right()) >= height(right.left())) {
+                return node(right.key(), right.value(), node(key, value, left, right.left()), right.right());
+            }
+            Node pivot = right.left();
+            return node(pivot.key(), pivot.value(),
+                    node(key, value, left, pivot.left()),
+                    node(right.key(), right.value(), pivot.right(), right.right()));
+        }
+        return node(key, value, left, right);
+    }
+
+    private static Node node(String key, ProductInfo value, Node left, Node right) {
+        return new Node(key, value, left, right, Math.max(height(left), height(right)) + 1);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height();
+    }
+}
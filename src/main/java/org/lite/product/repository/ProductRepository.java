@@ -0,0 +1,33 @@
+package org.lite.product.repository;
+
+import org.lite.product.model.ProductInfo;
+
+/**
+ * Storage engine for the product catalog. Implementations must be safe for concurrent use and keep products
+ * ordered by ID for {@link #scan} and {@link #all}; {@code ProductRepositoryConformanceTest} checks the contract.
+ * <p>
+ * Writes are unconditional: {@code CatalogWriter} lets one write per product run at a time and checks it against
+ * the current value itself, because the check has to come before the write is logged.
+ */
+public interface ProductRepository extends ProductView {
+
+    /**
+     * Returns a read-only view of the catalog as of this call. Engines that keep versions ({@code mvcc}) return
+     * a true point-in-time view in O(1) that later writes do not affect; the others return themselves, a live and
+     * weakly consistent view, rather than copying the whole catalog.
+     */
+    default ProductView snapshot() {
+        return this;
+    }
+
+    /**
+     * Stores the product unconditionally and returns whether it replaced one. The replaced value is not returned,
+     * so engines that build products on read need not build it.
+     */
+    boolean put(ProductInfo product);
+
+    /**
+     * Removes the product and returns whether there was one.
+     */
+    boolean delete(String productId);
+}
@@ -0,0 +1,22 @@
+package org.lite.product.repository;
+
+import java.util.function.Supplier;
+
+/**
+ * Storage engines selectable through {@code catalog.storage.engine}.
+ */
+public enum ProductStorageEngine {
+    CONCURRENT_MAP(ConcurrentMapProductRepository::new),
+    COMPACT(CompactProductRepository::new),
+    MVCC(MvccProductRepository::new);
+
+    private final Supplier<ProductRepository> factory;
+
+    ProductStorageEngine(Supplier<ProductRepository> factory) {
+        this.factory = factory;
+    }
+
+    public ProductRepository create() {
+        return factory.get();
+    }
+}
@@ -0,0 +1,45 @@
+package org.lite.product.repository;
+
+import org.lite.product.model.ProductInfo;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read side of the catalog, with products ordered by ID. Implemented by every {@link ProductRepository} as a
+ * live view and by the point-in-time views returned from {@link ProductRepository#snapshot()}.
+ */
+public interface ProductView {
+
+    /**
+     * Returns the product with the given ID, or null if there is none.
+     */
+    ProductInfo get(String productId);
+
+    /**
+     * Whether there is a product with the given ID. Engines that build products on read answer it without one.
+     */
+    default boolean contains(String productId) {
+        return get(productId) != null;
+    }
+
+    /**
+     * Resolves many IDs at once. The result holds only the IDs that were found, in the order they were requested.
+     */
+    Map<String, ProductInfo> getAll(Collection<String> productIds);
+
+    /**
+     * Returns up to {@code limit} products with an ID strictly greater than {@code afterId}, in ascending ID order.
+     * A null {@code afterId} starts from the first product.
+     */
+    List<ProductInfo> scan(String afterId, int limit);
+
+    /**
+     * Iteration over every product in ascending ID order. On a live repository it is weakly consistent: concurrent
+     * writes may or may not be seen.
+     */
+    Iterable<ProductInfo> all();
+
+    int size();
+}
@@ -0,0 +1,56 @@
+package org.lite.product.repository;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only dictionary that maps low-cardinality strings such as categories to dense int codes, so each
+ * distinct value is stored once no matter how many products share it. Codes are never reused.
+ */
+final class StringDictionary {
+
+    static final int NULL_CODE = -1;
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private final ReentrantLock assignLock = new ReentrantLock();
+    private volatile String[] values = new String[16];
+    private int size;
+
+    int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : assign(value);
+    }
+
+    String decode(int code) {
+        return code == NULL_CODE ? null : values[code];
+    }
+
+    int size() {
+        return codes.size();
+    }
+
+    private int assign(String value) {
+        assignLock.lock();
+        try {
+            Integer existing = codes.get(value);
+            if (existing != null) {
+                return existing;
+            }
+            String[] current = values;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+            }
+            current[size] = value;
+            // Volatile write publishes the new slot before the code becomes visible through the map
+            values = current;
+            codes.put(value, size);
+            return size++;
+        } finally {
+            assignLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package org.lite.product.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The {@code catalog.authorization} rules, compiled once at startup.
+ * <p>
+ * Every role a rule names gets a bit, so a token's roles become one {@code long}, resolved once per token by
+ * {@link #roleMask} (the {@link CachingJwtDecoder} keeps it with the verified token), and a rule's required roles
+ * become a mask. Paths are {@link CompiledPathPattern}s and methods a bit set, so {@link #allows} walks no claims,
+ * allocates nothing and logs nothing. Roles are {@code realm:<role>} for realm roles and {@code <client>:<role>}
+ * for roles of a client in {@code resource_access}; a rule may name at most 64 distinct roles in all.
+ */
+@Component
+@Slf4j
+public class AuthorizationPolicy {
+
+    private static final String REALM = "realm";
+    private static final String[] METHODS = {"GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "TRACE"};
+    private static final int ALL_METHODS = (1 << METHODS.length) - 1;
+
+    private record Rule(CompiledPathPattern path, int methods, long requiredRoles) {
+    }
+
+    private final Rule[] rules;
+    // Role name to bit, for realm roles and for each client's roles
+    private final Map<String, Long> realmRoles = new HashMap<>();
+    private final Map<String, Map<String, Long>> clientRoles = new HashMap<>();
+
+    public AuthorizationPolicy(AuthorizationProperties properties) {
+        List<Rule> compiled = new ArrayList<>();
+        for (AuthorizationProperties.Rule rule : properties.getRules()) {
+            long required = 0;
+            for (String role : rule.getRoles()) {
+                required |= bit(role);
+            }
+            compiled.add(new Rule(CompiledPathPattern.compile(rule.getPath()), methods(rule.getMethods()), required));
+            log.info("Authorization rule: {} {} requires {}", rule.getMethods().isEmpty() ? "*" : rule.getMethods(),
+                    rule.getPath(), rule.getRoles().isEmpty() ? "any token" : rule.getRoles());
+        }
+        this.rules = compiled.toArray(new Rule[0]);
+    }
+
+    /**
+     * The roles of {@code jwt} that some rule requires, as bits. Roles no rule names are left out.
+     */
+    public long roleMask(Jwt jwt) {
+        long mask = 0;
+        if (jwt.getClaims().get("realm_access") instanceof Map<?, ?> realmAccess) {
+            mask |= bits(realmRoles, realmAccess.get("roles"));
+        }
+        if (!clientRoles.isEmpty() && jwt.getClaims().get("resource_access") instanceof Map<?, ?> resourceAccess) {
+            for (Map.Entry<String, Map<String, Long>> client : clientRoles.entrySet()) {
+                if (resourceAccess.get(client.getKey()) instanceof Map<?, ?> access) {
+                    mask |= bits(client.getValue(), access.get("roles"));
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Whether a token with {@code roleMask} may make the request: the first rule matching its method and the path
+     * of {@code requestUri} from index {@code pathStart} (the end of the context path) decides, and requests no
+     * rule matches are refused.
+     */
+    public boolean allows(String method, String requestUri, int pathStart, long roleMask) {
+        int methodBit = methodBit(method);
+        for (Rule rule : rules) {
+            if ((rule.methods() & methodBit) != 0 && rule.path().matches(requestUri, pathStart)) {
+                return (roleMask & rule.requiredRoles()) == rule.requiredRoles();
+            }
+        }
+        return false;
+    }
+
+    private long bit(String role) {
+        int separator = role.indexOf(':');
+        if (separator <= 0 || separator == role.length() - 1) {
+            throw new IllegalArgumentException("Authorization role '" + role
+                    + "' must be realm:<role> or <client>:<role>");
+        }
+        String owner = role.substring(0, separator);
+        String name = role.substring(separator + 1);
+        Map<String, Long> roles = owner.equals(REALM)
+                ? realmRoles : clientRoles.computeIfAbsent(owner, client -> new HashMap<>());
+        Long bit = roles.get(name);
+        if (bit == null) {
+            int assigned = realmRoles.size() + clientRoles.values().stream().mapToInt(Map::size).sum();
+            if (assigned == Long.SIZE) {
+                throw new IllegalArgumentException("Authorization rules name more than " + Long.SIZE + " roles");
+            }
+            bit = 1L << assigned;
+            roles.put(name, bit);
+        }
+        return bit;
+    }
+
+    private static long bits(Map<String, Long> known, Object granted) {
+        long mask = 0;
+        if (granted instanceof Collection<?> roles) {
+            for (Object role : roles) {
+                Long bit = known.get(role);
+                if (bit != null) {
+                    mask |= bit;
+                }
+            }
+        }
+        return mask;
+    }
+
+    private static int methods(List<String> names) {
+        if (names.isEmpty()) {
+            return ALL_METHODS;
+        }
+        int mask = 0;
+        for (String name : names) {
+            int bit = methodBit(name.toUpperCase(Locale.ROOT));
+            if (bit == 0) {
+                throw new IllegalArgumentException("Unknown HTTP method '" + name + "' in authorization rules");
+            }
+            mask |= bit;
+        }
+        return mask;
+    }
+
+    private static int methodBit(String method) {
+        for (int i = 0; i < METHODS.length; i++) {
+            if (METHODS[i].equals(method)) {
+                return 1 << i;
+            }
+        }
+        return 0;
+    }
+}
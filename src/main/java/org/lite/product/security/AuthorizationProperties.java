@@ -0,0 +1,25 @@
+package org.lite.product.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "catalog.authorization")
+public class AuthorizationProperties {
+    // Checked in order: the first rule matching a request's path and method decides; requests no rule matches are refused
+    private List<Rule> rules = new ArrayList<>(List.of(new Rule()));
+
+    @Data
+    public static class Rule {
+        // Path below the context path: literal segments, * or {name} for one segment, ** for any number of segments
+        private String path = "/**";
+        // HTTP methods the rule applies to; empty for all
+        private List<String> methods = new ArrayList<>();
+        // Roles a token must all hold: realm:<role> for a realm role, <client>:<role> for a role of that client
+        private List<String> roles = new ArrayList<>(List.of(
+                "realm:gateway_admin_realm", "linqra-gateway-client:gateway_admin"));
+    }
+}
@@ -0,0 +1,161 @@
+package org.lite.product.security;
+
+import org.lite.product.jfr.JwtDecodeEvent;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link JwtDecoder} that remembers tokens it has verified, so a token sent again, like the gateway's service token
+ * on every call, is neither parsed nor signature-checked again.
+ * <p>
+ * Tokens are keyed by their SHA-256 digest, and kept as {@link RoleMaskedJwt}s carrying the roles the
+ * {@link AuthorizationPolicy} resolved for them, so neither is worked out again per request. Only tokens with an
+ * expiry are kept.
+ * Every hit runs the validator again, which includes {@code JwtTimestampValidator}: a token past its expiry is
+ * rejected exactly as on first use, and dropped. Once {@code max-cached-tokens} are held, expired tokens are swept
+ * out, at most once a second; if that frees nothing, new tokens are verified without being kept.
+ * {@link #invalidateAll} forgets every token, for when a signing key is withdrawn. It also starts a new generation,
+ * and every entry carries the generation read before its token was verified. Entries of an older generation are
+ * never served. So a token verified against the old keys and stored only after {@code invalidateAll} has cleared
+ * the cache is not trusted either.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private static final long SWEEP_INTERVAL_NANOS = 1_000_000_000L;
+
+    private record Entry(RoleMaskedJwt jwt, long generation) {
+    }
+
+    private final JwtDecoder delegate;
+    private final OAuth2TokenValidator<Jwt> validator;
+    private final AuthorizationPolicy policy;
+    private final JwtCacheProperties properties;
+    private final ConcurrentHashMap<String, Entry> tokens = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime() - SWEEP_INTERVAL_NANOS);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder notCached = new LongAdder();
+
+    /**
+     * @param delegate  verifies tokens that are not cached, running {@code validator} itself
+     * @param validator the same validator the delegate runs, checked again on every hit
+     * @param policy    resolves the roles of each newly verified token
+     */
+    public CachingJwtDecoder(JwtDecoder delegate, OAuth2TokenValidator<Jwt> validator, AuthorizationPolicy policy,
+                             JwtCacheProperties properties) {
+        this.delegate = delegate;
+        this.validator = validator;
+        this.policy = policy;
+        this.properties = properties;
+    }
+
+    @Override
+    public RoleMaskedJwt decode(String token) throws JwtException {
+        JwtDecodeEvent event = new JwtDecodeEvent();
+        event.start();
+        try {
+            return decode(token, event);
+        } catch (JwtException e) {
+            event.failed(e);
+            throw e;
+        } finally {
+            event.finish(token);
+        }
+    }
+
+    public void invalidateAll() {
+        // Before clearing, so a verification still running stores its token under the generation now ending
+        generation.incrementAndGet();
+        tokens.clear();
+    }
+
+    public Map<String, Double> metrics() {
+        Map<String, Double> metrics = new LinkedHashMap<>();
+        metrics.put("jwt.cachedTokens", (double) tokens.size());
+        metrics.put("jwt.cacheHits", (double) hits.sum());
+        metrics.put("jwt.cacheMisses", (double) misses.sum());
+        metrics.put("jwt.expiredOnHit", (double) expired.sum());
+        metrics.put("jwt.notCached", (double) notCached.sum());
+        return metrics;
+    }
+
+    private RoleMaskedJwt decode(String token, JwtDecodeEvent event) {
+        if (!properties.isCacheEnabled()) {
+            return RoleMaskedJwt.of(delegate.decode(token), policy);
+        }
+        String key = digest(token);
+        // Read before verifying, so the keys the token is verified against are no older than this generation
+        long current = generation.get();
+        Entry cached = tokens.get(key);
+        if (cached != null && cached.generation() != current) {
+            tokens.remove(key, cached);
+            cached = null;
+        }
+        if (cached != null) {
+            OAuth2TokenValidatorResult result = validator.validate(cached.jwt());
+            if (!result.hasErrors()) {
+                hits.increment();
+                event.cacheHit();
+                return cached.jwt();
+            }
+            tokens.remove(key, cached);
+            expired.increment();
+            OAuth2Error error = result.getErrors().iterator().next();
+            throw new JwtValidationException(
+                    "An error occurred while attempting to decode the Jwt: " + error.getDescription(),
+                    result.getErrors());
+        }
+
+        misses.increment();
+        RoleMaskedJwt jwt = RoleMaskedJwt.of(delegate.decode(token), policy);
+        if (jwt.getExpiresAt() != null && generation.get() == current) {
+            if (tokens.size() >= properties.getMaxCachedTokens()) {
+                sweep();
+            }
+            if (tokens.size() < properties.getMaxCachedTokens()) {
+                tokens.put(key, new Entry(jwt, current));
+            } else {
+                notCached.increment();
+            }
+        }
+        return jwt;
+    }
+
+    private void sweep() {
+        long last = lastSweep.get();
+        long now = System.nanoTime();
+        if (now - last < SWEEP_INTERVAL_NANOS || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        long current = generation.get();
+        tokens.entrySet().removeIf(entry -> entry.getValue().generation() != current
+                || validator.validate(entry.getValue().jwt()).hasErrors());
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
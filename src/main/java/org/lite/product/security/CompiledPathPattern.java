@@ -0,0 +1,99 @@
+package org.lite.product.security;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A path pattern split into segments once, so matching a request path walks the path in place: no splitting,
+ * no substrings and no regular expressions. A segment is a literal, {@code *} or {@code {name}} for exactly one
+ * path segment, or {@code **} for any number of them. Repeated and trailing slashes in the path are ignored.
+ */
+final class CompiledPathPattern {
+
+    private static final String ONE_SEGMENT = "*";
+    private static final String ANY_SEGMENTS = "**";
+
+    private final String pattern;
+    // Literal segments, or the ONE_SEGMENT / ANY_SEGMENTS constants themselves, compared by identity
+    private final String[] segments;
+
+    private CompiledPathPattern(String pattern, String[] segments) {
+        this.pattern = pattern;
+        this.segments = segments;
+    }
+
+    static CompiledPathPattern compile(String pattern) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : pattern.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segment.equals(ANY_SEGMENTS)) {
+                segments.add(ANY_SEGMENTS);
+            } else if (segment.equals(ONE_SEGMENT) || (segment.startsWith("{") && segment.endsWith("}"))) {
+                segments.add(ONE_SEGMENT);
+            } else if (segment.contains("*") || segment.contains("{") || segment.contains("}")) {
+                throw new IllegalArgumentException("Unsupported path pattern segment '" + segment + "' in " + pattern
+                        + ": wildcards must be a whole segment");
+            } else {
+                segments.add(segment);
+            }
+        }
+        return new CompiledPathPattern(pattern, segments.toArray(new String[0]));
+    }
+
+    /**
+     * Whether the part of {@code path} from index {@code from} on matches, such as a request URI after its context path.
+     */
+    boolean matches(String path, int from) {
+        return matches(0, path, from);
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+
+    private boolean matches(int segment, String path, int position) {
+        int length = path.length();
+        while (position < length && path.charAt(position) == '/') {
+            position++;
+        }
+        if (segment == segments.length) {
+            return position >= length;
+        }
+        String expected = segments[segment];
+        if (expected == ANY_SEGMENTS) {
+            if (segment + 1 == segments.length) {
+                return true;
+            }
+            // Let ** take zero segments, then one more at a time
+            while (true) {
+                if (matches(segment + 1, path, position)) {
+                    return true;
+                }
+                while (position < length && path.charAt(position) == '/') {
+                    position++;
+                }
+                if (position >= length) {
+                    return false;
+                }
+                position = segmentEnd(path, position);
+            }
+        }
+        if (position >= length) {
+            return false;
+        }
+        int end = segmentEnd(path, position);
+        if (expected != ONE_SEGMENT
+                && (end - position != expected.length() || !path.regionMatches(position, expected, 0, end - position))) {
+            return false;
+        }
+        return matches(segment + 1, path, end);
+    }
+
+    private static int segmentEnd(String path, int position) {
+        int end = path.indexOf('/', position);
+        return end < 0 ? path.length() : end;
+    }
+}
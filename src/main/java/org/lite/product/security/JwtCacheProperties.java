@@ -0,0 +1,19 @@
+package org.lite.product.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "catalog.jwt")
+public class JwtCacheProperties {
+    // Keeps verified tokens, so a token sent again is not parsed and signature-checked again
+    private boolean cacheEnabled = true;
+    // Tokens kept at once; when full, tokens past expiry are dropped and new ones are verified without being kept
+    private int maxCachedTokens = 10_000;
+    // How often the JWK set is fetched in the background
+    private Duration jwkRefreshInterval = Duration.ofMinutes(5);
+    // Earliest refetch after a token names an unknown key, or after a failed fetch
+    private Duration jwkMinRefetchInterval = Duration.ofSeconds(10);
+}
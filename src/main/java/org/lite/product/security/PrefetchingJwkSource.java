@@ -0,0 +1,173 @@
+package org.lite.product.security;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestOperations;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The authorization server's signing keys, fetched in the background so token verification never waits for them.
+ * <p>
+ * The JWK set is fetched once while the source is created, so the first requests after startup find the keys, and
+ * then by one virtual thread every {@code jwk-refresh-interval}. If that first fetch fails, the source starts without
+ * keys and the thread retries after {@code jwk-min-refetch-interval}. A token that
+ * names a key ID not in the set is rejected at once and wakes the thread to fetch early, no sooner than
+ * {@code jwk-min-refetch-interval} after the last fetch, so a rotated-in key is picked up within moments without a
+ * request ever blocking on the fetch, and a stream of made-up key IDs cannot turn into a stream of fetches. A
+ * failed fetch keeps the previous keys and is retried after the same minimum interval.
+ */
+@Slf4j
+public class PrefetchingJwkSource implements JWKSource<SecurityContext> {
+
+    private static final Duration FETCH_TIMEOUT = Duration.ofSeconds(5);
+
+    private final String jwkSetUri;
+    private final RestOperations restOperations;
+    private final long refreshIntervalNanos;
+    private final long minRefetchIntervalNanos;
+    private final List<Runnable> keyRemovalListeners = new CopyOnWriteArrayList<>();
+    private final Thread refresher;
+
+    private volatile JWKSet keys = new JWKSet();
+    private volatile long fetchedAt;
+
+    // ReentrantLock rather than synchronized so the waiting virtual thread is not pinned
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition refetchRequested = lock.newCondition();
+    // Guarded by lock
+    private boolean refetch;
+
+    private final LongAdder fetches = new LongAdder();
+    private final LongAdder failedFetches = new LongAdder();
+    private final LongAdder unknownKeyIds = new LongAdder();
+
+    public PrefetchingJwkSource(String jwkSetUri, JwtCacheProperties properties) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(FETCH_TIMEOUT);
+        requestFactory.setReadTimeout(FETCH_TIMEOUT);
+        this.jwkSetUri = jwkSetUri;
+        this.restOperations = new RestTemplate(requestFactory);
+        this.refreshIntervalNanos = properties.getJwkRefreshInterval().toNanos();
+        this.minRefetchIntervalNanos = properties.getJwkMinRefetchInterval().toNanos();
+        // Blocks startup for at most FETCH_TIMEOUT, so the service does not answer its first requests with 401
+        long firstAttempt = System.nanoTime();
+        boolean fetched = fetch();
+        this.refresher = Thread.ofVirtual().name("jwk-refresher").start(() -> refreshLoop(firstAttempt, fetched));
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) {
+        List<JWK> matches = jwkSelector.select(keys);
+        Set<String> wantedKeyIds = jwkSelector.getMatcher().getKeyIDs();
+        if (matches.isEmpty() && wantedKeyIds != null && wantedKeyIds.stream().anyMatch(Objects::nonNull)) {
+            unknownKeyIds.increment();
+            lock.lock();
+            try {
+                refetch = true;
+                refetchRequested.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Runs {@code listener} after a fetch in which keys were dropped from the set, such as to forget tokens they
+     * signed. The new set is already in use by then, while verifications against the old set may still be running.
+     */
+    public void onKeysRemoved(Runnable listener) {
+        keyRemovalListeners.add(listener);
+    }
+
+    public Map<String, Double> metrics() {
+        Map<String, Double> metrics = new LinkedHashMap<>();
+        metrics.put("jwt.jwkKeys", (double) keys.getKeys().size());
+        metrics.put("jwt.jwkFetches", (double) fetches.sum());
+        metrics.put("jwt.jwkFailedFetches", (double) failedFetches.sum());
+        metrics.put("jwt.unknownKeyIds", (double) unknownKeyIds.sum());
+        metrics.put("jwt.jwkAgeSeconds",
+                fetchedAt == 0 ? -1.0 : (System.nanoTime() - fetchedAt) / 1_000_000_000.0);
+        return metrics;
+    }
+
+    public void close() {
+        refresher.interrupt();
+    }
+
+    private void refreshLoop(long lastAttempt, boolean fetched) {
+        try {
+            while (true) {
+                lock.lockInterruptibly();
+                try {
+                    long remaining = fetched ? refreshIntervalNanos : minRefetchIntervalNanos;
+                    while (!refetch && remaining > 0) {
+                        remaining = refetchRequested.awaitNanos(remaining);
+                    }
+                    refetch = false;
+                } finally {
+                    lock.unlock();
+                }
+                TimeUnit.NANOSECONDS.sleep(lastAttempt + minRefetchIntervalNanos - System.nanoTime());
+                lastAttempt = System.nanoTime();
+                fetched = fetch();
+            }
+        } catch (InterruptedException e) {
+            // Shutting down
+        }
+    }
+
+    private boolean fetch() {
+        try {
+            JWKSet fetched = JWKSet.parse(restOperations.getForObject(jwkSetUri, String.class));
+            // Keys are compared whole, so a key replaced under the same key ID counts as removed
+            Set<JWK> removed = new HashSet<>(keys.getKeys());
+            removed.removeAll(fetched.getKeys());
+            boolean changed = !removed.isEmpty() || keys.getKeys().size() != fetched.getKeys().size();
+            keys = fetched;
+            fetchedAt = System.nanoTime();
+            fetches.increment();
+            if (changed) {
+                log.info("Fetched {} signing keys from {}: {}", fetched.getKeys().size(), jwkSetUri,
+                        keyIds(fetched.getKeys()));
+            }
+            if (!removed.isEmpty()) {
+                log.info("Signing keys {} were removed", keyIds(removed));
+                keyRemovalListeners.forEach(Runnable::run);
+            }
+            return true;
+        } catch (Exception e) {
+            failedFetches.increment();
+            log.warn("Could not fetch signing keys from {}, keeping the {} known: {}", jwkSetUri,
+                    keys.getKeys().size(), e.getMessage());
+            return false;
+        }
+    }
+
+    private static Set<String> keyIds(Collection<JWK> keys) {
+        Set<String> ids = new HashSet<>();
+        for (JWK key : keys) {
+            ids.add(key.getKeyID());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,30 @@
+package org.lite.product.security;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+
+/**
+ * A verified {@link Jwt} together with its roles, resolved once by the {@link AuthorizationPolicy} when the token
+ * was decoded, so authorizing each request needs no claim lookups.
+ */
+public final class RoleMaskedJwt extends Jwt {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long roleMask;
+
+    private RoleMaskedJwt(Jwt jwt, long roleMask) {
+        super(jwt.getTokenValue(), jwt.getIssuedAt(), jwt.getExpiresAt(), jwt.getHeaders(), jwt.getClaims());
+        this.roleMask = roleMask;
+    }
+
+    public static RoleMaskedJwt of(Jwt jwt, AuthorizationPolicy policy) {
+        return new RoleMaskedJwt(jwt, policy.roleMask(jwt));
+    }
+
+    /**
+     * The token's roles as bits of {@link AuthorizationPolicy}; roles no rule mentions are left out.
+     */
+    public long roleMask() {
+        return roleMask;
+    }
+}
@@ -0,0 +1,83 @@
+package org.lite.product.security;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.oauth2.client.AuthorizedClientServiceOAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Access tokens for calls this service makes on its own behalf, such as to its peers, outside any user request.
+ * Tokens come from an OAuth2 client registration with the {@code client_credentials} grant and are reused until
+ * they are about to expire.
+ */
+@Component
+public class ServiceTokenProvider {
+
+    private static final String PRINCIPAL = "product-service";
+
+    private final ClientRegistrationRepository registrations;
+    private final OAuth2AuthorizedClientManager authorizedClientManager;
+
+    public ServiceTokenProvider(ObjectProvider<ClientRegistrationRepository> clientRegistrations,
+                                ObjectProvider<OAuth2AuthorizedClientService> authorizedClients) {
+        this.registrations = clientRegistrations.getIfAvailable();
+        OAuth2AuthorizedClientService clients = authorizedClients.getIfAvailable();
+        this.authorizedClientManager = registrations != null && clients != null
+                ? new AuthorizedClientServiceOAuth2AuthorizedClientManager(registrations, clients)
+                : null;
+    }
+
+    /**
+     * Fails fast if a client registration is named in {@code property} but none are configured.
+     */
+    public void verify(String property, String registrationId) {
+        if (StringUtils.hasText(registrationId) && authorizedClientManager == null) {
+            throw new IllegalStateException(property + " is set to " + registrationId
+                    + " but no OAuth2 client registrations are configured");
+        }
+    }
+
+    /**
+     * Fails fast unless {@code property} names a client registration and registrations are configured, for
+     * callers that cannot work without a token.
+     */
+    public void require(String property, String registrationId) {
+        if (!StringUtils.hasText(registrationId)) {
+            throw new IllegalStateException(property + " must name an OAuth2 client registration with the "
+                    + "client_credentials grant: calls without a token are refused");
+        }
+        verify(property, registrationId);
+    }
+
+    /**
+     * The client ID of the given registration, which its tokens carry as the authorized party ({@code azp}), or null
+     * when no registration is named or configured.
+     */
+    public String clientId(String registrationId) {
+        if (!StringUtils.hasText(registrationId) || registrations == null) {
+            return null;
+        }
+        ClientRegistration registration = registrations.findByRegistrationId(registrationId);
+        return registration != null ? registration.getClientId() : null;
+    }
+
+    /**
+     * A current access token from the given registration, or null when no registration is named.
+     */
+    public String accessToken(String registrationId) {
+        if (!StringUtils.hasText(registrationId) || authorizedClientManager == null) {
+            return null;
+        }
+        OAuth2AuthorizedClient client = authorizedClientManager.authorize(OAuth2AuthorizeRequest
+                .withClientRegistrationId(registrationId)
+                .principal(PRINCIPAL)
+                .build());
+        return client != null ? client.getAccessToken().getTokenValue() : null;
+    }
+}
@@ -0,0 +1,79 @@
+package org.lite.product.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.lite.product.tls.TlsProperties;
+import org.springframework.security.web.authentication.preauth.x509.X509PrincipalExtractor;
+import org.springframework.stereotype.Component;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+import javax.naming.ldap.Rdn;
+import java.security.cert.X509Certificate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Extracts the principal of a client certificate, its most specific CN, once per certificate.
+ * <p>
+ * Certificates are the cache keys: their hash code and equality are over the DER encoding, so a certificate is
+ * recognised by its full content without hashing it again per request, and JSSE hands out the same certificate
+ * objects for every request on a connection. The subject DN is logged once, when a certificate is first seen.
+ * A DN without a CN yields the whole DN. Once {@code max-cached-principals} certificates are held, principals of new
+ * ones are extracted without being kept.
+ */
+@Component
+@Slf4j
+public class X509PrincipalCache implements X509PrincipalExtractor {
+
+    private final int maxEntries;
+    private final ConcurrentHashMap<X509Certificate, String> principals = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public X509PrincipalCache(TlsProperties properties) {
+        this.maxEntries = properties.getMaxCachedPrincipals();
+    }
+
+    @Override
+    public Object extractPrincipal(X509Certificate certificate) {
+        String principal = principals.get(certificate);
+        if (principal != null) {
+            hits.increment();
+            return principal;
+        }
+        misses.increment();
+        String dn = certificate.getSubjectX500Principal().getName();
+        principal = commonName(dn);
+        log.info("Client certificate {} identifies {}", dn, principal);
+        if (principals.size() < maxEntries) {
+            principals.putIfAbsent(certificate, principal);
+        }
+        return principal;
+    }
+
+    public Map<String, Double> metrics() {
+        Map<String, Double> metrics = new LinkedHashMap<>();
+        metrics.put("x509.cachedPrincipals", (double) principals.size());
+        metrics.put("x509.principalHits", (double) hits.sum());
+        metrics.put("x509.principalMisses", (double) misses.sum());
+        return metrics;
+    }
+
+    static String commonName(String dn) {
+        try {
+            // Rdns are listed from the least specific, so search from the end
+            List<Rdn> rdns = new LdapName(dn).getRdns();
+            for (int i = rdns.size() - 1; i >= 0; i--) {
+                if ("CN".equalsIgnoreCase(rdns.get(i).getType())) {
+                    return rdns.get(i).getValue().toString();
+                }
+            }
+        } catch (InvalidNameException e) {
+            log.warn("Unparseable client certificate DN {}: {}", dn, e.getMessage());
+        }
+        return dn;
+    }
+}
@@ -0,0 +1,396 @@
+package org.lite.product.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.lite.product.cache.ProductJsonCache;
+import org.lite.product.change.ChangeFeed;
+import org.lite.product.index.ProductIndex;
+import org.lite.product.model.ProductInfo;
+import org.lite.product.persistence.CatalogPersistence;
+import org.lite.product.replication.ReplicatedChange;
+import org.lite.product.replication.ReplicationStamp;
+import org.lite.product.replication.ReplicationStamps;
+import org.lite.product.repository.ProductRepository;
+import org.lite.product.version.CatalogVersions;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * The single write path of the catalog. Each create, update and delete reserves its product, so writes to one
+ * product run one at a time, is checked against the current value and logged; once durable it is applied as one
+ * repository operation, versioned and published to the {@link ChangeFeed} under the product's lock from
+ * {@link CatalogVersions}, and the JSON cache and the secondary indexes are refreshed afterwards. No lock is held
+ * while the log is synced, and the writes of a batch share one append. A write that cannot be logged is never
+ * applied, so readers, the change feed and peers never see it. Writes replicated from peers take the same path
+ * through {@link #applyReplicated}.
+ */
+@Service
+@Slf4j
+public class CatalogWriter {
+
+    // A generated ID only collides with a client-chosen one, so a few attempts are plenty
+    private static final int MAX_ID_ATTEMPTS = 8;
+    // Draws for a generated ID this shard owns; with N shards each draw is owned with probability about 1/N
+    private static final int MAX_OWNED_ID_DRAWS = 1_000;
+
+    /**
+     * Outcome of a single-product write: the HTTP status the single-item endpoint answers with, and the product's
+     * entity tag after the write (null if it was refused or deleted the product).
+     */
+    public record WriteResult(int status, String etag) {
+    }
+
+    private enum Kind { CREATE, SEED, REPLACE, REMOVE, REPLICATE }
+
+    /**
+     * One write of a batch for {@link #writeAll}.
+     */
+    public static final class Write {
+
+        private final Kind kind;
+        private final String productId;
+        private final ProductInfo product;
+        private final String ifMatch;
+        private final ReplicationStamp stamp;
+
+        private Write(Kind kind, String productId, ProductInfo product, String ifMatch, ReplicationStamp stamp) {
+            this.kind = kind;
+            this.productId = productId;
+            this.product = product;
+            this.ifMatch = ifMatch;
+            this.stamp = stamp;
+        }
+
+        /**
+         * Stores a new product under its ID, or a generated one when it has none.
+         */
+        public static Write create(ProductInfo product) {
+            return new Write(Kind.CREATE, product.getId(), product, null, null);
+        }
+
+        /**
+         * Replaces an existing product, if {@code ifMatch} is null or matches its entity tag.
+         */
+        public static Write replace(String productId, ProductInfo product, String ifMatch) {
+            return new Write(Kind.REPLACE, productId, product, ifMatch, null);
+        }
+
+        /**
+         * Removes a product, if {@code ifMatch} is null or matches its entity tag.
+         */
+        public static Write remove(String productId, String ifMatch) {
+            return new Write(Kind.REMOVE, productId, null, ifMatch, null);
+        }
+    }
+
+    /**
+     * A write that passed its check and holds its product's reservation until it is applied or refused.
+     */
+    private static final class Planned {
+
+        final int index;
+        final String productId;
+        final CompletableFuture<Void> reservation;
+        ProductInfo product;
+        boolean existed;
+        ReplicationStamp stamp;
+        int status;
+        String etag;
+
+        Planned(int index, String productId, CompletableFuture<Void> reservation) {
+            this.index = index;
+            this.productId = productId;
+            this.reservation = reservation;
+        }
+
+        Planned refuse(int status) {
+            this.status = status;
+            return this;
+        }
+    }
+
+    private final ProductRepository productRepository;
+    private final List<ProductIndex> productIndexes;
+    private final CatalogPersistence catalogPersistence;
+    private final ProductJsonCache productJsonCache;
+    private final CatalogVersions catalogVersions;
+    private final ChangeFeed changeFeed;
+    private final ReplicationStamps replicationStamps;
+    private final ProductIdAllocator idAllocator;
+    // Products with a write between its check and its apply, which waits for the log; a later write to the same
+    // product waits for it, so checks stay exact without holding a lock across the fsync
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    public CatalogWriter(ProductRepository productRepository, List<ProductIndex> productIndexes,
+                         CatalogPersistence catalogPersistence, ProductJsonCache productJsonCache,
+                         CatalogVersions catalogVersions, ChangeFeed changeFeed, ReplicationStamps replicationStamps) {
+        this.productRepository = productRepository;
+        this.productIndexes = productIndexes;
+        this.catalogPersistence = catalogPersistence;
+        this.productJsonCache = productJsonCache;
+        this.catalogVersions = catalogVersions;
+        this.changeFeed = changeFeed;
+        this.replicationStamps = replicationStamps;
+        // Replicas generate IDs independently, so each one's IDs carry its node ID
+        this.idAllocator = new ProductIdAllocator(
+                replicationStamps.isEnabled() ? "-" + replicationStamps.nodeId() : "");
+    }
+
+    /**
+     * Takes over a product that is already in the repository, such as one restored from disk: assigns it a
+     * version, keeps generated IDs clear of it and indexes it. Only for startup, before the change feed is read.
+     */
+    public void register(ProductInfo product) {
+        catalogVersions.recordWrite(product.getId());
+        replicationStamps.recordWrite(product.getId(), ReplicationStamp.INITIAL);
+        idAllocator.observe(product.getId());
+        reindex(product.getId());
+    }
+
+    /**
+     * Strong entity tag of a product's current state, or null if it does not exist. With replication enabled it is
+     * derived from the write's {@link ReplicationStamp}, which every replica agrees on, so a tag from one replica
+     * can be used in If-Match on another once the write has reached it; otherwise it is the product's version.
+     * Like the version, read it before the product, see {@link CatalogVersions}.
+     */
+    public String etagOf(String productId) {
+        if (replicationStamps.isEnabled()) {
+            return replicationStamps.etagOf(productId);
+        }
+        long version = catalogVersions.versionOf(productId);
+        return version == 0 ? null : CatalogVersions.etag(version);
+    }
+
+    /**
+     * Stores a new product, generating an ID when none is given: 201, or 400 if the given ID is already taken.
+     */
+    public WriteResult create(ProductInfo product) {
+        return create(product, id -> true);
+    }
+
+    /**
+     * Like {@link #create(ProductInfo)}, but a generated ID is drawn again until {@code acceptId} accepts it, such
+     * as until it falls in this shard's part of the key space. Gives up on that after many draws and keeps the last.
+     */
+    public WriteResult create(ProductInfo product, Predicate<String> acceptId) {
+        return write(List.of(Write.create(product)), acceptId).get(0);
+    }
+
+    /**
+     * Stores one of the sample products every replica starts with, unless its ID is taken. They carry the initial
+     * replication stamp, so a replica that joins later does not undo changes made to them elsewhere.
+     */
+    public WriteResult seed(ProductInfo product) {
+        return write(List.of(new Write(Kind.SEED, product.getId(), product, null, ReplicationStamp.INITIAL)),
+                id -> true).get(0);
+    }
+
+    /**
+     * Replaces an existing product: 200, 404 if there is no product with that ID, or 412 if {@code ifMatch} is
+     * given and does not match its current entity tag.
+     */
+    public WriteResult replace(String productId, ProductInfo updatedProduct, String ifMatch) {
+        return write(List.of(Write.replace(productId, updatedProduct, ifMatch)), id -> true).get(0);
+    }
+
+    /**
+     * Removes a product: 204, 404 if there is no product with that ID, or 412 if {@code ifMatch} is given and
+     * does not match its current entity tag.
+     */
+    public WriteResult remove(String productId, String ifMatch) {
+        return write(List.of(Write.remove(productId, ifMatch)), id -> true).get(0);
+    }
+
+    /**
+     * Applies writes in order and answers each like the single-product methods. Writes to different products are
+     * logged with one append and made durable with one wait, so a batch costs about one fsync; a write to a product
+     * that is already waiting to be applied, in this batch or elsewhere, first lets the writes before it finish.
+     * Generated IDs are drawn as in {@link #create(ProductInfo, Predicate)}.
+     */
+    public List<WriteResult> writeAll(List<Write> writes, Predicate<String> acceptId) {
+        return write(writes, acceptId);
+    }
+
+    /**
+     * Applies a product's state received from a peer if its stamp is newer than the last write known here
+     * (last-writer-wins), and publishes it to the change feed like a local write. Returns whether it was applied.
+     */
+    public boolean applyReplicated(ReplicatedChange change) {
+        Write write = new Write(Kind.REPLICATE, change.productId(), change.product(), null, change.stamp());
+        return write(List.of(write), id -> true).get(0).status() < 300;
+    }
+
+    private List<WriteResult> write(List<Write> writes, Predicate<String> acceptId) {
+        List<WriteResult> results = new ArrayList<>(Collections.nCopies(writes.size(), null));
+        List<Planned> group = new ArrayList<>();
+        try {
+            for (int i = 0; i < writes.size(); i++) {
+                Write write = writes.get(i);
+                boolean generated = write.kind == Kind.CREATE
+                        && (write.productId == null || write.productId.trim().isEmpty());
+                String productId = generated ? drawId(acceptId) : write.productId;
+                for (int attempt = 1; ; ) {
+                    CompletableFuture<Void> reservation = new CompletableFuture<>();
+                    CompletableFuture<Void> earlier = inFlight.putIfAbsent(productId, reservation);
+                    if (earlier != null) {
+                        // Never wait while holding reservations, so writers waiting for each other cannot deadlock
+                        commit(group, results);
+                        earlier.join();
+                        continue;
+                    }
+                    Planned planned = plan(i, write, productId, reservation);
+                    if (planned.status < 300) {
+                        group.add(planned);
+                        break;
+                    }
+                    release(planned);
+                    if (!generated || planned.status != 400 || attempt++ >= MAX_ID_ATTEMPTS) {
+                        results.set(i, new WriteResult(planned.status, null));
+                        break;
+                    }
+                    productId = drawId(acceptId);
+                }
+            }
+            commit(group, results);
+        } finally {
+            group.forEach(this::release);
+        }
+        return results;
+    }
+
+    private String drawId(Predicate<String> acceptId) {
+        String id = idAllocator.next();
+        for (int draw = 1; draw < MAX_OWNED_ID_DRAWS && !acceptId.test(id); draw++) {
+            id = idAllocator.next();
+        }
+        return id;
+    }
+
+    /**
+     * Checks a write against the current state of its product, which it has reserved, and returns what to log and
+     * apply, or the status it is refused with.
+     */
+    private Planned plan(int index, Write write, String productId, CompletableFuture<Void> reservation) {
+        Planned planned = new Planned(index, productId, reservation);
+        boolean exists = productRepository.contains(productId);
+        planned.existed = exists;
+        switch (write.kind) {
+            case CREATE, SEED -> {
+                if (exists) {
+                    return planned.refuse(400);
+                }
+                write.product.setId(productId);
+                planned.product = write.product;
+                planned.stamp = write.stamp;
+                planned.status = 201;
+            }
+            case REPLACE, REMOVE -> {
+                if (write.ifMatch != null && !CatalogVersions.matches(write.ifMatch, etagOf(productId), false)) {
+                    return planned.refuse(412);
+                }
+                if (!exists) {
+                    return planned.refuse(404);
+                }
+                if (write.kind == Kind.REPLACE) {
+                    // Ensure the ID in the path matches the product
+                    write.product.setId(productId);
+                    planned.product = write.product;
+                    planned.status = 200;
+                } else {
+                    planned.status = 204;
+                }
+            }
+            case REPLICATE -> {
+                replicationStamps.observe(write.stamp);
+                ReplicationStamp local = replicationStamps.stampOf(productId);
+                if (local != null && local.compareTo(write.stamp) >= 0) {
+                    return planned.refuse(409);
+                }
+                if (write.product != null) {
+                    write.product.setId(productId);
+                    planned.product = write.product;
+                }
+                planned.stamp = write.stamp;
+                planned.status = write.product != null ? 200 : 204;
+            }
+        }
+        return planned;
+    }
+
+    /**
+     * Logs a group of planned writes with one append, applies them once they are durable and releases their
+     * products. A group that cannot be logged is not applied, and the exception is thrown.
+     */
+    private void commit(List<Planned> group, List<WriteResult> results) {
+        if (group.isEmpty()) {
+            return;
+        }
+        List<CatalogPersistence.LoggedWrite> writes = new ArrayList<>(group.size());
+        for (Planned planned : group) {
+            if (planned.product != null) {
+                writes.add(CatalogPersistence.LoggedWrite.put(planned.product));
+            } else if (planned.existed) {
+                writes.add(CatalogPersistence.LoggedWrite.delete(planned.productId));
+            }
+        }
+        try {
+            catalogPersistence.logThenApply(writes, () -> group.forEach(this::apply));
+        } finally {
+            group.forEach(this::release);
+        }
+
+        for (Planned planned : group) {
+            results.set(planned.index, new WriteResult(planned.status, planned.etag));
+            idAllocator.observe(planned.productId);
+            productJsonCache.invalidate(planned.productId);
+            reindex(planned.productId);
+        }
+        group.clear();
+    }
+
+    /**
+     * Stores a durable write, versions it and publishes it. The product's lock makes the new value, version and
+     * stamp appear together to readers that take it.
+     */
+    private void apply(Planned planned) {
+        String productId = planned.productId;
+        ReentrantLock lock = catalogVersions.lockFor(productId);
+        lock.lock();
+        try {
+            ReplicationStamp stamp = planned.stamp != null ? planned.stamp : replicationStamps.next();
+            if (planned.product != null) {
+                productRepository.put(planned.product);
+                changeFeed.publishWrite(planned.product, !planned.existed);
+                replicationStamps.recordWrite(productId, stamp);
+                planned.etag = etagOf(productId);
+            } else {
+                // A replicated delete is remembered even if the product never got here, so an older create loses to it
+                if (planned.existed) {
+                    productRepository.delete(productId);
+                    changeFeed.publishDelete(productId);
+                }
+                replicationStamps.recordDelete(productId, stamp);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(Planned planned) {
+        if (inFlight.remove(planned.productId, planned.reservation)) {
+            planned.reservation.complete(null);
+        }
+    }
+
+    private void reindex(String productId) {
+        for (ProductIndex index : productIndexes) {
+            index.refresh(productId, productRepository::get);
+        }
+    }
+}
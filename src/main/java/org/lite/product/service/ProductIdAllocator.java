@@ -0,0 +1,92 @@
+package org.lite.product.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Generates product IDs of the form {@code P<n>}, followed by a fixed suffix when several replicas generate IDs,
+ * without a shared hot counter.
+ * <p>
+ * Numbers are leased in aligned blocks of {@value #BLOCK_SIZE} from one global counter, and each stripe (picked
+ * by thread ID) hands out its current block with a CAS on its own slot, so concurrent creates only meet on the
+ * global counter once per block. A stripe that loses the race for a fresh block leaves a gap; IDs are unique and
+ * increase per stripe, but are not dense or globally ordered.
+ */
+class ProductIdAllocator {
+
+    static final String PREFIX = "P";
+    private static final int BLOCK_SIZE = 64;
+    private static final long BLOCK_MASK = BLOCK_SIZE - 1;
+
+    private final AtomicLong nextBlock = new AtomicLong(BLOCK_SIZE);
+    // Last number handed out per stripe; -1 + 1 is block-aligned, so an unused stripe leases on first use
+    private final AtomicLongArray lastIssued;
+    private final int stripeMask;
+    private final String suffix;
+
+    ProductIdAllocator(String suffix) {
+        this.suffix = suffix;
+        int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 4 - 1)) << 1;
+        lastIssued = new AtomicLongArray(stripes);
+        for (int i = 0; i < stripes; i++) {
+            lastIssued.set(i, -1);
+        }
+        stripeMask = stripes - 1;
+    }
+
+    String next() {
+        long thread = Thread.currentThread().threadId();
+        int stripe = (int) (thread ^ (thread >>> 16)) & stripeMask;
+        while (true) {
+            long last = lastIssued.get(stripe);
+            if (((last + 1) & BLOCK_MASK) != 0) {
+                if (lastIssued.compareAndSet(stripe, last, last + 1)) {
+                    return PREFIX + (last + 1) + suffix;
+                }
+            } else {
+                long block = nextBlock.getAndAdd(BLOCK_SIZE);
+                if (lastIssued.compareAndSet(stripe, last, block)) {
+                    return PREFIX + block + suffix;
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves future blocks past an ID that already exists, so restored or client-chosen IDs are not generated
+     * again. IDs outside the {@code P<n>} form, or with another replica's suffix, are ignored.
+     */
+    void observe(String productId) {
+        long number = parse(productId);
+        if (number < 0) {
+            return;
+        }
+        long floor = (number | BLOCK_MASK) + 1;
+        long current;
+        while ((current = nextBlock.get()) < floor) {
+            if (nextBlock.compareAndSet(current, floor)) {
+                return;
+            }
+        }
+    }
+
+    private long parse(String productId) {
+        if (productId == null || !productId.startsWith(PREFIX)) {
+            return -1;
+        }
+        int end = !suffix.isEmpty() && productId.endsWith(suffix) ? productId.length() - suffix.length()
+                : productId.length();
+        if (end == PREFIX.length() || end > PREFIX.length() + 18) {
+            return -1;
+        }
+        long number = 0;
+        for (int i = PREFIX.length(); i < end; i++) {
+            char c = productId.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number;
+    }
+}
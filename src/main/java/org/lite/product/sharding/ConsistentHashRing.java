@@ -0,0 +1,146 @@
+package org.lite.product.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent-hash ring mapping product IDs to shards.
+ * <p>
+ * Every member is placed on a 64-bit ring at {@code virtualNodes} points, and a key belongs to the member owning
+ * the first point at or after the key's hash, wrapping around. Adding or removing a member only moves the keys on
+ * the arcs next to its own points, about 1/N of the key space, and every instance that sees the same member list
+ * builds the same ring. Lookups are a binary search over a sorted primitive array.
+ */
+public final class ConsistentHashRing {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final double RING_SIZE = 0x1p64;
+
+    private final List<String> members;
+    private final long[] points;
+    private final String[] owners;
+
+    private ConsistentHashRing(List<String> members, long[] points, String[] owners) {
+        this.members = members;
+        this.points = points;
+        this.owners = owners;
+    }
+
+    public static ConsistentHashRing of(Collection<String> members, int virtualNodes) {
+        List<String> sorted = List.copyOf(new TreeSet<>(members));
+        record Point(long hash, String owner) {
+        }
+        List<Point> all = new ArrayList<>(sorted.size() * virtualNodes);
+        for (String member : sorted) {
+            for (int i = 0; i < virtualNodes; i++) {
+                all.add(new Point(hash(member + "#" + i), member));
+            }
+        }
+        // Ties between members are broken by name, so every instance keeps the same point
+        all.sort(Comparator.comparingLong(Point::hash).thenComparing(Point::owner));
+        long[] points = new long[all.size()];
+        String[] owners = new String[all.size()];
+        int size = 0;
+        for (Point point : all) {
+            if (size == 0 || points[size - 1] != point.hash()) {
+                points[size] = point.hash();
+                owners[size++] = point.owner();
+            }
+        }
+        return new ConsistentHashRing(sorted, Arrays.copyOf(points, size), Arrays.copyOf(owners, size));
+    }
+
+    /**
+     * Member owning the key, or null if the ring is empty.
+     */
+    public String ownerOf(String key) {
+        return ownerAt(hash(key));
+    }
+
+    /**
+     * Members in sorted order.
+     */
+    public List<String> members() {
+        return members;
+    }
+
+    /**
+     * Fraction of the key space owned by the member.
+     */
+    public double share(String member) {
+        if (points.length == 1) {
+            return owners[0].equals(member) ? 1.0 : 0.0;
+        }
+        double owned = 0;
+        for (int i = 0; i < points.length; i++) {
+            if (owners[i].equals(member)) {
+                owned += arc(points[(i + points.length - 1) % points.length], points[i]);
+            }
+        }
+        return owned / RING_SIZE;
+    }
+
+    /**
+     * Fraction of the key space that has a different owner on the other ring: the share of keys that move when
+     * the catalog is rebalanced from one ring to the other.
+     */
+    public double movedShare(ConsistentHashRing other) {
+        if (points.length == 0 || other.points.length == 0) {
+            return points.length == other.points.length ? 0.0 : 1.0;
+        }
+        long[] bounds = new long[points.length + other.points.length];
+        System.arraycopy(points, 0, bounds, 0, points.length);
+        System.arraycopy(other.points, 0, bounds, points.length, other.points.length);
+        Arrays.sort(bounds);
+        // Between two neighbouring boundaries neither ring has a point, so each ring has one owner for the arc
+        double moved = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            long bound = bounds[i];
+            if (!ownerAt(bound).equals(other.ownerAt(bound))) {
+                moved += bounds.length == 1 ? RING_SIZE : arc(bounds[(i + bounds.length - 1) % bounds.length], bound);
+            }
+        }
+        return moved / RING_SIZE;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, followed by the MurmurHash3 finalizer so that IDs differing only in
+     * their last characters still land far apart.
+     */
+    static long hash(String key) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private String ownerAt(long hash) {
+        if (points.length == 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(points, hash);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    // Length of the arc (from, to], wrapping around the end of the ring
+    private static double arc(long from, long to) {
+        long length = to - from;
+        return length >= 0 ? length : (length >>> 1) * 2.0 + (length & 1);
+    }
+}
@@ -0,0 +1,313 @@
+package org.lite.product.sharding;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.lite.product.security.ServiceTokenProvider;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Sends requests for keys owned by another shard to that shard, over the pooled {@link RestTemplate} from
+ * {@code RestTemplateConfig}.
+ * <p>
+ * Requests sent between shards carry {@value #FORWARDED_HEADER} and the shards' own client token from
+ * {@code catalog.sharding.client-registration-id}, and are always answered from the receiving instance's own
+ * catalog, so a request is never forwarded twice and a scatter-gather never fans out again. The header is only
+ * honoured from a caller authenticated with that client; from anyone else it is ignored, since it would let a
+ * client store products on a shard that does not own them or take one shard's list for the whole catalog. Every
+ * routed response names the owning instance in {@value #OWNER_HEADER}.
+ */
+@Component
+@Slf4j
+public class ShardForwarder {
+
+    public static final String FORWARDED_HEADER = "X-Shard-Forwarded";
+    public static final String OWNER_HEADER = "X-Shard-Owner";
+    // Relevance scores of a shard's search results, in result order, for merging the results of all shards
+    public static final String SCORES_HEADER = "X-Shard-Scores";
+
+    private final ShardingProperties properties;
+    private final ShardRouter shardRouter;
+    private final RestTemplate restTemplate;
+    private final ServiceTokenProvider serviceTokens;
+    // Client ID of the shards' own tokens
+    private final String peerClientId;
+    private final LongAdder forwarded = new LongAdder();
+    private final LongAdder redirected = new LongAdder();
+    private final LongAdder scattered = new LongAdder();
+    private final LongAdder failedCalls = new LongAdder();
+
+    public ShardForwarder(ShardingProperties properties, ShardRouter shardRouter, RestTemplate restTemplate,
+                          ServiceTokenProvider serviceTokens) {
+        this.properties = properties;
+        this.shardRouter = shardRouter;
+        this.restTemplate = restTemplate;
+        this.serviceTokens = serviceTokens;
+        this.peerClientId = serviceTokens.clientId(properties.getClientRegistrationId());
+    }
+
+    /**
+     * The shard to hand the current request for the product ID to, or null to serve it here.
+     */
+    public String remoteOwner(String productId) {
+        if (!shardRouter.isEnabled() || isShardRequest()) {
+            return null;
+        }
+        String owner = shardRouter.ownerOf(productId);
+        return shardRouter.selfUri().equals(owner) ? null : owner;
+    }
+
+    /**
+     * Whether the current list or search request has to be answered from every shard.
+     */
+    public boolean scatters() {
+        return shardRouter.isEnabled() && !isShardRequest() && shardRouter.members().size() > 1;
+    }
+
+    /**
+     * Whether the current request was sent by another shard: it carries {@value #FORWARDED_HEADER} and its caller
+     * is authenticated with the shards' own client.
+     */
+    public boolean isShardRequest() {
+        HttpServletRequest request = currentRequest();
+        return request != null && request.getHeader(FORWARDED_HEADER) != null && isPeer();
+    }
+
+    /**
+     * Sends the current request, with the given body, to the owning shard and relays its answer; or, when routing
+     * is REDIRECT, tells the client to send it there itself.
+     */
+    public <T> ResponseEntity<T> forward(String owner, Object body, Class<T> responseType) {
+        HttpServletRequest request = currentRequest();
+        URI uri = URI.create(owner + request.getRequestURI()
+                + (request.getQueryString() != null ? "?" + request.getQueryString() : ""));
+        if (properties.getRouting() == ShardingProperties.Routing.REDIRECT) {
+            redirected.increment();
+            return ResponseEntity.status(HttpStatus.TEMPORARY_REDIRECT).location(uri).header(OWNER_HEADER, owner)
+                    .build();
+        }
+
+        forwarded.increment();
+        HttpHeaders headers = peerHeaders();
+        if (headers == null) {
+            failedCalls.increment();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(OWNER_HEADER, owner).build();
+        }
+        for (String name : List.of(HttpHeaders.IF_MATCH, HttpHeaders.IF_NONE_MATCH)) {
+            if (request.getHeader(name) != null) {
+                headers.set(name, request.getHeader(name));
+            }
+        }
+        try {
+            ResponseEntity<T> response = restTemplate.exchange(uri, HttpMethod.valueOf(request.getMethod()),
+                    new HttpEntity<>(body, headers), responseType);
+            return relay(response.getStatusCode(), response.getHeaders(), owner).body(response.getBody());
+        } catch (HttpStatusCodeException e) {
+            return relay(e.getStatusCode(), e.getResponseHeaders(), owner).build();
+        } catch (RestClientException e) {
+            failedCalls.increment();
+            log.warn("Forwarding {} {} to shard {} failed: {}", request.getMethod(), uri, owner, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(OWNER_HEADER, owner).build();
+        }
+    }
+
+    /**
+     * {@link #forward} for endpoints that answer with raw JSON bytes.
+     */
+    public ResponseEntity<byte[]> forwardBytes(String owner) {
+        ResponseEntity<String> response = forward(owner, null, String.class);
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .body(response.getBody() != null ? response.getBody().getBytes(StandardCharsets.UTF_8) : null);
+    }
+
+    /**
+     * Sends the current GET request to every other shard, in parallel. Returns their answers, or null if any shard
+     * failed, since a partial list would look complete. An answer without a body, or whose body has no
+     * {@code products}, counts as a failure, so callers can read the products of every answer.
+     */
+    public <T> List<ResponseEntity<T>> scatter(Class<T> responseType, Function<T, ?> products) {
+        HttpServletRequest request = currentRequest();
+        Map<String, URI> uris = new LinkedHashMap<>();
+        for (String member : shardRouter.members()) {
+            if (!member.equals(shardRouter.selfUri())) {
+                uris.put(member, URI.create(member + request.getRequestURI()
+                        + (request.getQueryString() != null ? "?" + request.getQueryString() : "")));
+            }
+        }
+        Map<String, ResponseEntity<T>> responses = scatter(uris, responseType, products);
+        return responses != null ? List.copyOf(responses.values()) : null;
+    }
+
+    /**
+     * Sends a GET for the given path and query parameters of the current endpoint, which may differ per shard, to
+     * each of the given shards in parallel. Returns the answers by shard, or null if any shard failed, as for
+     * {@link #scatter(Class, Function)}.
+     */
+    public <T> Map<String, ResponseEntity<T>> scatter(Map<String, Map<String, String>> queryByShard,
+                                                      String path, Class<T> responseType, Function<T, ?> products) {
+        HttpServletRequest request = currentRequest();
+        Map<String, URI> uris = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, String>> entry : queryByShard.entrySet()) {
+            UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(entry.getKey())
+                    .path(request.getContextPath())
+                    .path(path);
+            entry.getValue().forEach(builder::queryParam);
+            uris.put(entry.getKey(), builder.encode().build().toUri());
+        }
+        return scatter(uris, responseType, products);
+    }
+
+    /**
+     * POSTs a body to the given path of the current endpoint on another shard. Returns the answer, or null if the
+     * call failed.
+     */
+    public <T> T post(String shard, String path, Object body, Class<T> responseType) {
+        URI uri = URI.create(shard + currentRequest().getContextPath() + path);
+        forwarded.increment();
+        HttpHeaders headers = peerHeaders();
+        if (headers == null) {
+            failedCalls.increment();
+            return null;
+        }
+        try {
+            return restTemplate.postForObject(uri, new HttpEntity<>(body, headers), responseType);
+        } catch (RestClientException e) {
+            failedCalls.increment();
+            log.warn("POST {} to shard {} failed: {}", uri, shard, e.getMessage());
+            return null;
+        }
+    }
+
+    public Map<String, Double> metrics() {
+        Map<String, Double> metrics = new LinkedHashMap<>();
+        if (!shardRouter.isEnabled()) {
+            return metrics;
+        }
+        metrics.putAll(shardRouter.metrics());
+        metrics.put("sharding.forwardedRequests", (double) forwarded.sum());
+        metrics.put("sharding.redirectedRequests", (double) redirected.sum());
+        metrics.put("sharding.scatterRequests", (double) scattered.sum());
+        metrics.put("sharding.failedShardCalls", (double) failedCalls.sum());
+        return metrics;
+    }
+
+    private <T> Map<String, ResponseEntity<T>> scatter(Map<String, URI> uris, Class<T> responseType,
+                                                       Function<T, ?> products) {
+        scattered.increment();
+        HttpHeaders headers = peerHeaders();
+        if (headers == null) {
+            failedCalls.increment();
+            return null;
+        }
+        HttpEntity<Void> entity = new HttpEntity<>(headers);
+        Map<String, Future<ResponseEntity<T>>> futures = new LinkedHashMap<>();
+        // One virtual thread per shard
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            uris.forEach((shard, uri) -> futures.put(shard,
+                    executor.submit(() -> restTemplate.exchange(uri, HttpMethod.GET, entity, responseType))));
+        }
+
+        Map<String, ResponseEntity<T>> responses = new LinkedHashMap<>();
+        boolean failed = false;
+        for (Map.Entry<String, Future<ResponseEntity<T>>> entry : futures.entrySet()) {
+            try {
+                ResponseEntity<T> response = entry.getValue().get();
+                if (response.getBody() == null || products.apply(response.getBody()) == null) {
+                    failedCalls.increment();
+                    failed = true;
+                    log.warn("Scatter request to shard {} was answered {} without products", entry.getKey(),
+                            response.getStatusCode());
+                    continue;
+                }
+                responses.put(entry.getKey(), response);
+            } catch (ExecutionException e) {
+                failedCalls.increment();
+                failed = true;
+                log.warn("Scatter request to shard {} failed: {}", entry.getKey(), e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        return failed ? null : responses;
+    }
+
+    // The authorized party of a client-credentials token is the client; some servers name it client_id instead
+    private boolean isPeer() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (peerClientId == null || authentication == null || !(authentication.getPrincipal() instanceof Jwt jwt)) {
+            return false;
+        }
+        return peerClientId.equals(jwt.getClaimAsString("azp"))
+                || peerClientId.equals(jwt.getClaimAsString("client_id"));
+    }
+
+    /**
+     * Headers that mark a call as coming from this shard, with the shards' own token; null if no token could be had,
+     * since the other shard would not honour the call as a shard request without one.
+     */
+    private HttpHeaders peerHeaders() {
+        String token;
+        try {
+            token = serviceTokens.accessToken(properties.getClientRegistrationId());
+        } catch (RuntimeException e) {
+            log.warn("Could not get a token for calls to other shards: {}", e.getMessage());
+            return null;
+        }
+        if (token == null) {
+            return null;
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(FORWARDED_HEADER, shardRouter.selfUri());
+        headers.setBearerAuth(token);
+        return headers;
+    }
+
+    private static ResponseEntity.BodyBuilder relay(HttpStatusCode status, HttpHeaders headers, String owner) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(status).header(OWNER_HEADER, owner);
+        if (headers != null) {
+            if (headers.getETag() != null) {
+                builder.eTag(headers.getETag());
+            }
+            if (headers.getContentType() != null) {
+                builder.contentType(headers.getContentType());
+            }
+            if (headers.getLocation() != null) {
+                builder.location(headers.getLocation());
+            }
+        }
+        return builder;
+    }
+
+    private static HttpServletRequest currentRequest() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                ? attributes.getRequest() : null;
+    }
+}
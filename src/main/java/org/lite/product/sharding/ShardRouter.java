@@ -0,0 +1,280 @@
+package org.lite.product.sharding;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.lite.product.model.BatchItemResult;
+import org.lite.product.model.BatchOperation;
+import org.lite.product.model.BatchWriteRequest;
+import org.lite.product.model.BatchWriteResponse;
+import org.lite.product.model.ProductInfo;
+import org.lite.product.replication.ReplicationProperties;
+import org.lite.product.repository.ProductRepository;
+import org.lite.product.security.ServiceTokenProvider;
+import org.lite.product.service.CatalogWriter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides which instance owns each product ID when the catalog is sharded.
+ * <p>
+ * The owners come from a {@link ConsistentHashRing} over the instances registered with discovery, rebuilt every
+ * {@code refresh-interval} when an instance joins or leaves. After a change, the products this instance no longer
+ * owns are handed to their new owner, which keeps its own copy if it already has one, and are then deleted here
+ * unless they were written to in the meantime. Until discovery has caught up on every instance, two instances may
+ * briefly disagree on an owner; requests forwarded between shards are always served where they arrive, so a
+ * disagreement costs one extra hop at most, never a loop.
+ */
+@Component
+@Slf4j
+public class ShardRouter {
+
+    private final ShardingProperties properties;
+    private final DiscoveryClient discoveryClient;
+    private final ProductRepository productRepository;
+    private final CatalogWriter catalogWriter;
+    private final RestTemplate restTemplate;
+    private final ServiceTokenProvider serviceTokens;
+    private final String contextPath;
+    private final String selfUri;
+    private final LongAdder rebalances = new LongAdder();
+    private final LongAdder handedOff = new LongAdder();
+    private volatile ConsistentHashRing ring;
+    private volatile Thread refresher;
+    // Only touched by the refresher thread
+    private boolean handoffPending;
+
+    public ShardRouter(ShardingProperties properties, ReplicationProperties replicationProperties,
+                       DiscoveryClient discoveryClient, ObjectProvider<Registration> registration,
+                       ProductRepository productRepository, CatalogWriter catalogWriter,
+                       RestTemplate restTemplate, ServiceTokenProvider serviceTokens,
+                       @Value("${server.servlet.context-path:}") String contextPath) {
+        this.properties = properties;
+        this.discoveryClient = discoveryClient;
+        this.productRepository = productRepository;
+        this.catalogWriter = catalogWriter;
+        this.restTemplate = restTemplate;
+        this.serviceTokens = serviceTokens;
+        this.contextPath = contextPath;
+        if (!properties.isEnabled()) {
+            this.selfUri = null;
+            return;
+        }
+        // A replicated catalog keeps every product everywhere; a sharded one keeps each in one place
+        if (replicationProperties.isEnabled()) {
+            throw new IllegalStateException("catalog.sharding and catalog.replication cannot both be enabled");
+        }
+        String self = properties.getSelfUri();
+        if (!StringUtils.hasText(self) && registration.getIfAvailable() != null) {
+            self = registration.getIfAvailable().getUri().toString();
+        }
+        if (!StringUtils.hasText(self)) {
+            throw new IllegalStateException(
+                    "catalog.sharding.self-uri must be set when the instance does not register with discovery");
+        }
+        // Shards only trust X-Shard-Forwarded from a caller holding this client's token
+        serviceTokens.require("catalog.sharding.client-registration-id", properties.getClientRegistrationId());
+        this.selfUri = normalize(self);
+        this.ring = ConsistentHashRing.of(List.of(selfUri), properties.getVirtualNodes());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        refresher = Thread.ofVirtual().name("shard-ring-refresher").start(this::run);
+    }
+
+    @PreDestroy
+    public void close() {
+        Thread thread = refresher;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * URI the other shards know this instance by, or null when sharding is disabled.
+     */
+    public String selfUri() {
+        return selfUri;
+    }
+
+    /**
+     * Whether this instance owns the product ID; always true when sharding is disabled.
+     */
+    public boolean isLocal(String productId) {
+        return !properties.isEnabled() || selfUri.equals(ring.ownerOf(productId));
+    }
+
+    /**
+     * URI of the instance owning the product ID.
+     */
+    public String ownerOf(String productId) {
+        return properties.isEnabled() ? ring.ownerOf(productId) : selfUri;
+    }
+
+    /**
+     * Every shard, this instance included, in sorted order.
+     */
+    public List<String> members() {
+        return properties.isEnabled() ? ring.members() : List.of();
+    }
+
+    public Map<String, Double> metrics() {
+        Map<String, Double> metrics = new LinkedHashMap<>();
+        if (!properties.isEnabled()) {
+            return metrics;
+        }
+        ConsistentHashRing current = ring;
+        metrics.put("sharding.members", (double) current.members().size());
+        metrics.put("sharding.ownedShare", current.share(selfUri));
+        metrics.put("sharding.rebalances", (double) rebalances.sum());
+        metrics.put("sharding.handedOffProducts", (double) handedOff.sum());
+        return metrics;
+    }
+
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                refresh();
+                Thread.sleep(properties.getRefreshInterval());
+            }
+        } catch (InterruptedException e) {
+            // The service is shutting down
+        }
+    }
+
+    private void refresh() {
+        try {
+            Set<String> members = new TreeSet<>();
+            members.add(selfUri);
+            for (ServiceInstance instance : discoveryClient.getInstances(properties.getServiceId())) {
+                members.add(normalize(instance.getUri().toString()));
+            }
+            ConsistentHashRing current = ring;
+            if (!current.members().equals(List.copyOf(members))) {
+                ConsistentHashRing next = ConsistentHashRing.of(members, properties.getVirtualNodes());
+                log.info("Shard ring changed from {} to {} members, {}% of the key space moved, {}% owned here",
+                        current.members().size(), members.size(), percent(current.movedShare(next)),
+                        percent(next.share(selfUri)));
+                ring = next;
+                rebalances.increment();
+                handoffPending = true;
+            }
+            if (handoffPending) {
+                handoffPending = !handOff();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Shard ring refresh failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Sends every product this instance holds but no longer owns to its owner. Returns whether all of them were
+     * handed over; the rest are tried again on the next refresh.
+     */
+    private boolean handOff() {
+        Map<String, List<String>> misplaced = new LinkedHashMap<>();
+        for (ProductInfo product : productRepository.snapshot().all()) {
+            String owner = ownerOf(product.getId());
+            if (!selfUri.equals(owner)) {
+                misplaced.computeIfAbsent(owner, o -> new ArrayList<>()).add(product.getId());
+            }
+        }
+        boolean complete = true;
+        for (Map.Entry<String, List<String>> entry : misplaced.entrySet()) {
+            List<String> ids = entry.getValue();
+            for (int from = 0; from < ids.size(); from += properties.getHandoffBatchSize()) {
+                complete &= handOff(entry.getKey(), ids.subList(from,
+                        Math.min(ids.size(), from + properties.getHandoffBatchSize())));
+            }
+        }
+        return complete;
+    }
+
+    private boolean handOff(String owner, List<String> productIds) {
+        List<BatchOperation> operations = new ArrayList<>(productIds.size());
+        Map<String, String> etags = new LinkedHashMap<>();
+        for (String productId : productIds) {
+            // Read the ETag before the product, see CatalogVersions
+            String etag = catalogWriter.etagOf(productId);
+            ProductInfo product = productRepository.get(productId);
+            if (product != null && etag != null) {
+                etags.put(productId, etag);
+                operations.add(new BatchOperation(BatchOperation.Type.CREATE, productId, product));
+            }
+        }
+        if (operations.isEmpty()) {
+            return true;
+        }
+
+        BatchWriteResponse response;
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(ShardForwarder.FORWARDED_HEADER, selfUri);
+            String token = serviceTokens.accessToken(properties.getClientRegistrationId());
+            if (token != null) {
+                headers.setBearerAuth(token);
+            }
+            response = restTemplate.postForObject(owner + contextPath + "/api/product/products/batch",
+                    new HttpEntity<>(new BatchWriteRequest(operations), headers), BatchWriteResponse.class);
+        } catch (RestClientException e) {
+            log.warn("Handing {} products over to {} failed: {}", operations.size(), owner, e.getMessage());
+            return false;
+        }
+        if (response == null || response.getResults() == null) {
+            return false;
+        }
+
+        List<CatalogWriter.Write> removals = new ArrayList<>(response.getResults().size());
+        for (BatchItemResult result : response.getResults()) {
+            String etag = etags.get(result.getProductId());
+            // 201 stored it, 400 means the owner already has a copy, which wins
+            if (etag != null && (result.getStatus() == 201 || result.getStatus() == 400)) {
+                // Kept if it was written to here after it was sent; it is handed over again next time
+                removals.add(CatalogWriter.Write.remove(result.getProductId(), etag));
+            }
+        }
+        int moved = 0;
+        for (CatalogWriter.WriteResult removed : catalogWriter.writeAll(removals, id -> true)) {
+            if (removed.status() == 204) {
+                moved++;
+            }
+        }
+        handedOff.add(moved);
+        log.info("Handed {} of {} products over to {}", moved, operations.size(), owner);
+        return moved == operations.size();
+    }
+
+    private static String normalize(String uri) {
+        return uri.endsWith("/") ? uri.substring(0, uri.length() - 1) : uri;
+    }
+
+    private static String percent(double share) {
+        return String.format("%.1f", share * 100);
+    }
+}
@@ -0,0 +1,30 @@
+package org.lite.product.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "catalog.sharding")
+public class ShardingProperties {
+
+    public enum Routing { FORWARD, REDIRECT }
+
+    // When disabled every instance serves every key from its own catalog, as before
+    private boolean enabled = false;
+    // Discovery service ID the shards are registered under
+    private String serviceId = "product-service";
+    // URI the other shards know this instance by; defaults to the URI it registers with discovery
+    private String selfUri;
+    // Points per shard on the hash ring; more points spread the key space more evenly
+    private int virtualNodes = 128;
+    // How often the instance list is checked for shards joining or leaving
+    private Duration refreshInterval = Duration.ofSeconds(5);
+    // FORWARD proxies a request for another shard's key to it; REDIRECT answers 307 with the owner's URL instead
+    private Routing routing = Routing.FORWARD;
+    // Products per request when handing products over to their new owner after the ring changed
+    private int handoffBatchSize = 500;
+    // OAuth2 client registration used to get a client-credentials token for handing products over
+    private String clientRegistrationId;
+}
@@ -0,0 +1,15 @@
+package org.lite.product.threading;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "catalog.threading")
+public class ThreadingProperties {
+    // Watches virtual threads through JFR for pinning: blocking while stuck to their carrier, as inside synchronized
+    private boolean pinningMonitor = true;
+    // Pinned periods shorter than this are not reported
+    private Duration pinningThreshold = Duration.ofMillis(20);
+}
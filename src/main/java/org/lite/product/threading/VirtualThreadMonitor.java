@@ -0,0 +1,107 @@
+package org.lite.product.threading;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Reports which threads serve requests, and watches virtual threads for pinning.
+ * <p>
+ * A virtual thread that blocks inside {@code synchronized} (or native code) cannot leave its carrier thread, so a
+ * few of them can stall every other virtual thread. This class subscribes to the JDK's
+ * {@code jdk.VirtualThreadPinned} JFR event, counts pinned periods longer than {@code pinning-threshold}, and logs
+ * the stack of each new place where it happens once, so a library or change that pins shows up in the log and in
+ * {@code /health} rather than as unexplained latency.
+ */
+@Component
+@Slf4j
+public class VirtualThreadMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    // Places logged with their stack; later ones are only counted
+    private static final int MAX_LOGGED_SITES = 64;
+    private static final int LOGGED_FRAMES = 12;
+
+    private final boolean virtualRequestThreads;
+    private final RecordingStream pinningEvents;
+    private final LongAdder pinned = new LongAdder();
+    private final AtomicLong longestPinnedNanos = new AtomicLong();
+    private final Set<String> sites = ConcurrentHashMap.newKeySet();
+
+    public VirtualThreadMonitor(ThreadingProperties properties,
+                                @Value("${spring.threads.virtual.enabled:false}") boolean virtualRequestThreads) {
+        this.virtualRequestThreads = virtualRequestThreads;
+        log.info("Serving requests on {} threads", virtualRequestThreads ? "virtual" : "platform");
+        if (!properties.isPinningMonitor()) {
+            this.pinningEvents = null;
+            return;
+        }
+        this.pinningEvents = new RecordingStream();
+        pinningEvents.enable(PINNED_EVENT).withThreshold(properties.getPinningThreshold()).withStackTrace();
+        pinningEvents.onEvent(PINNED_EVENT, this::onPinned);
+        pinningEvents.startAsync();
+    }
+
+    public Map<String, Double> metrics() {
+        Map<String, Double> metrics = new LinkedHashMap<>();
+        metrics.put("threads.virtualRequestThreads", virtualRequestThreads ? 1.0 : 0.0);
+        metrics.put("threads.platform", (double) ManagementFactory.getThreadMXBean().getThreadCount());
+        metrics.put("threads.pinned", (double) pinned.sum());
+        metrics.put("threads.pinnedSites", (double) sites.size());
+        metrics.put("threads.longestPinnedMs", longestPinnedNanos.get() / 1_000_000.0);
+        return metrics;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (pinningEvents != null) {
+            pinningEvents.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.increment();
+        long nanos = event.getDuration().toNanos();
+        longestPinnedNanos.accumulateAndGet(nanos, Math::max);
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<RecordedFrame> frames = stackTrace != null ? stackTrace.getFrames() : List.of();
+        String site = site(frames);
+        if (sites.size() < MAX_LOGGED_SITES && sites.add(site)) {
+            log.warn("Virtual thread pinned for {} ms at {}:\n\t{}", nanos / 1_000_000, site,
+                    frames.stream().limit(LOGGED_FRAMES).map(VirtualThreadMonitor::describe)
+                            .collect(Collectors.joining("\n\t")));
+        }
+    }
+
+    /**
+     * The first frame outside the JDK, which is where the code that pinned the thread can be changed.
+     */
+    private static String site(List<RecordedFrame> frames) {
+        for (RecordedFrame frame : frames) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return describe(frame);
+            }
+        }
+        return frames.isEmpty() ? "unknown" : describe(frames.get(0));
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
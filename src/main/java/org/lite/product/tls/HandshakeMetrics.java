@@ -0,0 +1,71 @@
+package org.lite.product.tls;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts and times the TLS handshakes of the server's connections, telling full handshakes (key exchange, and
+ * certificate verification with mTLS) from resumed ones. Tomcat creates {@link MeteredJsseImplementation} itself,
+ * by class name, so there is one shared instance rather than one per bean.
+ */
+public final class HandshakeMetrics {
+
+    private static final HandshakeMetrics SHARED = new HandshakeMetrics();
+
+    private final LongAdder full = new LongAdder();
+    private final LongAdder resumed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder closed = new LongAdder();
+    private final LongAdder fullNanos = new LongAdder();
+    private final LongAdder resumedNanos = new LongAdder();
+    private final AtomicLong longestFullNanos = new AtomicLong();
+    private final AtomicLong longestResumedNanos = new AtomicLong();
+
+    HandshakeMetrics() {
+    }
+
+    public static HandshakeMetrics shared() {
+        return SHARED;
+    }
+
+    void finished(boolean wasResumed, long nanos) {
+        if (wasResumed) {
+            resumed.increment();
+            resumedNanos.add(nanos);
+            longestResumedNanos.accumulateAndGet(nanos, Math::max);
+        } else {
+            full.increment();
+            fullNanos.add(nanos);
+            longestFullNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    void failed() {
+        failed.increment();
+    }
+
+    void closed() {
+        closed.increment();
+    }
+
+    public Map<String, Double> metrics() {
+        Map<String, Double> metrics = new LinkedHashMap<>();
+        long fullCount = full.sum();
+        long resumedCount = resumed.sum();
+        long handshakes = fullCount + resumedCount;
+        metrics.put("tls.handshakes", (double) handshakes);
+        metrics.put("tls.fullHandshakes", (double) fullCount);
+        metrics.put("tls.resumedHandshakes", (double) resumedCount);
+        metrics.put("tls.failedHandshakes", (double) failed.sum());
+        metrics.put("tls.resumedRatio", handshakes > 0 ? (double) resumedCount / handshakes : 0.0);
+        metrics.put("tls.openConnections", (double) Math.max(0, handshakes - closed.sum()));
+        metrics.put("tls.fullHandshakeMeanMs", fullCount > 0 ? fullNanos.sum() / 1_000_000.0 / fullCount : 0.0);
+        metrics.put("tls.fullHandshakeMaxMs", longestFullNanos.get() / 1_000_000.0);
+        metrics.put("tls.resumedHandshakeMeanMs",
+                resumedCount > 0 ? resumedNanos.sum() / 1_000_000.0 / resumedCount : 0.0);
+        metrics.put("tls.resumedHandshakeMaxMs", longestResumedNanos.get() / 1_000_000.0);
+        return metrics;
+    }
+}
@@ -0,0 +1,30 @@
+package org.lite.product.tls;
+
+import org.apache.tomcat.util.net.SSLContext;
+import org.apache.tomcat.util.net.SSLHostConfigCertificate;
+import org.apache.tomcat.util.net.SSLUtil;
+import org.apache.tomcat.util.net.jsse.JSSEImplementation;
+import org.apache.tomcat.util.net.jsse.JSSEUtil;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Tomcat's JSSE implementation, with every connection's {@code SSLEngine} wrapped in a {@link MeteredSslEngine}.
+ * Set as the connector's {@code sslImplementationName}; everything else, including session caching and ALPN for
+ * HTTP/2, is JSSE's own.
+ */
+public class MeteredJsseImplementation extends JSSEImplementation {
+
+    @Override
+    public SSLUtil getSSLUtil(SSLHostConfigCertificate certificate) {
+        return new JSSEUtil(certificate) {
+            @Override
+            public SSLContext createSSLContextInternal(List<String> negotiableProtocols)
+                    throws NoSuchAlgorithmException {
+                return new MeteredSslContext(super.createSSLContextInternal(negotiableProtocols),
+                        HandshakeMetrics.shared());
+            }
+        };
+    }
+}
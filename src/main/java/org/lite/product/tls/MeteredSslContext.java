@@ -0,0 +1,67 @@
+package org.lite.product.tls;
+
+import org.apache.tomcat.util.net.SSLContext;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocketFactory;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.TrustManager;
+import java.security.KeyManagementException;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+
+/**
+ * A Tomcat {@link SSLContext} whose engines report their handshakes to {@link HandshakeMetrics}.
+ */
+final class MeteredSslContext implements SSLContext {
+
+    private final SSLContext delegate;
+    private final HandshakeMetrics metrics;
+
+    MeteredSslContext(SSLContext delegate, HandshakeMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public SSLEngine createSSLEngine() {
+        return new MeteredSslEngine(delegate.createSSLEngine(), metrics);
+    }
+
+    @Override
+    public void init(KeyManager[] kms, TrustManager[] tms, SecureRandom sr) throws KeyManagementException {
+        delegate.init(kms, tms, sr);
+    }
+
+    @Override
+    public void destroy() {
+        delegate.destroy();
+    }
+
+    @Override
+    public SSLSessionContext getServerSessionContext() {
+        return delegate.getServerSessionContext();
+    }
+
+    @Override
+    public SSLServerSocketFactory getServerSocketFactory() {
+        return delegate.getServerSocketFactory();
+    }
+
+    @Override
+    public SSLParameters getSupportedSSLParameters() {
+        return delegate.getSupportedSSLParameters();
+    }
+
+    @Override
+    public X509Certificate[] getCertificateChain(String alias) {
+        return delegate.getCertificateChain(alias);
+    }
+
+    @Override
+    public X509Certificate[] getAcceptedIssuers() {
+        return delegate.getAcceptedIssuers();
+    }
+}
@@ -0,0 +1,269 @@
+package org.lite.product.tls;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * An {@link SSLEngine} that reports its first handshake to {@link HandshakeMetrics} and otherwise does exactly what
+ * the engine it wraps does.
+ * <p>
+ * The handshake is timed from the engine's creation, which Tomcat does once the client's hello has arrived, until
+ * a {@code wrap} or {@code unwrap} reports it {@code FINISHED}. It was resumed if the negotiated session is older
+ * than the engine: JSSE gives a resumed session, from its session cache or a session ticket, the creation time of
+ * the handshake that first established it. An engine that fails or is closed before finishing counts as failed.
+ * Tomcat drives an engine from one thread at a time.
+ */
+final class MeteredSslEngine extends SSLEngine {
+
+    private final SSLEngine delegate;
+    private final HandshakeMetrics metrics;
+    private final long createdMillis = System.currentTimeMillis();
+    private final long createdNanos = System.nanoTime();
+    private volatile boolean handshakeDone;
+    private volatile boolean closed;
+
+    MeteredSslEngine(SSLEngine delegate, HandshakeMetrics metrics) {
+        super(delegate.getPeerHost(), delegate.getPeerPort());
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public SSLEngineResult wrap(ByteBuffer src, ByteBuffer dst) throws SSLException {
+        try {
+            return observe(delegate.wrap(src, dst));
+        } catch (SSLException e) {
+            handshakeFailed();
+            throw e;
+        }
+    }
+
+    @Override
+    public SSLEngineResult wrap(ByteBuffer[] srcs, ByteBuffer dst) throws SSLException {
+        try {
+            return observe(delegate.wrap(srcs, dst));
+        } catch (SSLException e) {
+            handshakeFailed();
+            throw e;
+        }
+    }
+
+    @Override
+    public SSLEngineResult wrap(ByteBuffer[] srcs, int offset, int length, ByteBuffer dst) throws SSLException {
+        try {
+            return observe(delegate.wrap(srcs, offset, length, dst));
+        } catch (SSLException e) {
+            handshakeFailed();
+            throw e;
+        }
+    }
+
+    @Override
+    public SSLEngineResult unwrap(ByteBuffer src, ByteBuffer dst) throws SSLException {
+        try {
+            return observe(delegate.unwrap(src, dst));
+        } catch (SSLException e) {
+            handshakeFailed();
+            throw e;
+        }
+    }
+
+    @Override
+    public SSLEngineResult unwrap(ByteBuffer src, ByteBuffer[] dsts) throws SSLException {
+        try {
+            return observe(delegate.unwrap(src, dsts));
+        } catch (SSLException e) {
+            handshakeFailed();
+            throw e;
+        }
+    }
+
+    @Override
+    public SSLEngineResult unwrap(ByteBuffer src, ByteBuffer[] dsts, int offset, int length) throws SSLException {
+        try {
+            return observe(delegate.unwrap(src, dsts, offset, length));
+        } catch (SSLException e) {
+            handshakeFailed();
+            throw e;
+        }
+    }
+
+    @Override
+    public void closeInbound() throws SSLException {
+        handshakeFailed();
+        connectionClosed();
+        delegate.closeInbound();
+    }
+
+    @Override
+    public void closeOutbound() {
+        handshakeFailed();
+        connectionClosed();
+        delegate.closeOutbound();
+    }
+
+    private SSLEngineResult observe(SSLEngineResult result) {
+        if (!handshakeDone && result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.FINISHED) {
+            handshakeDone = true;
+            metrics.finished(delegate.getSession().getCreationTime() < createdMillis,
+                    System.nanoTime() - createdNanos);
+        }
+        return result;
+    }
+
+    private void handshakeFailed() {
+        if (!handshakeDone) {
+            handshakeDone = true;
+            closed = true;
+            metrics.failed();
+        }
+    }
+
+    private void connectionClosed() {
+        if (!closed) {
+            closed = true;
+            metrics.closed();
+        }
+    }
+
+    @Override
+    public Runnable getDelegatedTask() {
+        return delegate.getDelegatedTask();
+    }
+
+    @Override
+    public boolean isInboundDone() {
+        return delegate.isInboundDone();
+    }
+
+    @Override
+    public boolean isOutboundDone() {
+        return delegate.isOutboundDone();
+    }
+
+    @Override
+    public String[] getSupportedCipherSuites() {
+        return delegate.getSupportedCipherSuites();
+    }
+
+    @Override
+    public String[] getEnabledCipherSuites() {
+        return delegate.getEnabledCipherSuites();
+    }
+
+    @Override
+    public void setEnabledCipherSuites(String[] suites) {
+        delegate.setEnabledCipherSuites(suites);
+    }
+
+    @Override
+    public String[] getSupportedProtocols() {
+        return delegate.getSupportedProtocols();
+    }
+
+    @Override
+    public String[] getEnabledProtocols() {
+        return delegate.getEnabledProtocols();
+    }
+
+    @Override
+    public void setEnabledProtocols(String[] protocols) {
+        delegate.setEnabledProtocols(protocols);
+    }
+
+    @Override
+    public SSLSession getSession() {
+        return delegate.getSession();
+    }
+
+    @Override
+    public SSLSession getHandshakeSession() {
+        return delegate.getHandshakeSession();
+    }
+
+    @Override
+    public void beginHandshake() throws SSLException {
+        delegate.beginHandshake();
+    }
+
+    @Override
+    public SSLEngineResult.HandshakeStatus getHandshakeStatus() {
+        return delegate.getHandshakeStatus();
+    }
+
+    @Override
+    public void setUseClientMode(boolean mode) {
+        delegate.setUseClientMode(mode);
+    }
+
+    @Override
+    public boolean getUseClientMode() {
+        return delegate.getUseClientMode();
+    }
+
+    @Override
+    public void setNeedClientAuth(boolean need) {
+        delegate.setNeedClientAuth(need);
+    }
+
+    @Override
+    public boolean getNeedClientAuth() {
+        return delegate.getNeedClientAuth();
+    }
+
+    @Override
+    public void setWantClientAuth(boolean want) {
+        delegate.setWantClientAuth(want);
+    }
+
+    @Override
+    public boolean getWantClientAuth() {
+        return delegate.getWantClientAuth();
+    }
+
+    @Override
+    public void setEnableSessionCreation(boolean flag) {
+        delegate.setEnableSessionCreation(flag);
+    }
+
+    @Override
+    public boolean getEnableSessionCreation() {
+        return delegate.getEnableSessionCreation();
+    }
+
+    @Override
+    public SSLParameters getSSLParameters() {
+        return delegate.getSSLParameters();
+    }
+
+    @Override
+    public void setSSLParameters(SSLParameters params) {
+        delegate.setSSLParameters(params);
+    }
+
+    @Override
+    public String getApplicationProtocol() {
+        return delegate.getApplicationProtocol();
+    }
+
+    @Override
+    public String getHandshakeApplicationProtocol() {
+        return delegate.getHandshakeApplicationProtocol();
+    }
+
+    @Override
+    public void setHandshakeApplicationProtocolSelector(BiFunction<SSLEngine, List<String>, String> selector) {
+        delegate.setHandshakeApplicationProtocolSelector(selector);
+    }
+
+    @Override
+    public BiFunction<SSLEngine, List<String>, String> getHandshakeApplicationProtocolSelector() {
+        return delegate.getHandshakeApplicationProtocolSelector();
+    }
+}
@@ -0,0 +1,19 @@
+package org.lite.product.tls;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "catalog.tls")
+public class TlsProperties {
+    // TLS sessions the server keeps so returning clients can resume them with an abbreviated handshake
+    private int sessionCacheSize = 20480;
+    // How long a TLS session can be resumed after it was established
+    private Duration sessionTimeout = Duration.ofHours(24);
+    // Counts full, resumed and failed handshakes and times them
+    private boolean handshakeMetrics = true;
+    // Client certificates whose extracted principal is remembered
+    private int maxCachedPrincipals = 1000;
+}
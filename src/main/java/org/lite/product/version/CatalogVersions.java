@@ -0,0 +1,126 @@
+package org.lite.product.version;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Version numbers for the catalog and for each product, used as strong ETags.
+ * <p>
+ * Every write takes the next number from one catalog-wide sequence, so a product's version only grows and the
+ * catalog version is the version of the most recent write. The sequence starts from a random point, so a
+ * version only means something to the instance and run that issued it: one from before a restart or from another
+ * replica matches here only by chance, and change feed cursors taken from it are answered with a resync.
+ * <p>
+ * Writers hold {@link #lockFor(String)} while they change the repository and record the write, so readers that
+ * take it see the product and its version together; If-Match checks are kept exact by the writer, which lets one
+ * write per product run at a time. Other readers take no lock: they read the version before the product, so a
+ * concurrent write can only make the ETag older than the body, which costs a 200 where a 304 was possible but
+ * never serves stale data as current.
+ */
+@Component
+public class CatalogVersions {
+
+    private static final int LOCK_STRIPES = 256;
+    // Below 2^53 with room for 2^52 writes, so versions stay exact as JSON numbers in JavaScript clients
+    private static final long MIN_START = 1L << 50;
+    private static final long MAX_START = 1L << 52;
+
+    private final AtomicLong catalogVersion = new AtomicLong(ThreadLocalRandom.current().nextLong(MIN_START, MAX_START));
+    private final ConcurrentHashMap<String, Long> productVersions = new ConcurrentHashMap<>();
+    // ReentrantLock rather than synchronized so waiting virtual threads are not pinned
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    public CatalogVersions() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Version of the most recent write to any product.
+     */
+    public long catalogVersion() {
+        return catalogVersion.get();
+    }
+
+    /**
+     * Current version of a product, or 0 if it does not exist.
+     */
+    public long versionOf(String productId) {
+        Long version = productVersions.get(productId);
+        return version == null ? 0 : version;
+    }
+
+    /**
+     * Lock serializing writes to one product; different products rarely share a lock.
+     */
+    public ReentrantLock lockFor(String productId) {
+        int h = productId.hashCode();
+        h ^= (h >>> 16);
+        return locks[h & (LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * Assigns a new version to a created or updated product and returns it. Call after the repository write.
+     */
+    public long recordWrite(String productId) {
+        long version = catalogVersion.incrementAndGet();
+        productVersions.put(productId, version);
+        return version;
+    }
+
+    /**
+     * Forgets a deleted product and returns the catalog version the delete was assigned.
+     */
+    public long recordDelete(String productId) {
+        long version = catalogVersion.incrementAndGet();
+        productVersions.remove(productId);
+        return version;
+    }
+
+    /**
+     * Quoted strong entity tag for a version.
+     */
+    public static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Evaluates an If-Match or If-None-Match header value against the current version; 0 means the product does
+     * not exist, which only matches nothing. Weak comparison (for If-None-Match) ignores a {@code W/} prefix,
+     * strong comparison (for If-Match) never matches a weak tag.
+     */
+    public static boolean matches(String header, long version, boolean weak) {
+        return matches(header, version == 0 ? null : etag(version), weak);
+    }
+
+    /**
+     * Like {@link #matches(String, long, boolean)} for an entity tag that is not a version, null meaning the
+     * product does not exist.
+     */
+    public static boolean matches(String header, String current, boolean weak) {
+        if (current == null) {
+            return false;
+        }
+        for (String tag : header.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                if (!weak) {
+                    continue;
+                }
+                tag = tag.substring(2);
+            }
+            if (tag.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
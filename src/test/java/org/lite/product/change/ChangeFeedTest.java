@@ -0,0 +1,48 @@
+package org.lite.product.change;
+
+import org.junit.jupiter.api.Test;
+import org.lite.product.model.ProductInfo;
+import org.lite.product.version.CatalogVersions;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cursor handling of the change feed: a cursor this instance issued reads on, any other one is told to resync.
+ */
+class ChangeFeedTest {
+
+    @Test
+    void ownCursorsReadOn() {
+        ChangeFeed feed = new ChangeFeed(new CatalogVersions(), new ChangeFeedProperties());
+        long start = feed.lastSeq();
+        ChangeEvent first = feed.publishWrite(product("P1"), true);
+        feed.publishWrite(product("P2"), true);
+
+        ChangeFeed.Page page = feed.readAfter(start, 10);
+        assertFalse(page.resyncRequired(), "a cursor from this feed is served");
+        assertEquals(2, page.events().size(), "every change after the cursor is returned");
+        assertEquals(1, feed.readAfter(first.seq(), 10).events().size(), "reading resumes after the cursor");
+        assertTrue(feed.readAfter(page.lastSeq(), 10).events().isEmpty(), "nothing follows the newest change");
+    }
+
+    @Test
+    void foreignCursorsResync() {
+        ChangeFeed feed = new ChangeFeed(new CatalogVersions(), new ChangeFeedProperties());
+        feed.publishWrite(product("P1"), true);
+        long lastSeq = feed.lastSeq();
+
+        assertTrue(feed.readAfter(lastSeq + 1_000, 10).resyncRequired(),
+                "a cursor above anything issued here, as from another replica, requires a resync");
+        assertTrue(feed.readAfter(lastSeq - 1_000, 10).resyncRequired(),
+                "a cursor below anything held here, as from an earlier run, requires a resync");
+    }
+
+    private static ProductInfo product(String id) {
+        return new ProductInfo(id, "name of " + id, "description of " + id, new BigDecimal("9.99"), "Category",
+                false, null, null, null);
+    }
+}
@@ -0,0 +1,79 @@
+package org.lite.product.filter;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lite.product.security.AuthorizationPolicy;
+import org.lite.product.security.AuthorizationProperties;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The filter must hold a request to the rules for the path it is mapped to, however that path is spelled: a
+ * percent-encoded or parameterized segment must not slip past a rule written for the plain one.
+ */
+class JwtRoleValidationFilterTest {
+
+    private static final String CONTEXT = "/r/product-service";
+
+    private JwtRoleValidationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        // Batch writes need the admin role, every other product request a reader
+        AuthorizationProperties properties = new AuthorizationProperties();
+        AuthorizationProperties.Rule batch = new AuthorizationProperties.Rule();
+        batch.setPath("/api/product/products/batch");
+        batch.setRoles(List.of("realm:catalog_admin"));
+        AuthorizationProperties.Rule products = new AuthorizationProperties.Rule();
+        products.setPath("/api/product/products/**");
+        products.setRoles(List.of("realm:catalog_reader"));
+        properties.setRules(List.of(batch, products));
+        filter = new JwtRoleValidationFilter(new AuthorizationPolicy(properties));
+
+        Jwt reader = new Jwt("token", Instant.now(), Instant.now().plusSeconds(300), Map.of("alg", "RS256"),
+                Map.of("sub", "reader", "realm_access", Map.of("roles", List.of("catalog_reader"))));
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(reader, null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void plainPathsAreMatched() throws Exception {
+        assertEquals(200, status("/api/product/products/P1"), "a reader may read a product");
+        assertEquals(403, status("/api/product/products/batch"), "a reader may not batch");
+    }
+
+    @Test
+    void percentEncodedSegmentsAreDecodedFirst() throws Exception {
+        assertEquals(403, status("/api/product/products/%62atch"), "an encoded letter does not evade the batch rule");
+        assertEquals(403, status("/api/%70roduct/products/batch"), "an encoded letter anywhere in the path counts");
+        assertEquals(200, status("/api/product/products/P%31"), "encoded product IDs still match {id} rules");
+    }
+
+    @Test
+    void pathParametersAreIgnored() throws Exception {
+        assertEquals(403, status("/api/product/products/batch;x=1"), "a path parameter does not evade the batch rule");
+    }
+
+    private int status(String path) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", CONTEXT + path);
+        request.setContextPath(CONTEXT);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+}
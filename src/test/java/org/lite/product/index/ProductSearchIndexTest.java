@@ -0,0 +1,122 @@
+package org.lite.product.index;
+
+import org.junit.jupiter.api.Test;
+import org.lite.product.model.ProductInfo;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSearchIndexTest {
+
+    private static final int THREADS = 8;
+    private static final int PRODUCTS_PER_THREAD = 2;
+    private static final int ROUNDS = 20_000;
+
+    @Test
+    void ranksNameHitsAboveDescriptionHits() {
+        Map<String, ProductInfo> catalog = new ConcurrentHashMap<>();
+        ProductSearchIndex index = new ProductSearchIndex();
+        put(catalog, index, product("P1", "Desk lamp", "A lamp with a wireless charger"));
+        put(catalog, index, product("P2", "Wireless charger", "Charges phones"));
+        put(catalog, index, product("P3", "Desk", "Oak"));
+
+        assertEquals(List.of("P2", "P1"), ids(index.search("wireless charger", 10)));
+        assertEquals(List.of("P1"), ids(index.search("desk lam", 10)), "the last term matches as a prefix");
+        assertTrue(index.search("desk lam ", 10).isEmpty(), "a trailing space turns prefix matching off");
+    }
+
+    @Test
+    void updatesAndDeletesRetractPostings() {
+        Map<String, ProductInfo> catalog = new ConcurrentHashMap<>();
+        ProductSearchIndex index = new ProductSearchIndex();
+        put(catalog, index, product("P1", "Garden hose", "Green"));
+        put(catalog, index, product("P1", "Garden rake", "Green"));
+        assertTrue(index.search("hose", 10).isEmpty(), "an update drops the terms the product lost");
+        assertEquals(List.of("P1"), ids(index.search("rake", 10)));
+
+        catalog.remove("P1");
+        index.refresh("P1", catalog::get);
+        assertTrue(index.search("garden", 10).isEmpty(), "a delete drops every posting");
+        assertTrue(index.search("g", 10).isEmpty(), "a term without postings no longer matches as a prefix");
+    }
+
+    @Test
+    void concurrentUpdatesAndDeletesOfProductsSharingATermLoseNoPostings() throws Exception {
+        Map<String, ProductInfo> catalog = new ConcurrentHashMap<>();
+        ProductSearchIndex index = new ProductSearchIndex();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    SplittableRandom random = new SplittableRandom(thread);
+                    for (int round = 0; round < ROUNDS; round++) {
+                        // Each thread owns its products, so only the postings of the shared terms are contended
+                        String id = "T" + thread + "-" + random.nextInt(PRODUCTS_PER_THREAD);
+                        switch (random.nextInt(3)) {
+                            case 0 -> catalog.put(id, product(id, "shared widget", "common"));
+                            case 1 -> catalog.put(id, product(id, "other gadget", "common"));
+                            default -> catalog.remove(id);
+                        }
+                        index.refresh(id, catalog::get);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int everything = THREADS * PRODUCTS_PER_THREAD;
+        assertEquals(matching(catalog, "shared"), new TreeSet<>(ids(index.search("shared ", everything))),
+                "every product holding the shared name term is found");
+        assertEquals(matching(catalog, "other"), new TreeSet<>(ids(index.search("other ", everything))),
+                "every product holding the other name term is found");
+        assertEquals(new TreeSet<>(catalog.keySet()), new TreeSet<>(ids(index.search("common ", everything))),
+                "every stored product is found by the description term they all share");
+        assertEquals(matching(catalog, "shared"), new TreeSet<>(ids(index.search("sha", everything))),
+                "prefix matching sees the same postings");
+    }
+
+    private static Set<String> matching(Map<String, ProductInfo> catalog, String nameTerm) {
+        return catalog.values().stream()
+                .filter(product -> product.getName().startsWith(nameTerm))
+                .map(ProductInfo::getId)
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private static void put(Map<String, ProductInfo> catalog, ProductSearchIndex index, ProductInfo product) {
+        catalog.put(product.getId(), product);
+        index.refresh(product.getId(), catalog::get);
+    }
+
+    private static List<String> ids(List<ProductSearchIndex.SearchHit> hits) {
+        return hits.stream().map(ProductSearchIndex.SearchHit::productId).toList();
+    }
+
+    private static ProductInfo product(String id, String name, String description) {
+        return new ProductInfo(id, name, description, new BigDecimal("9.99"), "Category", false, null, null, null);
+    }
+}
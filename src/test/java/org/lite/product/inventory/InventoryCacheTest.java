@@ -0,0 +1,214 @@
+package org.lite.product.inventory;
+
+import org.junit.jupiter.api.Test;
+import org.lite.product.model.InventoryInfo;
+import org.lite.product.security.TestServiceTokens;
+import org.springframework.web.client.RestClientException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks of the {@link InventoryCache} against a fake inventory service: concurrent misses for one product must
+ * make a single call, entries must expire after the TTL, a read past refresh-after must be answered from the cache
+ * while one background call renews the entry, failed calls must not be cached, the cache must stay within its
+ * size, and with batching enabled concurrent misses must share bulk requests.
+ */
+class InventoryCacheTest {
+
+    private static final int READERS = 1_000;
+
+    /**
+     * Answers every product after a fixed latency, fails for IDs starting with "BAD", and counts its calls.
+     */
+    private static final class FakeInventoryClient extends InventoryClient {
+
+        private final long latencyMillis;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        FakeInventoryClient(long latencyMillis) {
+            super(null, new InventoryProperties(), TestServiceTokens.none());
+            this.latencyMillis = latencyMillis;
+        }
+
+        @Override
+        public InventoryInfo fetch(String productId) {
+            calls.incrementAndGet();
+            sleep();
+            if (productId.startsWith("BAD")) {
+                throw new RestClientException("inventory unavailable for " + productId);
+            }
+            return new InventoryInfo(productId, true, calls.get(), "2 days", "WH-1");
+        }
+
+        @Override
+        public List<InventoryInfo> fetchAll(Collection<String> productIds) {
+            calls.incrementAndGet();
+            sleep();
+            List<InventoryInfo> inventory = new ArrayList<>();
+            for (String productId : productIds) {
+                if (!productId.startsWith("BAD")) {
+                    inventory.add(new InventoryInfo(productId, true, calls.get(), "2 days", "WH-1"));
+                }
+            }
+            return inventory;
+        }
+
+        private void sleep() {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Test
+    void concurrentMissesMakeOneCall() throws Exception {
+        FakeInventoryClient client = new FakeInventoryClient(200);
+        InventoryCache cache = cache(client, Duration.ofMinutes(1), Duration.ofMinutes(1), 1_000);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CountDownLatch go = new CountDownLatch(1);
+            List<Future<InventoryInfo>> results = new ArrayList<>();
+            for (int i = 0; i < READERS; i++) {
+                results.add(executor.submit(() -> {
+                    go.await();
+                    return cache.lookup("HOT").get(5, TimeUnit.SECONDS);
+                }));
+            }
+            go.countDown();
+            for (Future<InventoryInfo> result : results) {
+                assertEquals("HOT", result.get().getProductId(), "every reader gets the product's inventory");
+            }
+        }
+        assertEquals(1, client.calls.get(), READERS + " concurrent misses make one call");
+        assertEquals(READERS, cache.metrics().get("inventory.cache.misses")
+                + cache.metrics().get("inventory.cache.hits"), "every read is counted as a hit or a miss");
+        assertTrue(cache.metrics().get("inventory.cache.coalesced") > 0, "misses that joined the call are counted");
+        cache.close();
+    }
+
+    @Test
+    void entriesExpireAfterTtl() throws Exception {
+        FakeInventoryClient client = new FakeInventoryClient(1);
+        InventoryCache cache = cache(client, Duration.ofMillis(300), Duration.ofMillis(300), 1_000);
+        cache.lookup("P1").get();
+        cache.lookup("P1").get();
+        assertEquals(1, client.calls.get(), "a read within the TTL is a hit");
+        Thread.sleep(400);
+        cache.lookup("P1").get();
+        assertEquals(2, client.calls.get(), "a read after the TTL calls again");
+        cache.close();
+    }
+
+    @Test
+    void hotEntriesAreRefreshedAhead() throws Exception {
+        FakeInventoryClient client = new FakeInventoryClient(100);
+        InventoryCache cache = cache(client, Duration.ofSeconds(1), Duration.ofMillis(200), 1_000);
+        InventoryInfo first = cache.lookup("P1").get();
+        Thread.sleep(300);
+        CompletableFuture<InventoryInfo> stale = cache.lookup("P1");
+        assertTrue(stale.isDone(), "a read past refresh-after is answered from the cache");
+        assertSame(first, stale.get(), "a read past refresh-after gets the cached entry");
+        for (int i = 0; i < 100; i++) {
+            cache.lookup("P1");
+        }
+        Thread.sleep(300);
+        assertEquals(2, client.calls.get(), "one background call renews the entry");
+        assertNotSame(first, cache.lookup("P1").get(), "later reads get the renewed entry");
+        // Past the TTL of the first load, but not of the renewed entry
+        Thread.sleep(600);
+        assertTrue(cache.lookup("P1").isDone(), "a renewed entry outlives the TTL of the first load");
+        assertTrue(cache.metrics().get("inventory.cache.refreshes") >= 1, "refreshes are counted");
+        cache.close();
+    }
+
+    @Test
+    void failedCallsAreNotCached() {
+        FakeInventoryClient client = new FakeInventoryClient(1);
+        InventoryCache cache = cache(client, Duration.ofMinutes(1), Duration.ofMinutes(1), 1_000);
+        for (int i = 0; i < 2; i++) {
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> cache.lookup("BAD-1").get(),
+                    "a failed call fails the lookup");
+            assertInstanceOf(RestClientException.class, failure.getCause(),
+                    "the lookup fails with the call's exception");
+        }
+        assertEquals(2, client.calls.get(), "a failed call is not cached");
+        cache.close();
+    }
+
+    @Test
+    void sizeIsBounded() throws Exception {
+        FakeInventoryClient client = new FakeInventoryClient(0);
+        InventoryCache cache = cache(client, Duration.ofMinutes(1), Duration.ofMinutes(1), 1_000);
+        for (int i = 0; i < 10_000; i++) {
+            cache.lookup("P" + i).get();
+        }
+        double entries = cache.metrics().get("inventory.cache.entries");
+        assertTrue(entries <= 1_000, "the cache stays within max-entries, holds " + entries);
+        assertTrue(cache.metrics().get("inventory.cache.evictions") >= 9_000, "evictions are counted");
+        cache.lookup("P9999").get();
+        assertEquals(10_000, client.calls.get(), "the most recently loaded entries are kept");
+        cache.close();
+    }
+
+    @Test
+    void missesShareBulkRequests() throws Exception {
+        FakeInventoryClient client = new FakeInventoryClient(50);
+        InventoryProperties properties = new InventoryProperties();
+        properties.getBatch().setEnabled(true);
+        properties.getBatch().setWindow(Duration.ofMillis(20));
+        properties.getBatch().setMaxSize(50);
+        InventoryBatcher batcher = new InventoryBatcher(client, properties);
+        InventoryCache cache = new InventoryCache(client, batcher, properties);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CountDownLatch go = new CountDownLatch(1);
+            List<Future<InventoryInfo>> results = new ArrayList<>();
+            for (int i = 0; i < READERS; i++) {
+                String productId = "P" + (i % (READERS / 2));
+                results.add(executor.submit(() -> {
+                    go.await();
+                    return cache.lookup(productId).get(5, TimeUnit.SECONDS);
+                }));
+            }
+            go.countDown();
+            for (int i = 0; i < READERS; i++) {
+                assertEquals("P" + (i % (READERS / 2)), results.get(i).get().getProductId(),
+                        "every lookup gets its own product's inventory back from the batch");
+            }
+        }
+        assertEquals(READERS / 2, batcher.metrics().get("inventory.batch.products"), "each product is in one batch");
+        assertTrue(client.calls.get() <= READERS / 2 / 50 + 2,
+                READERS / 2 + " products go out in full batches, made " + client.calls.get() + " requests");
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> cache.lookup("BAD-1").get(),
+                "a product left out of the answer fails its lookup");
+        assertInstanceOf(RestClientException.class, failure.getCause(), "a product left out fails like a failed call");
+        batcher.close();
+        cache.close();
+    }
+
+    private static InventoryCache cache(InventoryClient client, Duration ttl, Duration refreshAfter, int maxEntries) {
+        InventoryProperties properties = new InventoryProperties();
+        properties.getCache().setTtl(ttl);
+        properties.getCache().setRefreshAfter(refreshAfter);
+        properties.getCache().setMaxEntries(maxEntries);
+        return new InventoryCache(client, new InventoryBatcher(client, properties), properties);
+    }
+}
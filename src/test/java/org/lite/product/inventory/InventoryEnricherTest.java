@@ -0,0 +1,193 @@
+package org.lite.product.inventory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.lite.product.config.RestTemplateConfig;
+import org.lite.product.model.ProductInfo;
+import org.lite.product.security.TestServiceTokens;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Enrichment against the {@link InventoryStubServer}: all calls of a request share one deadline, products whose
+ * call misses it come back without inventory and are counted as missing, the calls that missed it still fill the
+ * cache, and the products passed in are never modified. Calls carry the service's own token, never a caller's.
+ */
+class InventoryEnricherTest {
+
+    private static final long LATENCY_MILLIS = 10;
+    private static final long SLOW_LATENCY_MILLIS = 1_500;
+    private static final Duration DEADLINE = Duration.ofMillis(300);
+
+    private InventoryStubServer stub;
+    private InventoryEnricher enricher;
+    private final List<Runnable> closers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = InventoryStubServer.start(0, LATENCY_MILLIS, 30, SLOW_LATENCY_MILLIS);
+        InventoryProperties properties = properties();
+        InventoryClient client = new InventoryClient(new RestTemplate(), properties, TestServiceTokens.none());
+        // A first call sets up the HTTP client and the stub, which would otherwise eat the first request's deadline
+        client.fetch(productId(false));
+        enricher = enricher(client, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        closers.forEach(Runnable::run);
+        stub.close();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void productsPastTheDeadlineComeBackWithoutInventory() {
+        List<ProductInfo> products = products(20);
+        List<String> slow = products.stream().map(ProductInfo::getId).filter(stub::isSlow).toList();
+        assertTrue(slow.size() > 1 && slow.size() < products.size(), "the stub answers some products slowly");
+
+        long start = System.nanoTime();
+        InventoryEnricher.Result result = enricher.enrich(products);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(millis < DEADLINE.toMillis() + 200,
+                slow.size() + " slow products share one deadline rather than one each, took " + millis + " ms");
+        assertEquals(slow.size(), result.missing(), "every product past the deadline is counted as missing");
+        assertEquals(products.size(), result.products().size(), "every product comes back");
+        for (int i = 0; i < products.size(); i++) {
+            ProductInfo enriched = result.products().get(i);
+            assertEquals(products.get(i).getId(), enriched.getId(), "products keep their order");
+            if (slow.contains(enriched.getId())) {
+                assertFalse(enriched.isInStock(), enriched.getId() + " past the deadline is not in stock");
+                assertNull(enriched.getAvailableQuantity(), enriched.getId() + " past the deadline has no quantity");
+                assertNull(enriched.getWarehouseLocation(), enriched.getId() + " past the deadline has no warehouse");
+            } else {
+                assertNotNull(enriched.getWarehouseLocation(), enriched.getId() + " in time gets its inventory");
+            }
+        }
+        assertEquals((double) slow.size(), enricher.metrics().get("inventory.timeouts"),
+                "each product past the deadline is a timeout");
+    }
+
+    @Test
+    void duplicatesAreCountedPerProductReturned() {
+        String slowId = productId(true);
+        List<ProductInfo> products = List.of(product(slowId), product(productId(false)), product(slowId));
+
+        InventoryEnricher.Result result = enricher.enrich(products);
+
+        assertEquals(2, result.missing(), "a product listed twice is missing twice");
+        assertEquals(2.0, enricher.metrics().get("inventory.cache.misses"),
+                "a product listed twice is looked up once");
+    }
+
+    @Test
+    void callsPastTheDeadlineStillFillTheCache() throws Exception {
+        List<ProductInfo> products = products(20);
+        int missing = enricher.enrich(products).missing();
+        assertTrue(missing > 0, "some products miss the deadline");
+
+        Thread.sleep(SLOW_LATENCY_MILLIS + 500);
+        long requests = stub.requests();
+        InventoryEnricher.Result again = enricher.enrich(products);
+
+        assertEquals(0, again.missing(), "the calls that missed the deadline filled the cache");
+        assertEquals(requests, stub.requests(), "the second request is answered from the cache");
+    }
+
+    @Test
+    void storedProductsAreNeverModified() {
+        List<ProductInfo> products = products(20);
+        List<ProductInfo> before = products.stream().map(InventoryEnricherTest::copy).toList();
+
+        InventoryEnricher.Result result = enricher.enrich(products);
+
+        assertEquals(before, products, "the products passed in keep their fields");
+        for (int i = 0; i < products.size(); i++) {
+            assertNotSame(products.get(i), result.products().get(i), "enriched products are copies");
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void callsCarryTheServiceTokenRatherThanTheCallers(boolean batched) {
+        InventoryProperties properties = properties();
+        properties.setClientRegistrationId("inventory");
+        properties.getBatch().setEnabled(batched);
+        // Only the headers matter here, so a cold HTTP client must not miss the deadline
+        properties.setDeadline(Duration.ofSeconds(10));
+        InventoryClient client = new InventoryClient(new RestTemplateConfig().restTemplate(), properties,
+                TestServiceTokens.issuing("inventory", "product-service", "service-token"));
+        InventoryEnricher serviceEnricher = enricher(client, properties);
+        Jwt caller = new Jwt("caller-token", Instant.now(), Instant.now().plusSeconds(300), Map.of("alg", "RS256"),
+                Map.of("sub", "user"));
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("user", caller));
+
+        assertEquals(0, serviceEnricher.enrich(List.of(product(productId(false)))).missing(),
+                "the product gets its inventory");
+
+        assertEquals("Bearer service-token", stub.lastHeader(HttpHeaders.AUTHORIZATION),
+                "the call carries the service's token, since its answer is shared by every caller");
+        assertNull(stub.lastHeader("X-User-Token"), "the caller's token is not passed along");
+    }
+
+    private InventoryProperties properties() {
+        InventoryProperties properties = new InventoryProperties();
+        properties.setBaseUrl("http://localhost:" + stub.port());
+        properties.setDeadline(DEADLINE);
+        return properties;
+    }
+
+    private InventoryEnricher enricher(InventoryClient client, InventoryProperties properties) {
+        InventoryBatcher batcher = new InventoryBatcher(client, properties);
+        InventoryCache cache = new InventoryCache(client, batcher, properties);
+        closers.add(batcher::close);
+        closers.add(cache::close);
+        return new InventoryEnricher(cache, batcher, properties);
+    }
+
+    private String productId(boolean slow) {
+        return IntStream.range(0, 100).mapToObj(i -> "P" + i).filter(id -> stub.isSlow(id) == slow)
+                .findFirst().orElseThrow();
+    }
+
+    private static List<ProductInfo> products(int count) {
+        List<ProductInfo> products = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            products.add(product("P" + i));
+        }
+        return products;
+    }
+
+    private static ProductInfo product(String id) {
+        return new ProductInfo(id, "Product " + id, "A product", new BigDecimal("9.99"), "tools",
+                false, null, null, null);
+    }
+
+    private static ProductInfo copy(ProductInfo product) {
+        return new ProductInfo(product.getId(), product.getName(), product.getDescription(), product.getPrice(),
+                product.getCategory(), product.isInStock(), product.getAvailableQuantity(),
+                product.getEstimatedDelivery(), product.getWarehouseLocation());
+    }
+}
@@ -0,0 +1,165 @@
+package org.lite.product.inventory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.lite.product.model.InventoryInfo;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local stand-in for the inventory service, for trying inventory enrichment offline and as the inventory service of
+ * {@code InventoryEnricherTest}. It answers {@code GET .../<productId>} under any path with made-up but stable
+ * inventory for that product after a fixed latency, and a chosen percentage of products answer slowly so the
+ * deadline can be seen at work. {@code POST .../batch} with a JSON array of product IDs answers all of them at once,
+ * as slowly as its slowest. {@code GET /stats} reports how many products were served in how many requests. Run it
+ * from the test classpath:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.lite.product.inventory.InventoryStubServer \
+ *     -Dexec.args="[port] [latency ms] [slow percent] [slow latency ms]"
+ * </pre>
+ * and point the service at it with {@code --catalog.inventory.base-url=http://localhost:<port>}.
+ */
+public final class InventoryStubServer implements AutoCloseable {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final String[] WAREHOUSES = {"WH-EAST-1", "WH-WEST-2", "WH-CENTRAL-3"};
+
+    private final HttpServer server;
+    private final long latencyMillis;
+    private final int slowPercent;
+    private final long slowLatencyMillis;
+    private final LongAdder served = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private volatile Headers lastRequestHeaders = new Headers();
+
+    private InventoryStubServer(int port, long latencyMillis, int slowPercent, long slowLatencyMillis)
+            throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.slowPercent = slowPercent;
+        this.slowLatencyMillis = slowLatencyMillis;
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/stats", exchange -> respond(exchange, 200,
+                Map.of("served", served.sum(), "requests", requests.sum())));
+        server.createContext("/", this::serve);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 18090;
+        long latencyMillis = args.length > 1 ? Long.parseLong(args[1]) : 20;
+        int slowPercent = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        long slowLatencyMillis = args.length > 3 ? Long.parseLong(args[3]) : 2_000;
+        start(port, latencyMillis, slowPercent, slowLatencyMillis);
+        System.out.printf("Inventory stub listening on http://localhost:%d, %d ms latency, %d%% of products "
+                + "answering after %d ms%n", port, latencyMillis, slowPercent, slowLatencyMillis);
+    }
+
+    /**
+     * A started stub; port 0 picks a free port.
+     */
+    static InventoryStubServer start(int port, long latencyMillis, int slowPercent, long slowLatencyMillis)
+            throws IOException {
+        InventoryStubServer stub = new InventoryStubServer(port, latencyMillis, slowPercent, slowLatencyMillis);
+        stub.server.start();
+        return stub;
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Whether the product answers after the slow latency rather than the usual one.
+     */
+    boolean isSlow(String productId) {
+        return isSlow(hash(productId));
+    }
+
+    long requests() {
+        return requests.sum();
+    }
+
+    /**
+     * The value of a header of the last inventory request, or null if it had none.
+     */
+    String lastHeader(String name) {
+        return lastRequestHeaders.getFirst(name);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        lastRequestHeaders = exchange.getRequestHeaders();
+        String path = exchange.getRequestURI().getPath();
+        List<String> productIds;
+        if ("POST".equals(exchange.getRequestMethod()) && path.endsWith("/batch")) {
+            productIds = List.of(JSON.readValue(exchange.getRequestBody(), String[].class));
+        } else if ("GET".equals(exchange.getRequestMethod()) && !path.endsWith("/")) {
+            productIds = List.of(path.substring(path.lastIndexOf('/') + 1));
+        } else {
+            respond(exchange, 404, Map.of("message", "Not found"));
+            return;
+        }
+        int[] hashes = productIds.stream().mapToInt(InventoryStubServer::hash).toArray();
+        // A bulk request is as slow as its slowest product
+        boolean slow = Arrays.stream(hashes).anyMatch(this::isSlow);
+        try {
+            Thread.sleep(slow ? slowLatencyMillis : latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        requests.increment();
+        served.add(productIds.size());
+        if (!path.endsWith("/batch")) {
+            respond(exchange, 200, inventoryOf(productIds.get(0), hashes[0]));
+            return;
+        }
+        List<InventoryInfo> inventory = new ArrayList<>();
+        for (int i = 0; i < hashes.length; i++) {
+            inventory.add(inventoryOf(productIds.get(i), hashes[i]));
+        }
+        respond(exchange, 200, inventory);
+    }
+
+    // Spread similar IDs apart, so the slow products are not all neighbours
+    private static int hash(String productId) {
+        return productId.hashCode() * 0x9E3779B9;
+    }
+
+    private boolean isSlow(int hash) {
+        return Math.floorMod(hash >>> 16, 100) < slowPercent;
+    }
+
+    private static InventoryInfo inventoryOf(String productId, int hash) {
+        int quantity = Math.floorMod(hash, 50);
+        return new InventoryInfo(productId, quantity > 0, quantity,
+                quantity > 0 ? LocalDate.now().plusDays(1 + Math.floorMod(hash >>> 4, 5)).toString() : null,
+                WAREHOUSES[Math.floorMod(hash >>> 12, WAREHOUSES.length)]);
+    }
+
+    private static void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] json = JSON.writeValueAsString(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, json.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(json);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.lite.product.jfr;
+
+import jdk.jfr.Recording;
+
+/**
+ * What a request-stage JFR event adds to a stage, without a recording and in a recording that holds it back by its
+ * threshold. {@code JfrEventsTest} checks the events themselves. Run it from the test classpath:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.lite.product.jfr.JfrEventsBenchmark -Dexec.args="[events]"
+ * </pre>
+ */
+public final class JfrEventsBenchmark {
+
+    private JfrEventsBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+
+        double disabledNanos = measure(events);
+        double recordedNanos;
+        try (Recording recording = new Recording(JfrEventsTest.everyEvent("1 s"))) {
+            recording.start();
+            recordedNanos = measure(events / 10);
+        }
+        System.out.printf("JFR events: a stage event adds %.1f ns without a recording, %.1f ns in a recording when "
+                + "below its threshold, over %d events%n", disabledNanos, recordedNanos, events);
+    }
+
+    /**
+     * Nanoseconds a stage takes with its event, less what it takes without.
+     */
+    private static double measure(int events) {
+        JfrEventsTest.warmUp(events);
+        long start = System.nanoTime();
+        JfrEventsTest.stages(events, true);
+        double nanos = (System.nanoTime() - start) / (double) events;
+
+        start = System.nanoTime();
+        JfrEventsTest.stages(events, false);
+        return nanos - (System.nanoTime() - start) / (double) events;
+    }
+}
@@ -0,0 +1,154 @@
+package org.lite.product.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks of the request-stage JFR events: the bundled settings cover every event, the events carry their fields into
+ * a recording, thresholds keep short stages out, and without a recording an event allocates nothing.
+ */
+class JfrEventsTest {
+
+    static final List<String> EVENTS = List.of("org.lite.product.JwtDecode", "org.lite.product.RoleCheck",
+            "org.lite.product.CatalogOperation", "org.lite.product.JsonSerialization", "org.lite.product.OutboundCall");
+
+    private static final String[] PRODUCT_IDS = {"P001", "P002", "P003", "P004", "P005", "P006", "P007", "P008"};
+    // Enough for the warm-up to get the stage loop compiled, so events that escape analysis removes are not allocated
+    private static final int EVENT_COUNT = 10_000_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void settingsCoverEveryEvent() {
+        Map<String, String> settings = FlightRecording.settings().getSettings();
+        for (String event : EVENTS) {
+            assertEquals("true", settings.get(event + "#enabled"), event + " is enabled by the bundled settings");
+            assertTrue(settings.containsKey(event + "#threshold"), event + " has a threshold in the bundled settings");
+        }
+    }
+
+    @Test
+    void eventsAreRecorded() throws Exception {
+        Path file = directory.resolve("stages.jfr");
+        try (Recording recording = new Recording(everyEvent("0 ms"))) {
+            recording.start();
+            CatalogOperationEvent read = new CatalogOperationEvent();
+            read.start();
+            read.finish("get", "P001", 1);
+            JsonSerializationEvent serialized = new JsonSerializationEvent();
+            serialized.start();
+            serialized.finish("ProductAvailabilityResponse", "P001", 1, 312);
+            OutboundCallEvent call = new OutboundCallEvent();
+            call.start();
+            call.answered(200, 95);
+            call.finish("GET", "https://gateway/r/inventory-service/api/inventory/P001", "P001", 0);
+            JwtDecodeEvent decoded = new JwtDecodeEvent();
+            decoded.start();
+            decoded.cacheHit();
+            decoded.finish("header.payload.signature");
+            RoleCheckEvent roles = new RoleCheckEvent();
+            roles.start();
+            roles.finish("GET", "/r/product-service/api/product/products/P001", true);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        Map<String, RecordedEvent> recorded = new HashMap<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            recorded.put(event.getEventType().getName(), event);
+        }
+        assertTrue(recorded.keySet().containsAll(EVENTS), "every stage is recorded, got " + recorded.keySet());
+        RecordedEvent read = recorded.get("org.lite.product.CatalogOperation");
+        assertEquals("get", read.getString("operation"), "a catalog operation carries its name");
+        assertEquals("P001", read.getString("productId"), "a catalog operation carries its product");
+        assertEquals(1, read.getInt("products"), "a catalog operation carries its product count");
+        RecordedEvent serialized = recorded.get("org.lite.product.JsonSerialization");
+        assertEquals(312, serialized.getLong("size"), "a serialization carries its size");
+        assertEquals("P001", serialized.getString("productId"), "a serialization carries its product");
+        RecordedEvent call = recorded.get("org.lite.product.OutboundCall");
+        assertEquals(200, call.getInt("status"), "an outbound call carries its status");
+        assertEquals(95, call.getLong("responseSize"), "an outbound call carries its response size");
+        assertEquals("P001", call.getString("productId"), "an outbound call carries its product");
+        RecordedEvent decoded = recorded.get("org.lite.product.JwtDecode");
+        assertTrue(decoded.getBoolean("cacheHit"), "a decode carries whether it hit the cache");
+        assertEquals(24, decoded.getInt("tokenSize"), "a decode carries the token size");
+        assertTrue(recorded.get("org.lite.product.RoleCheck").getBoolean("granted"),
+                "a role check carries its outcome");
+    }
+
+    @Test
+    void thresholdsKeepShortStagesOut() throws Exception {
+        Path file = directory.resolve("threshold.jfr");
+        try (Recording recording = new Recording(everyEvent("1 s"))) {
+            recording.start();
+            CatalogOperationEvent read = new CatalogOperationEvent();
+            read.start();
+            read.finish("get", "P001", 1);
+            recording.stop();
+            recording.dump(file);
+        }
+        assertTrue(RecordingFile.readAllEvents(file).isEmpty(), "an event below its threshold is not recorded");
+    }
+
+    @Test
+    void disabledEventsAllocateNothing() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        warmUp(EVENT_COUNT);
+        long allocated = threads.getCurrentThreadAllocatedBytes();
+        int products = stages(EVENT_COUNT, true);
+        // A one-off allocation by the JIT or JFR may show up, but an event that escaped would cost 32 bytes or more
+        long bytes = threads.getCurrentThreadAllocatedBytes() - allocated;
+        assertEquals(EVENT_COUNT, products, "every stage ran");
+        assertTrue(bytes < EVENT_COUNT, EVENT_COUNT + " disabled events allocate nothing, allocated " + bytes + " bytes");
+    }
+
+    // Until the stage loop is compiled, the interpreter allocates every event
+    static void warmUp(int events) {
+        for (int round = 0; round < 10; round++) {
+            stages(Math.max(1, events / 10), true);
+            stages(Math.max(1, events / 10), false);
+        }
+    }
+
+    /**
+     * Stages as the request path runs them, a small step with or without its event around it.
+     */
+    static int stages(int events, boolean recorded) {
+        int products = 0;
+        for (int i = 0; i < events; i++) {
+            String productId = PRODUCT_IDS[i & (PRODUCT_IDS.length - 1)];
+            if (recorded) {
+                CatalogOperationEvent event = new CatalogOperationEvent();
+                event.start();
+                products += productId.hashCode() == 0 ? 0 : 1;
+                event.finish("get", productId, 1);
+            } else {
+                products += productId.hashCode() == 0 ? 0 : 1;
+            }
+        }
+        return products;
+    }
+
+    static Map<String, String> everyEvent(String threshold) {
+        Map<String, String> settings = new HashMap<>();
+        for (String event : EVENTS) {
+            settings.put(event + "#enabled", "true");
+            settings.put(event + "#threshold", threshold);
+            settings.put(event + "#stackTrace", "false");
+        }
+        return settings;
+    }
+}
@@ -0,0 +1,38 @@
+package org.lite.product.metrics;
+
+/**
+ * Cost of a {@link LatencyHistogram} recording on one thread and with all threads recording into one histogram.
+ * {@code LatencyHistogramTest} checks accuracy and that recording allocates nothing. Run it from the test classpath:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.lite.product.metrics.LatencyHistogramBenchmark -Dexec.args="[recordings] [threads]"
+ * </pre>
+ */
+public final class LatencyHistogramBenchmark {
+
+    private LatencyHistogramBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int recordings = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < recordings; i++) {
+            histogram.record(i * 97L % 50_000_000);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < recordings; i++) {
+            histogram.record(i * 97L % 50_000_000);
+        }
+        double singleNanos = (System.nanoTime() - start) / (double) recordings;
+
+        start = System.nanoTime();
+        LatencyHistogramTest.recordConcurrently(histogram, recordings, threads);
+        double sharedNanos = (System.nanoTime() - start) / (double) recordings / threads;
+
+        System.out.printf("LatencyHistogram: %.1f ns per recording on one thread, %.1f ns with %d threads sharing one "
+                + "histogram (%d CPUs)%n", singleNanos, sharedNanos, threads,
+                Runtime.getRuntime().availableProcessors());
+    }
+}
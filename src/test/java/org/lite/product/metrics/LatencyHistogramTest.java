@@ -0,0 +1,128 @@
+package org.lite.product.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Checks of the {@link LatencyHistogram}: percentiles must lie within 3.2% of the exact ones over latencies spanning
+ * microseconds to seconds, no recording may be lost when many threads record at once, merged snapshots must count
+ * everything, and recording must not allocate.
+ */
+class LatencyHistogramTest {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final int RECORDINGS = 500_000;
+    private static final int THREADS = 8;
+
+    @Test
+    void bucketsAreContiguous() {
+        int previous = -1;
+        for (long micros = 0; micros < 1L << 22; micros++) {
+            int index = LatencyHistogram.index(micros);
+            if (index != previous && index != previous + 1) {
+                fail("buckets follow each other at " + micros + " us");
+            }
+            double midpoint = LatencyHistogram.midpoint(index);
+            if (Math.abs(midpoint - micros) > Math.max(0.5, micros * 0.016)) {
+                fail("the midpoint of a bucket is within 1.6% of its values at " + micros + " us");
+            }
+            previous = index;
+        }
+    }
+
+    @Test
+    void percentilesAreAccurate() {
+        // Log-normal latencies around a millisecond with a long tail into seconds
+        SplittableRandom random = new SplittableRandom(42);
+        int count = 200_000;
+        long[] nanos = new long[count];
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < count; i++) {
+            nanos[i] = (long) (Math.exp(random.nextGaussian() * 1.5) * 1_000_000);
+            histogram.record(nanos[i]);
+        }
+        Arrays.sort(nanos);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(count, snapshot.count(), "every value is counted");
+        for (double percentile : PERCENTILES) {
+            long rank = (long) Math.ceil(percentile / 100.0 * count);
+            double exact = (nanos[(int) rank - 1] / 1_000) / 1_000.0;
+            assertEquals(exact, snapshot.percentileMillis(percentile), exact * 0.032,
+                    "p" + percentile + " is within 3.2%");
+        }
+        assertEquals((nanos[count - 1] / 1_000) / 1_000.0, snapshot.maxMillis(), "the maximum is exact");
+        assertEquals(0.0, LatencyHistogram.Snapshot.empty().percentileMillis(99), "an empty histogram reports 0");
+    }
+
+    @Test
+    void concurrentRecordingsAreKept() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        recordConcurrently(histogram, RECORDINGS, THREADS);
+        assertEquals((long) RECORDINGS * THREADS, histogram.snapshot().count(),
+                "all concurrent recordings are kept");
+
+        LatencyHistogram other = new LatencyHistogram();
+        other.record(5_000_000_000L);
+        LatencyHistogram.Snapshot merged = histogram.snapshot();
+        merged.add(other.snapshot());
+        assertEquals((long) RECORDINGS * THREADS + 1, merged.count(), "a merged snapshot counts both histograms");
+        assertEquals(5_000.0, merged.maxMillis(), "a merged snapshot keeps the larger maximum");
+    }
+
+    @Test
+    void recordingAllocatesNothing() {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < RECORDINGS; i++) {
+            histogram.record(i * 97L % 50_000_000);
+        }
+        long allocated = bean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < RECORDINGS; i++) {
+            histogram.record(i * 97L % 50_000_000);
+        }
+        // The counter's own bookkeeping may show up as a few bytes, but nothing per recording
+        long bytes = bean.getCurrentThreadAllocatedBytes() - allocated;
+        assertTrue(bytes < 1_024, RECORDINGS + " recordings allocate nothing, allocated " + bytes + " bytes");
+    }
+
+    /**
+     * Records {@code recordings} random latencies below 10 ms from each of {@code threads} threads at once.
+     */
+    static void recordConcurrently(LatencyHistogram histogram, int recordings, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch go = new CountDownLatch(1);
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long seed = t;
+                done.add(executor.submit(() -> {
+                    go.await();
+                    SplittableRandom random = new SplittableRandom(seed);
+                    for (int i = 0; i < recordings; i++) {
+                        histogram.record(random.nextLong(10_000_000));
+                    }
+                    return null;
+                }));
+            }
+            go.countDown();
+            for (Future<?> future : done) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
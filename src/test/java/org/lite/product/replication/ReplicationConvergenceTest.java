@@ -0,0 +1,279 @@
+package org.lite.product.replication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.lite.product.cache.ProductJsonCache;
+import org.lite.product.cache.ProductJsonCacheProperties;
+import org.lite.product.change.ChangeFeed;
+import org.lite.product.change.ChangeFeedProperties;
+import org.lite.product.index.ProductQueryIndex;
+import org.lite.product.index.ProductSearchIndex;
+import org.lite.product.model.ProductInfo;
+import org.lite.product.persistence.CatalogPersistence;
+import org.lite.product.persistence.CatalogPersistenceProperties;
+import org.lite.product.repository.ProductRepository;
+import org.lite.product.repository.ProductStorageEngine;
+import org.lite.product.service.CatalogWriter;
+import org.lite.product.version.CatalogVersions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Convergence of catalog replication, with several replicas in one JVM exchanging batches as JSON the way they do
+ * over HTTP. Concurrent writers create, update and delete an overlapping set of products on random replicas while
+ * every replica keeps pulling from the others through a change feed small enough to force snapshots; afterwards all
+ * replicas must hold the same catalog with the same stamps and ETags, keep every generated product, resolve a
+ * conflict in favour of the higher stamp and bring a late joiner up to date.
+ */
+class ReplicationConvergenceTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final int REPLICAS = 3;
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 2_000;
+    private static final int SHARED_IDS = 50;
+    private static final int FEED_CAPACITY = 512;
+
+    @Test
+    void concurrentWritesConverge() throws InterruptedException {
+        List<Replica> replicas = replicas();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Thread> pullers = new ArrayList<>();
+        for (Replica replica : replicas) {
+            pullers.add(Thread.ofPlatform().start(() -> {
+                while (writing.get()) {
+                    replica.pullAll();
+                }
+            }));
+        }
+        Set<String> generated = ConcurrentHashMap.newKeySet();
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            writers.add(Thread.ofPlatform().start(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS; i++) {
+                    Replica replica = replicas.get(random.nextInt(replicas.size()));
+                    String id = "K" + random.nextInt(SHARED_IDS);
+                    int op = random.nextInt(10);
+                    if (op < 4) {
+                        replica.writer.replace(id, product(id, replica.nodeId + "-" + i), null);
+                    } else if (op < 6) {
+                        replica.writer.create(product(id, replica.nodeId + "-" + i));
+                    } else if (op < 8) {
+                        replica.writer.remove(id, null);
+                    } else {
+                        ProductInfo created = product(null, replica.nodeId + "-generated");
+                        if (replica.writer.create(created).status() == 201) {
+                            generated.add(created.getId());
+                        }
+                    }
+                }
+            }));
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        writing.set(false);
+        for (Thread puller : pullers) {
+            puller.join();
+        }
+        settle(replicas);
+        assertEquals(generated.size(), replicas.get(0).repository.getAll(generated).size(),
+                "every product created with a generated ID survives replication");
+    }
+
+    @Test
+    void conflictGoesToHigherStamp() {
+        List<Replica> replicas = replicas();
+        Replica first = replicas.get(0);
+        Replica second = replicas.get(1);
+        first.writer.create(product("CONFLICT", "base"));
+        settle(replicas);
+        first.writer.replace("CONFLICT", product("CONFLICT", "from " + first.nodeId), null);
+        second.writer.replace("CONFLICT", product("CONFLICT", "from " + second.nodeId), null);
+        Replica winner = first.stamps.stampOf("CONFLICT").compareTo(second.stamps.stampOf("CONFLICT")) > 0
+                ? first : second;
+        ProductInfo expected = winner.repository.get("CONFLICT");
+        settle(replicas);
+        for (Replica replica : replicas) {
+            assertEquals(expected, replica.repository.get("CONFLICT"),
+                    "concurrent updates resolve to the higher stamp on " + replica.nodeId);
+        }
+    }
+
+    @Test
+    void etagsHoldOnEveryReplica() {
+        List<Replica> replicas = replicas();
+        Replica first = replicas.get(0);
+        Replica last = replicas.get(replicas.size() - 1);
+        String etag = first.writer.create(product("TAGGED", "tagged")).etag();
+        settle(replicas);
+        assertEquals(200, last.writer.replace("TAGGED", product("TAGGED", "updated"), etag).status(),
+                "an ETag from one replica matches on another once the write has reached it");
+        settle(replicas);
+        assertEquals(412, first.writer.replace("TAGGED", product("TAGGED", "stale"), etag).status(),
+                "an ETag from before a replicated write no longer matches");
+    }
+
+    @Test
+    void deleteAfterUpdateSticks() {
+        List<Replica> replicas = replicas();
+        Replica first = replicas.get(0);
+        Replica last = replicas.get(replicas.size() - 1);
+        first.writer.create(product("DOOMED", "doomed"));
+        settle(replicas);
+        first.writer.replace("DOOMED", product("DOOMED", "updated"), null);
+        settle(replicas);
+        last.writer.remove("DOOMED", null);
+        settle(replicas);
+        for (Replica replica : replicas) {
+            assertNull(replica.repository.get("DOOMED"), "a delete made after an update is not undone on "
+                    + replica.nodeId);
+        }
+    }
+
+    @Test
+    void lateJoinerCatchesUp() {
+        List<Replica> replicas = replicas();
+        replicas.get(0).writer.create(product("EARLY", "early"));
+        replicas.get(1).writer.remove("P001", null);
+        settle(replicas);
+        Replica joiner = new Replica("late");
+        joiner.connect(replicas.subList(0, 1));
+        joiner.pullAll();
+        assertConverged(replicas.get(0), joiner);
+    }
+
+    private static List<Replica> replicas() {
+        List<Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < REPLICAS; i++) {
+            replicas.add(new Replica("n" + i));
+        }
+        for (Replica replica : replicas) {
+            replica.connect(replicas);
+        }
+        return replicas;
+    }
+
+    /**
+     * Pulls until a full round across all replicas applies nothing, then compares every replica with the first.
+     */
+    private static void settle(List<Replica> replicas) {
+        int quietRounds = 0;
+        for (int round = 0; quietRounds < 2; round++) {
+            assertTrue(round < 100, "replicas settle within 100 rounds");
+            int applied = 0;
+            for (Replica replica : replicas) {
+                applied += replica.pullAll();
+            }
+            quietRounds = applied == 0 ? quietRounds + 1 : 0;
+        }
+        for (Replica replica : replicas.subList(1, replicas.size())) {
+            assertConverged(replicas.get(0), replica);
+        }
+    }
+
+    private static void assertConverged(Replica expected, Replica actual) {
+        List<ProductInfo> expectedProducts = new ArrayList<>();
+        expected.repository.all().forEach(expectedProducts::add);
+        List<ProductInfo> actualProducts = new ArrayList<>();
+        actual.repository.all().forEach(actualProducts::add);
+        assertEquals(expectedProducts, actualProducts, actual.nodeId + " holds the same catalog as "
+                + expected.nodeId);
+        for (ProductInfo product : expectedProducts) {
+            assertEquals(expected.stamps.stampOf(product.getId()), actual.stamps.stampOf(product.getId()),
+                    actual.nodeId + " holds the same stamp for " + product.getId());
+            assertEquals(expected.writer.etagOf(product.getId()), actual.writer.etagOf(product.getId()),
+                    actual.nodeId + " gives the same ETag for " + product.getId());
+        }
+    }
+
+    private static final class Replica {
+
+        final String nodeId;
+        final ProductRepository repository = ProductStorageEngine.CONCURRENT_MAP.create();
+        final ReplicationStamps stamps;
+        final CatalogWriter writer;
+        final ReplicationSource source;
+        final List<PeerReplication> peers = new ArrayList<>();
+
+        Replica(String nodeId) {
+            this.nodeId = nodeId;
+            ReplicationProperties properties = new ReplicationProperties();
+            properties.setEnabled(true);
+            properties.setNodeId(nodeId);
+            ChangeFeedProperties feedProperties = new ChangeFeedProperties();
+            feedProperties.setCapacity(FEED_CAPACITY);
+            CatalogVersions versions = new CatalogVersions();
+            ChangeFeed feed = new ChangeFeed(versions, feedProperties);
+            stamps = new ReplicationStamps(properties);
+            writer = new CatalogWriter(repository, List.of(new ProductQueryIndex(), new ProductSearchIndex()),
+                    new CatalogPersistence(new CatalogPersistenceProperties()),
+                    new ProductJsonCache(JSON, new ProductJsonCacheProperties()), versions, feed, stamps);
+            source = new ReplicationSource(repository, feed, versions, stamps);
+            for (String id : List.of("P001", "P002", "P003")) {
+                writer.seed(product(id, "sample " + id));
+            }
+        }
+
+        void connect(List<Replica> others) {
+            for (Replica other : others) {
+                if (other != this) {
+                    peers.add(new PeerReplication(other.asPeer(), writer, nodeId, 64));
+                }
+            }
+        }
+
+        int pullAll() {
+            int applied = 0;
+            for (PeerReplication peer : peers) {
+                applied += peer.pull().applied();
+            }
+            return applied;
+        }
+
+        ReplicationPeer asPeer() {
+            return new ReplicationPeer() {
+                @Override
+                public String id() {
+                    return nodeId;
+                }
+
+                @Override
+                public ReplicationBatch changesAfter(long since, int limit) {
+                    return overTheWire(source.changesAfter(since, limit));
+                }
+
+                @Override
+                public ReplicationBatch snapshot(String afterId, int limit) {
+                    return overTheWire(source.snapshot(afterId, limit));
+                }
+            };
+        }
+    }
+
+    private static ReplicationBatch overTheWire(ReplicationBatch batch) {
+        try {
+            return JSON.readValue(JSON.writeValueAsBytes(batch), ReplicationBatch.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ProductInfo product(String id, String name) {
+        return new ProductInfo(id, name, "description of " + name, new BigDecimal("9.99"), "Category",
+                false, null, null, null);
+    }
+}
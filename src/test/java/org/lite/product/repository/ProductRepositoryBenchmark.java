@@ -0,0 +1,141 @@
+package org.lite.product.repository;
+
+import org.lite.product.model.ProductInfo;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap footprint, throughput and latency comparison of the storage engines under a mixed read-heavy workload
+ * (90% get, 5% update, 5% 20-item scan). {@link ProductRepositoryConformanceTest} covers
+ * correctness; this only measures. Run it from the test classpath:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.lite.product.repository.ProductRepositoryBenchmark -Dexec.args="[products] [threads] [seconds]"
+ * </pre>
+ */
+public final class ProductRepositoryBenchmark {
+
+    private static final int SAMPLES_PER_THREAD = 1 << 18;
+    private static final String[] CATEGORIES = {"Electronics", "Home Appliances", "Books", "Toys", "Garden"};
+    private static final String[] WAREHOUSES = {"WH-EAST-1", "WH-WEST-2", "WH-CENTRAL-3"};
+
+    private ProductRepositoryBenchmark() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int products = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        System.out.printf("%-16s %12s %10s %10s %10s %14s%n",
+                "engine", "ops/s", "p50 us", "p99 us", "p999 us", "heap B/product");
+        for (ProductStorageEngine engine : ProductStorageEngine.values()) {
+            long heapBefore = usedHeap();
+            ProductRepository repository = engine.create();
+            for (int i = 0; i < products; i++) {
+                repository.put(product(i));
+            }
+            double bytesPerProduct = (usedHeap() - heapBefore) / (double) products;
+            // Warm up, then measure
+            run(repository, products, threads, Math.max(1, seconds / 5), new long[1]);
+            long[] operations = new long[1];
+            long[] latencies = run(repository, products, threads, seconds, operations);
+            Arrays.sort(latencies);
+            System.out.printf("%-16s %12.0f %10.2f %10.2f %10.2f %14.0f%n", engine,
+                    operations[0] / (double) seconds,
+                    percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                    bytesPerProduct);
+        }
+    }
+
+    /**
+     * Runs the workload and returns the latencies of the most recent {@value #SAMPLES_PER_THREAD} operations of
+     * each thread; the total operation count goes to {@code operations[0]}.
+     */
+    private static long[] run(ProductRepository repository, int products, int threads, int seconds,
+                              long[] operations) throws InterruptedException {
+        String[] ids = new String[products];
+        for (int i = 0; i < products; i++) {
+            ids[i] = id(i);
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<long[]> samples = new ArrayList<>();
+        long[] counts = new long[threads];
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            long[] latencies = new long[SAMPLES_PER_THREAD];
+            samples.add(latencies);
+            new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long n = 0;
+                while (System.nanoTime() < deadline) {
+                    String id = ids[random.nextInt(products)];
+                    int op = random.nextInt(100);
+                    long start = System.nanoTime();
+                    if (op < 90) {
+                        repository.get(id);
+                    } else if (op < 95) {
+                        ProductInfo current = repository.get(id);
+                        if (current != null) {
+                            ProductInfo next = product(random.nextInt(products));
+                            next.setId(id);
+                            repository.put(next);
+                        }
+                    } else {
+                        repository.scan(id, 20);
+                    }
+                    latencies[(int) (n++ % SAMPLES_PER_THREAD)] = System.nanoTime() - start;
+                }
+                counts[thread] = n;
+                done.countDown();
+            }, "benchmark-" + t).start();
+        }
+        done.await();
+
+        operations[0] = Arrays.stream(counts).sum();
+        long[] merged = new long[(int) Arrays.stream(counts).map(c -> Math.min(c, SAMPLES_PER_THREAD)).sum()];
+        int offset = 0;
+        for (int t = 0; t < threads; t++) {
+            int sampled = (int) Math.min(counts[t], SAMPLES_PER_THREAD);
+            System.arraycopy(samples.get(t), 0, merged, offset, sampled);
+            offset += sampled;
+        }
+        return merged;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.floor(sorted.length * quantile))] / 1_000.0;
+    }
+
+    private static String id(int i) {
+        return String.format("P%08d", i);
+    }
+
+    /**
+     * Builds a product the way JSON deserialization would, with its own String instance for every field.
+     */
+    private static ProductInfo product(int i) {
+        return new ProductInfo(id(i), "Product " + i, "Description of product number " + i,
+                BigDecimal.valueOf(100 + i % 5_000, 2), new String(CATEGORIES[i % CATEGORIES.length]),
+                i % 2 == 0, i % 3 == 0 ? null : i % 500, null, new String(WAREHOUSES[i % WAREHOUSES.length]));
+    }
+}
@@ -0,0 +1,174 @@
+package org.lite.product.repository;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.lite.product.model.ProductInfo;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The {@link ProductRepository} contract, run against a fresh, empty instance of every storage engine.
+ */
+class ProductRepositoryConformanceTest {
+
+    private static final int THREADS = 8;
+    private static final int WRITES_PER_THREAD = 500;
+
+    @ParameterizedTest
+    @EnumSource(ProductStorageEngine.class)
+    void emptyRepository(ProductStorageEngine engine) {
+        ProductRepository repository = engine.create();
+        assertNull(repository.get("P1"), "get on an empty repository returns null");
+        assertEquals(0, repository.size(), "an empty repository has size 0");
+        assertTrue(repository.scan(null, 10).isEmpty(), "scan on an empty repository is empty");
+        assertFalse(repository.all().iterator().hasNext(), "all() on an empty repository is empty");
+        assertFalse(repository.contains("P1"), "an empty repository contains nothing");
+        assertFalse(repository.delete("P1"), "delete of a missing product returns false");
+    }
+
+    @ParameterizedTest
+    @EnumSource(ProductStorageEngine.class)
+    void putReportsReplacement(ProductStorageEngine engine) {
+        ProductRepository repository = engine.create();
+        assertFalse(repository.put(product("P1", "first")), "put into a free ID returns false");
+        assertTrue(repository.contains("P1"), "a stored product is contained");
+        assertTrue(repository.put(product("P1", "second")), "put over a stored product returns true");
+        assertEquals(product("P1", "second"), repository.get("P1"), "put overwrites");
+        assertEquals(1, repository.size(), "size counts stored products");
+    }
+
+    @ParameterizedTest
+    @EnumSource(ProductStorageEngine.class)
+    void deleteReportsRemoval(ProductStorageEngine engine) {
+        ProductRepository repository = engine.create();
+        repository.put(product("P1", "first"));
+        assertTrue(repository.delete("P1"), "delete of a stored product returns true");
+        assertNull(repository.get("P1"), "delete removes the product");
+        assertFalse(repository.contains("P1"), "a deleted product is not contained");
+        assertFalse(repository.delete("P1"), "a second delete returns false");
+        assertEquals(0, repository.size(), "size drops after delete");
+    }
+
+    @ParameterizedTest
+    @EnumSource(ProductStorageEngine.class)
+    void scanIsOrderedAndExclusive(ProductStorageEngine engine) {
+        ProductRepository repository = engine.create();
+        for (String id : List.of("P3", "P1", "P5", "P2", "P4")) {
+            repository.put(product(id, id));
+        }
+        assertEquals(List.of("P1", "P2", "P3", "P4", "P5"), ids(repository.scan(null, 10)), "scan is ordered by ID");
+        assertEquals(List.of("P3", "P4"), ids(repository.scan("P2", 2)),
+                "scan starts after afterId and honours limit");
+        assertTrue(repository.scan("P5", 10).isEmpty(), "scan past the last ID is empty");
+        List<ProductInfo> all = new ArrayList<>();
+        repository.all().forEach(all::add);
+        assertEquals(List.of("P1", "P2", "P3", "P4", "P5"), ids(all), "all() is ordered by ID");
+    }
+
+    @ParameterizedTest
+    @EnumSource(ProductStorageEngine.class)
+    void getAllSkipsMissingIds(ProductStorageEngine engine) {
+        ProductRepository repository = engine.create();
+        repository.put(product("P1", "a"));
+        repository.put(product("P2", "b"));
+        Map<String, ProductInfo> found = repository.getAll(List.of("P2", "P9", "P1"));
+        assertEquals(List.of("P2", "P1"), new ArrayList<>(found.keySet()),
+                "getAll keeps request order and skips missing IDs");
+        assertEquals(product("P2", "b"), found.get("P2"), "getAll returns stored values");
+    }
+
+    @ParameterizedTest
+    @EnumSource(ProductStorageEngine.class)
+    void snapshotIsPointInTime(ProductStorageEngine engine) {
+        ProductRepository repository = engine.create();
+        repository.put(product("P1", "a"));
+        repository.put(product("P2", "b"));
+        ProductView snapshot = repository.snapshot();
+        assertEquals(2, snapshot.size(), "a snapshot holds the products stored before it was taken");
+        assertEquals(List.of("P1", "P2"), ids(snapshot.scan(null, 10)),
+                "a snapshot holds the products stored before it was taken");
+        if (snapshot == repository) {
+            // Engines without versions hand out a live view
+            return;
+        }
+        repository.put(product("P1", "changed"));
+        repository.put(product("P3", "c"));
+        repository.delete("P2");
+        assertEquals(product("P1", "a"), snapshot.get("P1"), "a snapshot is not affected by later updates");
+        assertEquals(product("P2", "b"), snapshot.get("P2"), "a snapshot is not affected by later deletes");
+        assertNull(snapshot.get("P3"), "a snapshot is not affected by later creates");
+        assertEquals(2, snapshot.size(), "a snapshot keeps its size");
+        List<ProductInfo> all = new ArrayList<>();
+        snapshot.all().forEach(all::add);
+        assertEquals(List.of("P1", "P2"), ids(all), "iterating a snapshot sees only its own version");
+    }
+
+    @ParameterizedTest
+    @EnumSource(ProductStorageEngine.class)
+    void concurrentWritesToDistinctIdsAreAllKept(ProductStorageEngine engine) throws Exception {
+        ProductRepository repository = engine.create();
+        runConcurrently(thread -> {
+            for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                repository.put(product("T" + thread + "-" + i, "thread-" + thread));
+                if (i % 2 == 1) {
+                    repository.delete("T" + thread + "-" + (i - 1));
+                }
+            }
+        });
+        assertEquals(THREADS * WRITES_PER_THREAD / 2, repository.size(),
+                "concurrent puts and deletes of different IDs lose none of them");
+        for (int thread = 0; thread < THREADS; thread++) {
+            assertEquals(product("T" + thread + "-1", "thread-" + thread), repository.get("T" + thread + "-1"),
+                    "a product written concurrently with others reads back as written");
+            assertNull(repository.get("T" + thread + "-0"), "a product deleted concurrently with others is gone");
+        }
+    }
+
+    private interface ThreadBody {
+        void run(int thread) throws Exception;
+    }
+
+    private static void runConcurrently(ThreadBody body) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    body.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ProductInfo product(String id, String name) {
+        return new ProductInfo(id, name, "description of " + name, new BigDecimal("9.99"), "Category",
+                false, null, null, null);
+    }
+
+    private static List<String> ids(List<ProductInfo> products) {
+        return products.stream().map(ProductInfo::getId).toList();
+    }
+}
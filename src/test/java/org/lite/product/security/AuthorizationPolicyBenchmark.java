@@ -0,0 +1,74 @@
+package org.lite.product.security;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CPU cost of an {@link AuthorizationPolicy} decision next to the claim walk it replaced, for the default rules and
+ * a token with the roles a gateway token carries. {@code AuthorizationPolicyTest} checks the decisions. Run it from
+ * the test classpath:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.lite.product.security.AuthorizationPolicyBenchmark -Dexec.args="[decisions]"
+ * </pre>
+ */
+public final class AuthorizationPolicyBenchmark {
+
+    private static final String CONTEXT = "/r/product-service";
+
+    private AuthorizationPolicyBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int decisions = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+
+        AuthorizationPolicy policy = new AuthorizationPolicy(new AuthorizationProperties());
+        Jwt jwt = AuthorizationPolicyTest.jwt(List.of("gateway_admin_realm", "offline_access", "uma_authorization"),
+                Map.of("linqra-gateway-client", Map.of("roles", List.of("gateway_admin")),
+                        "account", Map.of("roles", List.of("manage-account", "view-profile"))));
+        long roles = policy.roleMask(jwt);
+        String uri = CONTEXT + "/api/product/products/P1";
+        int pathStart = CONTEXT.length();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        int granted = 0;
+        for (int i = 0; i < decisions; i++) {
+            granted += policy.allows("GET", uri, pathStart, roles) ? 1 : 0;
+            granted += claimWalk(jwt) ? 1 : 0;
+        }
+        long start = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < decisions; i++) {
+            granted += policy.allows("GET", uri, pathStart, roles) ? 1 : 0;
+        }
+        double compiledNanos = (threads.getCurrentThreadCpuTime() - start) / (double) decisions;
+
+        start = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < decisions; i++) {
+            granted += claimWalk(jwt) ? 1 : 0;
+        }
+        double walkNanos = (threads.getCurrentThreadCpuTime() - start) / (double) decisions;
+
+        System.out.printf("AuthorizationPolicy: %.1f ns per decision over %d decisions (%d granted); "
+                + "claim walk %.1f ns (%.0fx)%n", compiledNanos, decisions, granted, walkNanos,
+                walkNanos / compiledNanos);
+    }
+
+    /**
+     * The role check the filter made per request before the policy: two claim-map lookups and list scans.
+     */
+    @SuppressWarnings("unchecked")
+    private static boolean claimWalk(Jwt jwt) {
+        Map<String, Object> realmAccess = jwt.getClaimAsMap("realm_access");
+        boolean hasRealmRole = realmAccess != null
+                && ((List<String>) realmAccess.get("roles")).contains("gateway_admin_realm");
+        Map<String, Object> resourceAccess = jwt.getClaimAsMap("resource_access");
+        boolean hasClientRole = resourceAccess != null && resourceAccess.containsKey("linqra-gateway-client")
+                && ((Map<String, List<String>>) resourceAccess.get("linqra-gateway-client")).get("roles")
+                .contains("gateway_admin");
+        return hasRealmRole && hasClientRole;
+    }
+}
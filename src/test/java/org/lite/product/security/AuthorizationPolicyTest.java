@@ -0,0 +1,124 @@
+package org.lite.product.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks of the {@link AuthorizationPolicy}: path patterns match as documented, the default rules grant exactly the
+ * tokens the gateway's role check granted before, the first matching rule decides, unmatched requests are refused,
+ * and deciding a request allocates nothing.
+ */
+class AuthorizationPolicyTest {
+
+    private static final String CONTEXT = "/r/product-service";
+    private static final int DECISIONS = 200_000;
+
+    @Test
+    void pathsMatch() {
+        CompiledPathPattern products = CompiledPathPattern.compile("/api/product/products/{id}");
+        assertTrue(products.matches(CONTEXT + "/api/product/products/P1", CONTEXT.length()), "{id} matches a segment");
+        assertTrue(products.matches(CONTEXT + "/api/product/products/P1/", CONTEXT.length()),
+                "a trailing slash is ignored");
+        assertFalse(products.matches(CONTEXT + "/api/product/products", CONTEXT.length()), "{id} needs a segment");
+        assertFalse(products.matches(CONTEXT + "/api/product/products/P1/x", CONTEXT.length()), "{id} is one segment");
+        assertFalse(products.matches(CONTEXT + "/api/product/productsX/P1", CONTEXT.length()), "literals match whole");
+
+        CompiledPathPattern any = CompiledPathPattern.compile("/api/**/stream");
+        assertTrue(any.matches("/api/stream", 0), "** matches no segments");
+        assertTrue(any.matches("/api/product/changes/stream", 0), "** matches several segments");
+        assertFalse(any.matches("/api/product/changes", 0), "segments after ** must match");
+        assertTrue(CompiledPathPattern.compile("/**").matches("/", 0), "/** matches the root");
+        assertTrue(CompiledPathPattern.compile("/").matches("", 0), "/ matches an empty path");
+        assertThrows(IllegalArgumentException.class, () -> CompiledPathPattern.compile("/api/*.json"),
+                "partial wildcards are refused");
+    }
+
+    @Test
+    void defaultRulesKeepGatewayCheck() {
+        AuthorizationPolicy policy = new AuthorizationPolicy(new AuthorizationProperties());
+        long admin = policy.roleMask(jwt(List.of("gateway_admin_realm"), Map.of("linqra-gateway-client",
+                Map.of("roles", List.of("gateway_admin")))));
+        long realmOnly = policy.roleMask(jwt(List.of("gateway_admin_realm", "offline_access"), Map.of()));
+        long clientOnly = policy.roleMask(jwt(List.of(), Map.of("linqra-gateway-client",
+                Map.of("roles", List.of("gateway_admin")))));
+        long otherClient = policy.roleMask(jwt(List.of("gateway_admin_realm"), Map.of("another-client",
+                Map.of("roles", List.of("gateway_admin")))));
+        long noClaims = policy.roleMask(new Jwt("t", Instant.now(), Instant.now().plusSeconds(60),
+                Map.of("alg", "RS256"), Map.of("sub", "gateway")));
+
+        for (String method : List.of("GET", "POST", "DELETE")) {
+            String uri = CONTEXT + "/api/product/products/P1";
+            assertTrue(policy.allows(method, uri, CONTEXT.length(), admin), "both roles grant " + method);
+            assertFalse(policy.allows(method, uri, CONTEXT.length(), realmOnly), "the realm role alone is refused");
+            assertFalse(policy.allows(method, uri, CONTEXT.length(), clientOnly), "the client role alone is refused");
+            assertFalse(policy.allows(method, uri, CONTEXT.length(), otherClient), "another client's role is refused");
+            assertFalse(policy.allows(method, uri, CONTEXT.length(), noClaims), "a token without roles is refused");
+        }
+        assertTrue(policy.allows("GET", CONTEXT + "/health", CONTEXT.length(), admin), "the rules cover every path");
+    }
+
+    @Test
+    void firstMatchingRuleDecides() {
+        AuthorizationProperties properties = new AuthorizationProperties();
+        AuthorizationProperties.Rule reads = new AuthorizationProperties.Rule();
+        reads.setPath("/api/product/products/**");
+        reads.setMethods(List.of("get", "HEAD"));
+        reads.setRoles(List.of("realm:catalog_reader"));
+        AuthorizationProperties.Rule open = new AuthorizationProperties.Rule();
+        open.setPath("/health");
+        open.setRoles(List.of());
+        AuthorizationProperties.Rule writes = new AuthorizationProperties.Rule();
+        writes.setPath("/api/product/products/**");
+        properties.setRules(List.of(reads, open, writes));
+        AuthorizationPolicy policy = new AuthorizationPolicy(properties);
+
+        long reader = policy.roleMask(jwt(List.of("catalog_reader"), Map.of()));
+        String uri = CONTEXT + "/api/product/products/P1";
+        assertTrue(policy.allows("GET", uri, CONTEXT.length(), reader), "a reader may read");
+        assertFalse(policy.allows("PUT", uri, CONTEXT.length(), reader), "a write falls through to the admin rule");
+        assertTrue(policy.allows("GET", CONTEXT + "/health", CONTEXT.length(), 0),
+                "a rule without roles takes any token");
+        assertFalse(policy.allows("GET", CONTEXT + "/api/product/changes", CONTEXT.length(), reader),
+                "a request no rule matches is refused");
+        assertFalse(policy.allows("BREW", uri, CONTEXT.length(), reader), "an unknown method is refused");
+    }
+
+    @Test
+    void decisionsAllocateNothing() {
+        AuthorizationPolicy policy = new AuthorizationPolicy(new AuthorizationProperties());
+        long roles = policy.roleMask(jwt(List.of("gateway_admin_realm"), Map.of("linqra-gateway-client",
+                Map.of("roles", List.of("gateway_admin")))));
+        String uri = CONTEXT + "/api/product/products/P1";
+        int pathStart = CONTEXT.length();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        int granted = 0;
+        for (int i = 0; i < DECISIONS; i++) {
+            granted += policy.allows("GET", uri, pathStart, roles) ? 1 : 0;
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < DECISIONS; i++) {
+            granted += policy.allows("GET", uri, pathStart, roles) ? 1 : 0;
+        }
+        // The counter's own bookkeeping may show up as a few bytes, but nothing per decision
+        long bytes = threads.getCurrentThreadAllocatedBytes() - allocated;
+        assertEquals(DECISIONS * 2, granted, "every decision grants the admin token");
+        assertTrue(bytes < 1_024, DECISIONS + " decisions allocate nothing, allocated " + bytes + " bytes");
+    }
+
+    static Jwt jwt(List<String> realmRoles, Map<String, Object> resourceAccess) {
+        return new Jwt("token", Instant.now(), Instant.now().plusSeconds(300), Map.of("alg", "RS256"),
+                Map.of("sub", "gateway", "realm_access", Map.of("roles", realmRoles),
+                        "resource_access", resourceAccess));
+    }
+}
@@ -0,0 +1,126 @@
+package org.lite.product.security;
+
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The {@link CachingJwtDecoder} must change no outcome: cached tokens decode to the same claims, are rejected once
+ * they expire, tampered tokens are rejected, and {@code invalidateAll} empties the cache, including of tokens whose
+ * verification was still running when it was called.
+ */
+class CachingJwtDecoderTest {
+
+    private static RSAKey key;
+
+    private TestTokens.SettableClock clock;
+    private JwtDecoder plain;
+    private CachingJwtDecoder cached;
+
+    @BeforeAll
+    static void generateKey() throws Exception {
+        key = new RSAKeyGenerator(2048).keyID("test").generate();
+    }
+
+    @BeforeEach
+    void createDecoders() {
+        clock = new TestTokens.SettableClock();
+        OAuth2TokenValidator<Jwt> validator = TestTokens.validator(clock);
+        plain = TestTokens.decoder(key, validator);
+        cached = new CachingJwtDecoder(TestTokens.decoder(key, validator), validator,
+                new AuthorizationPolicy(new AuthorizationProperties()), new JwtCacheProperties());
+    }
+
+    @Test
+    void cachedTokensDecodeToSameClaims() throws Exception {
+        String token = TestTokens.token(key, "gateway", Duration.ofMinutes(5));
+        cached.decode(token);
+        assertEquals(plain.decode(token).getClaims(), cached.decode(token).getClaims(),
+                "a cached token decodes to the same claims");
+        assertEquals(1, cached.metrics().get("jwt.cacheHits"), "a token sent again is a hit");
+    }
+
+    @Test
+    void tamperedTokensAreRejected() throws Exception {
+        String token = TestTokens.token(key, "gateway", Duration.ofMinutes(5));
+        cached.decode(token);
+        String tampered = token.substring(0, token.length() - 4) + (token.endsWith("AAAA") ? "BBBB" : "AAAA");
+        assertThrows(JwtException.class, () -> cached.decode(tampered),
+                "a tampered copy of a cached token is rejected");
+    }
+
+    @Test
+    void expiredTokensAreRejected() throws Exception {
+        String token = TestTokens.token(key, "gateway", Duration.ofMinutes(5));
+        cached.decode(token);
+        clock.advance(Duration.ofMinutes(6));
+        assertThrows(JwtException.class, () -> plain.decode(token), "an expired token is rejected without the cache");
+        assertThrows(JwtException.class, () -> cached.decode(token), "an expired token is rejected from the cache");
+        assertEquals(0, cached.metrics().get("jwt.cachedTokens"), "an expired token is dropped from the cache");
+    }
+
+    @Test
+    void verificationsRunningDuringInvalidateAllAreNotServed() throws Exception {
+        OAuth2TokenValidator<Jwt> validator = TestTokens.validator(clock);
+        JwtDecoder oldKeys = TestTokens.decoder(key, validator);
+        CountDownLatch verifying = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        AtomicBoolean hold = new AtomicBoolean(true);
+        // Verifies the first token against the old keys, and returns only after invalidateAll has cleared the cache
+        JwtDecoder slow = token -> {
+            if (hold.getAndSet(false)) {
+                verifying.countDown();
+                try {
+                    invalidated.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return oldKeys.decode(token);
+        };
+        CachingJwtDecoder decoder = new CachingJwtDecoder(slow, validator,
+                new AuthorizationPolicy(new AuthorizationProperties()), new JwtCacheProperties());
+        String token = TestTokens.token(key, "gateway", Duration.ofHours(1));
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<RoleMaskedJwt> racing = executor.submit(() -> decoder.decode(token));
+            verifying.await();
+            decoder.invalidateAll();
+            invalidated.countDown();
+            racing.get();
+        }
+        decoder.decode(token);
+        assertEquals(0, decoder.metrics().get("jwt.cacheHits"),
+                "a token verified before invalidateAll is not served after it");
+        assertEquals(2, decoder.metrics().get("jwt.cacheMisses"), "the token is verified again");
+        decoder.decode(token);
+        assertEquals(1, decoder.metrics().get("jwt.cacheHits"), "the token verified again is cached as usual");
+    }
+
+    @Test
+    void invalidateAllVerifiesAgain() throws Exception {
+        String token = TestTokens.token(key, "gateway", Duration.ofHours(1));
+        cached.decode(token);
+        cached.invalidateAll();
+        double misses = cached.metrics().get("jwt.cacheMisses");
+        cached.decode(token);
+        assertEquals(misses + 1, cached.metrics().get("jwt.cacheMisses"),
+                "invalidateAll makes the next decode verify again");
+    }
+}
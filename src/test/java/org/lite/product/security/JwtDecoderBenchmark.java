@@ -0,0 +1,71 @@
+package org.lite.product.security;
+
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-request CPU cost of token verification with and without the {@link CachingJwtDecoder}, for one token sent
+ * over and over (the gateway's service token) and for a rotating set of distinct tokens, using an RS256 key like
+ * the authorization server's. {@code CachingJwtDecoderTest} checks that the cache changes no outcome. Run it from
+ * the test classpath:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.lite.product.security.JwtDecoderBenchmark -Dexec.args="[decodes] [distinct tokens]"
+ * </pre>
+ */
+public final class JwtDecoderBenchmark {
+
+    private JwtDecoderBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int decodes = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int distinct = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+
+        RSAKey key = new RSAKeyGenerator(2048).keyID("benchmark").generate();
+        OAuth2TokenValidator<Jwt> validator = TestTokens.validator(new TestTokens.SettableClock());
+        AuthorizationPolicy policy = new AuthorizationPolicy(new AuthorizationProperties());
+        JwtDecoder plain = TestTokens.decoder(key, validator);
+        JwtDecoder cached = new CachingJwtDecoder(TestTokens.decoder(key, validator), validator, policy,
+                new JwtCacheProperties());
+        List<String> serviceToken = List.of(TestTokens.token(key, "gateway", Duration.ofHours(1)));
+        List<String> userTokens = new ArrayList<>();
+        for (int i = 0; i < distinct; i++) {
+            userTokens.add(TestTokens.token(key, "user-" + i, Duration.ofHours(1)));
+        }
+
+        System.out.printf("%-22s %-12s %14s %12s%n", "tokens", "decoder", "CPU us/decode", "decodes/s");
+        for (List<String> tokens : List.of(serviceToken, userTokens)) {
+            String label = tokens.size() == 1 ? "one service token" : tokens.size() + " distinct tokens";
+            double before = measure(plain, tokens, decodes);
+            double after = measure(cached, tokens, decodes);
+            System.out.printf("%-22s %-12s %14.2f %12.0f%n", label, "nimbus", before, 1_000_000 / before);
+            System.out.printf("%-22s %-12s %14.2f %12.0f   %.0fx less CPU%n", label, "cached", after,
+                    1_000_000 / after, before / after);
+        }
+    }
+
+    /**
+     * CPU microseconds per decode on this thread, after a warm-up of the same length.
+     */
+    private static double measure(JwtDecoder decoder, List<String> tokens, int decodes) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < decodes; i++) {
+            decoder.decode(tokens.get(i % tokens.size()));
+        }
+        long start = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < decodes; i++) {
+            decoder.decode(tokens.get(i % tokens.size()));
+        }
+        return (threads.getCurrentThreadCpuTime() - start) / 1_000.0 / decodes;
+    }
+}
@@ -0,0 +1,79 @@
+package org.lite.product.security;
+
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The {@link PrefetchingJwkSource} must hold the signing keys as soon as it is created, so tokens are verified from
+ * the first request, and must still start when the authorization server is down.
+ */
+class PrefetchingJwkSourceTest {
+
+    private HttpServer server;
+    private RSAKey key;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        key = new RSAKeyGenerator(2048).keyID("k1").generate();
+        byte[] keys = new JWKSet(key.toPublicJWK()).toString().getBytes(StandardCharsets.UTF_8);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/certs", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, keys.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(keys);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void keysAreFetchedBeforeFirstUse() {
+        PrefetchingJwkSource source = new PrefetchingJwkSource(uri("/certs"), new JwtCacheProperties());
+        try {
+            JWKSelector selector = new JWKSelector(new JWKMatcher.Builder().keyID("k1").build());
+            assertEquals(1, source.get(selector, null).size(), "the key is known once the source is created");
+            assertEquals(1, source.metrics().get("jwt.jwkFetches"), "the keys were fetched once");
+            assertEquals(0, source.metrics().get("jwt.unknownKeyIds"), "no lookup missed the key");
+        } finally {
+            source.close();
+        }
+    }
+
+    @Test
+    void startsWithoutKeysWhenFetchFails() {
+        PrefetchingJwkSource source = new PrefetchingJwkSource(uri("/missing"), new JwtCacheProperties());
+        try {
+            JWKSelector selector = new JWKSelector(new JWKMatcher.Builder().keyID("k1").build());
+            assertTrue(source.get(selector, null).isEmpty(), "no keys are known when the fetch failed");
+            assertEquals(1, source.metrics().get("jwt.jwkFailedFetches"), "the failed fetch is counted");
+        } finally {
+            source.close();
+        }
+    }
+
+    private String uri(String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+}
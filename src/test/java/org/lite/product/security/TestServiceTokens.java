@@ -0,0 +1,56 @@
+package org.lite.product.security;
+
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.oauth2.client.InMemoryOAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+
+import java.time.Instant;
+
+/**
+ * {@link ServiceTokenProvider}s for tests of the calls the service makes on its own behalf, without an
+ * authorization server.
+ */
+public final class TestServiceTokens {
+
+    private TestServiceTokens() {
+    }
+
+    /**
+     * A provider without client registrations, as when none are configured.
+     */
+    public static ServiceTokenProvider none() {
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        return new ServiceTokenProvider(beans.getBeanProvider(ClientRegistrationRepository.class),
+                beans.getBeanProvider(OAuth2AuthorizedClientService.class));
+    }
+
+    /**
+     * A provider with one {@code client_credentials} registration that already holds a current token, so none is
+     * requested from the authorization server.
+     */
+    public static ServiceTokenProvider issuing(String registrationId, String clientId, String token) {
+        ClientRegistration registration = ClientRegistration.withRegistrationId(registrationId)
+                .clientId(clientId)
+                .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+                .tokenUri("http://localhost/token")
+                .build();
+        InMemoryClientRegistrationRepository registrations = new InMemoryClientRegistrationRepository(registration);
+        InMemoryOAuth2AuthorizedClientService authorizedClients = new InMemoryOAuth2AuthorizedClientService(registrations);
+        authorizedClients.saveAuthorizedClient(new OAuth2AuthorizedClient(registration, "product-service",
+                new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, token, Instant.now(),
+                        Instant.now().plusSeconds(3600))), new TestingAuthenticationToken("product-service", null));
+
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        beans.registerSingleton("clientRegistrations", registrations);
+        beans.registerSingleton("authorizedClients", authorizedClients);
+        return new ServiceTokenProvider(beans.getBeanProvider(ClientRegistrationRepository.class),
+                beans.getBeanProvider(OAuth2AuthorizedClientService.class));
+    }
+}
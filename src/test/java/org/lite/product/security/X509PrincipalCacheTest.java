@@ -0,0 +1,75 @@
+package org.lite.product.security;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lite.product.tls.TestCertificates;
+import org.lite.product.tls.TlsProperties;
+
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A client certificate's principal is its most specific CN, or its whole subject DN when it has no CN, and is kept
+ * for at most {@code max-cached-principals} certificates.
+ */
+class X509PrincipalCacheTest {
+
+    private static final String GATEWAY_DN = "CN=catalog-gateway, OU=Gateways, O=Lite, CN=Linqra";
+    private static final String NO_CN_DN = "OU=Gateways, O=Lite";
+
+    @TempDir
+    static Path directory;
+
+    private static X509Certificate gateway;
+    private static X509Certificate withoutCn;
+
+    @BeforeAll
+    static void certificates() throws Exception {
+        KeyStore store = TestCertificates.keyStore(directory, GATEWAY_DN, NO_CN_DN);
+        gateway = TestCertificates.certificate(store, 0);
+        withoutCn = TestCertificates.certificate(store, 1);
+    }
+
+    @Test
+    void mostSpecificCommonNameIsThePrincipal() {
+        assertEquals("catalog-gateway", cache(10).extractPrincipal(gateway),
+                "the CN listed first in the DN is the most specific");
+        assertEquals("catalog-gateway", X509PrincipalCache.commonName("CN=catalog-gateway,OU=Gateways,CN=Linqra"),
+                "the most specific CN wins over a less specific one");
+        assertEquals("Linqra", X509PrincipalCache.commonName("OU=Gateways,CN=Linqra"),
+                "a CN that is not the most specific RDN is still found");
+    }
+
+    @Test
+    void dnWithoutCommonNameIsThePrincipal() {
+        assertEquals("OU=Gateways,O=Lite", cache(10).extractPrincipal(withoutCn),
+                "a certificate without a CN is identified by its whole DN");
+        assertEquals("not a DN", X509PrincipalCache.commonName("not a DN"), "an unparseable DN is kept as it is");
+    }
+
+    @Test
+    void principalsBeyondTheCapAreNotKept() {
+        X509PrincipalCache cache = cache(1);
+        cache.extractPrincipal(gateway);
+        cache.extractPrincipal(gateway);
+        cache.extractPrincipal(withoutCn);
+        assertEquals("OU=Gateways,O=Lite", cache.extractPrincipal(withoutCn),
+                "a certificate beyond the cap still gets its principal");
+
+        Map<String, Double> metrics = cache.metrics();
+        assertEquals(1.0, metrics.get("x509.cachedPrincipals"), "only the first certificate is kept");
+        assertEquals(1.0, metrics.get("x509.principalHits"), "the kept certificate is served from the cache");
+        assertEquals(3.0, metrics.get("x509.principalMisses"), "the certificate beyond the cap is extracted each time");
+    }
+
+    private static X509PrincipalCache cache(int maxCachedPrincipals) {
+        TlsProperties properties = new TlsProperties();
+        properties.setMaxCachedPrincipals(maxCachedPrincipals);
+        return new X509PrincipalCache(properties);
+    }
+}
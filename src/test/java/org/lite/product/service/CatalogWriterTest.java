@@ -0,0 +1,249 @@
+package org.lite.product.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.lite.product.cache.ProductJsonCache;
+import org.lite.product.cache.ProductJsonCacheProperties;
+import org.lite.product.change.ChangeFeed;
+import org.lite.product.change.ChangeFeedProperties;
+import org.lite.product.index.ProductQueryIndex;
+import org.lite.product.index.ProductSearchIndex;
+import org.lite.product.model.ProductInfo;
+import org.lite.product.persistence.CatalogPersistence;
+import org.lite.product.persistence.CatalogPersistenceProperties;
+import org.lite.product.replication.ReplicationProperties;
+import org.lite.product.replication.ReplicationStamps;
+import org.lite.product.repository.ProductRepository;
+import org.lite.product.repository.ProductStorageEngine;
+import org.lite.product.version.CatalogVersions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Concurrency checks of the write path against every storage engine: many threads creating with generated IDs,
+ * incrementing one product through If-Match retry loops, and racing updates against deletes; and that a batch is
+ * logged with one fsync.
+ */
+class CatalogWriterTest {
+
+    private static final int THREADS = 16;
+    private static final int OPERATIONS = 500;
+
+    /**
+     * Persistence whose log appends fail while {@code failing} is set.
+     */
+    private static final class FailingPersistence extends CatalogPersistence {
+
+        volatile boolean failing;
+
+        FailingPersistence() {
+            super(new CatalogPersistenceProperties());
+        }
+
+        @Override
+        public void logThenApply(List<LoggedWrite> writes, Runnable apply) {
+            if (failing) {
+                throw new UncheckedIOException("Failed to persist catalog write", new IOException("disk full"));
+            }
+            super.logThenApply(writes, apply);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ProductStorageEngine.class)
+    void generatedIdsAreUnique(ProductStorageEngine engine) throws Exception {
+        ProductRepository repository = engine.create();
+        CatalogWriter writer = writer(repository, new CatalogVersions(), new CatalogPersistence(
+                new CatalogPersistenceProperties()));
+        // A client-chosen ID inside the first generated block must be skipped, not rejected
+        writer.create(product("P" + 100, "taken"));
+        int before = repository.size();
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        AtomicInteger refused = new AtomicInteger();
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                ProductInfo product = product(null, "generated");
+                if (writer.create(product).status() == 201) {
+                    ids.add(product.getId());
+                } else {
+                    refused.incrementAndGet();
+                }
+            }
+        });
+        assertEquals(0, refused.get(), "no create with a generated ID is refused");
+        assertEquals(THREADS * OPERATIONS, ids.size(), "every generated ID is distinct");
+        assertEquals(before + THREADS * OPERATIONS, repository.size(), "every create is stored");
+    }
+
+    @ParameterizedTest
+    @EnumSource(ProductStorageEngine.class)
+    void conditionalUpdatesLoseNothing(ProductStorageEngine engine) throws Exception {
+        ProductRepository repository = engine.create();
+        CatalogVersions versions = new CatalogVersions();
+        CatalogWriter writer = writer(repository, versions, new CatalogPersistence(new CatalogPersistenceProperties()));
+        int increments = OPERATIONS / 10;
+        ProductInfo counter = product("COUNTER", "counter");
+        counter.setAvailableQuantity(0);
+        writer.create(counter);
+        runConcurrently(thread -> {
+            for (int i = 0; i < increments; i++) {
+                while (true) {
+                    String etag = writer.etagOf("COUNTER");
+                    ProductInfo current = repository.get("COUNTER");
+                    ProductInfo next = product("COUNTER", "counter");
+                    next.setAvailableQuantity(current.getAvailableQuantity() + 1);
+                    if (writer.replace("COUNTER", next, etag).status() == 200) {
+                        break;
+                    }
+                }
+            }
+        });
+        assertEquals(THREADS * increments, repository.get("COUNTER").getAvailableQuantity(),
+                "If-Match retry loops lose no increments");
+    }
+
+    @ParameterizedTest
+    @EnumSource(ProductStorageEngine.class)
+    void deletesAreNotUndone(ProductStorageEngine engine) throws Exception {
+        ProductRepository repository = engine.create();
+        CatalogWriter writer = writer(repository, new CatalogVersions(), new CatalogPersistence(
+                new CatalogPersistenceProperties()));
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < OPERATIONS; i++) {
+            ids.add("RACE-" + i);
+            writer.create(product("RACE-" + i, "race"));
+        }
+        AtomicInteger deleted = new AtomicInteger();
+        runConcurrently(thread -> {
+            for (String id : ids) {
+                if (thread % 2 == 0) {
+                    if (writer.remove(id, null).status() == 204) {
+                        deleted.incrementAndGet();
+                    }
+                } else {
+                    writer.replace(id, product(id, "updated by " + thread), null);
+                }
+            }
+        });
+        assertEquals(ids.size(), deleted.get(), "each product is deleted exactly once");
+        assertTrue(ids.stream().allMatch(id -> repository.get(id) == null), "no update resurrects a deleted product");
+    }
+
+    @Test
+    void writesThatCannotBeLoggedAreNotApplied() {
+        ProductRepository repository = ProductStorageEngine.CONCURRENT_MAP.create();
+        CatalogVersions versions = new CatalogVersions();
+        FailingPersistence persistence = new FailingPersistence();
+        CatalogWriter writer = writer(repository, versions, persistence);
+        ProductInfo original = product("P1", "original");
+        writer.create(original);
+        long version = versions.versionOf("P1");
+
+        persistence.failing = true;
+        assertThrows(UncheckedIOException.class, () -> writer.create(product("P2", "new")));
+        assertNull(repository.get("P2"), "a create that cannot be logged is not stored");
+        assertThrows(UncheckedIOException.class, () -> writer.replace("P1", product("P1", "changed"), null));
+        assertEquals(original, repository.get("P1"), "an update that cannot be logged is not stored");
+        assertThrows(UncheckedIOException.class, () -> writer.remove("P1", null));
+        assertEquals(original, repository.get("P1"), "a delete that cannot be logged is not applied");
+        assertEquals(version, versions.versionOf("P1"), "a write that cannot be logged is not versioned");
+
+        persistence.failing = false;
+        assertEquals(201, writer.create(product("P2", "new")).status(), "the ID of a failed create stays free");
+    }
+
+    @Test
+    void batchesShareOneFsync(@TempDir Path directory) {
+        ProductRepository repository = ProductStorageEngine.CONCURRENT_MAP.create();
+        CatalogPersistenceProperties properties = new CatalogPersistenceProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+        CatalogPersistence persistence = new CatalogPersistence(properties);
+        persistence.open(repository);
+        try {
+            CatalogWriter writer = writer(repository, new CatalogVersions(), persistence);
+            List<CatalogWriter.Write> writes = new ArrayList<>();
+            for (int i = 0; i < OPERATIONS; i++) {
+                writes.add(CatalogWriter.Write.create(product("B" + i, "batch")));
+            }
+            double fsyncs = persistence.metrics().get("persistence.fsyncs");
+            List<CatalogWriter.WriteResult> results = writer.writeAll(writes, id -> true);
+            assertTrue(results.stream().allMatch(result -> result.status() == 201), "every create is stored");
+            assertEquals(OPERATIONS, repository.size(), "every create is applied");
+            assertEquals(fsyncs + 1, persistence.metrics().get("persistence.fsyncs"),
+                    "a batch of distinct products is made durable with one fsync");
+
+            List<CatalogWriter.WriteResult> ordered = writer.writeAll(List.of(
+                    CatalogWriter.Write.create(product("SAME", "first")),
+                    CatalogWriter.Write.replace("SAME", product("SAME", "second"), null),
+                    CatalogWriter.Write.remove("B0", null),
+                    CatalogWriter.Write.replace("B0", product("B0", "gone"), null)), id -> true);
+            assertEquals(List.of(201, 200, 204, 404), ordered.stream().map(CatalogWriter.WriteResult::status).toList(),
+                    "writes to the same product in one batch see the ones before them");
+            assertEquals("second", repository.get("SAME").getName(), "the later write to a product wins");
+            assertNull(repository.get("B0"), "a deleted product stays deleted");
+        } finally {
+            persistence.close();
+        }
+    }
+
+    private static CatalogWriter writer(ProductRepository repository, CatalogVersions versions,
+                                        CatalogPersistence persistence) {
+        return new CatalogWriter(repository, List.of(new ProductQueryIndex(), new ProductSearchIndex()), persistence,
+                new ProductJsonCache(new ObjectMapper(), new ProductJsonCacheProperties()), versions,
+                new ChangeFeed(versions, new ChangeFeedProperties()),
+                new ReplicationStamps(new ReplicationProperties()));
+    }
+
+    private interface ThreadBody {
+        void run(int thread) throws Exception;
+    }
+
+    private static void runConcurrently(ThreadBody body) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    body.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ProductInfo product(String id, String name) {
+        return new ProductInfo(id, name, "description of " + name, new BigDecimal("9.99"), "Category",
+                false, null, null, null);
+    }
+}
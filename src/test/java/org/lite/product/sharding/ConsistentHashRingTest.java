@@ -0,0 +1,111 @@
+package org.lite.product.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks of the {@link ConsistentHashRing}: keys must spread evenly over the members, every instance must build the
+ * same ring from the same members in any order, and a member joining or leaving must move only about 1/N of the
+ * keys, all of them to or from that member.
+ */
+class ConsistentHashRingTest {
+
+    private static final int MEMBER_COUNT = 5;
+    private static final int VIRTUAL_NODES = 128;
+    private static final int KEY_COUNT = 200_000;
+
+    private static final List<String> MEMBER_URIS = new ArrayList<>();
+    private static final List<String> PRODUCT_IDS = new ArrayList<>(KEY_COUNT);
+
+    static {
+        for (int i = 0; i < MEMBER_COUNT; i++) {
+            MEMBER_URIS.add("https://10.0.0." + (i + 1) + ":8443");
+        }
+        for (int i = 0; i < KEY_COUNT; i++) {
+            PRODUCT_IDS.add("P" + i + (i % 2 == 0 ? "" : "-n" + (i % 7)));
+        }
+    }
+
+    @Test
+    void keysSpreadEvenly() {
+        ConsistentHashRing ring = ConsistentHashRing.of(MEMBER_URIS, VIRTUAL_NODES);
+        Map<String, Integer> counts = new HashMap<>();
+        for (String key : PRODUCT_IDS) {
+            counts.merge(ring.ownerOf(key), 1, Integer::sum);
+        }
+        double mean = (double) PRODUCT_IDS.size() / ring.members().size();
+        double totalShare = 0;
+        for (String member : ring.members()) {
+            int count = counts.getOrDefault(member, 0);
+            assertTrue(Math.abs(count - mean) <= mean * 0.25, member + " owns within 25% of an even share of the "
+                    + "keys, owns " + count + " of an expected " + Math.round(mean));
+            double share = ring.share(member);
+            assertEquals((double) count / PRODUCT_IDS.size(), share, 0.02,
+                    member + " key space share matches the share of keys it owns");
+            totalShare += share;
+        }
+        assertEquals(1.0, totalShare, 1e-9, "the members' shares cover the key space exactly");
+    }
+
+    @Test
+    void ringIsDeterministic() {
+        ConsistentHashRing ring = ConsistentHashRing.of(MEMBER_URIS, VIRTUAL_NODES);
+        List<String> shuffled = new ArrayList<>(MEMBER_URIS);
+        Collections.shuffle(shuffled, new Random(42));
+        ConsistentHashRing rebuilt = ConsistentHashRing.of(shuffled, VIRTUAL_NODES);
+        for (String key : PRODUCT_IDS) {
+            assertEquals(ring.ownerOf(key), rebuilt.ownerOf(key), "every instance agrees on the owner of " + key);
+        }
+        assertEquals(0.0, ring.movedShare(rebuilt), "identical rings move nothing");
+    }
+
+    @Test
+    void joiningMovesLittle() {
+        List<String> joined = new ArrayList<>(MEMBER_URIS);
+        joined.add("https://10.0.0.99:8443");
+        assertMovesLittle(ConsistentHashRing.of(MEMBER_URIS, VIRTUAL_NODES),
+                ConsistentHashRing.of(joined, VIRTUAL_NODES));
+    }
+
+    @Test
+    void leavingMovesLittle() {
+        List<String> left = new ArrayList<>(MEMBER_URIS);
+        left.remove(MEMBER_COUNT / 2);
+        assertMovesLittle(ConsistentHashRing.of(MEMBER_URIS, VIRTUAL_NODES),
+                ConsistentHashRing.of(left, VIRTUAL_NODES));
+    }
+
+    private static void assertMovesLittle(ConsistentHashRing before, ConsistentHashRing after) {
+        List<String> added = new ArrayList<>(after.members());
+        added.removeAll(before.members());
+        List<String> removed = new ArrayList<>(before.members());
+        removed.removeAll(after.members());
+        String changed = added.isEmpty() ? removed.get(0) : added.get(0);
+
+        int moved = 0;
+        for (String key : PRODUCT_IDS) {
+            String from = before.ownerOf(key);
+            String to = after.ownerOf(key);
+            if (!from.equals(to)) {
+                moved++;
+                assertTrue(from.equals(changed) || to.equals(changed),
+                        key + " only moves to or from " + changed + ", moved from " + from + " to " + to);
+            }
+        }
+        double movedFraction = (double) moved / PRODUCT_IDS.size();
+        double expected = 1.0 / Math.max(before.members().size(), after.members().size());
+        assertTrue(movedFraction <= expected * 1.25, "about 1/N of the keys move: expected " + expected
+                + ", moved " + movedFraction);
+        assertEquals(movedFraction, before.movedShare(after), 0.02,
+                "moved key space share matches the share of keys moved");
+    }
+}
@@ -0,0 +1,127 @@
+package org.lite.product.sharding;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.lite.product.model.MultiGetResponse;
+import org.lite.product.replication.ReplicationProperties;
+import org.lite.product.security.ServiceTokenProvider;
+import org.lite.product.security.TestServiceTokens;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.cloud.client.discovery.simple.SimpleDiscoveryClient;
+import org.springframework.cloud.client.discovery.simple.SimpleDiscoveryProperties;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * {@value ShardForwarder#FORWARDED_HEADER} is only taken as coming from another shard when the caller holds the
+ * shards' own client token, since any client can send the header itself; and a shard answering a scatter-gather
+ * without products counts as failed rather than breaking the merge.
+ */
+class ShardForwarderTest {
+
+    private static final String PEER_CLIENT = "product-service-shards";
+    private static final String OTHER_SHARD = "http://shard-2:8080";
+
+    private final RestTemplate restTemplate = new RestTemplate();
+    private final MockRestServiceServer otherShard = MockRestServiceServer.bindTo(restTemplate).build();
+    private final ShardForwarder forwarder = forwarder(restTemplate);
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void headerFromPeerShardIsHonoured() {
+        request(true, Map.of("sub", "service-account", "azp", PEER_CLIENT));
+        assertTrue(forwarder.isShardRequest(), "a peer shard's token with the header marks a shard request");
+
+        request(true, Map.of("sub", "service-account", "client_id", PEER_CLIENT));
+        assertTrue(forwarder.isShardRequest(), "the client may also be named in client_id");
+    }
+
+    @Test
+    void headerFromAnyoneElseIsIgnored() {
+        request(true, Map.of("sub", "user", "azp", "storefront"));
+        assertFalse(forwarder.isShardRequest(), "a user's token with the header is not a shard request");
+
+        request(true, null);
+        assertFalse(forwarder.isShardRequest(), "an unauthenticated request with the header is not a shard request");
+
+        request(false, Map.of("sub", "service-account", "azp", PEER_CLIENT));
+        assertFalse(forwarder.isShardRequest(), "a peer shard's token without the header is not a shard request");
+    }
+
+    @Test
+    void shardAnswersWithoutProductsFailTheScatter() {
+        request(false, Map.of("sub", "user", "azp", "storefront"));
+        Map<String, Map<String, String>> query = Map.of(OTHER_SHARD, Map.of("ids", "P1"));
+
+        otherShard.expect(requestTo(OTHER_SHARD + "/api/product/products?ids=P1"))
+                .andExpect(header(ShardForwarder.FORWARDED_HEADER, "http://shard-1:8080"))
+                .andExpect(header(HttpHeaders.AUTHORIZATION, "Bearer shard-token"))
+                .andRespond(withSuccess("{\"products\":[]}", MediaType.APPLICATION_JSON));
+        assertNotNull(forwarder.scatter(query, "/api/product/products", MultiGetResponse.class,
+                MultiGetResponse::getProducts), "a shard answering with its products is merged");
+        otherShard.verify();
+
+        otherShard.reset();
+        otherShard.expect(requestTo(OTHER_SHARD + "/api/product/products?ids=P1"))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+        assertNull(forwarder.scatter(query, "/api/product/products", MultiGetResponse.class,
+                MultiGetResponse::getProducts), "a shard answering without a product list fails the scatter");
+
+        otherShard.reset();
+        otherShard.expect(requestTo(OTHER_SHARD + "/api/product/products?ids=P1"))
+                .andRespond(withSuccess());
+        assertNull(forwarder.scatter(query, "/api/product/products", MultiGetResponse.class,
+                MultiGetResponse::getProducts), "a shard answering without a body fails the scatter");
+    }
+
+    private static void request(boolean forwardedHeader, Map<String, Object> claims) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/product/products");
+        if (forwardedHeader) {
+            request.addHeader(ShardForwarder.FORWARDED_HEADER, OTHER_SHARD);
+        }
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        SecurityContextHolder.clearContext();
+        if (claims != null) {
+            Jwt jwt = new Jwt("token", Instant.now(), Instant.now().plusSeconds(300), Map.of("alg", "RS256"), claims);
+            SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(jwt, null));
+        }
+    }
+
+    private static ShardForwarder forwarder(RestTemplate restTemplate) {
+        ShardingProperties properties = new ShardingProperties();
+        properties.setEnabled(true);
+        properties.setSelfUri("http://shard-1:8080");
+        properties.setClientRegistrationId("shards");
+        ServiceTokenProvider serviceTokens = TestServiceTokens.issuing("shards", PEER_CLIENT, "shard-token");
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        ShardRouter router = new ShardRouter(properties, new ReplicationProperties(),
+                new SimpleDiscoveryClient(new SimpleDiscoveryProperties()), beans.getBeanProvider(Registration.class),
+                null, null, restTemplate, serviceTokens, "");
+        return new ShardForwarder(properties, router, restTemplate, serviceTokens);
+    }
+}
@@ -0,0 +1,105 @@
+package org.lite.product.threading;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrent-request capacity of a running instance: sends bursts of requests that all start at once, and reports
+ * how long each burst took to finish, its latency percentiles and how many requests failed. Run it against an
+ * instance whose requests wait on a slow downstream, once with {@code VIRTUAL_THREADS_ENABLED=false} and once with
+ * {@code true}, to compare the two thread modes. {@code {n}} in the URL is replaced by the request's number modulo
+ * {@code distinct}; the bearer token, if any, is read from the {@code BEARER_TOKEN} environment variable.
+ * {@code VirtualThreadMonitorTest} checks the thread and pinning metrics. Run it from the test classpath:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.lite.product.threading.RequestCapacityBenchmark \
+ *     -Dexec.args="url [concurrent requests] [bursts] [distinct]"
+ * </pre>
+ */
+public final class RequestCapacityBenchmark {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    private RequestCapacityBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("usage: RequestCapacityBenchmark url [concurrent requests] [bursts] [distinct]");
+            return;
+        }
+        String url = args[0];
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int bursts = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int distinct = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+        String token = System.getenv("BEARER_TOKEN");
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .connectTimeout(Duration.ofSeconds(10))
+                     .executor(executor)
+                     .build()) {
+            System.out.printf("%-6s %10s %10s %10s %10s %10s %8s%n",
+                    "burst", "requests", "wall ms", "req/s", "p50 ms", "p99 ms", "failed");
+            for (int burst = 1; burst <= bursts; burst++) {
+                run(client, executor, url, token, concurrency, distinct, burst);
+            }
+        }
+    }
+
+    private static void run(HttpClient client, ExecutorService executor, String url, String token,
+                            int concurrency, int distinct, int burst) throws Exception {
+        CountDownLatch go = new CountDownLatch(1);
+        AtomicInteger failed = new AtomicInteger();
+        List<Future<Long>> latencies = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            HttpRequest.Builder request = HttpRequest.newBuilder(
+                            URI.create(url.replace("{n}", Integer.toString(1 + i % distinct))))
+                    .timeout(REQUEST_TIMEOUT)
+                    .GET();
+            if (token != null && !token.isBlank()) {
+                request.header("Authorization", "Bearer " + token.trim());
+            }
+            latencies.add(executor.submit(() -> {
+                go.await();
+                long start = System.nanoTime();
+                try {
+                    HttpResponse<Void> response = client.send(request.build(), HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() >= 400) {
+                        failed.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                }
+                return System.nanoTime() - start;
+            }));
+        }
+        long start = System.nanoTime();
+        go.countDown();
+        long[] sorted = new long[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            sorted[i] = latencies.get(i).get(REQUEST_TIMEOUT.toSeconds() * 2, TimeUnit.SECONDS);
+        }
+        double wallMillis = (System.nanoTime() - start) / 1_000_000.0;
+        Arrays.sort(sorted);
+        System.out.printf("%-6d %10d %10.0f %10.0f %10.0f %10.0f %8d%n", burst, concurrency, wallMillis,
+                concurrency / (wallMillis / 1_000), percentile(sorted, 0.50), percentile(sorted, 0.99), failed.get());
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,73 @@
+package org.lite.product.threading;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The monitor must see a virtual thread that blocks inside {@code synchronized}, and report the thread mode and
+ * thread count the health endpoint shows.
+ */
+class VirtualThreadMonitorTest {
+
+    private static final long PINNED_MILLIS = 100;
+    // JFR hands events to the stream about once a second
+    private static final long WAIT_MILLIS = 15_000;
+
+    private final Object monitor = new Object();
+
+    @Test
+    void pinnedVirtualThreadsAreCounted() throws Exception {
+        ThreadingProperties properties = new ThreadingProperties();
+        properties.setPinningThreshold(Duration.ofMillis(PINNED_MILLIS / 2));
+        VirtualThreadMonitor threads = new VirtualThreadMonitor(properties, true);
+        try {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WAIT_MILLIS);
+            // The stream starts asynchronously, so keep pinning until it has seen one
+            while (threads.metrics().get("threads.pinned") == 0 && System.nanoTime() < deadline) {
+                Thread.ofVirtual().start(this::sleepPinned).join();
+                Thread.sleep(200);
+            }
+
+            Map<String, Double> metrics = threads.metrics();
+            assertTrue(metrics.get("threads.pinned") >= 1, "a virtual thread sleeping in synchronized is counted");
+            assertEquals(1.0, metrics.get("threads.pinnedSites"), "the pinned place is recorded once");
+            assertTrue(metrics.get("threads.longestPinnedMs") >= PINNED_MILLIS * 0.9,
+                    "the longest pinned period covers the sleep");
+            assertEquals(1.0, metrics.get("threads.virtualRequestThreads"), "the request thread mode is reported");
+            assertTrue(metrics.get("threads.platform") >= 1, "live platform threads are counted");
+        } finally {
+            threads.close();
+        }
+    }
+
+    @Test
+    void disabledMonitorCountsNothing() throws Exception {
+        ThreadingProperties properties = new ThreadingProperties();
+        properties.setPinningMonitor(false);
+        VirtualThreadMonitor threads = new VirtualThreadMonitor(properties, false);
+        try {
+            Thread.ofVirtual().start(this::sleepPinned).join();
+            Map<String, Double> metrics = threads.metrics();
+            assertEquals(0.0, metrics.get("threads.pinned"), "a disabled monitor counts nothing");
+            assertEquals(0.0, metrics.get("threads.virtualRequestThreads"), "platform request threads are reported");
+        } finally {
+            threads.close();
+        }
+    }
+
+    private void sleepPinned() {
+        synchronized (monitor) {
+            try {
+                Thread.sleep(PINNED_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.lite.product.tls;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.TrustManagerFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Handshakes between a client engine and a metered server engine, passing their records through buffers, are
+ * counted as full or resumed the way a server connection's would be: a client with a new session cache makes a full
+ * handshake, and one that kept the session of an earlier handshake resumes it.
+ */
+class MeteredSslEngineTest {
+
+    @TempDir
+    static Path directory;
+
+    private static KeyStore serverKeys;
+    private static SSLContext server;
+
+    private final HandshakeMetrics metrics = new HandshakeMetrics();
+
+    @BeforeAll
+    static void serverContext() throws Exception {
+        serverKeys = TestCertificates.keyStore(directory, "CN=localhost");
+        KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(serverKeys, TestCertificates.PASSWORD);
+        server = SSLContext.getInstance("TLS");
+        server.init(keyManagers.getKeyManagers(), null, null);
+    }
+
+    @Test
+    void newClientSessionsAreFullHandshakes() throws Exception {
+        handshake(client());
+        handshake(client());
+
+        Map<String, Double> counts = metrics.metrics();
+        assertEquals(2.0, counts.get("tls.fullHandshakes"), "each new client session is a full handshake");
+        assertEquals(0.0, counts.get("tls.resumedHandshakes"), "no session was resumed");
+        assertEquals(2.0, counts.get("tls.openConnections"), "both connections are still open");
+    }
+
+    @Test
+    void keptClientSessionsAreResumed() throws Exception {
+        SSLContext client = client();
+        handshake(client);
+        // The resumed session's creation time has to be older than the engine, to the millisecond
+        Thread.sleep(5);
+        handshake(client);
+        handshake(client);
+
+        Map<String, Double> counts = metrics.metrics();
+        assertEquals(1.0, counts.get("tls.fullHandshakes"), "only the first handshake is a full one");
+        assertEquals(2.0, counts.get("tls.resumedHandshakes"), "later handshakes resume the client's session");
+        assertEquals(2.0 / 3, counts.get("tls.resumedRatio"), 1e-9, "two of three handshakes were resumed");
+    }
+
+    @Test
+    void closingBeforeTheHandshakeFinishesCountsAsFailed() {
+        SSLEngine engine = new MeteredSslEngine(server.createSSLEngine(), metrics);
+        engine.setUseClientMode(false);
+        engine.closeOutbound();
+
+        Map<String, Double> counts = metrics.metrics();
+        assertEquals(1.0, counts.get("tls.failedHandshakes"), "an engine closed mid-handshake failed");
+        assertEquals(0.0, counts.get("tls.handshakes"), "a failed handshake is neither full nor resumed");
+    }
+
+    /**
+     * A client context trusting the server's certificate, with its own session cache.
+     */
+    private static SSLContext client() throws Exception {
+        TrustManagerFactory trust = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trust.init(serverKeys);
+        SSLContext client = SSLContext.getInstance("TLS");
+        client.init(null, trust.getTrustManagers(), null);
+        return client;
+    }
+
+    /**
+     * Runs a handshake between a new client engine and a new metered server engine until neither has anything left
+     * to send, which includes the session ticket the server sends once the handshake is done.
+     */
+    private void handshake(SSLContext client) throws Exception {
+        SSLEngine clientEngine = client.createSSLEngine("localhost", 8443);
+        clientEngine.setUseClientMode(true);
+        SSLEngine serverEngine = new MeteredSslEngine(server.createSSLEngine(), metrics);
+        serverEngine.setUseClientMode(false);
+        clientEngine.beginHandshake();
+        serverEngine.beginHandshake();
+
+        int bufferSize = clientEngine.getSession().getPacketBufferSize() * 4;
+        ByteBuffer toServer = ByteBuffer.allocate(bufferSize);
+        ByteBuffer toClient = ByteBuffer.allocate(bufferSize);
+        ByteBuffer empty = ByteBuffer.allocate(0);
+        ByteBuffer application = ByteBuffer.allocate(bufferSize);
+        for (int round = 0; round < 100; round++) {
+            int sent = clientEngine.wrap(empty, toServer).bytesProduced()
+                    + serverEngine.wrap(empty, toClient).bytesProduced();
+            runTasks(clientEngine);
+            runTasks(serverEngine);
+            toServer.flip();
+            serverEngine.unwrap(toServer, application);
+            toServer.compact();
+            toClient.flip();
+            clientEngine.unwrap(toClient, application);
+            toClient.compact();
+            runTasks(clientEngine);
+            runTasks(serverEngine);
+            application.clear();
+            if (sent == 0 && toServer.position() == 0 && toClient.position() == 0
+                    && clientEngine.getHandshakeStatus() == HandshakeStatus.NOT_HANDSHAKING
+                    && serverEngine.getHandshakeStatus() == HandshakeStatus.NOT_HANDSHAKING) {
+                return;
+            }
+        }
+        fail("the handshake did not complete");
+    }
+
+    private static void runTasks(SSLEngine engine) {
+        for (Runnable task = engine.getDelegatedTask(); task != null; task = engine.getDelegatedTask()) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.lite.product.tls;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+
+/**
+ * Self-signed certificates made with the JDK's {@code keytool}, for the TLS and client certificate tests.
+ */
+public final class TestCertificates {
+
+    public static final char[] PASSWORD = "changeit".toCharArray();
+
+    private TestCertificates() {
+    }
+
+    /**
+     * A PKCS12 store in {@code directory} holding an EC key pair and its self-signed certificate for each subject
+     * DN, under the aliases {@code 0}, {@code 1} and so on.
+     */
+    public static KeyStore keyStore(Path directory, String... subjectDns) throws Exception {
+        Path file = Files.createTempFile(directory, "keys", ".p12");
+        Files.delete(file);
+        for (int i = 0; i < subjectDns.length; i++) {
+            keytool(file, String.valueOf(i), subjectDns[i]);
+        }
+        KeyStore store = KeyStore.getInstance("PKCS12");
+        try (InputStream in = Files.newInputStream(file)) {
+            store.load(in, PASSWORD);
+        }
+        return store;
+    }
+
+    public static X509Certificate certificate(KeyStore store, int alias) throws GeneralSecurityException {
+        return (X509Certificate) store.getCertificate(String.valueOf(alias));
+    }
+
+    private static void keytool(Path file, String alias, String subjectDn) throws IOException, InterruptedException {
+        Process keytool = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "keytool").toString(),
+                "-genkeypair", "-keystore", file.toString(), "-storetype", "PKCS12",
+                "-storepass", new String(PASSWORD), "-alias", alias, "-dname", subjectDn,
+                "-keyalg", "EC", "-groupname", "secp256r1", "-validity", "2")
+                .redirectErrorStream(true)
+                .start();
+        String output = new String(keytool.getInputStream().readAllBytes());
+        if (keytool.waitFor() != 0) {
+            throw new IllegalStateException("keytool failed for " + subjectDn + ": " + output);
+        }
+    }
+}
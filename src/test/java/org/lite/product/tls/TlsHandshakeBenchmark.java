@@ -0,0 +1,186 @@
+package org.lite.product.tls;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cost of TLS connection setup against a running instance, and a check that its handshake metrics tell the cases
+ * apart. It sends the same request three ways: on a new connection with a new TLS session each time (a full
+ * handshake), on a new connection resuming the client's previous session, and all on one kept-alive connection. For
+ * each it reports the time per request and how the instance's {@code tls.*} metrics in {@code /health} moved. The
+ * client certificate and trusted certificates come from the usual {@code javax.net.ssl.keyStore} and
+ * {@code javax.net.ssl.trustStore} system properties, and the bearer token, if any, from the {@code BEARER_TOKEN}
+ * environment variable. {@code MeteredSslEngineTest} checks the counting over an in-memory engine pair. Run it from
+ * the test classpath:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Djavax.net.ssl.keyStore=client.p12 -Djavax.net.ssl.keyStorePassword=... \
+ *     -Djavax.net.ssl.trustStore=truststore.jks -Djavax.net.ssl.trustStorePassword=... \
+ *     -Dexec.mainClass=org.lite.product.tls.TlsHandshakeBenchmark \
+ *     -Dexec.args="https://host:port/r/product-service [requests]"
+ * </pre>
+ */
+public final class TlsHandshakeBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private TlsHandshakeBenchmark() {
+    }
+
+    private enum Mode {
+        NEW_SESSION("new session each request"),
+        RESUMED_SESSION("resumed session"),
+        KEPT_ALIVE("one kept-alive connection");
+
+        private final String label;
+
+        Mode(String label) {
+            this.label = label;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("usage: TlsHandshakeBenchmark https://host:port/context-path [requests]");
+            return;
+        }
+        String base = args[0];
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        String token = System.getenv("BEARER_TOKEN");
+        HttpRequest health = request(base + "/health", token);
+
+        System.out.printf("%-27s %8s %10s %8s %8s %8s %12s%n",
+                "connections", "requests", "ms/req", "full", "resumed", "failed", "handshake ms");
+        try (HttpClient observer = client(sslContext())) {
+            for (Mode mode : Mode.values()) {
+                // Warm up this mode's code paths on both sides before measuring
+                run(mode, health, Math.max(1, requests / 10));
+                Map<String, Double> before = tlsMetrics(observer, health);
+                long start = System.nanoTime();
+                run(mode, health, requests);
+                double millisPerRequest = (System.nanoTime() - start) / 1_000_000.0 / requests;
+                Map<String, Double> after = tlsMetrics(observer, health);
+                double full = after.get("tls.fullHandshakes") - before.get("tls.fullHandshakes");
+                double resumed = after.get("tls.resumedHandshakes") - before.get("tls.resumedHandshakes");
+                double failed = after.get("tls.failedHandshakes") - before.get("tls.failedHandshakes");
+                System.out.printf("%-27s %8d %10.2f %8.0f %8.0f %8.0f %12s%n", mode.label, requests,
+                        millisPerRequest, full, resumed, failed, meanHandshakeMillis(mode, before, after));
+            }
+        }
+    }
+
+    private static void run(Mode mode, HttpRequest request, int requests) throws Exception {
+        if (mode == Mode.KEPT_ALIVE) {
+            try (HttpClient client = client(sslContext())) {
+                for (int i = 0; i < requests; i++) {
+                    send(client, request);
+                }
+            }
+            return;
+        }
+        // A client per request opens a connection per request; a shared SSLContext lets the client resume sessions
+        SSLContext shared = sslContext();
+        for (int i = 0; i < requests; i++) {
+            try (HttpClient client = client(mode == Mode.NEW_SESSION ? sslContext() : shared)) {
+                send(client, request);
+            }
+        }
+    }
+
+    /**
+     * The mean time of the handshakes this mode made, from the change in the cumulative means and counts.
+     */
+    private static String meanHandshakeMillis(Mode mode, Map<String, Double> before, Map<String, Double> after) {
+        String kind = switch (mode) {
+            case NEW_SESSION -> "full";
+            case RESUMED_SESSION -> "resumed";
+            case KEPT_ALIVE -> null;
+        };
+        if (kind == null) {
+            return "-";
+        }
+        String count = "tls." + kind + "Handshakes";
+        String mean = "tls." + kind + "HandshakeMeanMs";
+        double handshakes = after.get(count) - before.get(count);
+        double totalMillis = after.get(mean) * after.get(count) - before.get(mean) * before.get(count);
+        return handshakes > 0 ? String.format("%.2f", totalMillis / handshakes) : "-";
+    }
+
+    private static void send(HttpClient client, HttpRequest request) throws Exception {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException(request.uri() + " answered " + response.statusCode());
+        }
+    }
+
+    private static Map<String, Double> tlsMetrics(HttpClient client, HttpRequest health) throws Exception {
+        HttpResponse<String> response = client.send(health, HttpResponse.BodyHandlers.ofString());
+        JsonNode metrics = MAPPER.readTree(response.body()).path("metrics");
+        Map<String, Double> tls = new LinkedHashMap<>();
+        metrics.fields().forEachRemaining(field -> {
+            if (field.getKey().startsWith("tls.")) {
+                tls.put(field.getKey(), field.getValue().asDouble());
+            }
+        });
+        if (!tls.containsKey("tls.fullHandshakes")) {
+            throw new IllegalStateException("The instance reports no TLS handshake metrics: " + response.body());
+        }
+        return tls;
+    }
+
+    private static HttpRequest request(String url, String token) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30)).GET();
+        if (token != null && !token.isBlank()) {
+            request.header("Authorization", "Bearer " + token.trim());
+        }
+        return request.build();
+    }
+
+    private static HttpClient client(SSLContext sslContext) {
+        return HttpClient.newBuilder().sslContext(sslContext).connectTimeout(Duration.ofSeconds(10)).build();
+    }
+
+    /**
+     * A new context, and so a new client session cache, from the javax.net.ssl system properties.
+     */
+    private static SSLContext sslContext() throws Exception {
+        KeyManagerFactory keys = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keys.init(store("javax.net.ssl.keyStore"), password("javax.net.ssl.keyStore"));
+        TrustManagerFactory trust = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trust.init(store("javax.net.ssl.trustStore"));
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(keys.getKeyManagers(), trust.getTrustManagers(), null);
+        return context;
+    }
+
+    private static KeyStore store(String property) throws Exception {
+        String path = System.getProperty(property);
+        if (path == null) {
+            return null;
+        }
+        KeyStore store = KeyStore.getInstance(System.getProperty(property + "Type", KeyStore.getDefaultType()));
+        try (InputStream in = new FileInputStream(path)) {
+            store.load(in, password(property));
+        }
+        return store;
+    }
+
+    private static char[] password(String property) {
+        String password = System.getProperty(property + "Password");
+        return password == null ? null : password.toCharArray();
+    }
+}